@@ -20,6 +20,8 @@ public class RdfImportHelper {
     private final RdfTripleImportHelper rdfTripleImportHelper;
     private boolean failOnFirstError = false;
     private boolean disableWorkQueues = false;
+    private int threadCount = 1;
+    private boolean resume = false;
 
     public void setFailOnFirstError(boolean failOnFirstError) {
         this.failOnFirstError = failOnFirstError;
@@ -29,6 +31,14 @@ public class RdfImportHelper {
         this.disableWorkQueues = disableWorkQueues;
     }
 
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
     @Inject
     public RdfImportHelper(
             Graph graph,
@@ -53,6 +63,8 @@ public class RdfImportHelper {
         LOGGER.info("Importing file: %s", inputFile.getAbsolutePath());
         rdfTripleImportHelper.setFailOnFirstError(failOnFirstError);
         rdfTripleImportHelper.setDisableWorkQueues(disableWorkQueues);
+        rdfTripleImportHelper.setThreadCount(threadCount);
+        rdfTripleImportHelper.setResume(resume);
         rdfXmlImportHelper.setDisableWorkQueues(disableWorkQueues);
         if (inputFile.getName().endsWith(".nt")) {
             importFileRdfTriple(inputFile, timeZone, priority, visibilitySource, user, authorizations);
@@ -21,7 +21,11 @@ import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class RdfTripleImportHelper {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(RdfTripleImportHelper.class);
@@ -30,9 +34,20 @@ public class RdfTripleImportHelper {
     private final VisibilityTranslator visibilityTranslator;
     private WorkQueueRepository workQueueRepository;
     private final MetricsManager metricsManager;
-    private static final Map<String, Visibility> visibilityCache = new HashMap<>();
+    private static final String CHECKPOINT_FILE_SUFFIX = ".checkpoint";
+    private static final String EDGE_SUBJECT_PREFIX = "EDGE:";
+    private static final String VERTEX_SUBJECT_PREFIX = "VERTEX:";
+    private static final long PROGRESS_REPORT_INTERVAL_MILLIS = 10 * 1000;
+    private static final int PARTITION_QUEUE_SIZE = 1000;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final long DEFAULT_CHECKPOINT_INTERVAL = 100000;
+    private static final Map<String, Visibility> visibilityCache = new ConcurrentHashMap<>();
     private boolean failOnFirstError = false;
     private boolean disableWorkQueues;
+    private int threadCount = 1;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private long checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+    private boolean resume;
 
     public void setFailOnFirstError(boolean failOnFirstError) {
         this.failOnFirstError = failOnFirstError;
@@ -42,6 +57,34 @@ public class RdfTripleImportHelper {
         this.disableWorkQueues = disableWorkQueues;
     }
 
+    /**
+     * Number of partitions that import lines concurrently. Lines are assigned to a partition by subject.
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Number of saved elements each partition collects before flushing the graph and pushing them on to the work queue.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Number of lines between checkpoints. Zero disables checkpoints.
+     */
+    public void setCheckpointInterval(long checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Skip the lines recorded in the checkpoint file left behind by a failed import of the same file.
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
     @Inject
     public RdfTripleImportHelper(
             Graph graph,
@@ -66,7 +109,7 @@ public class RdfTripleImportHelper {
         importRdfTriple(
                 inputFile.getName(),
                 new FileInputStream(inputFile),
-                inputFile.getParentFile(),
+                inputFile.getAbsoluteFile().getParentFile(),
                 timeZone,
                 Priority.NORMAL,
                 defaultVisibilitySource,
@@ -86,7 +129,7 @@ public class RdfTripleImportHelper {
         importRdfTriple(
                 inputFile.getName(),
                 new FileInputStream(inputFile),
-                inputFile.getParentFile(),
+                inputFile.getAbsoluteFile().getParentFile(),
                 timeZone,
                 priority,
                 defaultVisibilitySource,
@@ -105,48 +148,309 @@ public class RdfTripleImportHelper {
             User user,
             Authorizations authorizations
     ) throws IOException {
+        File checkpointFile = workingDir == null ? null : new File(workingDir, sourceFileName + CHECKPOINT_FILE_SUFFIX);
         long startTime = System.currentTimeMillis();
-        Set<Element> elements = new HashSet<>();
+        long resumeAfterLineNum = resume ? readCheckpoint(checkpointFile) : 0;
+        if (resumeAfterLineNum > 0) {
+            LOGGER.info("resuming RDF import of %s after line %d", sourceFileName, resumeAfterLineNum);
+        }
+
         BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        int lineNum = 1;
+        long lineNum = 1;
         String line;
-        ImportContext ctx = null;
         String meterMetricName = metricsManager.getNamePrefix(this);
         Meter meter = metricsManager.meter(meterMetricName);
+        long lastReportTime = startTime;
+        TripleImport tripleImport = new TripleImport(
+                sourceFileName,
+                workingDir,
+                timeZone,
+                priority,
+                defaultVisibilitySource,
+                user,
+                authorizations
+        );
         try {
             while ((line = reader.readLine()) != null) {
-                LOGGER.debug("Importing RDF triple on line: %d. Rate: %.2f / sec", lineNum, meter.getMeanRate());
+                if (lineNum > resumeAfterLineNum) {
+                    tripleImport.importLine(lineNum, line);
+                    if (checkpointFile != null && checkpointInterval > 0 && lineNum % checkpointInterval == 0) {
+                        tripleImport.awaitApplied();
+                        writeCheckpoint(checkpointFile, lineNum);
+                    }
+                }
+
+                ++lineNum;
+                meter.mark();
+                long now = System.currentTimeMillis();
+                if (now - lastReportTime >= PROGRESS_REPORT_INTERVAL_MILLIS) {
+                    LOGGER.info("Importing RDF triple on line: %d. Rate: %.2f / sec", lineNum, meter.getMeanRate());
+                    lastReportTime = now;
+                }
+            }
+            tripleImport.awaitApplied();
+        } finally {
+            tripleImport.close();
+            metricsManager.removeMetric(meterMetricName);
+        }
+
+        if (checkpointFile != null && checkpointFile.exists() && !checkpointFile.delete()) {
+            LOGGER.warn("could not delete checkpoint file: %s", checkpointFile.getAbsolutePath());
+        }
+
+        long endTime = System.currentTimeMillis();
+        LOGGER.debug("RDF %s imported in %dms", sourceFileName, endTime - startTime);
+    }
+
+    private long readCheckpoint(File checkpointFile) throws IOException {
+        if (checkpointFile == null || !checkpointFile.exists()) {
+            return 0;
+        }
+        String checkpoint = new String(Files.readAllBytes(checkpointFile.toPath()), StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(checkpoint);
+        } catch (NumberFormatException ex) {
+            throw new VisalloException("Invalid RDF import checkpoint file: " + checkpointFile.getAbsolutePath(), ex);
+        }
+    }
+
+    private void writeCheckpoint(File checkpointFile, long lineNum) {
+        try {
+            Files.write(checkpointFile.toPath(), Long.toString(lineNum).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            LOGGER.warn("could not write checkpoint file: %s", checkpointFile.getAbsolutePath(), ex);
+        }
+    }
+
+    private void flushAndPushElements(Set<Element> elements, Priority priority) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        graph.flush();
+        if (!disableWorkQueues) {
+            LOGGER.debug("pushing %d elements from RDF import on to work queue", elements.size());
+            workQueueRepository.pushElements(elements, priority);
+        }
+        elements.clear();
+    }
+
+    /**
+     * Returns the id of the element a line is about, ignoring any visibility, so that all lines for one
+     * subject are imported by the same partition in file order.
+     */
+    @VisibleForTesting
+    static String getSubject(String line) {
+        int end = line.indexOf('>');
+        if (line.charAt(0) != '<' || end < 0) {
+            return line;
+        }
+        String subject = line.substring(1, end);
+        int visibilityStart = subject.lastIndexOf('[');
+        if (visibilityStart > 0 && subject.endsWith("]")) {
+            subject = subject.substring(0, visibilityStart);
+        }
+        if (subject.startsWith(VERTEX_SUBJECT_PREFIX)) {
+            subject = subject.substring(VERTEX_SUBJECT_PREFIX.length());
+        }
+        return subject;
+    }
+
+    /**
+     * State for one import run. Lines are partitioned by subject and each partition applies its lines in
+     * file order, keeping one open {@link ImportContext} and a bounded batch of saved elements that is
+     * pushed to the work queue whenever it fills up.
+     */
+    private class TripleImport implements Closeable {
+        private final String sourceFileName;
+        private final File workingDir;
+        private final TimeZone timeZone;
+        private final Priority priority;
+        private final String defaultVisibilitySource;
+        private final User user;
+        private final Authorizations authorizations;
+        private final List<ImportPartition> partitions = new ArrayList<>();
+        private final ExecutorService executorService;
+        private final AtomicReference<VisalloException> firstError = new AtomicReference<>();
+        private Boolean lastLineWasEdgeSubject;
+
+        TripleImport(
+                String sourceFileName,
+                File workingDir,
+                TimeZone timeZone,
+                Priority priority,
+                String defaultVisibilitySource,
+                User user,
+                Authorizations authorizations
+        ) {
+            this.sourceFileName = sourceFileName;
+            this.workingDir = workingDir;
+            this.timeZone = timeZone;
+            this.priority = priority;
+            this.defaultVisibilitySource = defaultVisibilitySource;
+            this.user = user;
+            this.authorizations = authorizations;
+
+            int partitionCount = Math.max(1, threadCount);
+            for (int i = 0; i < partitionCount; i++) {
+                partitions.add(new ImportPartition());
+            }
+            if (partitionCount > 1) {
+                executorService = Executors.newFixedThreadPool(partitionCount);
+                for (ImportPartition partition : partitions) {
+                    executorService.execute(partition);
+                }
+            } else {
+                executorService = null;
+            }
+        }
+
+        void importLine(long lineNum, String line) {
+            throwIfFailed();
+            if (line.length() == 0 || line.charAt(0) == '#') {
+                return;
+            }
+            if (executorService == null) {
+                partitions.get(0).importLine(lineNum, line);
+                return;
+            }
+
+            // Properties on edges need the edge to exist, but the edge may be created by another partition, so
+            // wait for everything before a run of edge subject lines (and after it) to be applied first.
+            String subject = getSubject(line);
+            boolean isEdgeSubject = subject.startsWith(EDGE_SUBJECT_PREFIX);
+            if (lastLineWasEdgeSubject != null && lastLineWasEdgeSubject != isEdgeSubject) {
+                awaitApplied();
+            }
+            lastLineWasEdgeSubject = isEdgeSubject;
+
+            ImportPartition partition = partitions.get((subject.hashCode() & Integer.MAX_VALUE) % partitions.size());
+            partition.put(new QueuedLine(lineNum, line, null));
+        }
+
+        /**
+         * Blocks until every line handed to {@link #importLine(long, String)} is saved, flushed and pushed.
+         */
+        void awaitApplied() {
+            if (executorService == null) {
+                partitions.get(0).applyPending();
+                throwIfFailed();
+                return;
+            }
+
+            CountDownLatch latch = new CountDownLatch(partitions.size());
+            for (ImportPartition partition : partitions) {
+                partition.put(new QueuedLine(0, null, latch));
+            }
+            try {
+                latch.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new VisalloException("Interrupted waiting for RDF import partitions", ex);
+            }
+            throwIfFailed();
+        }
+
+        private void throwIfFailed() {
+            VisalloException error = firstError.get();
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+
+        private class ImportPartition implements Runnable {
+            private final BlockingQueue<QueuedLine> queue = new ArrayBlockingQueue<>(PARTITION_QUEUE_SIZE);
+            private final Set<Element> elements = new HashSet<>();
+            private ImportContext ctx;
+
+            void put(QueuedLine queuedLine) {
+                try {
+                    while (!queue.offer(queuedLine, 1, TimeUnit.SECONDS)) {
+                        throwIfFailed();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new VisalloException("Interrupted queuing RDF triple line", ex);
+                }
+            }
+
+            @Override
+            public void run() {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        QueuedLine queuedLine = queue.take();
+                        // after an error the queue is still drained so the reader never blocks on a full queue or
+                        // on a latch which is never counted down
+                        try {
+                            if (queuedLine.appliedLatch != null) {
+                                applyPending();
+                            } else if (firstError.get() == null) {
+                                importLine(queuedLine.lineNum, queuedLine.line);
+                            }
+                        } catch (Throwable e) {
+                            String errMsg = queuedLine.appliedLatch != null
+                                    ? "Error saving RDF import elements"
+                                    : String.format("Error importing RDF triple on line: %d", queuedLine.lineNum);
+                            firstError.compareAndSet(null, new VisalloException(errMsg, e));
+                        } finally {
+                            if (queuedLine.appliedLatch != null) {
+                                queuedLine.appliedLatch.countDown();
+                            }
+                        }
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            void importLine(long lineNum, String line) {
                 try {
                     ctx = importRdfLine(ctx, elements, sourceFileName, line, workingDir, timeZone, defaultVisibilitySource, user, authorizations);
                 } catch (Exception e) {
                     String errMsg = String.format("Error importing RDF triple on line: %d. %s", lineNum, e.getMessage());
                     if (failOnFirstError) {
-                        throw new VisalloException(errMsg);
+                        firstError.compareAndSet(null, new VisalloException(errMsg, e));
+                        return;
                     } else {
                         // log the error and continue processing
                         LOGGER.error(errMsg, e);
                     }
                 }
-
-                ++lineNum;
-                meter.mark();
+                if (elements.size() >= batchSize) {
+                    flushAndPushElements(elements, priority);
+                }
             }
-            if (ctx != null) {
-                elements.add(ctx.save(authorizations));
+
+            void applyPending() {
+                try {
+                    if (ctx != null) {
+                        elements.add(ctx.save(authorizations));
+                        ctx = null;
+                    }
+                    flushAndPushElements(elements, priority);
+                } catch (Exception e) {
+                    firstError.compareAndSet(null, new VisalloException("Error saving RDF import elements", e));
+                }
             }
-        } finally {
-            metricsManager.removeMetric(meterMetricName);
         }
+    }
 
-        graph.flush();
+    private static class QueuedLine {
+        private final long lineNum;
+        private final String line;
+        private final CountDownLatch appliedLatch;
 
-        if (!disableWorkQueues) {
-            LOGGER.info("pushing %d elements from RDF import on to work queue", elements.size());
-            workQueueRepository.pushElements(elements, priority);
+        QueuedLine(long lineNum, String line, CountDownLatch appliedLatch) {
+            this.lineNum = lineNum;
+            this.line = line;
+            this.appliedLatch = appliedLatch;
         }
-
-        long endTime = System.currentTimeMillis();
-        LOGGER.debug("RDF %s imported in %dms", sourceFileName, endTime - startTime);
     }
 
     @VisibleForTesting
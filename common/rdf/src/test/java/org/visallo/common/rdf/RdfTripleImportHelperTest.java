@@ -1,5 +1,6 @@
 package org.visallo.common.rdf;
 
+import com.codahale.metrics.Meter;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.json.JSONObject;
@@ -12,8 +13,10 @@ import org.vertexium.*;
 import org.vertexium.inmemory.InMemoryGraph;
 import org.vertexium.property.StreamingPropertyValue;
 import org.vertexium.type.GeoPoint;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.workQueue.Priority;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.security.DirectVisibilityTranslator;
 import org.visallo.core.security.VisalloVisibility;
@@ -30,9 +33,14 @@ import java.util.*;
 import java.util.function.Function;
 
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.vertexium.util.IterableUtils.count;
 import static org.vertexium.util.IterableUtils.toList;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -477,6 +485,100 @@ public class RdfTripleImportHelperTest {
         );
     }
 
+    @Test
+    public void testGetSubject() {
+        assertEquals("v1", RdfTripleImportHelper.getSubject("<v1> <http://visallo.org/test#prop1> \"hello world\""));
+        assertEquals("v1", RdfTripleImportHelper.getSubject("<v1[A]> <" + VisalloRdfTriple.LABEL_CONCEPT_TYPE + "> <http://visallo.org/test#type1>"));
+        assertEquals("v1", RdfTripleImportHelper.getSubject("<VERTEX:v1> <http://visallo.org/test#prop1> \"hello world\""));
+        assertEquals("EDGE:edge1", RdfTripleImportHelper.getSubject("<EDGE:edge1> <http://visallo.org/test#prop1> \"hello world\""));
+    }
+
+    @Test
+    public void testImportFileInParallelPushesBatches() throws IOException {
+        File file = File.createTempFile(RdfTripleImportHelperTest.class.getName(), ".nt");
+        file.deleteOnExit();
+        StringBuilder rdf = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            rdf.append("<p").append(i).append("> <" + VisalloRdfTriple.LABEL_CONCEPT_TYPE + "> <http://visallo.org/test#type1>\n");
+            rdf.append("<p").append(i).append("> <http://visallo.org/test#prop1> \"value ").append(i).append("\"\n");
+        }
+        rdf.append("<p0> <http://visallo.org/test#edgeLabel1:e1> <p1>\n");
+        rdf.append("<EDGE:e1> <http://visallo.org/test#prop1> \"edge value\"\n");
+        FileUtils.writeStringToFile(file, rdf.toString());
+
+        List<Integer> pushedBatchSizes = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            pushedBatchSizes.add(count((Iterable<?>) invocation.getArguments()[0]));
+            return null;
+        }).when(workQueueRepository).pushElements(any(Iterable.class), eq(Priority.NORMAL));
+        when(metricsManager.meter(anyString())).thenReturn(new Meter());
+
+        rdfTripleImportHelper.setThreadCount(4);
+        rdfTripleImportHelper.setBatchSize(10);
+        rdfTripleImportHelper.importRdfTriple(file, timeZone, Priority.NORMAL, defaultVisibilitySource, user, authorizations);
+
+        for (int i = 0; i < 100; i++) {
+            Vertex v = graph.getVertex("p" + i, authorizations);
+            assertNotNull("Could not find vertex p" + i, v);
+            assertEquals("http://visallo.org/test#type1", VisalloProperties.CONCEPT_TYPE.getPropertyValue(v));
+            assertEquals("value " + i, v.getPropertyValue(VisalloRdfTriple.MULTI_KEY, "http://visallo.org/test#prop1"));
+        }
+        Edge e1 = graph.getEdge("e1", authorizations);
+        assertEquals("edge value", e1.getPropertyValue(VisalloRdfTriple.MULTI_KEY, "http://visallo.org/test#prop1"));
+
+        assertTrue("expected more than one batch but found " + pushedBatchSizes.size(), pushedBatchSizes.size() > 1);
+        int pushedElementCount = 0;
+        for (Integer pushedBatchSize : pushedBatchSizes) {
+            assertTrue("batch too large: " + pushedBatchSize, pushedBatchSize <= 10);
+            pushedElementCount += pushedBatchSize;
+        }
+        assertEquals(102, pushedElementCount);
+        assertFalse(new File(file.getParentFile(), file.getName() + ".checkpoint").exists());
+    }
+
+    @Test
+    public void testResumeFromCheckpoint() throws IOException {
+        File file = File.createTempFile(RdfTripleImportHelperTest.class.getName(), ".nt");
+        file.deleteOnExit();
+        FileUtils.writeStringToFile(file, "<skipped> <" + VisalloRdfTriple.LABEL_CONCEPT_TYPE + "> <http://visallo.org/test#type1>\n" +
+                "<resumed> <" + VisalloRdfTriple.LABEL_CONCEPT_TYPE + "> <http://visallo.org/test#type1>\n");
+        File checkpointFile = new File(file.getParentFile(), file.getName() + ".checkpoint");
+        checkpointFile.deleteOnExit();
+        FileUtils.writeStringToFile(checkpointFile, "1");
+        when(metricsManager.meter(anyString())).thenReturn(new Meter());
+
+        rdfTripleImportHelper.setResume(true);
+        rdfTripleImportHelper.importRdfTriple(file, timeZone, Priority.NORMAL, defaultVisibilitySource, user, authorizations);
+
+        assertNull(graph.getVertex("skipped", authorizations));
+        assertNotNull(graph.getVertex("resumed", authorizations));
+        assertFalse(checkpointFile.exists());
+    }
+
+    @Test(timeout = 30000)
+    public void testImportFileInParallelFailsWhenPushFails() throws IOException {
+        File file = File.createTempFile(RdfTripleImportHelperTest.class.getName(), ".nt");
+        file.deleteOnExit();
+        StringBuilder rdf = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            rdf.append("<f").append(i).append("> <" + VisalloRdfTriple.LABEL_CONCEPT_TYPE + "> <http://visallo.org/test#type1>\n");
+        }
+        FileUtils.writeStringToFile(file, rdf.toString());
+
+        doThrow(new RuntimeException("push failed"))
+                .when(workQueueRepository).pushElements(any(Iterable.class), eq(Priority.NORMAL));
+        when(metricsManager.meter(anyString())).thenReturn(new Meter());
+
+        rdfTripleImportHelper.setThreadCount(2);
+        rdfTripleImportHelper.setBatchSize(1);
+        try {
+            rdfTripleImportHelper.importRdfTriple(file, timeZone, Priority.NORMAL, defaultVisibilitySource, user, authorizations);
+            fail("expected the import to fail");
+        } catch (VisalloException ex) {
+            assertNotNull(ex.getCause());
+        }
+    }
+
     private void importRdfLine(String line) {
         Set<Element> elements = new HashSet<>();
         ImportContext ctx = rdfTripleImportHelper.importRdfLine(
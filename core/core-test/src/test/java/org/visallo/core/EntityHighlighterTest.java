@@ -24,6 +24,8 @@ import org.visallo.core.security.DirectVisibilityTranslator;
 import org.visallo.core.security.VisibilityTranslator;
 import org.visallo.core.user.User;
 
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -261,6 +263,48 @@ public class EntityHighlighterTest {
         assertHighlightedTextSame(expectedText, highlightText);
     }
 
+    @Test
+    public void testWriteHighlightedTextRange() throws Exception {
+        String text = "This is a test sentence";
+        List<OffsetItem> offsetItems = new ArrayList<>();
+        offsetItems.add(createMockOffsetItem(0, 4, "first"));
+        offsetItems.add(createMockOffsetItem(5, 9, "second"));
+        offsetItems.add(createMockOffsetItem(15, 23, "third"));
+
+        StringWriter out = new StringWriter();
+        EntityHighlighter.writeHighlightedText(new StringReader(text), offsetItems, 7, 18, out);
+        assertEquals("<span class=\"second\" data-info=\"{&quot;data&quot;:&quot;attribute&quot;}\"> a</span> test " +
+                        "<span class=\"third\" data-info=\"{&quot;data&quot;:&quot;attribute&quot;}\">sen</span>",
+                out.toString()
+        );
+    }
+
+    @Test
+    public void testGetHighlightedTextManyOverlaps() throws Exception {
+        StringBuilder text = new StringBuilder();
+        List<OffsetItem> offsetItems = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            text.append("word ");
+            offsetItems.add(createMockOffsetItem(i * 5, i * 5 + 4, "word"));
+            offsetItems.add(createMockOffsetItem(i * 5, i * 5 + 2, "overlap"));
+        }
+
+        String highlightedText = EntityHighlighter.getHighlightedText(text.toString(), offsetItems);
+        assertEquals(1000, Jsoup.parseBodyFragment(highlightedText).select("span.word").size());
+        assertEquals(0, Jsoup.parseBodyFragment(highlightedText).select("span.overlap").size());
+        assertEquals(2000, offsetItems.size());
+    }
+
+    private OffsetItem createMockOffsetItem(long start, long end, String cssClass) {
+        OffsetItem offsetItem = mock(VertexOffsetItem.class);
+        when(offsetItem.getStart()).thenReturn(start);
+        when(offsetItem.getEnd()).thenReturn(end);
+        when(offsetItem.getCssClasses()).thenReturn(asList(new String[]{cssClass}));
+        when(offsetItem.shouldHighlight()).thenReturn(true);
+        when(offsetItem.getInfoJson()).thenReturn(new JSONObject("{\"data\":\"attribute\"}"));
+        return offsetItem;
+    }
+
     private List<String> asList(String[] strings) {
         List<String> results = new ArrayList<>();
         Collections.addAll(results, strings);
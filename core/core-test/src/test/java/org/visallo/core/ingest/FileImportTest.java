@@ -7,6 +7,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.vertexium.Authorizations;
+import org.vertexium.Element;
 import org.vertexium.Graph;
 import org.vertexium.Property;
 import org.vertexium.Vertex;
@@ -15,6 +16,7 @@ import org.visallo.core.config.Configuration;
 import org.visallo.core.model.WorkQueueNames;
 import org.visallo.core.model.ontology.OntologyProperty;
 import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.properties.types.IntegerVisalloProperty;
 import org.visallo.core.model.workQueue.Priority;
 import org.visallo.core.model.workQueue.WorkQueueRepository;
@@ -33,7 +35,12 @@ import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.vertexium.util.IterableUtils.count;
 import static org.vertexium.util.IterableUtils.toList;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -166,6 +173,54 @@ public class FileImportTest {
         assertNotEquals(results.firstVertexId, results.secondVertexId);
     }
 
+    @Test
+    public void testImportDirectory() throws Exception {
+        File dataDir = java.nio.file.Files.createTempDirectory("fileImportTest").toFile();
+        try {
+            FileUtils.writeStringToFile(new File(dataDir, "a.txt"), "Hello World");
+            FileUtils.writeStringToFile(new File(dataDir, "b.txt"), "Hello World");
+            FileUtils.writeStringToFile(new File(dataDir, "c.txt"), "Goodbye World");
+            FileUtils.writeStringToFile(new File(dataDir, "d.txt"), "Hello Again");
+            FileUtils.writeStringToFile(new File(dataDir, ".hidden"), "Hidden");
+
+            FileImport.ImportDirectoryStatistics statistics = fileImport.importDirectory(dataDir, false, null, "", null, Priority.NORMAL, 2, 2, user, authorizations);
+            assertEquals(4, statistics.getTotalFileCount());
+            assertEquals(3, statistics.getImportedFileCount());
+            assertEquals(1, statistics.getDuplicateFileCount());
+            assertEquals(0, statistics.getFailedFileCount());
+            assertEquals(3, count(graph.getVertices(authorizations)));
+
+            statistics = fileImport.importDirectory(dataDir, false, null, "", null, Priority.NORMAL, 2, 10, user, authorizations);
+            assertEquals(0, statistics.getImportedFileCount());
+            assertEquals(4, statistics.getDuplicateFileCount());
+            assertEquals(3, count(graph.getVertices(authorizations)));
+        } finally {
+            FileUtils.deleteDirectory(dataDir);
+        }
+    }
+
+    @Test
+    public void testImportDirectoryQueuesDuplicatesWithinABatch() throws Exception {
+        File dataDir = java.nio.file.Files.createTempDirectory("fileImportTest").toFile();
+        try {
+            FileUtils.writeStringToFile(new File(dataDir, "a.txt"), "Hello World");
+            FileUtils.writeStringToFile(new File(dataDir, "b.txt"), "Hello World");
+            FileUtils.writeStringToFile(new File(dataDir, "c.txt"), "Goodbye World");
+
+            FileImport.ImportDirectoryStatistics statistics = fileImport.importDirectory(dataDir, true, null, "", null, Priority.NORMAL, 2, 10, user, authorizations);
+            assertEquals(2, statistics.getImportedFileCount());
+            assertEquals(1, statistics.getDuplicateFileCount());
+            verify(workQueueRepository, times(1)).pushGraphPropertyQueue(
+                    any(Element.class),
+                    eq(FileImport.MULTI_VALUE_KEY),
+                    eq(VisalloProperties.RAW.getPropertyName()),
+                    eq(Priority.NORMAL)
+            );
+        } finally {
+            FileUtils.deleteDirectory(dataDir);
+        }
+    }
+
     private ImportTwiceResults importFileTwice(boolean findExistingByFileHash) throws Exception {
         File testFile = File.createTempFile("test", "test");
         try {
@@ -0,0 +1,163 @@
+package org.visallo.core.ingest.cloud;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Vertex;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.ingest.FileImport;
+import org.visallo.core.model.longRunningProcess.LongRunningProcessRepository;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workspace.Workspace;
+import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.user.User;
+import org.visallo.web.clientapi.model.ClientApiImportProperty;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CloudImportLongRunningProcessWorkerTest {
+    private static final int RANGE_SIZE = 64 * 1024;
+    private InMemoryGraph graph;
+    private File sourceDir;
+    private Map<String, byte[]> importedFiles;
+
+    @Mock
+    private FileImport fileImport;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private WorkspaceRepository workspaceRepository;
+
+    @Mock
+    private LongRunningProcessRepository longRunningProcessRepository;
+
+    @Mock
+    private User user;
+
+    @Mock
+    private Workspace workspace;
+
+    @Before
+    public void before() throws Exception {
+        graph = InMemoryGraph.create();
+        sourceDir = Files.createTempDir();
+        importedFiles = new ConcurrentHashMap<>();
+        when(userRepository.findById("user1")).thenReturn(user);
+        when(workspaceRepository.findById("workspace1", user)).thenReturn(workspace);
+        when(fileImport.importFile(
+                any(File.class),
+                anyBoolean(),
+                anyString(),
+                any(ClientApiImportProperty[].class),
+                anyString(),
+                any(Workspace.class),
+                anyBoolean(),
+                any(Priority.class),
+                any(User.class),
+                any(Authorizations.class)
+        )).thenAnswer(invocation -> {
+            File file = (File) invocation.getArguments()[0];
+            importedFiles.put(file.getName(), FileUtils.readFileToByteArray(file));
+            Vertex vertex = mock(Vertex.class);
+            when(vertex.getId()).thenReturn("v-" + file.getName());
+            return vertex;
+        });
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(sourceDir);
+    }
+
+    @Test
+    public void testDownloadSmallAndRangedItems() throws Exception {
+        Map<String, byte[]> sourceFiles = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 10; i++) {
+            // every third file is large enough to be downloaded in ranges, the last range of it is partial
+            byte[] data = new byte[i % 3 == 0 ? RANGE_SIZE * 3 + 100 : 1000 + i];
+            random.nextBytes(data);
+            String fileName = "file" + i + ".bin";
+            FileUtils.writeByteArrayToFile(new File(sourceDir, fileName), data);
+            sourceFiles.put(fileName, data);
+        }
+
+        JSONObject itemJson = download(createWorker(2, 3));
+
+        assertEquals(10, itemJson.getInt("itemsCount"));
+        assertEquals(10, itemJson.getJSONArray("vertexIds").length());
+        assertEquals(sourceFiles.size(), importedFiles.size());
+        for (Map.Entry<String, byte[]> sourceFile : sourceFiles.entrySet()) {
+            assertArrayEquals(sourceFile.getKey(), sourceFile.getValue(), importedFiles.get(sourceFile.getKey()));
+        }
+    }
+
+    @Test
+    public void testDownloadWithoutRanges() throws Exception {
+        byte[] data = new byte[RANGE_SIZE * 4];
+        new Random(2).nextBytes(data);
+        FileUtils.writeByteArrayToFile(new File(sourceDir, "large.bin"), data);
+
+        JSONObject itemJson = download(createWorker(1, 0));
+
+        assertEquals(1, itemJson.getJSONArray("vertexIds").length());
+        assertArrayEquals(data, importedFiles.get("large.bin"));
+    }
+
+    private CloudImportLongRunningProcessWorker createWorker(int downloadThreadCount, int rangeThreadCount) {
+        Map<String, String> config = new HashMap<>();
+        config.put(CloudImportLongRunningProcessWorker.CONFIG_DOWNLOAD_THREAD_COUNT, Integer.toString(downloadThreadCount));
+        config.put(CloudImportLongRunningProcessWorker.CONFIG_RANGE_THREAD_COUNT, Integer.toString(rangeThreadCount));
+        config.put(CloudImportLongRunningProcessWorker.CONFIG_RANGE_SIZE, Integer.toString(RANGE_SIZE));
+        Configuration configuration = new Configuration(new HashMapConfigurationLoader(config), new HashMap<>());
+        return new CloudImportLongRunningProcessWorker(
+                graph,
+                configuration,
+                fileImport,
+                userRepository,
+                workspaceRepository,
+                longRunningProcessRepository
+        );
+    }
+
+    private JSONObject download(CloudImportLongRunningProcessWorker worker) throws Exception {
+        JSONObject sourceConfiguration = new JSONObject();
+        sourceConfiguration.put("directory", sourceDir.getAbsolutePath());
+        CloudImportLongRunningProcessQueueItem item = new CloudImportLongRunningProcessQueueItem(
+                FileSystemCloudResourceSource.class.getName(),
+                sourceConfiguration.toString(),
+                "user1",
+                "workspace1",
+                graph.createAuthorizations()
+        );
+        JSONObject itemJson = item.toJson();
+        itemJson.put("id", "process1");
+        worker.download(new FileSystemCloudResourceSource(), item, itemJson);
+        return itemJson;
+    }
+}
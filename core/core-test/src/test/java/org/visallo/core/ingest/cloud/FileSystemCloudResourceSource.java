@@ -0,0 +1,74 @@
+package org.visallo.core.ingest.cloud;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.json.JSONObject;
+import org.visallo.core.exception.VisalloException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads the files of the directory given in the "directory" configuration value.
+ */
+public class FileSystemCloudResourceSource implements CloudResourceSource {
+    @Override
+    public Collection<CloudResourceSourceItem> getItems(JSONObject configuration) {
+        File[] files = new File(configuration.getString("directory")).listFiles();
+        List<CloudResourceSourceItem> items = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile()) {
+                    items.add(new FileSystemCloudResourceSourceItem(file));
+                }
+            }
+        }
+        return items;
+    }
+
+    static class FileSystemCloudResourceSourceItem implements CloudResourceSourceItem {
+        private final File file;
+
+        FileSystemCloudResourceSourceItem(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return getInputStream(0, file.length() - 1);
+        }
+
+        @Override
+        public boolean isRangeSupported() {
+            return true;
+        }
+
+        @Override
+        public InputStream getInputStream(long start, long end) {
+            try {
+                InputStream in = new FileInputStream(file);
+                if (in.skip(start) != start) {
+                    in.close();
+                    throw new VisalloException("Could not skip to " + start + " in " + file.getAbsolutePath());
+                }
+                return new BoundedInputStream(in, end - start + 1);
+            } catch (IOException ex) {
+                throw new VisalloException("Could not read " + file.getAbsolutePath(), ex);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return file.getName();
+        }
+
+        @Override
+        public Long getSize() {
+            return file.length();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.visallo.core.ingest.graphProperty;
+
+import com.google.common.io.CharStreams;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares reading the whole text and running each extractor's pattern over it, as the regex workers used to,
+ * with a single streaming pass running all of the patterns.
+ * Excluded from the normal build, run with -Dtest=StreamingRegexMatcherBenchmarkTest.
+ */
+public class StreamingRegexMatcherBenchmarkTest {
+    private static final Pattern[] PATTERNS = new Pattern[]{
+            Pattern.compile("(?i)\\b[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,4}\\b", Pattern.MULTILINE),
+            Pattern.compile("\\b\\d{5}-\\d{4}\\b|\\b\\d{5}\\b", Pattern.MULTILINE),
+            Pattern.compile("\\(?\\b\\d{3}\\)?[-. ]?\\d{3}[-. ]?\\d{4}\\b", Pattern.MULTILINE)
+    };
+    private static final int ITERATIONS = 3;
+
+    @Test
+    public void benchmark() throws Exception {
+        for (int size : new int[]{1024 * 1024, 50 * 1024 * 1024}) {
+            String text = createText(size);
+
+            // warm up
+            long expectedCount = perPattern(text);
+            assertEquals(expectedCount, streaming(text));
+
+            long perPatternTime = 0;
+            long streamingTime = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long startTime = System.currentTimeMillis();
+                perPattern(text);
+                perPatternTime += System.currentTimeMillis() - startTime;
+
+                startTime = System.currentTimeMillis();
+                streaming(text);
+                streamingTime += System.currentTimeMillis() - startTime;
+            }
+            System.out.println(String.format(
+                    "%dMB, matches: %d, per pattern avg time: %dms, streaming avg time: %dms",
+                    size / 1024 / 1024,
+                    expectedCount,
+                    perPatternTime / ITERATIONS,
+                    streamingTime / ITERATIONS
+            ));
+        }
+    }
+
+    private static long perPattern(String text) throws Exception {
+        long count = 0;
+        for (Pattern pattern : PATTERNS) {
+            String wholeText = CharStreams.toString(new StringReader(text));
+            Matcher matcher = pattern.matcher(wholeText);
+            while (matcher.find()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long streaming(String text) throws Exception {
+        final AtomicLong count = new AtomicLong();
+        try (Reader reader = new StringReader(text)) {
+            new StreamingRegexMatcher(PATTERNS).match(reader, (patternIndex, match, start, end) -> count.incrementAndGet());
+        }
+        return count.get();
+    }
+
+    private static String createText(int size) {
+        Random random = new Random(1);
+        String[] words = new String[]{"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "report", "address"};
+        StringBuilder text = new StringBuilder(size);
+        while (text.length() < size) {
+            int r = random.nextInt(200);
+            if (r == 0) {
+                text.append("joe").append(random.nextInt(1000)).append("@example.com");
+            } else if (r == 1) {
+                text.append(10000 + random.nextInt(90000));
+            } else if (r == 2) {
+                text.append("(555) 555-").append(1000 + random.nextInt(9000));
+            } else {
+                text.append(words[random.nextInt(words.length)]);
+            }
+            text.append(random.nextInt(20) == 0 ? '\n' : ' ');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package org.visallo.core.ingest.graphProperty;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class StreamingRegexMatcherTest {
+    private static final Pattern EMAIL = Pattern.compile("(?i)\\b[A-Z0-9._%+-]+@[A-Z0-9.-]+\\.[A-Z]{2,4}\\b", Pattern.MULTILINE);
+    private static final Pattern ZIPCODE = Pattern.compile("\\b\\d{5}-\\d{4}\\b|\\b\\d{5}\\b", Pattern.MULTILINE);
+    private static final Pattern LINE_START = Pattern.compile("^ab", Pattern.MULTILINE);
+
+    @Test
+    public void testMatch() throws Exception {
+        String text = "mail joe@example.com at 12345-6789\nab or 54321";
+        List<String> matches = match(new StreamingRegexMatcher(EMAIL, ZIPCODE, LINE_START), text);
+        assertEquals(4, matches.size());
+        assertEquals("0:5:20:joe@example.com", matches.get(0));
+        assertEquals("1:24:34:12345-6789", matches.get(1));
+        assertEquals("1:41:46:54321", matches.get(2));
+        assertEquals("2:35:37:ab", matches.get(3));
+    }
+
+    @Test
+    public void testMatchesAcrossWindowsAreSameAsWholeText() throws Exception {
+        Random random = new Random(1);
+        String alphabet = "abcde0123456789@. \n-xyz.com";
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(3000);
+            for (int c = 0; c < length; c++) {
+                if (random.nextInt(50) == 0) {
+                    text.append(" joe@example.com ");
+                } else if (random.nextInt(40) == 0) {
+                    text.append(" 12345-6789 ");
+                } else {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+
+            int windowSize = 1 + random.nextInt(100);
+            List<String> expected = matchWholeText(text.toString(), EMAIL, ZIPCODE, LINE_START);
+            List<String> found = match(new StreamingRegexMatcher(windowSize, 100, EMAIL, ZIPCODE, LINE_START), text.toString());
+            Collections.sort(found);
+            assertEquals("window size " + windowSize, expected, found);
+        }
+    }
+
+    private static List<String> match(StreamingRegexMatcher matcher, String text) throws Exception {
+        List<String> matches = new ArrayList<>();
+        matcher.match(new StringReader(text), (patternIndex, match, start, end) -> matches.add(patternIndex + ":" + start + ":" + end + ":" + match));
+        return matches;
+    }
+
+    private static List<String> matchWholeText(String text, Pattern... patterns) {
+        List<String> matches = new ArrayList<>();
+        for (int patternIndex = 0; patternIndex < patterns.length; patternIndex++) {
+            Matcher matcher = patterns[patternIndex].matcher(text);
+            while (matcher.find()) {
+                matches.add(patternIndex + ":" + matcher.start() + ":" + matcher.end() + ":" + matcher.group());
+            }
+        }
+        Collections.sort(matches);
+        return matches;
+    }
+}
@@ -0,0 +1,52 @@
+package org.visallo.core.model.artifactThumbnails;
+
+import org.junit.Test;
+import org.visallo.core.exception.VisalloException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArtifactThumbnailRepositoryTest {
+    @Test
+    public void testParseBucketSizes() {
+        assertEquals(Arrays.asList(150, 200, 600), ArtifactThumbnailRepository.parseBucketSizes("600, 200,150,,200"));
+        List<Integer> defaultBucketSizes = ArtifactThumbnailRepository.parseBucketSizes(ArtifactThumbnailRepository.DEFAULT_BUCKET_SIZES);
+        assertEquals("the web UI's large images are 800 pixels", 800, (int) defaultBucketSizes.get(defaultBucketSizes.size() - 1));
+    }
+
+    @Test(expected = VisalloException.class)
+    public void testParseBucketSizesEmpty() {
+        ArtifactThumbnailRepository.parseBucketSizes(" , ");
+    }
+
+    @Test
+    public void testGetSubsampling() {
+        assertEquals(1, ArtifactThumbnailRepository.getSubsampling(300, 200, new int[]{200, 200}));
+        assertEquals(1, ArtifactThumbnailRepository.getSubsampling(799, 600, new int[]{200, 200}));
+        assertEquals(10, ArtifactThumbnailRepository.getSubsampling(4000, 3000, new int[]{200, 200}));
+        assertEquals(10, ArtifactThumbnailRepository.getSubsampling(3000, 4000, new int[]{200, 100}));
+    }
+
+    @Test
+    public void testReadImageSubsampled() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1600, 1200, BufferedImage.TYPE_3BYTE_BGR), "jpg", out);
+
+        BufferedImage image = ArtifactThumbnailRepository.readImage(new ByteArrayInputStream(out.toByteArray()), new int[]{200, 200});
+        assertEquals(400, image.getWidth());
+        assertEquals(300, image.getHeight());
+    }
+
+    @Test
+    public void testDownscale() {
+        BufferedImage image = ImageUtils.downscale(new BufferedImage(1000, 800, BufferedImage.TYPE_3BYTE_BGR), 200, 160);
+        assertEquals(250, image.getWidth());
+        assertEquals(200, image.getHeight());
+    }
+}
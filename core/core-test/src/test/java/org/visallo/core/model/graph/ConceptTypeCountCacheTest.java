@@ -0,0 +1,216 @@
+package org.visallo.core.model.graph;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.ElementBuilder;
+import org.vertexium.Metadata;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.user.AuthorizationRepository;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.user.User;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConceptTypeCountCacheTest {
+    private static final long EARLIER_TIMESTAMP = 1000L;
+    private InMemoryGraph graph;
+    private ConceptTypeCountCache conceptTypeCountCache;
+    private Authorizations systemAuthorizations;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private AuthorizationRepository authorizationRepository;
+
+    @Mock
+    private WorkQueueRepository workQueueRepository;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        systemAuthorizations = graph.createAuthorizations("a", "b");
+        when(authorizationRepository.getGraphAuthorizations(any(User.class))).thenReturn(systemAuthorizations);
+
+        // written before the counts are read
+        addVertex("v1", "person", "a", EARLIER_TIMESTAMP);
+        addVertex("v2", "person", "b", EARLIER_TIMESTAMP);
+        addVertex("v3", "place", "", EARLIER_TIMESTAMP);
+
+        Map<String, String> config = new HashMap<>();
+        config.put(ConceptTypeCountCache.CONFIG_MIN_DIRTY_RECONCILE_INTERVAL_SECONDS, "0");
+        conceptTypeCountCache = createConceptTypeCountCache(config);
+    }
+
+    @After
+    public void after() {
+        conceptTypeCountCache.shutdown();
+    }
+
+    @Test
+    public void testCountsByAuthorizations() {
+        Map<Object, Long> counts = conceptTypeCountCache.getCounts(graph.createAuthorizations("a"));
+        assertEquals(1L, (long) counts.get("person"));
+        assertEquals(1L, (long) counts.get("place"));
+
+        counts = conceptTypeCountCache.getCounts(graph.createAuthorizations("b", "a"));
+        assertEquals(2L, (long) counts.get("person"));
+    }
+
+    @Test
+    public void testCountsFollowChanges() throws Exception {
+        Authorizations authorizations = graph.createAuthorizations("a");
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+
+        // new vertices are added without reading the counts again
+        addVertex("v4", "person", "");
+        conceptTypeChanged("v4");
+        addVertex("v5", "person", "b");
+        conceptTypeChanged("v5");
+        assertEquals(2L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+
+        addVertex("v4", "place", "");
+        conceptTypeChanged("v4");
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+        assertEquals(2L, (long) conceptTypeCountCache.getCounts(authorizations).get("place"));
+
+        graph.deleteVertex("v1", systemAuthorizations);
+        graph.flush();
+        verticesDeleted("v1");
+        conceptTypeCountCache.reconcileStaleCounts();
+        assertNull(conceptTypeCountCache.getCounts(authorizations).get("person"));
+    }
+
+    @Test
+    public void testConceptTypeChangeOfUntrackedVertex() throws Exception {
+        Authorizations authorizations = graph.createAuthorizations("a");
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+
+        // v1 was counted as a person when the counts were read
+        addVertex("v1", "place", "a");
+        conceptTypeChanged("v1");
+        assertNull(conceptTypeCountCache.getCounts(authorizations).get("person"));
+        assertEquals(2L, (long) conceptTypeCountCache.getCounts(authorizations).get("place"));
+    }
+
+    @Test
+    public void testPropertyChangeOnUntrackedVertex() throws Exception {
+        Authorizations authorizations = graph.createAuthorizations("a");
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+
+        graph.getVertex("v1", systemAuthorizations).setProperty("name", "v1 name", new Visibility(""), systemAuthorizations);
+        graph.flush();
+        JSONObject data = new JSONObject();
+        data.put("graphVertexId", "v1");
+        JSONObject json = new JSONObject();
+        json.put("type", "propertyChange");
+        json.put("data", data);
+        conceptTypeCountCache.broadcastReceived(json);
+        conceptTypeCountCache.waitForQueuedChanges();
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+
+        conceptTypeCountCache.reconcileStaleCounts();
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+    }
+
+    @Test
+    public void testChangeOfEvictedVertex() throws Exception {
+        conceptTypeCountCache.shutdown();
+        Map<String, String> config = new HashMap<>();
+        config.put(ConceptTypeCountCache.CONFIG_MAX_TRACKED_VERTICES, "1");
+        config.put(ConceptTypeCountCache.CONFIG_MIN_DIRTY_RECONCILE_INTERVAL_SECONDS, "0");
+        conceptTypeCountCache = createConceptTypeCountCache(config);
+
+        Authorizations authorizations = graph.createAuthorizations("a");
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+
+        addVertex("v4", "person", "");
+        conceptTypeChanged("v4");
+        addVertex("v5", "place", "");
+        conceptTypeChanged("v5");
+        assertEquals(2L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+        assertEquals(2L, (long) conceptTypeCountCache.getCounts(authorizations).get("place"));
+
+        // the state of v4 was evicted by v5
+        addVertex("v4", "place", "");
+        conceptTypeChanged("v4");
+        conceptTypeCountCache.reconcileStaleCounts();
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+        assertEquals(3L, (long) conceptTypeCountCache.getCounts(authorizations).get("place"));
+    }
+
+    @Test
+    public void testDirtyCountsAreNotReadAgainBeforeTheMinimumInterval() throws Exception {
+        conceptTypeCountCache.shutdown();
+        conceptTypeCountCache = createConceptTypeCountCache(new HashMap<>());
+
+        Authorizations authorizations = graph.createAuthorizations("a");
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+
+        graph.deleteVertex("v1", systemAuthorizations);
+        graph.flush();
+        verticesDeleted("v1");
+        conceptTypeCountCache.reconcileStaleCounts();
+        assertEquals(1L, (long) conceptTypeCountCache.getCounts(authorizations).get("person"));
+    }
+
+    private ConceptTypeCountCache createConceptTypeCountCache(Map<String, String> config) {
+        Configuration configuration = new Configuration(new HashMapConfigurationLoader(config), new HashMap<>());
+        ConceptTypeCountCache cache = new ConceptTypeCountCache(graph, configuration, userRepository, authorizationRepository);
+        cache.subscribeToBroadcastMessages(workQueueRepository);
+        return cache;
+    }
+
+    private void conceptTypeChanged(String vertexId) throws Exception {
+        JSONObject data = new JSONObject();
+        data.put("graphVertexId", vertexId);
+        data.put("propertyName", VisalloProperties.CONCEPT_TYPE.getPropertyName());
+        JSONObject json = new JSONObject();
+        json.put("type", "propertyChange");
+        json.put("data", data);
+        conceptTypeCountCache.broadcastReceived(json);
+        conceptTypeCountCache.waitForQueuedChanges();
+    }
+
+    private void verticesDeleted(String vertexId) throws Exception {
+        JSONObject data = new JSONObject();
+        data.put("vertexIds", new JSONArray().put(vertexId));
+        JSONObject json = new JSONObject();
+        json.put("type", "verticesDeleted");
+        json.put("data", data);
+        conceptTypeCountCache.broadcastReceived(json);
+        conceptTypeCountCache.waitForQueuedChanges();
+    }
+
+    private Vertex addVertex(String vertexId, String conceptType, String visibility) {
+        return addVertex(vertexId, conceptType, visibility, null);
+    }
+
+    private Vertex addVertex(String vertexId, String conceptType, String visibility, Long timestamp) {
+        ElementBuilder<Vertex> vertexBuilder = graph.prepareVertex(vertexId, timestamp, new Visibility(visibility));
+        VisalloProperties.CONCEPT_TYPE.setProperty(vertexBuilder, conceptType, new Metadata(), timestamp, new Visibility(""));
+        Vertex vertex = vertexBuilder.save(systemAuthorizations);
+        graph.flush();
+        return vertex;
+    }
+}
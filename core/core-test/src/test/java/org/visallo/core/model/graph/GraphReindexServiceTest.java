@@ -0,0 +1,77 @@
+package org.visallo.core.model.graph;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.id.QueueIdGenerator;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.vertexium.inmemory.InMemoryGraphConfiguration;
+import org.vertexium.search.DefaultSearchIndex;
+import org.visallo.core.status.JmxMetricsManager;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.vertexium.util.IterableUtils.count;
+
+public class GraphReindexServiceTest {
+    private InMemoryGraph graph;
+    private Authorizations authorizations;
+    private Set<Object> indexedIds;
+    private GraphReindexService graphReindexService;
+
+    @Before
+    public void before() {
+        indexedIds = Collections.synchronizedSet(new HashSet<>());
+        InMemoryGraphConfiguration graphConfig = new InMemoryGraphConfiguration(new HashMap<>());
+        // elements saved to the graph are indexed one at a time, only the reindex adds them in batches
+        DefaultSearchIndex searchIndex = new DefaultSearchIndex(graphConfig) {
+            @Override
+            public void addElements(Graph graph, Iterable<? extends Element> elements, Authorizations authorizations) {
+                for (Element element : elements) {
+                    indexedIds.add(element.getId());
+                }
+                super.addElements(graph, elements, authorizations);
+            }
+        };
+        graph = InMemoryGraph.create(graphConfig, new QueueIdGenerator(), searchIndex);
+        authorizations = graph.createAuthorizations();
+
+        Visibility visibility = new Visibility("");
+        for (String vertexId : new String[]{"v1", "v2", "v3", "v4", "v5"}) {
+            graph.prepareVertex(vertexId, visibility)
+                    .addPropertyValue("k1", "name", vertexId, visibility)
+                    .save(authorizations);
+        }
+        graph.addEdge("e1", "v1", "v2", "label1", visibility, authorizations);
+        graph.addEdge("e2", "v2", "v3", "label1", visibility, authorizations);
+        graph.addEdge("e3", "v4", "v5", "label1", visibility, authorizations);
+        graph.flush();
+
+        graphReindexService = new GraphReindexService(graph, new JmxMetricsManager());
+    }
+
+    @Test
+    public void testReindex() {
+        GraphReindexService.ReindexOptions options = new GraphReindexService.ReindexOptions()
+                .setBatchSize(2)
+                .setThreadCount(2);
+        graphReindexService.reindex(ElementType.VERTEX, options, authorizations);
+        graphReindexService.reindex(ElementType.EDGE, options, authorizations);
+
+        assertEquals(new HashSet<>(Arrays.asList("v1", "v2", "v3", "v4", "v5", "e1", "e2", "e3")), indexedIds);
+        assertEquals(5, count(graph.query(authorizations).has("name").vertices()));
+        assertEquals(1, count(graph.query(authorizations).has("name", "v3").vertices()));
+        assertEquals(3, count(graph.query(authorizations).edges()));
+    }
+
+    @Test
+    public void testReindexRange() {
+        GraphReindexService.ReindexOptions options = new GraphReindexService.ReindexOptions()
+                .setStartId("v2")
+                .setEndId("v4");
+        graphReindexService.reindex(ElementType.VERTEX, options, authorizations);
+
+        assertEquals(new HashSet<>(Arrays.asList("v2", "v3")), indexedIds);
+    }
+}
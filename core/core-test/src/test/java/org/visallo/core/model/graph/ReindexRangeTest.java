@@ -0,0 +1,68 @@
+package org.visallo.core.model.graph;
+
+import org.junit.Test;
+import org.vertexium.ElementType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReindexRangeTest {
+    @Test
+    public void testSplitCoversAllIds() {
+        List<ReindexRange> ranges = ReindexRange.split(null, null);
+        assertNull(ranges.get(0).getStart());
+        assertNull(ranges.get(ranges.size() - 1).getEnd());
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1).getEnd(), ranges.get(i).getStart());
+        }
+    }
+
+    @Test
+    public void testSplitWithStartAndEnd() {
+        List<ReindexRange> ranges = ReindexRange.split("b1", "d");
+        assertEquals(2, ranges.size());
+        assertEquals("b1", ranges.get(0).getStart());
+        assertEquals("c", ranges.get(0).getEnd());
+        assertEquals("c", ranges.get(1).getStart());
+        assertEquals("d", ranges.get(1).getEnd());
+    }
+
+    @Test
+    public void testAfter() {
+        ReindexRange range = new ReindexRange("a", "b").after("a123");
+        assertTrue(range.getStart().compareTo("a123") > 0);
+        assertTrue(range.getStart().compareTo("a1230") < 0);
+        assertEquals("b", range.getEnd());
+    }
+
+    @Test
+    public void testCheckpointResume() throws IOException {
+        File file = File.createTempFile("reindex", ".checkpoint");
+        file.delete();
+        try {
+            ReindexRange range1 = new ReindexRange(null, "a");
+            ReindexRange range2 = new ReindexRange("a", null);
+            ReindexCheckpoint checkpoint = ReindexCheckpoint.load(file);
+            checkpoint.setComplete(ElementType.VERTEX, range1);
+            checkpoint.setLastIndexedId(ElementType.VERTEX, range2, "a5");
+            checkpoint.setLastIndexedId(ElementType.EDGE, range2, "e5");
+
+            checkpoint = ReindexCheckpoint.load(file);
+            assertTrue(checkpoint.isComplete(ElementType.VERTEX, range1));
+            assertFalse(checkpoint.isComplete(ElementType.VERTEX, range2));
+            assertEquals("a5", checkpoint.getLastIndexedId(ElementType.VERTEX, range2));
+            assertNull(checkpoint.getLastIndexedId(ElementType.VERTEX, range1));
+
+            checkpoint.clear(ElementType.VERTEX);
+            checkpoint = ReindexCheckpoint.load(file);
+            assertFalse(checkpoint.isComplete(ElementType.VERTEX, range1));
+            assertNull(checkpoint.getLastIndexedId(ElementType.VERTEX, range2));
+            assertEquals("e5", checkpoint.getLastIndexedId(ElementType.EDGE, range2));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.visallo.core.model.longRunningProcess;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.visallo.core.exception.VisalloException;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LongRunningProcessProgressReporterTest {
+    private static final String ID = "lrp1";
+    private long now;
+    private TestProgressReporter progressReporter;
+
+    @Mock
+    private LongRunningProcessRepository longRunningProcessRepository;
+
+    @Before
+    public void before() {
+        now = 10000;
+        progressReporter = new TestProgressReporter();
+    }
+
+    @Test
+    public void testCoalescesProgress() {
+        progressReporter.reportProgress(0.01, "a");
+        progressReporter.reportProgress(0.02, "b");
+        progressReporter.reportProgress(0.03, "c");
+        verify(longRunningProcessRepository, times(1)).reportProgress(eq(ID), anyDouble(), anyString());
+        verify(longRunningProcessRepository).reportProgress(ID, 0.01, "a");
+
+        now += 1000;
+        progressReporter.reportProgress(0.04, "d");
+        verify(longRunningProcessRepository).reportProgress(ID, 0.04, "d");
+
+        progressReporter.reportProgress(0.05, "e");
+        progressReporter.flush();
+        verify(longRunningProcessRepository).reportProgress(ID, 0.05, "e");
+        progressReporter.flush();
+        verify(longRunningProcessRepository, times(3)).reportProgress(eq(ID), anyDouble(), anyString());
+    }
+
+    @Test
+    public void testReportsProgressSteps() {
+        progressReporter.reportProgress(0.05, "a");
+        progressReporter.reportProgress(0.09, "b");
+        progressReporter.reportProgress(0.11, "c");
+        progressReporter.reportProgress(1.0, "d");
+        verify(longRunningProcessRepository).reportProgress(ID, 0.05, "a");
+        verify(longRunningProcessRepository, never()).reportProgress(ID, 0.09, "b");
+        verify(longRunningProcessRepository).reportProgress(ID, 0.11, "c");
+        verify(longRunningProcessRepository).reportProgress(ID, 1.0, "d");
+    }
+
+    @Test
+    public void testCachesCancelCheck() {
+        progressReporter.reportProgress(0.01, "a");
+        when(longRunningProcessRepository.isCanceled(ID)).thenReturn(true);
+        progressReporter.reportProgress(0.02, "b");
+        verify(longRunningProcessRepository, times(1)).isCanceled(ID);
+
+        now += 2000;
+        try {
+            progressReporter.reportProgress(0.03, "c");
+            fail("expected canceled exception");
+        } catch (VisalloException ex) {
+            // expected
+        }
+        verify(longRunningProcessRepository, times(2)).isCanceled(ID);
+    }
+
+    private class TestProgressReporter extends LongRunningProcessProgressReporter {
+        public TestProgressReporter() {
+            super(longRunningProcessRepository, ID, 1000, 10, 2000);
+        }
+
+        @Override
+        protected long getCurrentTimeMillis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.visallo.core.model.search;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Vertex;
+import org.vertexium.query.QueryResultsIterable;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.user.User;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchCursorCacheTest {
+    @Mock
+    private User user;
+
+    @Mock
+    private QueryResultsIterable<Vertex> searchResults1;
+
+    @Mock
+    private QueryResultsIterable<Vertex> searchResults2;
+
+    private SearchCursorCache searchCursorCache;
+
+    @Before
+    public void before() {
+        when(user.getUserId()).thenReturn("user1");
+
+        Map<String, String> config = new HashMap<>();
+        config.put(SearchCursorCache.CONFIG_MAX_SIZE, "1");
+        Configuration configuration = new HashMapConfigurationLoader(config).createConfiguration();
+        searchCursorCache = new SearchCursorCache(configuration);
+    }
+
+    @Test
+    public void testRemoveLeavesClosingToTheCaller() throws Exception {
+        SearchCursor cursor = searchCursorCache.create(user, null, searchResults1);
+        assertSame(cursor, searchCursorCache.get(cursor.getId(), user));
+
+        searchCursorCache.remove(cursor);
+        assertEquals(0, searchCursorCache.size());
+        verify(searchResults1, never()).close();
+    }
+
+    @Test
+    public void testEvictedCursorIsClosed() throws Exception {
+        searchCursorCache.create(user, null, searchResults1);
+        searchCursorCache.create(user, null, searchResults2);
+
+        verify(searchResults1).close();
+        verify(searchResults2, never()).close();
+    }
+}
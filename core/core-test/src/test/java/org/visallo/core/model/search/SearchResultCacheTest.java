@@ -0,0 +1,114 @@
+package org.visallo.core.model.search;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.JmxMetricsManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.collect.Iterables.size;
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchResultCacheTest extends SearchRunnerTestBase {
+    private VertexSearchRunner vertexSearchRunner;
+    private SearchResultCache searchResultCache;
+
+    @Mock
+    private WorkQueueRepository workQueueRepository;
+
+    @Before
+    public void before() {
+        super.before();
+
+        searchResultCache = new SearchResultCache(configuration, new JmxMetricsManager());
+        searchResultCache.subscribeToBroadcastMessages(workQueueRepository);
+        vertexSearchRunner = new VertexSearchRunner(ontologyRepository, graph, configuration, directoryRepository);
+        vertexSearchRunner.setSearchResultCache(searchResultCache);
+
+        graph.prepareVertex("v1", visibility)
+                .addPropertyValue("k1", "name", "Joe", visibility)
+                .save(authorizations);
+        graph.flush();
+    }
+
+    @Test
+    public void testCachedUntilElementChanges() throws Exception {
+        QueryResultsIterableSearchResults results = vertexSearchRunner.run(createSearchOptions("*"), user, authorizations);
+        assertEquals(1, size(results.getVertexiumObjects()));
+        assertSame(results.getQueryResultsIterable(), vertexSearchRunner.run(createSearchOptions("*"), user, authorizations).getQueryResultsIterable());
+
+        graph.prepareVertex("v2", visibility)
+                .addPropertyValue("k1", "name", "Bob", visibility)
+                .save(authorizations);
+        graph.flush();
+        searchResultCache.broadcastReceived(new JSONObject("{\"type\":\"propertyChange\",\"data\":{\"graphVertexId\":\"v2\",\"propertyName\":\"name\"}}"));
+
+        results = vertexSearchRunner.run(createSearchOptions("*"), user, authorizations);
+        assertEquals("a search without a property filter can match any new element", 2, size(results.getVertexiumObjects()));
+        assertEquals(2, results.getQueryResultsIterable().getTotalHits());
+    }
+
+    @Test
+    public void testFilteredResultsInvalidatedByTheirProperties() throws Exception {
+        SearchOptions searchOptions = createSearchOptions("*", "[{\"propertyName\":\"name\",\"predicate\":\"has\"}]");
+        QueryResultsIterableSearchResults results = vertexSearchRunner.run(searchOptions, user, authorizations);
+        assertEquals(1, results.getQueryResultsIterable().getTotalHits());
+
+        graph.prepareVertex("v2", visibility)
+                .addPropertyValue("k1", "name", "Bob", visibility)
+                .addPropertyValue("k1", "title", "Mr", visibility)
+                .save(authorizations);
+        graph.flush();
+        searchResultCache.broadcastReceived(new JSONObject("{\"type\":\"propertyChange\",\"data\":{\"graphVertexId\":\"v2\",\"propertyName\":\"title\"}}"));
+        results = vertexSearchRunner.run(searchOptions, user, authorizations);
+        assertEquals("a property the search doesn't use can't change its results", 1, results.getQueryResultsIterable().getTotalHits());
+
+        searchResultCache.broadcastReceived(new JSONObject("{\"type\":\"propertyChange\",\"data\":{\"graphVertexId\":\"v2\",\"propertyName\":\"name\"}}"));
+        results = vertexSearchRunner.run(searchOptions, user, authorizations);
+        assertEquals("results without elements are refreshed", 2, results.getQueryResultsIterable().getTotalHits());
+    }
+
+    @Test
+    public void testKeyIgnoresJsonKeyOrderAndIncludesAuthorizations() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", "*");
+        parameters.put("filter", "[{\"propertyName\":\"name\",\"predicate\":\"has\"}]");
+        String key1 = searchResultCache.getKey(vertexSearchRunner, new SearchOptions(parameters, "workspace1"), user, authorizations);
+
+        parameters.put("filter", "[{\"predicate\":\"has\", \"propertyName\":\"name\"}]");
+        String key2 = searchResultCache.getKey(vertexSearchRunner, new SearchOptions(parameters, "workspace1"), user, authorizations);
+        assertEquals(key1, key2);
+
+        String key3 = searchResultCache.getKey(vertexSearchRunner, new SearchOptions(parameters, "workspace2"), user, authorizations);
+        assertNotEquals(key1, key3);
+
+        String key4 = searchResultCache.getKey(vertexSearchRunner, new SearchOptions(parameters, "workspace1"), user, graph.createAuthorizations("other"));
+        assertNotEquals(key1, key4);
+
+        parameters.put("useCursor", "true");
+        assertNull(searchResultCache.getKey(vertexSearchRunner, new SearchOptions(parameters, "workspace1"), user, authorizations));
+    }
+
+    private SearchOptions createSearchOptions(String q) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", q);
+        parameters.put("filter", new JSONArray());
+        return new SearchOptions(parameters, "workspace1");
+    }
+
+    private SearchOptions createSearchOptions(String q, String filter) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", q);
+        parameters.put("filter", filter);
+        parameters.put("size", 0L);
+        return new SearchOptions(parameters, "workspace1");
+    }
+}
@@ -5,13 +5,22 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
 import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.visallo.core.model.ontology.Concept;
+import org.visallo.core.model.properties.VisalloProperties;
+
+import java.util.Collections;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import static com.google.common.collect.Iterables.size;
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class VertexFindRelatedSearchRunnerTest extends SearchRunnerTestBase {
@@ -23,7 +32,8 @@ public class VertexFindRelatedSearchRunnerTest extends SearchRunnerTestBase {
 
         vertexFindRelatedSearchRunner = new VertexFindRelatedSearchRunner(
                 graph,
-                ontologyRepository
+                ontologyRepository,
+                configuration
         );
     }
 
@@ -45,4 +55,62 @@ public class VertexFindRelatedSearchRunnerTest extends SearchRunnerTestBase {
         VertexFindRelatedSearchResults results = vertexFindRelatedSearchRunner.run(searchOptions, user, authorizations);
         assertEquals(2, size(results.getVertexiumObjects()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSearchSkipsVerticesTheUserCannotRead() throws Exception {
+        Authorizations secretAuthorizations = graph.createAuthorizations("secret");
+        Vertex v1 = graph.prepareVertex("v1", visibility).save(authorizations);
+        Vertex v2 = graph.prepareVertex("v2", new Visibility("secret")).save(secretAuthorizations);
+        Vertex v3 = graph.prepareVertex("v3", visibility).save(authorizations);
+        Vertex v4 = graph.prepareVertex("v4", visibility).save(authorizations);
+        graph.addEdge("e1", v1, v2, "label1", visibility, secretAuthorizations);
+        graph.addEdge("e2", v1, v3, "label1", visibility, authorizations);
+        graph.addEdge("e3", v1, v4, "label1", visibility, authorizations);
+        graph.flush();
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("graphVertexIds[]", new String[]{"v1"});
+        parameters.put("maxVerticesToReturn", 1L);
+        SearchOptions searchOptions = new SearchOptions(parameters, "workspace1");
+
+        VertexFindRelatedSearchResults results = vertexFindRelatedSearchRunner.run(searchOptions, user, authorizations);
+        assertEquals(1, size(results.getVertexiumObjects()));
+        assertEquals("v3", results.getVertexiumObjects().iterator().next().getId());
+        assertEquals(2, results.getCount());
+    }
+
+    @Test
+    public void testSearchLimitedByConceptAndCount() throws Exception {
+        Vertex v1 = graph.prepareVertex("v1", visibility).save(authorizations);
+        Vertex v2 = graph.prepareVertex("v2", visibility)
+                .setProperty(VisalloProperties.CONCEPT_TYPE.getPropertyName(), "http://visallo.org/test#person", visibility)
+                .save(authorizations);
+        Vertex v3 = graph.prepareVertex("v3", visibility)
+                .setProperty(VisalloProperties.CONCEPT_TYPE.getPropertyName(), "http://visallo.org/test#person", visibility)
+                .save(authorizations);
+        Vertex v4 = graph.prepareVertex("v4", visibility)
+                .setProperty(VisalloProperties.CONCEPT_TYPE.getPropertyName(), "http://visallo.org/test#place", visibility)
+                .save(authorizations);
+        Vertex v5 = graph.prepareVertex("v5", visibility).save(authorizations);
+        graph.addEdge("e1", v1, v2, "label1", visibility, authorizations);
+        graph.addEdge("e2", v1, v3, "label1", visibility, authorizations);
+        graph.addEdge("e3", v1, v4, "label1", visibility, authorizations);
+        graph.addEdge("e4", v5, v2, "label1", visibility, authorizations);
+        graph.flush();
+
+        Concept person = mock(Concept.class);
+        when(person.getIRI()).thenReturn("http://visallo.org/test#person");
+        when(ontologyRepository.getConceptAndAllChildrenByIri("http://visallo.org/test#person"))
+                .thenReturn(new HashSet<>(Collections.singletonList(person)));
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("graphVertexIds[]", new String[]{v1.getId(), v5.getId()});
+        parameters.put("limitParentConceptId", "http://visallo.org/test#person");
+        parameters.put("maxVerticesToReturn", 1L);
+        SearchOptions searchOptions = new SearchOptions(parameters, "workspace1");
+
+        VertexFindRelatedSearchResults results = vertexFindRelatedSearchRunner.run(searchOptions, user, authorizations);
+        assertEquals(1, size(results.getVertexiumObjects()));
+        assertEquals(2, results.getCount());
+    }
+}
@@ -7,14 +7,19 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.vertexium.ElementBuilder;
 import org.vertexium.Vertex;
+import org.vertexium.VertexiumObject;
 import org.vertexium.Visibility;
 import org.visallo.core.model.properties.VisalloProperties;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.collect.Iterables.size;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 @RunWith(MockitoJUnitRunner.class)
 public class VertexSearchRunnerTest extends SearchRunnerTestBase {
@@ -30,6 +35,7 @@ public class VertexSearchRunnerTest extends SearchRunnerTestBase {
                 configuration,
                 directoryRepository
         );
+        vertexSearchRunner.setSearchCursorCache(new SearchCursorCache(configuration));
     }
 
     @Test
@@ -74,4 +80,49 @@ public class VertexSearchRunnerTest extends SearchRunnerTestBase {
         QueryResultsIterableSearchResults results = vertexSearchRunner.run(searchOptions, user, authorizations);
         assertEquals(2, size(results.getVertexiumObjects()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSearchWithCursor() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            graph.prepareVertex("v" + i, visibility)
+                    .addPropertyValue("k1", "name", "Joe" + i, visibility)
+                    .save(authorizations);
+        }
+        graph.flush();
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("q", "*");
+        parameters.put("filter", new JSONArray());
+        parameters.put("size", "2");
+        parameters.put("useCursor", "true");
+        Set<String> foundIds = new HashSet<>();
+        QueryResultsIterableSearchResults results = vertexSearchRunner.run(new SearchOptions(parameters, "workspace1"), user, authorizations);
+        addIds(results, foundIds);
+        assertEquals(2, foundIds.size());
+        assertEquals(5, results.getQueryResultsIterable().getTotalHits());
+        assertNotNull(results.getNextCursor());
+
+        parameters = new HashMap<>();
+        parameters.put("cursor", results.getNextCursor());
+        parameters.put("size", "2");
+        results = vertexSearchRunner.run(new SearchOptions(parameters, "workspace1"), user, authorizations);
+        assertEquals(2L, (long) results.getOffset());
+        addIds(results, foundIds);
+        assertEquals(4, foundIds.size());
+        assertNotNull(results.getNextCursor());
+
+        parameters.put("cursor", results.getNextCursor());
+        results = vertexSearchRunner.run(new SearchOptions(parameters, "workspace1"), user, authorizations);
+        addIds(results, foundIds);
+        assertEquals(5, foundIds.size());
+        assertNull(results.getNextCursor());
+        assertEquals(5, results.getQueryResultsIterable().getTotalHits());
+        results.close();
+    }
+
+    private void addIds(QueryResultsIterableSearchResults results, Set<String> ids) {
+        for (VertexiumObject vertexiumObject : results.getVertexiumObjects()) {
+            ids.add(((Vertex) vertexiumObject).getId());
+        }
+    }
+}
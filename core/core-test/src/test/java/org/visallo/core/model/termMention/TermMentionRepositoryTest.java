@@ -9,6 +9,8 @@ import org.vertexium.*;
 import org.vertexium.inmemory.InMemoryGraph;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.user.GraphAuthorizationRepository;
+import org.visallo.core.security.DirectVisibilityTranslator;
+import org.visallo.core.user.User;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.util.List;
@@ -16,6 +18,8 @@ import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+import static org.vertexium.util.IterableUtils.count;
 
 @RunWith(MockitoJUnitRunner.class)
 public class TermMentionRepositoryTest {
@@ -29,6 +33,9 @@ public class TermMentionRepositoryTest {
     @Mock
     private GraphAuthorizationRepository graphAuthorizationRepository;
 
+    @Mock
+    private User user;
+
     @Before
     public void setUp() {
         graph = InMemoryGraph.create();
@@ -88,4 +95,133 @@ public class TermMentionRepositoryTest {
         assertEquals(1, results.size());
         assertEquals("tm", results.get(0).getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindByOutVertexAndProperty() {
+        when(user.getUserId()).thenReturn("USER123");
+        Vertex v = graph.addVertex("v", visibility, authorizations);
+        String textName = VisalloProperties.TEXT.getPropertyName();
+        saveTermMention(v, "k1", textName, 20, 25);
+        saveTermMention(v, "k1", textName, 0, 5);
+        saveTermMention(v, "k1", textName, 10, 15);
+        saveTermMention(v, "k2", textName, 0, 5);
+        saveTermMention(v, "k1", "otherName", 0, 5);
+        graph.flush();
+
+        List<Vertex> results = termMentionRepository.findByOutVertexAndProperty("v", "k1", textName, null, null, authorizations);
+        assertEquals(3, results.size());
+        assertEquals(0L, (long) VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(results.get(0)));
+        assertEquals(10L, (long) VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(results.get(1)));
+        assertEquals(20L, (long) VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(results.get(2)));
+
+        results = termMentionRepository.findByOutVertexAndProperty("v", "k1", textName, 3L, 12L, authorizations);
+        assertEquals(2, results.size());
+        assertEquals(0L, (long) VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(results.get(0)));
+        assertEquals(10L, (long) VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(results.get(1)));
+    }
+
+    @Test
+    public void testFindByOutVertexAndPropertyLegacy() {
+        Vertex v = graph.addVertex("v", visibility, authorizations);
+        VertexBuilder tmBuilder = graph.prepareVertex("tm", termMentionVisibility);
+        VisalloProperties.TERM_MENTION_PROPERTY_KEY.setProperty(tmBuilder, "k1", termMentionVisibility);
+        VisalloProperties.TERM_MENTION_START_OFFSET.setProperty(tmBuilder, 0L, termMentionVisibility);
+        VisalloProperties.TERM_MENTION_END_OFFSET.setProperty(tmBuilder, 5L, termMentionVisibility);
+        Vertex tm = tmBuilder.save(authorizations);
+        graph.addEdge("v_to_tm", v, tm, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, termMentionVisibility, authorizations);
+        graph.flush();
+
+        List<Vertex> results = termMentionRepository.findByOutVertexAndProperty("v", "k1", VisalloProperties.TEXT.getPropertyName(), null, null, authorizations);
+        assertEquals(1, results.size());
+        assertEquals("tm", results.get(0).getId());
+    }
+
+    @Test
+    public void testTermMentionBatch() {
+        when(user.getUserId()).thenReturn("USER123");
+        Vertex v = graph.addVertex("v", visibility, authorizations);
+        String textName = VisalloProperties.TEXT.getPropertyName();
+        TermMentionBatch batch = new TermMentionBatch(graph, new DirectVisibilityTranslator(), user, authorizations);
+        batch.add(createTermMention(v, "k1", textName, 10, 15));
+        batch.add(createTermMention(v, "k1", textName, 0, 5));
+        batch.add(createTermMention(v, "k1", textName, 10, 15));
+        assertEquals(2, batch.size());
+
+        List<Vertex> saved = batch.save();
+        graph.flush();
+        assertEquals(2, saved.size());
+        assertEquals(0, batch.size());
+        assertEquals(10L, (long) VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(saved.get(0)));
+        assertEquals(0L, (long) VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(saved.get(1)));
+
+        List<Vertex> results = termMentionRepository.findByOutVertexAndProperty("v", "k1", textName, null, null, authorizations);
+        assertEquals(2, results.size());
+        assertEquals(2, count(termMentionRepository.findByOutVertex("v", authorizations)));
+    }
+
+    @Test
+    public void testFindByOutVertexAndPropertyMergesLegacy() {
+        when(user.getUserId()).thenReturn("USER123");
+        Vertex v = graph.addVertex("v", visibility, authorizations);
+        VertexBuilder tmBuilder = graph.prepareVertex("tmLegacy", termMentionVisibility);
+        VisalloProperties.TERM_MENTION_PROPERTY_KEY.setProperty(tmBuilder, "k1", termMentionVisibility);
+        VisalloProperties.TERM_MENTION_START_OFFSET.setProperty(tmBuilder, 10L, termMentionVisibility);
+        VisalloProperties.TERM_MENTION_END_OFFSET.setProperty(tmBuilder, 15L, termMentionVisibility);
+        Vertex tm = tmBuilder.save(authorizations);
+        graph.addEdge("v_to_tmLegacy", v, tm, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, termMentionVisibility, authorizations);
+        Vertex indexed = saveTermMention(v, "k1", VisalloProperties.TEXT.getPropertyName(), 0, 5);
+        saveTermMention(v, "k2", VisalloProperties.TEXT.getPropertyName(), 20, 25);
+        graph.flush();
+
+        List<Vertex> results = termMentionRepository.findByOutVertexAndProperty("v", "k1", VisalloProperties.TEXT.getPropertyName(), null, null, authorizations);
+        assertEquals(2, results.size());
+        assertEquals(indexed.getId(), results.get(0).getId());
+        assertEquals("tmLegacy", results.get(1).getId());
+    }
+
+    @Test
+    public void testFindByOutVertexAndPropertyFindsSourceInfo() {
+        Vertex source = graph.addVertex("source", visibility, authorizations);
+        Vertex v = graph.addVertex("v", visibility, authorizations);
+        termMentionRepository.addSourceInfoToVertex(
+                v,
+                "v",
+                TermMentionFor.VERTEX,
+                null,
+                null,
+                null,
+                "snippet",
+                "k1",
+                VisalloProperties.TEXT.getPropertyName(),
+                5,
+                10,
+                source,
+                visibility,
+                authorizations
+        );
+        graph.flush();
+
+        List<Vertex> results = termMentionRepository.findByOutVertexAndProperty("source", "k1", VisalloProperties.TEXT.getPropertyName(), null, null, authorizations);
+        assertEquals(1, results.size());
+        source = graph.getVertex("source", authorizations);
+        assertEquals(1, count(source.getEdgeIds(Direction.OUT, VisalloProperties.TERM_MENTION_LABEL_HAS_PROPERTY_TERM_MENTION, authorizations)));
+    }
+
+    private Vertex saveTermMention(Vertex outVertex, String propertyKey, String propertyName, long start, long end) {
+        return createTermMention(outVertex, propertyKey, propertyName, start, end)
+                .save(graph, new DirectVisibilityTranslator(), user, authorizations);
+    }
+
+    private TermMentionBuilder createTermMention(Vertex outVertex, String propertyKey, String propertyName, long start, long end) {
+        return new TermMentionBuilder()
+                .outVertex(outVertex)
+                .propertyKey(propertyKey)
+                .propertyName(propertyName)
+                .conceptIri("http://visallo.org/test#person")
+                .start(start)
+                .end(end)
+                .title("tm")
+                .visibilityJson("")
+                .process(getClass().getSimpleName());
+    }
+}
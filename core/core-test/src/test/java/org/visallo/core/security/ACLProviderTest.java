@@ -318,6 +318,32 @@ public class ACLProviderTest {
         assertThat(apiElement.getAcl().isDeleteable(), equalTo(false));
     }
 
+    @Test
+    public void appendAclOnMultipleVerticesShouldWalkConceptHierarchyOnce() {
+        ClientApiVertex apiVertex1 = ClientApiConverter.toClientApiVertex(vertex, null, null);
+        ClientApiVertex apiVertex2 = ClientApiConverter.toClientApiVertex(vertex, null, null);
+
+        aclProvider.appendACL(ImmutableList.of(apiVertex1, apiVertex2), user1);
+        aclProvider.appendACL(apiVertex1, user1);
+        verify(ontologyRepository, times(1)).getConceptByIRI("parent");
+
+        aclProvider.clearCache();
+        aclProvider.appendACL(apiVertex1, user1);
+        verify(ontologyRepository, times(2)).getConceptByIRI("parent");
+    }
+
+    @Test
+    public void appendAclWithAllowAllShouldNotAddPropertyAcls() {
+        ACLProvider allowAllAclProvider = new AllowAllAclProvider(graph, userRepository, ontologyRepository, privilegeRepository);
+        ClientApiVertex apiVertex = ClientApiConverter.toClientApiVertex(vertex, null, null);
+
+        allowAllAclProvider.appendACL(apiVertex, user1);
+
+        assertThat(apiVertex.getAcl().isUpdateable(), equalTo(true));
+        assertThat(apiVertex.getAcl().getPropertyAcls().size(), equalTo(0));
+        assertThat(apiVertex.getProperties().get(0).isUpdateable(), equalTo(true));
+    }
+
     private void appendAclShouldPopulateClientApiElementAcl(Element element) {
         ClientApiElement apiElement = null;
         if (element instanceof Vertex) {
@@ -0,0 +1,101 @@
+package org.visallo.core.trace;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class InMemoryTraceRepositoryTest {
+    @Test
+    public void testNestedSpans() {
+        InMemoryTraceRepository traceRepository = createTraceRepository(new HashMap<>());
+        assertSame(NullTraceSpan.INSTANCE, traceRepository.start("outside of a trace"));
+        assertFalse(traceRepository.isEnabled());
+
+        Map<String, String> data = new HashMap<>();
+        data.put("elementId", "v1");
+        TraceSpan root = traceRepository.on("root", data);
+        assertTrue(traceRepository.isEnabled());
+        try (TraceSpan child1 = traceRepository.start("child1")) {
+            try (TraceSpan ignored = traceRepository.start("grandchild")) {
+                child1.data("key", "value");
+            }
+        }
+        try (TraceSpan ignored = traceRepository.start("child2")) {
+            assertTrue(traceRepository.isEnabled());
+        }
+        root.close();
+        traceRepository.off();
+        assertFalse(traceRepository.isEnabled());
+
+        List<InMemoryTraceRepository.RecordedTrace> traces = traceRepository.getTraces();
+        assertEquals(1, traces.size());
+        InMemoryTraceRepository.RecordedTrace trace = traces.get(0);
+        assertEquals("root", trace.getDescription());
+        assertSame(trace, traceRepository.getTrace(trace.getTraceId()));
+
+        JSONObject json = trace.toJson();
+        JSONArray spans = json.getJSONArray("spans");
+        assertEquals(4, spans.length());
+        assertFalse(spans.getJSONObject(0).has("parentId"));
+        assertEquals("v1", spans.getJSONObject(0).getJSONObject("data").getString("elementId"));
+        assertEquals(0, spans.getJSONObject(1).getInt("parentId"));
+        assertEquals("value", spans.getJSONObject(1).getJSONObject("data").getString("key"));
+        assertEquals("grandchild", spans.getJSONObject(2).getString("description"));
+        assertEquals(1, spans.getJSONObject(2).getInt("parentId"));
+        assertEquals(0, spans.getJSONObject(3).getInt("parentId"));
+
+        String[] stacks = trace.toCollapsedStacks().split("\n");
+        assertEquals(4, stacks.length);
+        assertTrue(stacks[0], stacks[0].matches("root \\d+"));
+        assertTrue(stacks[1], stacks[1].matches("root;child1 \\d+"));
+        assertTrue(stacks[2], stacks[2].matches("root;child1;grandchild \\d+"));
+        assertTrue(stacks[3], stacks[3].matches("root;child2 \\d+"));
+    }
+
+    @Test
+    public void testBounds() {
+        Map<String, String> config = new HashMap<>();
+        config.put(InMemoryTraceRepository.CONFIG_MAX_TRACES, "3");
+        config.put(InMemoryTraceRepository.CONFIG_MAX_SPANS_PER_TRACE, "2");
+        InMemoryTraceRepository traceRepository = createTraceRepository(config);
+
+        for (int i = 0; i < 5; i++) {
+            traceRepository.on("trace" + i, null);
+            traceRepository.start("span1").close();
+            assertSame(NullTraceSpan.INSTANCE, traceRepository.start("span2"));
+            traceRepository.off();
+        }
+
+        List<InMemoryTraceRepository.RecordedTrace> traces = traceRepository.getTraces();
+        assertEquals(3, traces.size());
+        assertEquals("trace4", traces.get(0).getDescription());
+        assertEquals("trace2", traces.get(2).getDescription());
+        assertEquals(2, traces.get(0).getSpans().size());
+        assertEquals(1, traces.get(0).getDroppedSpanCount());
+    }
+
+    @Test
+    public void testSamplingOff() {
+        Map<String, String> config = new HashMap<>();
+        config.put(InMemoryTraceRepository.CONFIG_SAMPLE_PERCENT, "0");
+        InMemoryTraceRepository traceRepository = createTraceRepository(config);
+
+        assertSame(NullTraceSpan.INSTANCE, traceRepository.on("root", null));
+        assertFalse(traceRepository.isEnabled());
+        assertSame(NullTraceSpan.INSTANCE, traceRepository.start("child"));
+        traceRepository.off();
+        assertEquals(0, traceRepository.getTraces().size());
+    }
+
+    private InMemoryTraceRepository createTraceRepository(Map<String, String> config) {
+        return new InMemoryTraceRepository(new Configuration(new HashMapConfigurationLoader(config), new HashMap<>()));
+    }
+}
@@ -0,0 +1,95 @@
+package org.visallo.core.util;
+
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares converting each vertex of a response on its own, as the search and multi-get routes used to, with
+ * converting the whole response on the {@link ClientApiConversionPool}.
+ * Excluded from the normal build, run with -Dtest=ClientApiConversionPoolBenchmarkTest.
+ */
+public class ClientApiConversionPoolBenchmarkTest {
+    private static final String WORKSPACE_ID = "workspace1";
+    private static final int PROPERTIES_PER_VERTEX = 20;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void benchmark() {
+        InMemoryGraph graph = InMemoryGraph.create();
+        Authorizations authorizations = graph.createAuthorizations();
+        ClientApiConversionPool clientApiConversionPool = new ClientApiConversionPool(
+                new Configuration(new HashMapConfigurationLoader(new HashMap()), new HashMap<>())
+        );
+        try {
+            for (int size : new int[]{100, 1000}) {
+                List<Vertex> vertices = createVertices(graph, size, authorizations);
+
+                // warm up
+                assertEquals(size, perVertex(vertices, authorizations).size());
+                assertEquals(size, clientApiConversionPool.toClientApiVertices(vertices, WORKSPACE_ID, authorizations).size());
+
+                long perVertexTime = 0;
+                long poolTime = 0;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    long startTime = System.nanoTime();
+                    perVertex(vertices, authorizations);
+                    perVertexTime += System.nanoTime() - startTime;
+
+                    startTime = System.nanoTime();
+                    clientApiConversionPool.toClientApiVertices(vertices, WORKSPACE_ID, authorizations);
+                    poolTime += System.nanoTime() - startTime;
+                }
+                System.out.println(String.format(
+                        "%d vertices, per vertex avg time: %.2fms, pool avg time: %.2fms",
+                        size,
+                        perVertexTime / ITERATIONS / 1000000.0,
+                        poolTime / ITERATIONS / 1000000.0
+                ));
+            }
+        } finally {
+            clientApiConversionPool.shutdown();
+        }
+    }
+
+    private static List<ClientApiVertex> perVertex(List<Vertex> vertices, Authorizations authorizations) {
+        List<ClientApiVertex> results = new ArrayList<>();
+        for (Vertex vertex : vertices) {
+            results.add(ClientApiConverter.toClientApiVertex(vertex, WORKSPACE_ID, authorizations));
+        }
+        return results;
+    }
+
+    private static List<Vertex> createVertices(Graph graph, int size, Authorizations authorizations) {
+        Visibility visibility = new Visibility("");
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            VisibilityJson visibilityJson = new VisibilityJson("");
+            if (i % 10 == 0) {
+                visibilityJson.addWorkspace(WORKSPACE_ID);
+            }
+            VertexBuilder vertexBuilder = graph.prepareVertex("v" + size + "_" + i, visibility);
+            for (int p = 0; p < PROPERTIES_PER_VERTEX; p++) {
+                Metadata metadata = new Metadata();
+                VisalloProperties.VISIBILITY_JSON_METADATA.setMetadata(metadata, visibilityJson, visibility);
+                VisalloProperties.MODIFIED_BY_METADATA.setMetadata(metadata, "user1", visibility);
+                VisalloProperties.CONFIDENCE_METADATA.setMetadata(metadata, 0.5, visibility);
+                vertexBuilder.addPropertyValue("k1", "property" + p, "value " + i + " " + p, metadata, visibility);
+            }
+            vertices.add(vertexBuilder.save(authorizations));
+        }
+        graph.flush();
+        return vertices;
+    }
+}
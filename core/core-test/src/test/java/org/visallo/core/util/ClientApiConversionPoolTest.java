@@ -0,0 +1,98 @@
+package org.visallo.core.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.vertexium.Authorizations;
+import org.vertexium.Metadata;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+import org.visallo.web.clientapi.model.SandboxStatus;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ClientApiConversionPoolTest {
+    private static final String WORKSPACE_ID = "workspace1";
+    private InMemoryGraph graph;
+    private Authorizations authorizations;
+    private ClientApiConversionPool clientApiConversionPool;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations();
+        Map<String, String> config = new HashMap<>();
+        config.put(ClientApiConversionPool.CONFIG_THREAD_COUNT, "4");
+        config.put(ClientApiConversionPool.CONFIG_PARALLEL_THRESHOLD, "10");
+        config.put(ClientApiConversionPool.CONFIG_BATCH_SIZE, "3");
+        Configuration configuration = new Configuration(new HashMapConfigurationLoader(config), new HashMap<>());
+        clientApiConversionPool = new ClientApiConversionPool(configuration);
+    }
+
+    @After
+    public void after() {
+        clientApiConversionPool.shutdown();
+    }
+
+    @Test
+    public void testToClientApiVerticesKeepsOrder() {
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            VisibilityJson visibilityJson = new VisibilityJson("");
+            if (i % 2 == 0) {
+                visibilityJson.addWorkspace(WORKSPACE_ID);
+            }
+            Metadata metadata = new Metadata();
+            VisalloProperties.VISIBILITY_JSON_METADATA.setMetadata(metadata, visibilityJson, new Visibility(""));
+            vertices.add(graph.prepareVertex("v" + i, new Visibility(""))
+                    .addPropertyValue("k1", "name", "name" + i, metadata, new Visibility(""))
+                    .save(authorizations));
+        }
+        graph.flush();
+
+        List<ClientApiVertex> results = clientApiConversionPool.toClientApiVertices(vertices, WORKSPACE_ID, authorizations);
+
+        assertEquals(vertices.size(), results.size());
+        for (int i = 0; i < vertices.size(); i++) {
+            ClientApiVertex result = results.get(i);
+            assertEquals("v" + i, result.getId());
+            assertEquals("name" + i, result.getProperty("k1", "name").getValue());
+            assertEquals(
+                    i % 2 == 0 ? SandboxStatus.PRIVATE : SandboxStatus.PUBLIC,
+                    result.getProperty("k1", "name").getSandboxStatus()
+            );
+        }
+    }
+
+    @Test
+    public void testConversionErrorsAreThrownToTheCaller() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i);
+        }
+        try {
+            clientApiConversionPool.convert(items, WORKSPACE_ID, (item, context) -> {
+                if (item == 50) {
+                    throw new VisalloException("bad item");
+                }
+                return item;
+            });
+            fail("expected exception");
+        } catch (VisalloException ex) {
+            assertEquals("bad item", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.visallo.core.util;
+
+import org.junit.Test;
+import org.vertexium.*;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the time to convert and serialize vertices and the size of the JSON with all of their properties and
+ * metadata, as the search routes return without a projection, and with a projection of only their title.
+ * Excluded from the normal build, run with -Dtest=ClientApiProjectionBenchmarkTest.
+ */
+public class ClientApiProjectionBenchmarkTest {
+    private static final String WORKSPACE_ID = "workspace1";
+    private static final String TITLE = VisalloProperties.TITLE.getPropertyName();
+    private static final int VERTEX_COUNT = 1000;
+    private static final int PROPERTIES_PER_VERTEX = 20;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void benchmark() {
+        InMemoryGraph graph = InMemoryGraph.create();
+        Authorizations authorizations = graph.createAuthorizations();
+        List<Vertex> vertices = createVertices(graph, authorizations);
+        ClientApiProjection titleOnly = ClientApiProjection.parse("{\"properties\":[\"" + TITLE + "\"],\"metadata\":[],\"edgeLabels\":false}");
+
+        // warm up
+        int allBytes = toJson(vertices, ClientApiProjection.ALL, authorizations).length;
+        int titleOnlyBytes = toJson(vertices, titleOnly, authorizations).length;
+        assertTrue(titleOnlyBytes < allBytes);
+
+        long allTime = 0;
+        long titleOnlyTime = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long startTime = System.nanoTime();
+            toJson(vertices, ClientApiProjection.ALL, authorizations);
+            allTime += System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            toJson(vertices, titleOnly, authorizations);
+            titleOnlyTime += System.nanoTime() - startTime;
+        }
+        System.out.println(String.format(
+                "%d vertices, all: %d bytes %.2fms avg, title only: %d bytes %.2fms avg",
+                VERTEX_COUNT,
+                allBytes,
+                allTime / ITERATIONS / 1000000.0,
+                titleOnlyBytes,
+                titleOnlyTime / ITERATIONS / 1000000.0
+        ));
+    }
+
+    private static byte[] toJson(List<Vertex> vertices, ClientApiProjection projection, Authorizations authorizations) {
+        ClientApiConversionContext context = new ClientApiConversionContext(WORKSPACE_ID, projection);
+        List<ClientApiVertex> results = new ArrayList<>();
+        for (Vertex vertex : vertices) {
+            results.add(ClientApiConverter.toClientApiVertex(vertex, null, false, authorizations, context));
+        }
+        return ClientApiConverter.clientApiToString(results).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Vertex> createVertices(Graph graph, Authorizations authorizations) {
+        Visibility visibility = new Visibility("");
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            Metadata metadata = new Metadata();
+            VisalloProperties.VISIBILITY_JSON_METADATA.setMetadata(metadata, new VisibilityJson(""), visibility);
+            VisalloProperties.MODIFIED_BY_METADATA.setMetadata(metadata, "user1", visibility);
+            VisalloProperties.CONFIDENCE_METADATA.setMetadata(metadata, 0.5, visibility);
+            VertexBuilder vertexBuilder = graph.prepareVertex("v" + i, visibility);
+            vertexBuilder.addPropertyValue("k1", TITLE, "vertex " + i, metadata, visibility);
+            for (int p = 0; p < PROPERTIES_PER_VERTEX; p++) {
+                vertexBuilder.addPropertyValue("k1", "property" + p, "value " + i + " " + p, metadata, visibility);
+            }
+            vertices.add(vertexBuilder.save(authorizations));
+        }
+        graph.flush();
+        return vertices;
+    }
+}
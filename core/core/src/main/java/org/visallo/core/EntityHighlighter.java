@@ -1,5 +1,6 @@
 package org.visallo.core;
 
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.ingest.video.VideoFrameInfo;
 import org.visallo.core.ingest.video.VideoPropertyHelper;
 import org.visallo.core.ingest.video.VideoTranscript;
@@ -13,6 +14,7 @@ import org.json.JSONObject;
 import org.vertexium.Authorizations;
 import org.vertexium.Vertex;
 
+import java.io.*;
 import java.util.*;
 
 public class EntityHighlighter {
@@ -21,74 +23,155 @@ public class EntityHighlighter {
         return getHighlightedText(text, offsetItems);
     }
 
-    // TODO: change to use an InputStream?
+    public void writeHighlightedText(
+            Reader text,
+            Iterable<Vertex> termMentions,
+            String workspaceId,
+            Authorizations authorizations,
+            long rangeStart,
+            long rangeEnd,
+            Writer out
+    ) throws IOException {
+        List<OffsetItem> offsetItems = convertTermMentionsToOffsetItems(termMentions, workspaceId, authorizations);
+        writeHighlightedText(text, offsetItems, rangeStart, rangeEnd, out);
+    }
+
     public static String getHighlightedText(String text, List<OffsetItem> offsetItems) throws JSONException {
-        Collections.sort(offsetItems);
-        StringBuilder result = new StringBuilder();
-        PriorityQueue<Integer> endOffsets = new PriorityQueue<>();
-        int lastStart = 0;
-        for (int i = 0; i < offsetItems.size(); i++) {
-            OffsetItem offsetItem = offsetItems.get(i);
-
-            boolean overlapsPreviousItem = false;
-            if (offsetItem instanceof VertexOffsetItem) {
-                for (int j = 0; j < i; j++) {
-                    OffsetItem compareItem = offsetItems.get(j);
-                    if (compareItem instanceof VertexOffsetItem
-                            && (OffsetItem.getOffset(compareItem.getEnd()) >= OffsetItem.getOffset(offsetItem.getEnd())
-                            || OffsetItem.getOffset(compareItem.getEnd()) > OffsetItem.getOffset(offsetItem.getStart()))) {
-                        overlapsPreviousItem = true;
-                        offsetItems.remove(i--);
-                        break;
-                    }
-                }
+        StringWriter out = new StringWriter(text.length());
+        try {
+            writeHighlightedText(new StringReader(text), offsetItems, 0, Long.MAX_VALUE, out);
+        } catch (IOException ex) {
+            throw new VisalloException("Could not highlight text", ex);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads the text and writes it as html with a span around each highlighted offset item. Only the text
+     * between rangeStart (inclusive) and rangeEnd (exclusive) is written, items crossing the range boundaries
+     * are clipped to the range. Overlaps are resolved against the whole document so a range is highlighted
+     * the same way as when the whole document is requested.
+     */
+    public static void writeHighlightedText(Reader text, List<OffsetItem> offsetItems, long rangeStart, long rangeEnd, Writer out) throws IOException {
+        HtmlTextCopier copier = new HtmlTextCopier(text, out);
+        copier.skipTo(rangeStart);
+
+        PriorityQueue<Long> endOffsets = new PriorityQueue<>();
+        for (OffsetItem offsetItem : getHighlightedOffsetItems(offsetItems)) {
+            long start = OffsetItem.getOffset(offsetItem.getStart());
+            long end = OffsetItem.getOffset(offsetItem.getEnd());
+            if (start >= rangeEnd) {
+                break;
             }
-            if (overlapsPreviousItem) {
+            if (end < rangeStart || (end == rangeStart && start < end)) {
                 continue;
             }
-            if (OffsetItem.getOffset(offsetItem.getStart()) < 0 || OffsetItem.getOffset(offsetItem.getEnd()) < 0) {
+            start = Math.max(start, rangeStart);
+            end = Math.min(end, rangeEnd);
+
+            while (endOffsets.size() > 0 && endOffsets.peek() <= start) {
+                copier.copyTo(endOffsets.poll());
+                out.write("</span>");
+            }
+            copier.copyTo(start);
+
+            out.write("<span class=\"");
+            out.write(StringUtils.join(offsetItem.getCssClasses(), " "));
+            out.write("\"");
+            if (offsetItem.getTitle() != null) {
+                out.write(" title=\"");
+                escapeHtml(out, offsetItem.getTitle());
+                out.write("\"");
+            }
+            out.write(" data-info=\"");
+            escapeHtml(out, offsetItem.getInfoJson().toString());
+            out.write("\">");
+            endOffsets.add(end);
+        }
+
+        while (endOffsets.size() > 0) {
+            copier.copyTo(endOffsets.poll());
+            out.write("</span>");
+        }
+        copier.copyTo(rangeEnd);
+        out.flush();
+    }
+
+    /**
+     * Sorts the offset items and drops the ones that should not be highlighted in a single sweep. A vertex offset
+     * item is dropped if it overlaps a vertex offset item kept before it, since items are sorted by start only the
+     * largest end seen so far needs to be compared.
+     */
+    private static List<OffsetItem> getHighlightedOffsetItems(List<OffsetItem> offsetItems) {
+        List<OffsetItem> sortedOffsetItems = new ArrayList<>(offsetItems);
+        Collections.sort(sortedOffsetItems);
+
+        List<OffsetItem> results = new ArrayList<>(sortedOffsetItems.size());
+        Long maxVertexOffsetItemEnd = null;
+        for (OffsetItem offsetItem : sortedOffsetItems) {
+            long start = OffsetItem.getOffset(offsetItem.getStart());
+            long end = OffsetItem.getOffset(offsetItem.getEnd());
+            if (offsetItem instanceof VertexOffsetItem) {
+                if (maxVertexOffsetItemEnd != null && (maxVertexOffsetItemEnd >= end || maxVertexOffsetItemEnd > start)) {
+                    continue;
+                }
+                maxVertexOffsetItemEnd = maxVertexOffsetItemEnd == null ? end : Math.max(maxVertexOffsetItemEnd, end);
+            }
+            if (start < 0 || end < 0) {
                 continue;
             }
             if (!offsetItem.shouldHighlight()) {
                 continue;
             }
+            results.add(offsetItem);
+        }
+        return results;
+    }
 
-            while (endOffsets.size() > 0 && endOffsets.peek() <= OffsetItem.getOffset(offsetItem.getStart())) {
-                int end = endOffsets.poll();
-                result.append(StringEscapeUtils.escapeHtml(safeSubstring(text, lastStart, end)));
-                result.append("</span>");
-                lastStart = end;
-            }
-            result.append(StringEscapeUtils.escapeHtml(safeSubstring(text, lastStart, (int) OffsetItem.getOffset(offsetItem.getStart()))));
+    private static void escapeHtml(Writer out, String str) throws IOException {
+        StringEscapeUtils.escapeHtml(out, str.replace('\u00A0', ' '));
+    }
 
-            JSONObject infoJson = offsetItem.getInfoJson();
+    /**
+     * Copies the text from a reader to the html output, escaping it and keeping track of the current offset.
+     */
+    private static class HtmlTextCopier {
+        private final Reader text;
+        private final Writer out;
+        private final char[] buffer = new char[8192];
+        private long position;
+        private boolean eof;
+
+        public HtmlTextCopier(Reader text, Writer out) {
+            this.text = text;
+            this.out = out;
+        }
 
-            result.append("<span");
-            result.append(" class=\"");
-            result.append(StringUtils.join(offsetItem.getCssClasses(), " "));
-            result.append("\"");
-            if (offsetItem.getTitle() != null) {
-                result.append(" title=\"");
-                result.append(StringEscapeUtils.escapeHtml(offsetItem.getTitle()));
-                result.append("\"");
+        public void skipTo(long offset) throws IOException {
+            while (!eof && position < offset) {
+                long skipped = text.skip(offset - position);
+                if (skipped <= 0) {
+                    if (text.read() < 0) {
+                        eof = true;
+                        return;
+                    }
+                    skipped = 1;
+                }
+                position += skipped;
             }
-            result.append(" data-info=\"");
-            result.append(StringEscapeUtils.escapeHtml(infoJson.toString()));
-            result.append("\"");
-            result.append(">");
-            endOffsets.add((int) OffsetItem.getOffset(offsetItem.getEnd()));
-            lastStart = (int) OffsetItem.getOffset(offsetItem.getStart());
         }
 
-        while (endOffsets.size() > 0) {
-            int end = endOffsets.poll();
-            result.append(StringEscapeUtils.escapeHtml(safeSubstring(text, lastStart, end)));
-            result.append("</span>");
-            lastStart = end;
+        public void copyTo(long offset) throws IOException {
+            while (!eof && position < offset) {
+                int read = text.read(buffer, 0, (int) Math.min(buffer.length, offset - position));
+                if (read < 0) {
+                    eof = true;
+                    return;
+                }
+                escapeHtml(out, new String(buffer, 0, read));
+                position += read;
+            }
         }
-        result.append(StringEscapeUtils.escapeHtml(safeSubstring(text, lastStart)));
-
-        return result.toString().replaceAll("&nbsp;", " ");
     }
 
     public VideoTranscript getHighlightedVideoTranscript(VideoTranscript videoTranscript, Iterable<Vertex> termMentions, String workspaceId, Authorizations authorizations) {
@@ -147,17 +230,6 @@ public class EntityHighlighter {
         return videoTranscriptEntryIndex;
     }
 
-    private static String safeSubstring(String text, int beginIndex) {
-        beginIndex = Math.min(beginIndex, text.length());
-        return text.substring(beginIndex);
-    }
-
-    private static String safeSubstring(String text, int beginIndex, int endIndex) {
-        beginIndex = Math.min(beginIndex, text.length());
-        endIndex = Math.min(endIndex, text.length());
-        return text.substring(beginIndex, endIndex);
-    }
-
     public List<OffsetItem> convertTermMentionsToOffsetItems(Iterable<Vertex> termMentions, String workspaceId, Authorizations authorizations) {
         ArrayList<OffsetItem> termMetadataOffsetItems = new ArrayList<>();
         for (Vertex termMention : termMentions) {
@@ -5,7 +5,9 @@ import org.apache.commons.io.IOUtils;
 import org.json.JSONObject;
 import org.vertexium.*;
 import org.vertexium.property.StreamingPropertyValue;
+import org.vertexium.query.Contains;
 import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.WorkQueueNames;
 import org.visallo.core.model.ontology.OntologyProperty;
 import org.visallo.core.model.ontology.OntologyRepository;
@@ -27,17 +29,22 @@ import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.ClientApiImportProperty;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
+import java.io.*;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.vertexium.util.IterableUtils.toList;
 
 public class FileImport {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(FileImport.class);
     public static final String MULTI_VALUE_KEY = FileImport.class.getName();
+    public static final String CONFIG_IMPORT_DIRECTORY_THREAD_COUNT = FileImport.class.getName() + ".importDirectory.threadCount";
+    public static final int DEFAULT_IMPORT_DIRECTORY_THREAD_COUNT = 1;
+    public static final String CONFIG_IMPORT_DIRECTORY_BATCH_SIZE = FileImport.class.getName() + ".importDirectory.batchSize";
+    public static final int DEFAULT_IMPORT_DIRECTORY_BATCH_SIZE = 100;
     private final VisibilityTranslator visibilityTranslator;
     private final Graph graph;
     private final WorkQueueRepository workQueueRepository;
@@ -67,7 +74,7 @@ public class FileImport {
         this.configuration = configuration;
     }
 
-    public void importDirectory(
+    public ImportDirectoryStatistics importDirectory(
             File dataDir,
             boolean queueDuplicates,
             String conceptTypeIRI,
@@ -76,56 +83,172 @@ public class FileImport {
             Priority priority,
             User user,
             Authorizations authorizations
+    ) throws IOException {
+        return importDirectory(
+                dataDir,
+                queueDuplicates,
+                conceptTypeIRI,
+                visibilitySource,
+                workspace,
+                priority,
+                configuration.getInt(CONFIG_IMPORT_DIRECTORY_THREAD_COUNT, DEFAULT_IMPORT_DIRECTORY_THREAD_COUNT),
+                configuration.getInt(CONFIG_IMPORT_DIRECTORY_BATCH_SIZE, DEFAULT_IMPORT_DIRECTORY_BATCH_SIZE),
+                user,
+                authorizations
+        );
+    }
+
+    /**
+     * Imports the files of a directory in batches. The files of a batch are hashed, then checked for existing
+     * vertices with a single query and then imported, each step using up to threadCount threads.
+     */
+    public ImportDirectoryStatistics importDirectory(
+            File dataDir,
+            boolean queueDuplicates,
+            String conceptTypeIRI,
+            String visibilitySource,
+            Workspace workspace,
+            Priority priority,
+            int threadCount,
+            int batchSize,
+            User user,
+            Authorizations authorizations
     ) throws IOException {
         ensureInitialized();
 
         LOGGER.debug("Importing files from %s", dataDir);
-        File[] files = dataDir.listFiles();
-        if (files == null || files.length == 0) {
-            return;
+        File[] dirFiles = dataDir.listFiles();
+        List<File> files = new ArrayList<>();
+        if (dirFiles != null) {
+            for (File f : dirFiles) {
+                if (f.getName().startsWith(".") || f.length() == 0 || isSupportingFile(f)) {
+                    continue;
+                }
+                files.add(f);
+            }
+        }
+        ImportDirectoryStatistics statistics = new ImportDirectoryStatistics(files.size());
+        if (files.isEmpty()) {
+            return statistics;
         }
 
-        int totalFileCount = files.length;
-        int fileCount = 0;
-        int importedFileCount = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount));
         try {
-            for (File f : files) {
-                if (f.getName().startsWith(".") || f.length() == 0) {
-                    continue;
-                }
-                if (isSupportingFile(f)) {
-                    continue;
+            for (int batchStart = 0; batchStart < files.size(); batchStart += Math.max(1, batchSize)) {
+                List<File> batch = files.subList(batchStart, Math.min(files.size(), batchStart + Math.max(1, batchSize)));
+                importDirectoryBatch(batch, queueDuplicates, conceptTypeIRI, visibilitySource, workspace, priority, statistics, executor, user, authorizations);
+                LOGGER.info("Importing files from %s: %s", dataDir, statistics);
+            }
+        } finally {
+            executor.shutdownNow();
+            graph.flush();
+        }
+
+        LOGGER.debug("Imported files from %s: %s", dataDir, statistics);
+        return statistics;
+    }
+
+    private void importDirectoryBatch(
+            List<File> batch,
+            final boolean queueDuplicates,
+            final String conceptTypeIRI,
+            final String visibilitySource,
+            final Workspace workspace,
+            final Priority priority,
+            final ImportDirectoryStatistics statistics,
+            ExecutorService executor,
+            final User user,
+            final Authorizations authorizations
+    ) {
+        List<Callable<HashedFile>> hashTasks = new ArrayList<>();
+        for (final File f : batch) {
+            hashTasks.add(() -> {
+                try {
+                    return readAndHashFile(f);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not read %s", f.getAbsolutePath(), ex);
+                    statistics.fileFailed();
+                    return null;
                 }
+            });
+        }
+        List<HashedFile> hashedFiles = new ArrayList<>();
+        for (HashedFile hashedFile : invokeAll(executor, hashTasks)) {
+            if (hashedFile != null) {
+                hashedFiles.add(hashedFile);
+            }
+        }
 
-                LOGGER.debug("Importing file (%d/%d): %s", fileCount + 1, totalFileCount, f.getAbsolutePath());
+        Set<String> hashes = new HashSet<>();
+        for (HashedFile hashedFile : hashedFiles) {
+            hashes.add(hashedFile.hash);
+        }
+        final Map<String, Vertex> existingVertices = findExistingVerticesWithHashes(hashes, authorizations);
+
+        // only the first file with each hash is imported, the others are duplicates of it
+        Map<String, Integer> batchDuplicateCounts = new HashMap<>();
+        final List<String> importHashes = new ArrayList<>();
+        List<Callable<Vertex>> importTasks = new ArrayList<>();
+        for (final HashedFile hashedFile : hashedFiles) {
+            Integer duplicateCount = batchDuplicateCounts.get(hashedFile.hash);
+            if (duplicateCount != null) {
+                LOGGER.debug("skipping %s, a file with hash %s is already in this batch", hashedFile.file.getAbsolutePath(), hashedFile.hash);
+                batchDuplicateCounts.put(hashedFile.hash, duplicateCount + 1);
+                statistics.fileDuplicate();
+                continue;
+            }
+            batchDuplicateCounts.put(hashedFile.hash, 0);
+            importHashes.add(hashedFile.hash);
+            importTasks.add(() -> {
                 try {
-                    ClientApiImportProperty[] properties = null;
-                    boolean findExistingByFileHash = true;
-                    boolean addToWorkspace = false;
-                    importFile(
-                            f,
-                            queueDuplicates,
-                            conceptTypeIRI,
-                            properties,
-                            visibilitySource,
-                            workspace,
-                            addToWorkspace,
-                            findExistingByFileHash,
-                            priority,
-                            user,
-                            authorizations
-                    );
-                    importedFileCount++;
+                    Vertex existingVertex = existingVertices.get(hashedFile.hash);
+                    if (existingVertex != null) {
+                        LOGGER.debug("vertex already exists with hash %s", hashedFile.hash);
+                        if (queueDuplicates) {
+                            pushDuplicate(existingVertex, visibilitySource, workspace, priority, user);
+                        }
+                        statistics.fileDuplicate();
+                        return existingVertex;
+                    }
+                    Vertex vertex = importFile(hashedFile, conceptTypeIRI, null, visibilitySource, workspace, priority, user, authorizations);
+                    statistics.fileImported(hashedFile.file.length());
+                    return vertex;
                 } catch (Exception ex) {
-                    LOGGER.error("Could not import %s", f.getAbsolutePath(), ex);
+                    LOGGER.error("Could not import %s", hashedFile.file.getAbsolutePath(), ex);
+                    statistics.fileFailed();
+                    return null;
+                }
+            });
+        }
+        List<Vertex> vertices = invokeAll(executor, importTasks);
+
+        // duplicates within the batch are queued like duplicates of an earlier batch, once the vertex exists
+        if (queueDuplicates) {
+            for (int i = 0; i < vertices.size(); i++) {
+                Vertex vertex = vertices.get(i);
+                if (vertex == null) {
+                    continue;
+                }
+                for (int duplicate = 0; duplicate < batchDuplicateCounts.get(importHashes.get(i)); duplicate++) {
+                    pushDuplicate(vertex, visibilitySource, workspace, priority, user);
                 }
-                fileCount++;
             }
-        } finally {
-            graph.flush();
         }
+    }
 
-        LOGGER.debug(String.format("Imported %d, skipped %d files from %s", importedFileCount, fileCount - importedFileCount, dataDir));
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted while importing files", ex);
+        } catch (ExecutionException ex) {
+            throw new VisalloException("Could not import files", ex.getCause());
+        }
     }
 
     private boolean isSupportingFile(File f) {
@@ -208,49 +331,69 @@ public class FileImport {
         Vertex vertex;
         ensureInitialized();
 
-        String hash = calculateFileHash(f);
+        HashedFile hashedFile = readAndHashFile(f);
 
         if (findExistingByFileHash) {
-            vertex = findExistingVertexWithHash(hash, authorizations);
+            vertex = findExistingVertexWithHash(hashedFile.hash, authorizations);
             if (vertex != null) {
-                LOGGER.debug("vertex already exists with hash %s", hash);
+                LOGGER.debug("vertex already exists with hash %s", hashedFile.hash);
                 if (queueDuplicates) {
-                    LOGGER.debug(
-                            "pushing %s on to %s queue",
-                            vertex.getId(),
-                            workQueueNames.getGraphPropertyQueueName()
-                    );
-                    if (workspace != null) {
-                        workspaceRepository.updateEntityOnWorkspace(
-                                workspace,
-                                vertex.getId(),
-                                user
-                        );
-                        workQueueRepository.broadcastElement(vertex, workspace.getWorkspaceId());
-                        workQueueRepository.pushGraphPropertyQueue(
-                                vertex,
-                                MULTI_VALUE_KEY,
-                                VisalloProperties.RAW.getPropertyName(),
-                                workspace.getWorkspaceId(),
-                                visibilitySource,
-                                priority
-                        );
-                    } else {
-                        workQueueRepository.pushGraphPropertyQueue(
-                                vertex,
-                                MULTI_VALUE_KEY,
-                                VisalloProperties.RAW.getPropertyName(),
-                                priority
-                        );
-                    }
+                    pushDuplicate(vertex, visibilitySource, workspace, priority, user);
                 }
                 return vertex;
             }
         }
 
+        return importFile(hashedFile, conceptId, properties, visibilitySource, workspace, priority, user, authorizations);
+    }
+
+    private void pushDuplicate(Vertex vertex, String visibilitySource, Workspace workspace, Priority priority, User user) {
+        LOGGER.debug(
+                "pushing %s on to %s queue",
+                vertex.getId(),
+                workQueueNames.getGraphPropertyQueueName()
+        );
+        if (workspace != null) {
+            workspaceRepository.updateEntityOnWorkspace(
+                    workspace,
+                    vertex.getId(),
+                    user
+            );
+            workQueueRepository.broadcastElement(vertex, workspace.getWorkspaceId());
+            workQueueRepository.pushGraphPropertyQueue(
+                    vertex,
+                    MULTI_VALUE_KEY,
+                    VisalloProperties.RAW.getPropertyName(),
+                    workspace.getWorkspaceId(),
+                    visibilitySource,
+                    priority
+            );
+        } else {
+            workQueueRepository.pushGraphPropertyQueue(
+                    vertex,
+                    MULTI_VALUE_KEY,
+                    VisalloProperties.RAW.getPropertyName(),
+                    priority
+            );
+        }
+    }
+
+    private Vertex importFile(
+            HashedFile hashedFile,
+            String conceptId,
+            ClientApiImportProperty[] properties,
+            String visibilitySource,
+            Workspace workspace,
+            Priority priority,
+            User user,
+            Authorizations authorizations
+    ) throws Exception {
+        Vertex vertex;
+        File f = hashedFile.file;
+        String hash = hashedFile.hash;
         List<FileImportSupportingFileHandler.AddSupportingFilesResult> addSupportingFilesResults = new ArrayList<>();
 
-        try (FileInputStream fileInputStream = new FileInputStream(f)) {
+        try (InputStream fileInputStream = hashedFile.openInputStream()) {
             JSONObject metadataJson = loadMetadataJson(f);
             String predefinedId = null;
             if (metadataJson != null) {
@@ -441,6 +584,24 @@ public class FileImport {
         return toList(ServiceLoaderUtil.load(FileImportSupportingFileHandler.class, this.configuration));
     }
 
+    private Map<String, Vertex> findExistingVerticesWithHashes(Collection<String> hashes, Authorizations authorizations) {
+        Map<String, Vertex> results = new HashMap<>();
+        if (hashes.isEmpty()) {
+            return results;
+        }
+        Iterable<Vertex> existingVertices = this.graph.query(authorizations)
+                .has(VisalloProperties.CONTENT_HASH.getPropertyName(), Contains.IN, hashes)
+                .vertices();
+        for (Vertex existingVertex : existingVertices) {
+            for (String hash : VisalloProperties.CONTENT_HASH.getPropertyValues(existingVertex)) {
+                if (hashes.contains(hash) && !results.containsKey(hash)) {
+                    results.put(hash, existingVertex);
+                }
+            }
+        }
+        return results;
+    }
+
     private Vertex findExistingVertexWithHash(String hash, Authorizations authorizations) {
         Iterator<Vertex> existingVertices = this.graph.query(authorizations)
                 .has(VisalloProperties.CONTENT_HASH.getPropertyName(), hash)
@@ -452,9 +613,103 @@ public class FileImport {
         return null;
     }
 
-    private String calculateFileHash(File f) throws IOException {
+    /**
+     * Hashes the file while streaming it from disk, so a batch only holds the hashes of its files in memory. The file
+     * is read again when it is stored.
+     */
+    private HashedFile readAndHashFile(File f) throws IOException {
         try (FileInputStream fileInputStream = new FileInputStream(f)) {
-            return RowKeyHelper.buildSHA256KeyString(fileInputStream);
+            return new HashedFile(f, RowKeyHelper.buildSHA256KeyString(fileInputStream));
+        }
+    }
+
+    private static class HashedFile {
+        private final File file;
+        private final String hash;
+
+        public HashedFile(File file, String hash) {
+            this.file = file;
+            this.hash = hash;
+        }
+
+        public InputStream openInputStream() throws IOException {
+            return new FileInputStream(file);
+        }
+    }
+
+    public static class ImportDirectoryStatistics {
+        private final int totalFileCount;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicInteger importedFileCount = new AtomicInteger();
+        private final AtomicInteger duplicateFileCount = new AtomicInteger();
+        private final AtomicInteger failedFileCount = new AtomicInteger();
+        private final AtomicLong importedByteCount = new AtomicLong();
+
+        public ImportDirectoryStatistics(int totalFileCount) {
+            this.totalFileCount = totalFileCount;
+        }
+
+        void fileImported(long length) {
+            importedFileCount.incrementAndGet();
+            importedByteCount.addAndGet(length);
+        }
+
+        void fileDuplicate() {
+            duplicateFileCount.incrementAndGet();
+        }
+
+        void fileFailed() {
+            failedFileCount.incrementAndGet();
+        }
+
+        public int getTotalFileCount() {
+            return totalFileCount;
+        }
+
+        public int getProcessedFileCount() {
+            return getImportedFileCount() + getDuplicateFileCount() + getFailedFileCount();
+        }
+
+        public int getImportedFileCount() {
+            return importedFileCount.get();
+        }
+
+        public int getDuplicateFileCount() {
+            return duplicateFileCount.get();
+        }
+
+        public int getFailedFileCount() {
+            return failedFileCount.get();
+        }
+
+        public long getImportedByteCount() {
+            return importedByteCount.get();
+        }
+
+        public double getFilesPerSecond() {
+            return getProcessedFileCount() / getElapsedSeconds();
+        }
+
+        public double getBytesPerSecond() {
+            return getImportedByteCount() / getElapsedSeconds();
+        }
+
+        private double getElapsedSeconds() {
+            return Math.max(1, System.currentTimeMillis() - startTime) / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%d/%d files (imported: %d, duplicates: %d, failed: %d), %.1f files/s, %.1f KB/s",
+                    getProcessedFileCount(),
+                    getTotalFileCount(),
+                    getImportedFileCount(),
+                    getDuplicateFileCount(),
+                    getFailedFileCount(),
+                    getFilesPerSecond(),
+                    getBytesPerSecond() / 1024
+            );
         }
     }
 
@@ -1,8 +1,5 @@
 package org.visallo.core.ingest.cloud;
 
-import com.google.common.io.ByteProcessor;
-import com.google.common.io.ByteStreams;
-import com.google.common.io.Closeables;
 import com.google.common.io.Files;
 import com.google.inject.Inject;
 import org.apache.commons.io.FileUtils;
@@ -27,15 +24,36 @@ import org.visallo.core.util.JSONUtil;
 import org.visallo.web.clientapi.model.ClientApiImportProperty;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Downloads the items of a cloud resource source and imports them. Several items are downloaded at the same time and
+ * imported one at a time as their downloads complete. Items larger than twice the range size are downloaded in
+ * several ranges at the same time if their source supports it.
+ */
 public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorker {
+    public static final String CONFIG_DOWNLOAD_THREAD_COUNT = CloudImportLongRunningProcessWorker.class.getName() + ".downloadThreadCount";
+    public static final int DEFAULT_DOWNLOAD_THREAD_COUNT = 4;
+    public static final String CONFIG_RANGE_THREAD_COUNT = CloudImportLongRunningProcessWorker.class.getName() + ".rangeThreadCount";
+    public static final int DEFAULT_RANGE_THREAD_COUNT = 4;
+    public static final String CONFIG_RANGE_SIZE = CloudImportLongRunningProcessWorker.class.getName() + ".rangeSize";
+    public static final int DEFAULT_RANGE_SIZE = 16 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
     private final Configuration configuration;
     private final FileImport fileImport;
     private final Graph graph;
     private final UserRepository userRepository;
     private final WorkspaceRepository workspaceRepository;
     private final LongRunningProcessRepository longRunningProcessRepository;
+    private final int downloadThreadCount;
+    private final int rangeThreadCount;
+    private final int rangeSize;
 
     @Inject
     public CloudImportLongRunningProcessWorker(
@@ -52,6 +70,9 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
         this.userRepository = userRepository;
         this.workspaceRepository = workspaceRepository;
         this.longRunningProcessRepository = longRunningProcessRepository;
+        this.downloadThreadCount = configuration.getInt(CONFIG_DOWNLOAD_THREAD_COUNT, DEFAULT_DOWNLOAD_THREAD_COUNT);
+        this.rangeThreadCount = configuration.getInt(CONFIG_RANGE_THREAD_COUNT, DEFAULT_RANGE_THREAD_COUNT);
+        this.rangeSize = Math.max(1, configuration.getInt(CONFIG_RANGE_SIZE, DEFAULT_RANGE_SIZE));
     }
 
     @Override
@@ -85,7 +106,7 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
         return null;
     }
 
-    private void download(CloudResourceSource destination, CloudImportLongRunningProcessQueueItem item, JSONObject itemJson) throws Exception {
+    void download(CloudResourceSource destination, CloudImportLongRunningProcessQueueItem item, JSONObject itemJson) throws Exception {
         String id = itemJson.getString("id");
         Authorizations authorizations = graph.createAuthorizations(item.getAuthorizations());
         String visibilitySource = "";
@@ -97,10 +118,15 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
         boolean queueDefaults = false;
         boolean findExistingByFileHash = true;
 
+        int itemThreadCount = Math.max(1, Math.min(downloadThreadCount, destination.getMaxConcurrentDownloads()));
+        ExecutorService downloadExecutor = Executors.newFixedThreadPool(itemThreadCount, createThreadFactory("cloud-import-download-"));
+        ExecutorService rangeExecutor = rangeThreadCount > 0
+                ? Executors.newFixedThreadPool(rangeThreadCount, createThreadFactory("cloud-import-range-"))
+                : null;
         File tempDir = Files.createTempDir();
         try {
-            Collection<CloudResourceSourceItem> items = destination.getItems(new JSONObject(item.getConfiguration()));
-            Long allItemsSize = 0L;
+            List<CloudResourceSourceItem> items = new ArrayList<>(destination.getItems(new JSONObject(item.getConfiguration())));
+            long allItemsSize = 0L;
             itemJson.put("itemsCount", items.size());
             for (CloudResourceSourceItem cloudResourceSourceItem : items) {
                 Long size = cloudResourceSourceItem.getSize();
@@ -108,81 +134,200 @@ public class CloudImportLongRunningProcessWorker extends LongRunningProcessWorke
                     allItemsSize += size;
                 }
             }
+            DownloadProgress progress = new DownloadProgress(id, items.size(), allItemsSize);
 
-            long noSizeProgress = 0;
-            long cumulativeSize = 0;
-            for (CloudResourceSourceItem cloudResourceSourceItem : items) {
-                String fileName = cloudResourceSourceItem.getName();
-                if (fileName == null) throw new VisalloException("Cloud destination item name must not be null");
-                File file = new File(tempDir, cloudResourceSourceItem.getName());
+            // downloads run ahead of the import by up to two items per thread, each file is imported and deleted
+            // while the next ones are downloading
+            CompletionService<File> downloads = new ExecutorCompletionService<>(downloadExecutor);
+            int maxPendingDownloads = itemThreadCount * 2;
+            int submitted = 0;
+            for (int imported = 0; imported < items.size(); imported++) {
+                while (submitted < items.size() && submitted - imported < maxPendingDownloads) {
+                    CloudResourceSourceItem cloudResourceSourceItem = items.get(submitted);
+                    File itemDir = new File(tempDir, Integer.toString(submitted));
+                    downloads.submit(() -> downloadItem(cloudResourceSourceItem, itemDir, rangeExecutor, progress));
+                    submitted++;
+                }
 
-                try (InputStream inputStream = cloudResourceSourceItem.getInputStream()) {
-                    if (inputStream == null) {
-                        throw new VisalloException("Cloud destination input stream must not be null");
-                    }
+                File file = getResult(downloads.take());
+                try {
+                    Vertex vertex = fileImport.importFile(
+                            file,
+                            queueDefaults,
+                            conceptId,
+                            properties,
+                            visibilitySource,
+                            workspace,
+                            findExistingByFileHash,
+                            priority,
+                            user,
+                            authorizations
+                    );
 
-                    noSizeProgress += (double) 1 / items.size();
-                    if (downloadFile(id, inputStream, file, cumulativeSize, allItemsSize, noSizeProgress)) {
-                        Vertex vertex = fileImport.importFile(
-                                file,
-                                queueDefaults,
-                                conceptId,
-                                properties,
-                                visibilitySource,
-                                workspace,
-                                findExistingByFileHash,
-                                priority,
-                                user,
-                                authorizations
-                        );
-
-                        JSONArray vertexIds = JSONUtil.getOrCreateJSONArray(itemJson, "vertexIds");
-                        vertexIds.put(vertex.getId());
-                    }
-                    if (allItemsSize > 0) {
-                        cumulativeSize += cloudResourceSourceItem.getSize();
-                    }
+                    JSONArray vertexIds = JSONUtil.getOrCreateJSONArray(itemJson, "vertexIds");
+                    vertexIds.put(vertex.getId());
+                } finally {
+                    FileUtils.deleteDirectory(file.getParentFile());
                 }
             }
         } finally {
+            downloadExecutor.shutdownNow();
+            if (rangeExecutor != null) {
+                rangeExecutor.shutdownNow();
+            }
             longRunningProcessRepository.reportProgress(id, 1.0, "Finishing");
             FileUtils.deleteDirectory(tempDir);
         }
     }
 
-    private boolean downloadFile(String longRunningProcessId, InputStream inputStream, File file, Long cumulativeSize, Long allItemSize, double noSizeProgress) throws Exception {
-        final OutputStream out = new FileOutputStream(file);
-        boolean success = false;
+    private File downloadItem(
+            CloudResourceSourceItem cloudResourceSourceItem,
+            File itemDir,
+            ExecutorService rangeExecutor,
+            DownloadProgress progress
+    ) throws Exception {
+        String fileName = cloudResourceSourceItem.getName();
+        if (fileName == null) throw new VisalloException("Cloud destination item name must not be null");
+        if (!itemDir.mkdirs()) {
+            throw new VisalloException("Could not create directory: " + itemDir.getAbsolutePath());
+        }
+        File file = new File(itemDir, fileName);
+
+        Long size = cloudResourceSourceItem.getSize();
+        if (rangeExecutor != null && cloudResourceSourceItem.isRangeSupported() && size != null && size > rangeSize * 2L) {
+            downloadRanges(cloudResourceSourceItem, size, file, rangeExecutor, progress);
+        } else {
+            try (InputStream inputStream = cloudResourceSourceItem.getInputStream()) {
+                if (inputStream == null) {
+                    throw new VisalloException("Cloud destination input stream must not be null");
+                }
+                try (OutputStream out = new FileOutputStream(file)) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                        progress.bytesDownloaded(read, fileName);
+                    }
+                }
+            }
+        }
+        progress.itemDownloaded();
+        return file;
+    }
+
+    private void downloadRanges(
+            CloudResourceSourceItem cloudResourceSourceItem,
+            long size,
+            File file,
+            ExecutorService rangeExecutor,
+            DownloadProgress progress
+    ) throws Exception {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(size);
+            FileChannel channel = randomAccessFile.getChannel();
+            List<Future<Void>> ranges = new ArrayList<>();
+            try {
+                for (long start = 0; start < size; start += rangeSize) {
+                    long rangeStart = start;
+                    long rangeEnd = Math.min(size, start + rangeSize) - 1;
+                    ranges.add(rangeExecutor.submit(() -> {
+                        downloadRange(cloudResourceSourceItem, channel, rangeStart, rangeEnd, file.getName(), progress);
+                        return null;
+                    }));
+                }
+                for (Future<Void> range : ranges) {
+                    getResult(range);
+                }
+            } finally {
+                for (Future<Void> range : ranges) {
+                    range.cancel(true);
+                }
+            }
+        }
+    }
+
+    private void downloadRange(
+            CloudResourceSourceItem cloudResourceSourceItem,
+            FileChannel channel,
+            long start,
+            long end,
+            String fileName,
+            DownloadProgress progress
+    ) throws IOException {
+        long position = start;
+        try (InputStream inputStream = cloudResourceSourceItem.getInputStream(start, end)) {
+            if (inputStream == null) {
+                throw new VisalloException("Cloud destination input stream must not be null");
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while (position <= end && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, end - position + 1))) != -1) {
+                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                while (byteBuffer.hasRemaining()) {
+                    position += channel.write(byteBuffer, position);
+                }
+                progress.bytesDownloaded(read, fileName);
+            }
+        }
+        if (position != end + 1) {
+            throw new VisalloException(String.format("Range %d-%d of %s ended after %d bytes", start, end, fileName, position - start));
+        }
+    }
+
+    private static <T> T getResult(Future<T> future) throws Exception {
         try {
-            ByteStreams.readBytes(inputStream,
-                    new ByteProcessor<Object>() {
-                        private long progress = cumulativeSize;
-                        private long flushProgress = 0;
-                        public boolean processBytes(byte[] buffer, int offset, int length) throws IOException {
-                            out.write(buffer, offset, length);
-                            if (allItemSize > 0) {
-                                progress += length;
-                                flushProgress += length;
-                                if (((double)flushProgress / allItemSize) > 0.01) {
-                                    longRunningProcessRepository.reportProgress(longRunningProcessId, (double) progress / allItemSize, String.format("Downloading %s", file.getName()));
-                                    flushProgress = 0;
-                                }
-                            }
-                            return true;
-                        }
-                        public Void getResult() {
-                            return null;
-                        }
-                    });
-            success = true;
-        } finally {
-            if (allItemSize.equals(0)) {
-                longRunningProcessRepository.reportProgress(longRunningProcessId, noSizeProgress, "Downloading");
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
             }
-            Closeables.close(out, !success);
+            throw ex;
         }
+    }
 
-        return success;
+    private static ThreadFactory createThreadFactory(String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
+    /**
+     * Reports the progress of downloads running on several threads. Progress is reported by bytes when the sizes of
+     * the items are known, otherwise by items.
+     */
+    private class DownloadProgress {
+        private final String longRunningProcessId;
+        private final int itemCount;
+        private final long allItemsSize;
+        private long downloadedSize;
+        private long reportedSize;
+        private int downloadedItemCount;
+
+        DownloadProgress(String longRunningProcessId, int itemCount, long allItemsSize) {
+            this.longRunningProcessId = longRunningProcessId;
+            this.itemCount = itemCount;
+            this.allItemsSize = allItemsSize;
+        }
+
+        synchronized void bytesDownloaded(long length, String fileName) {
+            if (allItemsSize <= 0) {
+                return;
+            }
+            downloadedSize += length;
+            if (((double) (downloadedSize - reportedSize) / allItemsSize) > 0.01) {
+                longRunningProcessRepository.reportProgress(longRunningProcessId, (double) downloadedSize / allItemsSize, String.format("Downloading %s", fileName));
+                reportedSize = downloadedSize;
+            }
+        }
+
+        synchronized void itemDownloaded() {
+            downloadedItemCount++;
+            if (allItemsSize <= 0) {
+                longRunningProcessRepository.reportProgress(longRunningProcessId, (double) downloadedItemCount / itemCount, "Downloading");
+            }
+        }
+    }
 }
@@ -8,4 +8,11 @@ public interface CloudResourceSource {
 
     Collection<CloudResourceSourceItem> getItems(JSONObject configuration);
 
+    /**
+     * @return the most items of this source the import downloads at the same time
+     */
+    default int getMaxConcurrentDownloads() {
+        return Integer.MAX_VALUE;
+    }
+
 }
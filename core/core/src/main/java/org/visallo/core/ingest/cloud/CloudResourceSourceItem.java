@@ -8,4 +8,20 @@ public interface CloudResourceSourceItem {
     String getName();
     Long getSize();
 
+    /**
+     * @return true if {@link #getInputStream(long, long)} can read parts of this item, so large items can be
+     * downloaded in several parts at the same time
+     */
+    default boolean isRangeSupported() {
+        return false;
+    }
+
+    /**
+     * @param start the position of the first byte to read
+     * @param end   the position of the last byte to read, inclusive
+     */
+    default InputStream getInputStream(long start, long end) {
+        throw new UnsupportedOperationException("Reading ranges is not supported by " + getClass().getName());
+    }
+
 }
@@ -1,29 +1,31 @@
 package org.visallo.core.ingest.graphProperty;
 
 import com.google.common.base.Charsets;
-import com.google.common.io.CharStreams;
 import org.vertexium.Element;
 import org.vertexium.Property;
 import org.vertexium.Vertex;
 import org.visallo.core.model.ontology.Concept;
 import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.termMention.TermMentionBatch;
 import org.visallo.core.model.termMention.TermMentionBuilder;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
+import java.io.Reader;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public abstract class RegexGraphPropertyWorker extends GraphPropertyWorker {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(RegexGraphPropertyWorker.class);
     private final Pattern pattern;
+    private final StreamingRegexMatcher matcher;
 
     public RegexGraphPropertyWorker(String regEx) {
         this.pattern = Pattern.compile(regEx, Pattern.MULTILINE);
+        this.matcher = new StreamingRegexMatcher(this.pattern);
     }
 
     protected abstract Concept getConcept();
@@ -38,31 +40,21 @@ public abstract class RegexGraphPropertyWorker extends GraphPropertyWorker {
     public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
         LOGGER.debug("Extracting pattern [%s] from provided text", pattern);
 
-        final String text = CharStreams.toString(new InputStreamReader(in, Charsets.UTF_8));
-
-        final Matcher matcher = pattern.matcher(text);
-
-        Vertex outVertex = (Vertex) data.getElement();
-
-        List<Vertex> termMentions = new ArrayList<>();
-        while (matcher.find()) {
-            final String patternGroup = matcher.group();
-            int start = matcher.start();
-            int end = matcher.end();
-
-            Vertex termMention = new TermMentionBuilder()
-                    .outVertex(outVertex)
-                    .propertyKey(data.getProperty().getKey())
-                    .propertyName(data.getProperty().getName())
-                    .start(start)
-                    .end(end)
-                    .title(patternGroup)
-                    .conceptIri(getConcept().getIRI())
-                    .visibilityJson(data.getElementVisibilityJson())
-                    .process(getClass().getName())
-                    .save(getGraph(), getVisibilityTranslator(), getUser(), getAuthorizations());
-            termMentions.add(termMention);
-        }
+        final Vertex outVertex = (Vertex) data.getElement();
+        final Property property = data.getProperty();
+        final TermMentionBatch termMentionBatch = new TermMentionBatch(getGraph(), getVisibilityTranslator(), getUser(), getAuthorizations());
+        Reader reader = new BufferedReader(new InputStreamReader(in, Charsets.UTF_8));
+        matcher.match(reader, (patternIndex, match, start, end) -> termMentionBatch.add(new TermMentionBuilder()
+                .outVertex(outVertex)
+                .propertyKey(property.getKey())
+                .propertyName(property.getName())
+                .start(start)
+                .end(end)
+                .title(match)
+                .conceptIri(getConcept().getIRI())
+                .visibilityJson(data.getElementVisibilityJson())
+                .process(getClass().getName())));
+        List<Vertex> termMentions = termMentionBatch.save();
         applyTermMentionFilters(outVertex, termMentions);
         pushTextUpdated(data);
     }
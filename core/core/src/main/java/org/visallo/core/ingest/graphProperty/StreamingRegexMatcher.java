@@ -0,0 +1,90 @@
+package org.visallo.core.ingest.graphProperty;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the matches of one or more patterns in a single pass over a {@link Reader} without reading the whole text
+ * into memory. The text is scanned in overlapping windows and each pattern reports the same non-overlapping matches,
+ * with the same offsets, as {@link Matcher#find()} on the whole text would, as long as no match is longer than
+ * maxMatchLength characters and lookbehinds do not look back further than {@link #CONTEXT_LENGTH} characters.
+ */
+public class StreamingRegexMatcher {
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_MATCH_LENGTH = 1024;
+    public static final int CONTEXT_LENGTH = 64;
+    private final Pattern[] patterns;
+    private final int windowSize;
+    private final int maxMatchLength;
+
+    public interface MatchHandler {
+        void handle(int patternIndex, String match, long start, long end) throws Exception;
+    }
+
+    public StreamingRegexMatcher(Pattern... patterns) {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MAX_MATCH_LENGTH, patterns);
+    }
+
+    public StreamingRegexMatcher(int windowSize, int maxMatchLength, Pattern... patterns) {
+        this.patterns = patterns;
+        this.windowSize = Math.max(1, windowSize);
+        this.maxMatchLength = Math.max(1, maxMatchLength);
+    }
+
+    public void match(Reader reader, MatchHandler handler) throws Exception {
+        char[] buffer = new char[CONTEXT_LENGTH + windowSize + maxMatchLength];
+        long[] nextStarts = new long[patterns.length];
+        long bufferOffset = 0;
+        int contextLength = 0;
+        int length = 0;
+        boolean eof = false;
+        while (true) {
+            length = fill(reader, buffer, length);
+            if (length < buffer.length) {
+                eof = true;
+            }
+
+            // matches starting after the commit limit may continue past the end of the buffer, they are found in the next window
+            int commitLimit = eof ? length : length - maxMatchLength;
+            CharBuffer text = CharBuffer.wrap(buffer, 0, length);
+            for (int patternIndex = 0; patternIndex < patterns.length; patternIndex++) {
+                int regionStart = (int) Math.max(contextLength, nextStarts[patternIndex] - bufferOffset);
+                if (regionStart > length) {
+                    continue;
+                }
+                Matcher matcher = patterns[patternIndex].matcher(text);
+                matcher.useTransparentBounds(true);
+                matcher.useAnchoringBounds(false);
+                matcher.region(regionStart, length);
+                while (matcher.find() && matcher.start() < commitLimit) {
+                    handler.handle(patternIndex, matcher.group(), bufferOffset + matcher.start(), bufferOffset + matcher.end());
+                    nextStarts[patternIndex] = bufferOffset + Math.max(matcher.end(), matcher.start() + 1);
+                }
+            }
+            if (eof) {
+                return;
+            }
+
+            // keep the uncommitted text plus some context for word boundaries and lookbehinds
+            int carryStart = Math.max(0, commitLimit - CONTEXT_LENGTH);
+            System.arraycopy(buffer, carryStart, buffer, 0, length - carryStart);
+            contextLength = commitLimit - carryStart;
+            bufferOffset += carryStart;
+            length -= carryStart;
+        }
+    }
+
+    private static int fill(Reader reader, char[] buffer, int length) throws IOException {
+        while (length < buffer.length) {
+            int read = reader.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+}
@@ -1,34 +1,59 @@
 package org.visallo.core.model.artifactThumbnails;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import com.v5analytics.simpleorm.SimpleOrmSession;
 import org.vertexium.Vertex;
+import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.types.BooleanVisalloProperty;
 import org.visallo.core.model.properties.types.IntegerVisalloProperty;
 import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.status.MetricsManager;
 import org.visallo.core.user.User;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+@Singleton
 public class ArtifactThumbnailRepository {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ArtifactThumbnailRepository.class);
     private static final String VISIBILITY_STRING = "";
+    public static final String CONFIG_BUCKET_SIZES = ArtifactThumbnailRepository.class.getName() + ".bucketSizes";
+    public static final String DEFAULT_BUCKET_SIZES = "150,200,300,600,800";
     public static int FRAMES_PER_PREVIEW = 20;
     public static int PREVIEW_FRAME_WIDTH = 360;
     public static int PREVIEW_FRAME_HEIGHT = 240;
     private final SimpleOrmSession simpleOrmSession;
     private final UserRepository userRepository;
+    private final List<Integer> bucketSizes;
+    private final ConcurrentMap<String, CompletableFuture<ArtifactThumbnail>> inFlightThumbnails = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter coalescedCounter;
+    private final Timer generationTimer;
     private BooleanVisalloProperty yAxisFlippedProperty;
     private IntegerVisalloProperty clockwiseRotationProperty;
 
@@ -36,10 +61,19 @@ public class ArtifactThumbnailRepository {
     public ArtifactThumbnailRepository(
             SimpleOrmSession simpleOrmSession,
             UserRepository userRepository,
-            final OntologyRepository ontologyRepository
+            final OntologyRepository ontologyRepository,
+            Configuration configuration,
+            MetricsManager metricsManager
     ) {
         this.simpleOrmSession = simpleOrmSession;
         this.userRepository = userRepository;
+        this.bucketSizes = parseBucketSizes(configuration.get(CONFIG_BUCKET_SIZES, DEFAULT_BUCKET_SIZES));
+
+        String metricsPrefix = metricsManager.getNamePrefix(this);
+        this.hitCounter = metricsManager.counter(metricsPrefix + "hits");
+        this.missCounter = metricsManager.counter(metricsPrefix + "misses");
+        this.coalescedCounter = metricsManager.counter(metricsPrefix + "coalesced");
+        this.generationTimer = metricsManager.timer(metricsPrefix + "generation");
 
         String yAxisFlippedPropertyIri = ontologyRepository.getPropertyIRIByIntent("media.yAxisFlipped");
         if (yAxisFlippedPropertyIri != null) {
@@ -52,6 +86,106 @@ public class ArtifactThumbnailRepository {
         }
     }
 
+    static List<Integer> parseBucketSizes(String bucketSizesString) {
+        TreeSet<Integer> bucketSizes = new TreeSet<>();
+        for (String bucketSize : bucketSizesString.split(",")) {
+            bucketSize = bucketSize.trim();
+            if (bucketSize.length() == 0) {
+                continue;
+            }
+            try {
+                bucketSizes.add(Integer.parseInt(bucketSize));
+            } catch (NumberFormatException ex) {
+                throw new VisalloException("Invalid thumbnail bucket size \"" + bucketSize + "\" in " + CONFIG_BUCKET_SIZES, ex);
+            }
+        }
+        if (bucketSizes.isEmpty()) {
+            throw new VisalloException("No thumbnail bucket sizes configured in " + CONFIG_BUCKET_SIZES);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(bucketSizes));
+    }
+
+    /**
+     * @return the configured bucket sizes, smallest first
+     */
+    public List<Integer> getBucketSizes() {
+        return bucketSizes;
+    }
+
+    /**
+     * Snaps a requested size to the smallest bucket that is at least as large, or the largest bucket if the
+     * request is larger than all of them, so only a bounded number of thumbnails is stored per vertex.
+     */
+    public int getBucketSize(int requestedSize) {
+        for (Integer bucketSize : bucketSizes) {
+            if (bucketSize >= requestedSize) {
+                return bucketSize;
+            }
+        }
+        return bucketSizes.get(bucketSizes.size() - 1);
+    }
+
+    /**
+     * Gets the thumbnail of the bucket containing the requested size, generating and saving it on a miss.
+     * Concurrent misses for the same thumbnail wait on a single generation instead of each decoding the image.
+     */
+    public ArtifactThumbnail getOrCreateThumbnail(
+            Vertex artifactVertex,
+            String propertyKey,
+            String thumbnailType,
+            StreamingPropertyValue value,
+            int requestedSize,
+            User user
+    ) {
+        int bucketSize = getBucketSize(requestedSize);
+        ArtifactThumbnail thumbnail = getThumbnail(artifactVertex.getId(), thumbnailType, bucketSize, bucketSize, user);
+        if (thumbnail != null && thumbnail.getData() != null) {
+            LOGGER.debug("Cache hit for: %s (%s) %d x %d", artifactVertex.getId(), thumbnailType, bucketSize, bucketSize);
+            hitCounter.inc();
+            return thumbnail;
+        }
+        missCounter.inc();
+
+        String id = ArtifactThumbnail.createId(artifactVertex.getId(), thumbnailType, bucketSize, bucketSize);
+        CompletableFuture<ArtifactThumbnail> future = new CompletableFuture<>();
+        CompletableFuture<ArtifactThumbnail> inFlightFuture = inFlightThumbnails.putIfAbsent(id, future);
+        if (inFlightFuture != null) {
+            LOGGER.debug("Waiting for in flight thumbnail: %s (%s) %d x %d", artifactVertex.getId(), thumbnailType, bucketSize, bucketSize);
+            coalescedCounter.inc();
+            return waitForThumbnail(inFlightFuture, id);
+        }
+
+        LOGGER.info("Cache miss for: %s (%s) %d x %d", artifactVertex.getId(), thumbnailType, bucketSize, bucketSize);
+        try (InputStream in = value.getInputStream()) {
+            thumbnail = createThumbnail(artifactVertex, propertyKey, thumbnailType, in, new int[]{bucketSize, bucketSize}, user);
+            future.complete(thumbnail);
+            return thumbnail;
+        } catch (IOException ex) {
+            VisalloException visalloException = new VisalloException("Could not create thumbnail: " + id, ex);
+            future.completeExceptionally(visalloException);
+            throw visalloException;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlightThumbnails.remove(id, future);
+        }
+    }
+
+    private ArtifactThumbnail waitForThumbnail(CompletableFuture<ArtifactThumbnail> future, String id) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted waiting for thumbnail: " + id, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new VisalloException("Could not create thumbnail: " + id, ex.getCause());
+        }
+    }
+
     public ArtifactThumbnail getThumbnail(String artifactVertexId, String thumbnailType, int width, int height, User user) {
         String id = ArtifactThumbnail.createId(artifactVertexId, thumbnailType, width, height);
         return simpleOrmSession.findById(ArtifactThumbnail.class, id, userRepository.getSimpleOrmContext(user));
@@ -71,46 +205,113 @@ public class ArtifactThumbnailRepository {
         return thumbnail;
     }
 
+    /**
+     * Decodes the image once and saves a thumbnail for each of the given sizes, used to generate the standard
+     * bucket sizes ahead of the first request.
+     */
+    public List<ArtifactThumbnail> createThumbnails(Vertex artifactVertex, String propertyKey, String thumbnailType, InputStream in, Collection<Integer> sizes, User user) throws IOException {
+        Timer.Context timerContext = generationTimer.time();
+        List<ArtifactThumbnail> thumbnails = new ArrayList<>();
+        try {
+            int maxSize = Collections.max(sizes);
+            BufferedImage originalImage = readImage(in, new int[]{maxSize, maxSize});
+            checkNotNull(originalImage, "Could not createThumbnails: read original image for artifact " + artifactVertex.getId());
+            BufferedImage transformedImage = getTransformedImage(originalImage, artifactVertex, propertyKey);
+            for (Integer size : sizes) {
+                thumbnails.add(generateThumbnail(artifactVertex, thumbnailType, originalImage, transformedImage, new int[]{size, size}));
+            }
+        } finally {
+            timerContext.stop();
+        }
+        for (ArtifactThumbnail thumbnail : thumbnails) {
+            simpleOrmSession.save(thumbnail, VISIBILITY_STRING, userRepository.getSimpleOrmContext(user));
+        }
+        return thumbnails;
+    }
+
     public ArtifactThumbnail generateThumbnail(Vertex artifactVertex, String propertyKey, String thumbnailType, InputStream in, int[] boundaryDims) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        String format;
-        int type;
+        Timer.Context timerContext = generationTimer.time();
         try {
-            BufferedImage originalImage = ImageIO.read(in);
+            BufferedImage originalImage = readImage(in, boundaryDims);
             checkNotNull(originalImage, "Could not generateThumbnail: read original image for artifact " + artifactVertex.getId());
-            type = ImageUtils.thumbnailType(originalImage);
-            format = ImageUtils.thumbnailFormat(originalImage);
-
             BufferedImage transformedImage = getTransformedImage(originalImage, artifactVertex, propertyKey);
+            return generateThumbnail(artifactVertex, thumbnailType, originalImage, transformedImage, boundaryDims);
+        } catch (IOException e) {
+            throw new VisalloResourceNotFoundException("Error reading InputStream");
+        } finally {
+            timerContext.stop();
+        }
+    }
+
+    private ArtifactThumbnail generateThumbnail(Vertex artifactVertex, String thumbnailType, BufferedImage originalImage, BufferedImage transformedImage, int[] boundaryDims) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int type = ImageUtils.thumbnailType(originalImage);
+        String format = ImageUtils.thumbnailFormat(originalImage);
+
+        //Get new image dimensions, which will be used for the icon.
+        int[] transformedImageDims = new int[]{transformedImage.getWidth(), transformedImage.getHeight()};
+        int[] newImageDims = getScaledDimension(transformedImageDims, boundaryDims);
+        if (newImageDims[0] >= transformedImageDims[0] || newImageDims[1] >= transformedImageDims[1]) {
+            LOGGER.info("Original image dimensions %d x %d are smaller "
+                            + "than requested dimensions %d x %d returning original.",
+                    transformedImageDims[0], transformedImageDims[1],
+                    newImageDims[0], newImageDims[1]);
+        }
+        //Resize the image, halving first so large images keep their detail.
+        BufferedImage scaledImage = ImageUtils.downscale(transformedImage, newImageDims[0], newImageDims[1]);
+        BufferedImage resizedImage = new BufferedImage(newImageDims[0], newImageDims[1], type);
+        Graphics2D g = resizedImage.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        int width = resizedImage.getWidth();
+        int height = resizedImage.getHeight();
+        if (scaledImage.getColorModel().getNumComponents() != 3) {
+            g.drawImage(scaledImage, 0, 0, width, height, null);
+        } else {
+            g.drawImage(scaledImage, 0, 0, width, height, Color.BLACK, null);
+        }
+        g.dispose();
+
+        //Write the bufferedImage to a file.
+        ImageIO.write(resizedImage, format, out);
+
+        return new ArtifactThumbnail(artifactVertex.getId(), thumbnailType, out.toByteArray(), format, width, height);
+    }
 
-            //Get new image dimensions, which will be used for the icon.
-            int[] transformedImageDims = new int[]{transformedImage.getWidth(), transformedImage.getHeight()};
-            int[] newImageDims = getScaledDimension(transformedImageDims, boundaryDims);
-            if (newImageDims[0] >= transformedImageDims[0] || newImageDims[1] >= transformedImageDims[1]) {
-                LOGGER.info("Original image dimensions %d x %d are smaller "
-                                + "than requested dimensions %d x %d returning original.",
-                        transformedImageDims[0], transformedImageDims[1],
-                        newImageDims[0], newImageDims[1]);
+    /**
+     * Reads the image, skipping source pixels when the image is much larger than the thumbnail so large
+     * images are never decoded at full resolution. At least twice the boundary is kept for the final scale.
+     */
+    static BufferedImage readImage(InputStream in, int[] boundaryDims) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(in)) {
+            if (imageInputStream == null) {
+                return null;
             }
-            //Resize the image.
-            BufferedImage resizedImage = new BufferedImage(newImageDims[0], newImageDims[1], type);
-            Graphics2D g = resizedImage.createGraphics();
-            int width = resizedImage.getWidth();
-            int height = resizedImage.getHeight();
-            if (transformedImage.getColorModel().getNumComponents() != 3) {
-                g.drawImage(transformedImage, 0, 0, width, height, null);
-            } else {
-                g.drawImage(transformedImage, 0, 0, width, height, Color.BLACK, null);
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+            if (!readers.hasNext()) {
+                return null;
             }
-            g.dispose();
-
-            //Write the bufferedImage to a file.
-            ImageIO.write(resizedImage, format, out);
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = getSubsampling(reader.getWidth(0), reader.getHeight(0), boundaryDims);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
 
-            return new ArtifactThumbnail(artifactVertex.getId(), thumbnailType, out.toByteArray(), format, width, height);
-        } catch (IOException e) {
-            throw new VisalloResourceNotFoundException("Error reading InputStream");
+    static int getSubsampling(int imageWidth, int imageHeight, int[] boundaryDims) {
+        // the image may still be rotated, so compare against the larger side of the boundary
+        int boundary = Math.max(boundaryDims[0], boundaryDims[1]);
+        if (boundary <= 0) {
+            return 1;
         }
+        return Math.max(1, Math.max(imageWidth, imageHeight) / (boundary * 2));
     }
 
     public BufferedImage getTransformedImage(BufferedImage originalImage, Vertex artifactVertex, String propertyKey) {
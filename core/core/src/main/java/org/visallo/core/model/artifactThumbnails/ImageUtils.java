@@ -92,6 +92,28 @@ public class ImageUtils {
         return result;
     }
 
+    /**
+     * Halves the image with bilinear interpolation until it is less than twice the target size. A single bilinear
+     * scale by a large factor skips most of the source pixels and aliases badly.
+     */
+    public static BufferedImage downscale(BufferedImage image, int targetWidth, int targetHeight) {
+        BufferedImage result = image;
+        int type = thumbnailType(image);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        while (width / 2 >= targetWidth && height / 2 >= targetHeight) {
+            width /= 2;
+            height /= 2;
+            BufferedImage halved = new BufferedImage(width, height, type);
+            Graphics2D g = halved.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(result, 0, 0, width, height, null);
+            g.dispose();
+            result = halved;
+        }
+        return result;
+    }
+
     public static int thumbnailType(BufferedImage image) {
         if (image.getColorModel().getNumComponents() > 3 || isGrayScale(image)) {
             return BufferedImage.TYPE_4BYTE_ABGR;
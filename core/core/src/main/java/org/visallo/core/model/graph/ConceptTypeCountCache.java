@@ -0,0 +1,415 @@
+package org.visallo.core.model.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.*;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.user.AuthorizationRepository;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Keeps the vertex counts by concept type for each set of authorizations they have been asked for.
+ * <p>
+ * The counts of a set of authorizations are read from the search index the first time they are asked for. They are
+ * then kept up to date from the element change broadcasts, which are handled on a background thread: the changed
+ * vertex is read and its previous concept type and visibility, remembered from earlier changes, are replaced by the
+ * new ones. When the previous state of a vertex isn't known, because it is new or changed before it was tracked, its
+ * state when the counts were read is found from the history of its concept type, so a new vertex is simply added.
+ * Only when that isn't possible, for a deleted vertex or one whose state may have been evicted from the
+ * maxTrackedVertices tracked states, are the counts that may be affected read again, at most every
+ * minDirtyReconcileIntervalSeconds. All counts are also read again every reconcile interval.
+ * <p>
+ * Counts are only kept once this cache has subscribed to the broadcasts, until then they are read on every request.
+ */
+@Singleton
+public class ConceptTypeCountCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ConceptTypeCountCache.class);
+    public static final String CONFIG_RECONCILE_INTERVAL_SECONDS = ConceptTypeCountCache.class.getName() + ".reconcileIntervalSeconds";
+    public static final int DEFAULT_RECONCILE_INTERVAL_SECONDS = 10 * 60;
+    public static final String CONFIG_MIN_DIRTY_RECONCILE_INTERVAL_SECONDS = ConceptTypeCountCache.class.getName() + ".minDirtyReconcileIntervalSeconds";
+    public static final int DEFAULT_MIN_DIRTY_RECONCILE_INTERVAL_SECONDS = 60;
+    public static final String CONFIG_MAX_AUTHORIZATION_SETS = ConceptTypeCountCache.class.getName() + ".maxAuthorizationSets";
+    public static final int DEFAULT_MAX_AUTHORIZATION_SETS = 1000;
+    public static final String CONFIG_MAX_TRACKED_VERTICES = ConceptTypeCountCache.class.getName() + ".maxTrackedVertices";
+    public static final int DEFAULT_MAX_TRACKED_VERTICES = 100000;
+    private static final long DIRTY_CHECK_INTERVAL_SECONDS = 10;
+    private static final String CONCEPT_TYPE = VisalloProperties.CONCEPT_TYPE.getPropertyName();
+    private final Graph graph;
+    private final UserRepository userRepository;
+    private final AuthorizationRepository authorizationRepository;
+    private final long reconcileIntervalMillis;
+    private final long minDirtyReconcileIntervalMillis;
+    private final Cache<String, Counts> countsByAuthorizations;
+    // only used on the reconcile executor's thread
+    private final Cache<String, VertexState> vertexStates;
+    private volatile long lastEvictionTime;
+    private ScheduledExecutorService reconcileExecutor;
+    private volatile boolean subscribed;
+
+    @Inject
+    public ConceptTypeCountCache(
+            Graph graph,
+            Configuration configuration,
+            UserRepository userRepository,
+            AuthorizationRepository authorizationRepository
+    ) {
+        this.graph = graph;
+        this.userRepository = userRepository;
+        this.authorizationRepository = authorizationRepository;
+        this.reconcileIntervalMillis = TimeUnit.SECONDS.toMillis(
+                configuration.getInt(CONFIG_RECONCILE_INTERVAL_SECONDS, DEFAULT_RECONCILE_INTERVAL_SECONDS)
+        );
+        this.minDirtyReconcileIntervalMillis = TimeUnit.SECONDS.toMillis(
+                configuration.getInt(CONFIG_MIN_DIRTY_RECONCILE_INTERVAL_SECONDS, DEFAULT_MIN_DIRTY_RECONCILE_INTERVAL_SECONDS)
+        );
+        this.countsByAuthorizations = CacheBuilder.newBuilder()
+                .maximumSize(configuration.getInt(CONFIG_MAX_AUTHORIZATION_SETS, DEFAULT_MAX_AUTHORIZATION_SETS))
+                .expireAfterAccess(Math.max(reconcileIntervalMillis, 1) * 2, TimeUnit.MILLISECONDS)
+                .build();
+        this.vertexStates = CacheBuilder.newBuilder()
+                .maximumSize(configuration.getInt(CONFIG_MAX_TRACKED_VERTICES, DEFAULT_MAX_TRACKED_VERTICES))
+                .removalListener(new RemovalListener<String, VertexState>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<String, VertexState> notification) {
+                        if (notification.wasEvicted()) {
+                            lastEvictionTime = System.currentTimeMillis();
+                        }
+                    }
+                })
+                .build();
+    }
+
+    public synchronized void subscribeToBroadcastMessages(WorkQueueRepository workQueueRepository) {
+        if (subscribed) {
+            return;
+        }
+        reconcileExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "concept-type-count-reconcile");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                ConceptTypeCountCache.this.broadcastReceived(json);
+            }
+        });
+        reconcileExecutor.scheduleWithFixedDelay(
+                this::reconcileStaleCounts,
+                DIRTY_CHECK_INTERVAL_SECONDS,
+                DIRTY_CHECK_INTERVAL_SECONDS,
+                TimeUnit.SECONDS
+        );
+        subscribed = true;
+    }
+
+    public void shutdown() {
+        if (reconcileExecutor != null) {
+            reconcileExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the number of vertices of each concept type the authorizations can read
+     */
+    public Map<Object, Long> getCounts(Authorizations authorizations) {
+        if (!subscribed) {
+            return graph.getVertexPropertyCountByValue(CONCEPT_TYPE, authorizations);
+        }
+        String key = getKey(authorizations);
+        Counts counts = countsByAuthorizations.getIfPresent(key);
+        if (counts == null) {
+            counts = new Counts(authorizations);
+            reconcile(counts);
+            countsByAuthorizations.put(key, counts);
+        }
+        return counts.toMap();
+    }
+
+    /**
+     * Queues the vertices changed by the broadcast, they are read on the reconcile executor so the broadcast thread
+     * isn't held up by the graph.
+     */
+    void broadcastReceived(JSONObject json) {
+        JSONObject data = json.optJSONObject("data");
+        if (data == null) {
+            return;
+        }
+        List<String> changedVertexIds = new ArrayList<>();
+        switch (json.optString("type")) {
+            case "propertyChange":
+            case "publish":
+                String vertexId = data.optString("graphVertexId", null);
+                String propertyName = data.optString("propertyName", null);
+                if (vertexId != null && (propertyName == null || CONCEPT_TYPE.equals(propertyName))) {
+                    changedVertexIds.add(vertexId);
+                }
+                break;
+            case "verticesDeleted":
+                JSONArray vertexIds = data.optJSONArray("vertexIds");
+                if (vertexIds != null) {
+                    for (int i = 0; i < vertexIds.length(); i++) {
+                        changedVertexIds.add(vertexIds.getString(i));
+                    }
+                }
+                break;
+        }
+        if (changedVertexIds.isEmpty() || reconcileExecutor.isShutdown()) {
+            return;
+        }
+        reconcileExecutor.execute(() -> {
+            for (String changedVertexId : changedVertexIds) {
+                try {
+                    vertexChanged(changedVertexId);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not update concept type counts for vertex: %s", changedVertexId, ex);
+                    markAllDirty();
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until the changes queued by earlier broadcasts have been applied to the counts.
+     */
+    void waitForQueuedChanges() throws InterruptedException, ExecutionException {
+        reconcileExecutor.submit(() -> null).get();
+    }
+
+    private void vertexChanged(String vertexId) {
+        Authorizations systemAuthorizations = getSystemAuthorizations();
+        Vertex vertex = graph.getVertex(vertexId, EnumSet.of(FetchHint.PROPERTIES), systemAuthorizations);
+        VertexState newState = VertexState.create(vertex);
+        VertexState trackedState = vertexStates.getIfPresent(vertexId);
+        long previousEvictionTime = lastEvictionTime;
+        if (vertex == null) {
+            vertexStates.invalidate(vertexId);
+        } else {
+            vertexStates.put(vertexId, newState == null ? VertexState.NONE : newState);
+        }
+
+        Collection<Counts> allCounts = countsByAuthorizations.asMap().values();
+        if (trackedState != null) {
+            VertexState oldState = trackedState == VertexState.NONE ? null : trackedState;
+            for (Counts counts : allCounts) {
+                counts.remove(oldState);
+                counts.add(newState);
+            }
+        } else if (vertex != null) {
+            vertexChangedWithoutTrackedState(vertex, newState, allCounts, previousEvictionTime, systemAuthorizations);
+        } else {
+            // the state of a deleted vertex that wasn't tracked is gone with it
+            for (Counts counts : allCounts) {
+                counts.markDirty();
+            }
+        }
+    }
+
+    /**
+     * No change of a vertex which isn't tracked has been applied to the counts read after the last eviction of a
+     * tracked state, so its state when they were read, from the history of its concept type, is replaced by its new
+     * state. A new vertex had no concept type then and is simply added. Counts read before the last eviction may
+     * already have the vertex's new state, those that can read it are read again.
+     */
+    private void vertexChangedWithoutTrackedState(
+            Vertex vertex,
+            VertexState newState,
+            Collection<Counts> allCounts,
+            long previousEvictionTime,
+            Authorizations systemAuthorizations
+    ) {
+        List<Counts> exactCounts = new ArrayList<>();
+        long lastReadTime = 0;
+        for (Counts counts : allCounts) {
+            if (counts.getReconcileStartTime() > previousEvictionTime) {
+                exactCounts.add(counts);
+                lastReadTime = Math.max(lastReadTime, counts.getReconcileStartTime());
+            } else if (newState != null && newState.canRead(counts.getAuthorizations())) {
+                counts.markDirty();
+            }
+        }
+        if (exactCounts.isEmpty()) {
+            return;
+        }
+
+        List<HistoricalPropertyValue> conceptTypeHistory = new ArrayList<>();
+        try {
+            for (HistoricalPropertyValue value : vertex.getHistoricalPropertyValues(null, lastReadTime, systemAuthorizations)) {
+                if (CONCEPT_TYPE.equals(value.getPropertyName())) {
+                    conceptTypeHistory.add(value);
+                }
+            }
+        } catch (Exception ex) {
+            LOGGER.warn("Could not read the concept type history of vertex: %s", vertex.getId(), ex);
+            for (Counts counts : exactCounts) {
+                if (newState != null && newState.canRead(counts.getAuthorizations())) {
+                    counts.markDirty();
+                }
+            }
+            return;
+        }
+
+        for (Counts counts : exactCounts) {
+            counts.remove(VertexState.createBefore(vertex, conceptTypeHistory, counts.getReconcileStartTime()));
+            counts.add(newState);
+        }
+    }
+
+    void reconcileStaleCounts() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Counts counts : countsByAuthorizations.asMap().values()) {
+                long age = now - counts.getReconcileStartTime();
+                if ((counts.isDirty() && age >= minDirtyReconcileIntervalMillis) || age > reconcileIntervalMillis) {
+                    reconcile(counts);
+                }
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Could not reconcile concept type counts", ex);
+        }
+    }
+
+    private void reconcile(Counts counts) {
+        long startTime = System.currentTimeMillis();
+        Map<Object, Long> values = graph.getVertexPropertyCountByValue(CONCEPT_TYPE, counts.getAuthorizations());
+        counts.reset(values, startTime);
+    }
+
+    private void markAllDirty() {
+        for (Counts counts : countsByAuthorizations.asMap().values()) {
+            counts.markDirty();
+        }
+    }
+
+    private Authorizations getSystemAuthorizations() {
+        return authorizationRepository.getGraphAuthorizations(userRepository.getSystemUser());
+    }
+
+    private static String getKey(Authorizations authorizations) {
+        String[] auths = authorizations.getAuthorizations().clone();
+        Arrays.sort(auths);
+        return String.join("\u0000", auths);
+    }
+
+    private static class VertexState {
+        // the state of a tracked vertex without a concept type
+        static final VertexState NONE = new VertexState(null, null, null);
+        private final String conceptType;
+        private final Visibility vertexVisibility;
+        private final Visibility conceptTypeVisibility;
+
+        private VertexState(String conceptType, Visibility vertexVisibility, Visibility conceptTypeVisibility) {
+            this.conceptType = conceptType;
+            this.vertexVisibility = vertexVisibility;
+            this.conceptTypeVisibility = conceptTypeVisibility;
+        }
+
+        static VertexState create(Vertex vertex) {
+            if (vertex == null) {
+                return null;
+            }
+            Property property = VisalloProperties.CONCEPT_TYPE.getProperty(vertex);
+            if (property == null || property.getValue() == null) {
+                return null;
+            }
+            return new VertexState(
+                    property.getValue().toString(),
+                    vertex.getVisibility(),
+                    property.getVisibility()
+            );
+        }
+
+        /**
+         * @return the state of the vertex before the time, from the history of its concept type, or null if it had
+         * no concept type then
+         */
+        static VertexState createBefore(Vertex vertex, List<HistoricalPropertyValue> conceptTypeHistory, long time) {
+            HistoricalPropertyValue latest = null;
+            for (HistoricalPropertyValue value : conceptTypeHistory) {
+                if (value.getTimestamp() < time && (latest == null || value.getTimestamp() > latest.getTimestamp())) {
+                    latest = value;
+                }
+            }
+            if (latest == null || latest.isDeleted() || latest.getValue() == null) {
+                return null;
+            }
+            return new VertexState(
+                    latest.getValue().toString(),
+                    vertex.getVisibility(),
+                    latest.getPropertyVisibility()
+            );
+        }
+
+        boolean canRead(Authorizations authorizations) {
+            return authorizations.canRead(vertexVisibility) && authorizations.canRead(conceptTypeVisibility);
+        }
+    }
+
+    private static class Counts {
+        private final Authorizations authorizations;
+        private final Map<String, Long> counts = new HashMap<>();
+        private long reconcileStartTime;
+        private boolean dirty;
+
+        Counts(Authorizations authorizations) {
+            this.authorizations = authorizations;
+        }
+
+        Authorizations getAuthorizations() {
+            return authorizations;
+        }
+
+        synchronized long getReconcileStartTime() {
+            return reconcileStartTime;
+        }
+
+        synchronized boolean isDirty() {
+            return dirty;
+        }
+
+        synchronized void markDirty() {
+            dirty = true;
+        }
+
+        synchronized void reset(Map<Object, Long> values, long reconcileStartTime) {
+            counts.clear();
+            for (Map.Entry<Object, Long> value : values.entrySet()) {
+                counts.put(value.getKey().toString(), value.getValue());
+            }
+            this.reconcileStartTime = reconcileStartTime;
+            this.dirty = false;
+        }
+
+        synchronized void add(VertexState state) {
+            if (state != null && state.canRead(authorizations)) {
+                counts.merge(state.conceptType, 1L, Long::sum);
+            }
+        }
+
+        synchronized void remove(VertexState state) {
+            if (state != null && state.canRead(authorizations)) {
+                counts.computeIfPresent(state.conceptType, (conceptType, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+
+        synchronized Map<Object, Long> toMap() {
+            return new HashMap<>(counts);
+        }
+    }
+}
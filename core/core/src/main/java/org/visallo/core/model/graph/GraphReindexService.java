@@ -1,24 +1,167 @@
 package org.visallo.core.model.graph;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.google.inject.Inject;
 import org.vertexium.*;
 import org.visallo.core.exception.VisalloException;
+import org.visallo.core.status.MetricsManager;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GraphReindexService {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(GraphReindexService.class);
+    private static final long PROGRESS_REPORT_INTERVAL_MILLIS = 10 * 1000;
     private final GraphWithSearchIndex graph;
+    private final MetricsManager metricsManager;
 
     @Inject
-    public GraphReindexService(Graph graph) {
+    public GraphReindexService(Graph graph, MetricsManager metricsManager) {
         if (!(graph instanceof GraphWithSearchIndex)) {
             throw new VisalloException("Reindex plugin cannot be enabled when the graph does not implement " + GraphWithSearchIndex.class.getName());
         }
         this.graph = (GraphWithSearchIndex) graph;
+        this.metricsManager = metricsManager;
+    }
+
+    /**
+     * Reindexes all elements of the given type whose ids fall between the options start and end ids. The id
+     * space is split into ranges which are indexed concurrently by {@link ReindexOptions#getThreadCount()}
+     * workers, each of which has at most one batch in flight. If a checkpoint file is given the last indexed
+     * id of every range is recorded there, and with {@link ReindexOptions#isResume()} a restarted reindex
+     * skips what was already indexed.
+     */
+    public void reindex(ElementType elementType, ReindexOptions options, Authorizations authorizations) {
+        ReindexCheckpoint checkpoint = ReindexCheckpoint.load(options.getCheckpointFile());
+        if (!options.isResume()) {
+            checkpoint.clear(elementType);
+        }
+        List<ReindexRange> ranges = ReindexRange.split(options.getStartId(), options.getEndId());
+
+        String metricsPrefix = metricsManager.getNamePrefix(this) + elementType.name().toLowerCase() + ".";
+        Meter indexedMeter = metricsManager.meter(metricsPrefix + "indexed");
+        Counter rangesCompleteCounter = metricsManager.counter(metricsPrefix + "ranges-complete");
+        long startTime = System.currentTimeMillis();
+        AtomicInteger rangesComplete = new AtomicInteger();
+        metricsManager.gauge(metricsPrefix + "eta-seconds", (Gauge<Long>) () -> getEtaSeconds(startTime, rangesComplete.get(), ranges.size()));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, options.getThreadCount()));
+        AtomicReference<Exception> firstError = new AtomicReference<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ReindexRange range : ranges) {
+                if (checkpoint.isComplete(elementType, range)) {
+                    rangesComplete.incrementAndGet();
+                    rangesCompleteCounter.inc();
+                    continue;
+                }
+                futures.add(executorService.submit(() -> {
+                    if (firstError.get() != null) {
+                        return;
+                    }
+                    try {
+                        reindexRange(elementType, range, options.getBatchSize(), checkpoint, indexedMeter, authorizations);
+                        rangesComplete.incrementAndGet();
+                        rangesCompleteCounter.inc();
+                    } catch (Exception ex) {
+                        firstError.compareAndSet(null, ex);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                while (true) {
+                    try {
+                        future.get(PROGRESS_REPORT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException ex) {
+                        LOGGER.info(
+                                "reindexed %d %s (%.2f/sec), %d of %d ranges complete, ETA %ds",
+                                indexedMeter.getCount(),
+                                elementType,
+                                indexedMeter.getMeanRate(),
+                                rangesComplete.get(),
+                                ranges.size(),
+                                getEtaSeconds(startTime, rangesComplete.get(), ranges.size())
+                        );
+                    }
+                }
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new VisalloException("Could not reindex " + elementType, ex);
+        } finally {
+            executorService.shutdownNow();
+            metricsManager.removeMetric(metricsPrefix + "indexed");
+            metricsManager.removeMetric(metricsPrefix + "ranges-complete");
+            metricsManager.removeMetric(metricsPrefix + "eta-seconds");
+        }
+
+        if (firstError.get() != null) {
+            throw new VisalloException("Could not reindex " + elementType, firstError.get());
+        }
+        LOGGER.info("reindexed %d %s in %dms", indexedMeter.getCount(), elementType, System.currentTimeMillis() - startTime);
+    }
+
+    private void reindexRange(
+            ElementType elementType,
+            ReindexRange range,
+            int batchSize,
+            ReindexCheckpoint checkpoint,
+            Meter indexedMeter,
+            Authorizations authorizations
+    ) {
+        String lastIndexedId = checkpoint.getLastIndexedId(elementType, range);
+        ReindexRange remainingRange = lastIndexedId == null ? range : range.after(lastIndexedId);
+        LOGGER.debug("indexing %s range %s", elementType, remainingRange);
+
+        Iterable<? extends Element> elements;
+        if (elementType == ElementType.VERTEX) {
+            elements = graph.getVerticesInRange(remainingRange.toRange(), authorizations);
+        } else {
+            elements = graph.getEdgesInRange(remainingRange.toRange(), authorizations);
+        }
+
+        List<Element> batch = new ArrayList<>(batchSize);
+        for (Element element : elements) {
+            batch.add(element);
+            if (batch.size() == batchSize) {
+                indexBatch(elementType, range, batch, checkpoint, indexedMeter, authorizations);
+            }
+        }
+        if (batch.size() > 0) {
+            indexBatch(elementType, range, batch, checkpoint, indexedMeter, authorizations);
+        }
+        checkpoint.setComplete(elementType, range);
+    }
+
+    private void indexBatch(
+            ElementType elementType,
+            ReindexRange range,
+            List<Element> batch,
+            ReindexCheckpoint checkpoint,
+            Meter indexedMeter,
+            Authorizations authorizations
+    ) {
+        graph.getSearchIndex().addElements(graph, batch, authorizations);
+        indexedMeter.mark(batch.size());
+        checkpoint.setLastIndexedId(elementType, range, batch.get(batch.size() - 1).getId());
+        batch.clear();
+    }
+
+    private static long getEtaSeconds(long startTime, int rangesComplete, int rangeCount) {
+        if (rangesComplete == 0) {
+            return -1;
+        }
+        long elapsed = System.currentTimeMillis() - startTime;
+        return (elapsed * (rangeCount - rangesComplete) / rangesComplete) / 1000;
     }
 
     public void reindexVertices(int batchSize, Authorizations authorizations) {
@@ -66,4 +209,73 @@ public class GraphReindexService {
         graph.getSearchIndex().addElements(graph, batch, authorizations);
         batch.clear();
     }
+
+    public static class ReindexOptions {
+        private int batchSize = 100;
+        private int threadCount = 1;
+        private String startId;
+        private String endId;
+        private File checkpointFile;
+        private boolean resume;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public ReindexOptions setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public int getThreadCount() {
+            return threadCount;
+        }
+
+        public ReindexOptions setThreadCount(int threadCount) {
+            this.threadCount = threadCount;
+            return this;
+        }
+
+        public String getStartId() {
+            return startId;
+        }
+
+        /**
+         * Only reindex elements with ids greater than or equal to this id.
+         */
+        public ReindexOptions setStartId(String startId) {
+            this.startId = startId;
+            return this;
+        }
+
+        public String getEndId() {
+            return endId;
+        }
+
+        /**
+         * Only reindex elements with ids less than this id.
+         */
+        public ReindexOptions setEndId(String endId) {
+            this.endId = endId;
+            return this;
+        }
+
+        public File getCheckpointFile() {
+            return checkpointFile;
+        }
+
+        public ReindexOptions setCheckpointFile(File checkpointFile) {
+            this.checkpointFile = checkpointFile;
+            return this;
+        }
+
+        public boolean isResume() {
+            return resume;
+        }
+
+        public ReindexOptions setResume(boolean resume) {
+            this.resume = resume;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,95 @@
+package org.visallo.core.model.graph;
+
+import org.json.JSONObject;
+import org.vertexium.ElementType;
+import org.visallo.core.exception.VisalloException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+
+/**
+ * Records how far each id range of a reindex has progressed so an interrupted reindex can be resumed.
+ * For each range the last indexed id is stored, or a completed marker once the whole range has been indexed.
+ */
+class ReindexCheckpoint {
+    private static final String COMPLETE = "__complete__";
+    private final File file;
+    private final JSONObject ranges;
+
+    private ReindexCheckpoint(File file, JSONObject ranges) {
+        this.file = file;
+        this.ranges = ranges;
+    }
+
+    public static ReindexCheckpoint create(File file) {
+        return new ReindexCheckpoint(file, new JSONObject());
+    }
+
+    public static ReindexCheckpoint load(File file) {
+        if (file == null || !file.exists()) {
+            return create(file);
+        }
+        try {
+            String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            return new ReindexCheckpoint(file, new JSONObject(json));
+        } catch (IOException ex) {
+            throw new VisalloException("Could not read reindex checkpoint: " + file.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Forgets the progress of every range of the given element type.
+     */
+    public synchronized void clear(ElementType elementType) {
+        String prefix = elementType.name() + ":";
+        for (String key : new ArrayList<>(ranges.keySet())) {
+            if (key.startsWith(prefix)) {
+                ranges.remove(key);
+            }
+        }
+        save();
+    }
+
+    public synchronized boolean isComplete(ElementType elementType, ReindexRange range) {
+        return COMPLETE.equals(ranges.optString(getKey(elementType, range), null));
+    }
+
+    /**
+     * @return the last id indexed in the range, or null if nothing has been indexed yet
+     */
+    public synchronized String getLastIndexedId(ElementType elementType, ReindexRange range) {
+        String lastIndexedId = ranges.optString(getKey(elementType, range), null);
+        return COMPLETE.equals(lastIndexedId) ? null : lastIndexedId;
+    }
+
+    public synchronized void setLastIndexedId(ElementType elementType, ReindexRange range, String lastIndexedId) {
+        ranges.put(getKey(elementType, range), lastIndexedId);
+        save();
+    }
+
+    public synchronized void setComplete(ElementType elementType, ReindexRange range) {
+        ranges.put(getKey(elementType, range), COMPLETE);
+        save();
+    }
+
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            File tempFile = new File(file.getAbsolutePath() + ".tmp");
+            Files.write(tempFile.toPath(), ranges.toString(2).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new VisalloException("Could not write reindex checkpoint: " + file.getAbsolutePath(), ex);
+        }
+    }
+
+    private static String getKey(ElementType elementType, ReindexRange range) {
+        return elementType.name() + ":" + range;
+    }
+}
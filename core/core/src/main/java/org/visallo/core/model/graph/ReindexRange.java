@@ -0,0 +1,67 @@
+package org.visallo.core.model.graph;
+
+import org.vertexium.Range;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A range of element ids, inclusive start and exclusive end. A null start or end is unbounded.
+ */
+public class ReindexRange {
+    private static final String DEFAULT_SPLIT_CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private final String start;
+    private final String end;
+
+    public ReindexRange(String start, String end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public String getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the part of this range after the given id, used to resume a partially indexed range
+     */
+    public ReindexRange after(String id) {
+        return new ReindexRange(id + '\0', end);
+    }
+
+    public Range toRange() {
+        return new Range(start, end);
+    }
+
+    /**
+     * Splits the ids between start and end on the first character of the id, which spreads typical
+     * generated ids evenly across the ranges.
+     */
+    public static List<ReindexRange> split(String start, String end) {
+        List<String> splitPoints = new ArrayList<>();
+        for (char c : DEFAULT_SPLIT_CHARACTERS.toCharArray()) {
+            String splitPoint = String.valueOf(c);
+            if ((start == null || splitPoint.compareTo(start) > 0) && (end == null || splitPoint.compareTo(end) < 0)) {
+                splitPoints.add(splitPoint);
+            }
+        }
+
+        List<ReindexRange> ranges = new ArrayList<>();
+        String rangeStart = start;
+        for (String splitPoint : splitPoints) {
+            ranges.add(new ReindexRange(rangeStart, splitPoint));
+            rangeStart = splitPoint;
+        }
+        ranges.add(new ReindexRange(rangeStart, end));
+        return ranges;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (start == null ? "" : start) + "," + (end == null ? "" : end) + ")";
+    }
+}
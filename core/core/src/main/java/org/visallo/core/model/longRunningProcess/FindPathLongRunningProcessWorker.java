@@ -6,6 +6,7 @@ import org.vertexium.Authorizations;
 import org.vertexium.Graph;
 import org.vertexium.Path;
 import org.vertexium.ProgressCallback;
+import org.visallo.core.config.Configuration;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 import org.visallo.core.util.ClientApiConverter;
@@ -19,14 +20,17 @@ import java.util.List;
 public class FindPathLongRunningProcessWorker extends LongRunningProcessWorker {
     private final Graph graph;
     private final LongRunningProcessRepository longRunningProcessRepository;
+    private final Configuration configuration;
 
     @Inject
     public FindPathLongRunningProcessWorker(
             Graph graph,
-            LongRunningProcessRepository longRunningProcessRepository
+            LongRunningProcessRepository longRunningProcessRepository,
+            Configuration configuration
     ) {
         this.graph = graph;
         this.longRunningProcessRepository = longRunningProcessRepository;
+        this.configuration = configuration;
     }
 
     @Override
@@ -43,10 +47,15 @@ public class FindPathLongRunningProcessWorker extends LongRunningProcessWorker {
         int hops = findPath.getHops();
 
         ClientApiVertexFindPathResponse results = new ClientApiVertexFindPathResponse();
+        final LongRunningProcessProgressReporter progressReporter = LongRunningProcessProgressReporter.create(
+                longRunningProcessRepository,
+                longRunningProcessQueueItem,
+                configuration
+        );
         ProgressCallback progressCallback = new ProgressCallback() {
             @Override
             public void progress(double progressPercent, Step step, Integer edgeIndex, Integer vertexCount) {
-                longRunningProcessRepository.reportProgress(longRunningProcessQueueItem, progressPercent, step.formatMessage(edgeIndex, vertexCount));
+                progressReporter.reportProgress(progressPercent, step.formatMessage(edgeIndex, vertexCount));
             }
         };
         Iterable<Path> paths = graph.findPaths(findPath.getOutVertexId(), findPath.getInVertexId(), labels, hops, progressCallback, authorizations);
@@ -57,6 +66,7 @@ public class FindPathLongRunningProcessWorker extends LongRunningProcessWorker {
             }
             results.getPaths().add(clientApiVertexPath);
         }
+        progressReporter.flush();
 
         String resultsString = ClientApiConverter.clientApiToString(results);
         JSONObject resultsJson = new JSONObject(resultsString);
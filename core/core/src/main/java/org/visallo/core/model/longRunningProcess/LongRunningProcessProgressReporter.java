@@ -0,0 +1,126 @@
+package org.visallo.core.model.longRunningProcess;
+
+import org.json.JSONObject;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
+
+/**
+ * Coalesces the progress updates of a long running process. The latest progress is kept in memory and only
+ * written to the {@link LongRunningProcessRepository} (which saves and broadcasts it) when the minimum interval
+ * has passed, the progress crosses a percentage step, or the process completes.
+ * <p/>
+ * Whether the process was canceled is checked at most once per cancel check interval.
+ */
+public class LongRunningProcessProgressReporter {
+    public static final String CONFIG_MIN_INTERVAL_MILLIS = LongRunningProcessProgressReporter.class.getName() + ".minIntervalMillis";
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = 1000;
+    public static final String CONFIG_PROGRESS_STEP_PERCENT = LongRunningProcessProgressReporter.class.getName() + ".progressStepPercent";
+    public static final int DEFAULT_PROGRESS_STEP_PERCENT = 10;
+    public static final String CONFIG_CANCEL_CHECK_MILLIS = LongRunningProcessProgressReporter.class.getName() + ".cancelCheckMillis";
+    public static final long DEFAULT_CANCEL_CHECK_MILLIS = 2000;
+    private final LongRunningProcessRepository longRunningProcessRepository;
+    private final String longRunningProcessId;
+    private final long minIntervalMillis;
+    private final double progressStep;
+    private final long cancelCheckMillis;
+    private boolean reported;
+    private long lastReportedTime;
+    private double lastReportedProgress;
+    private boolean pending;
+    private double pendingProgress;
+    private String pendingMessage;
+    private boolean cancelChecked;
+    private long lastCancelCheckTime;
+    private boolean canceled;
+
+    public LongRunningProcessProgressReporter(
+            LongRunningProcessRepository longRunningProcessRepository,
+            String longRunningProcessId,
+            long minIntervalMillis,
+            int progressStepPercent,
+            long cancelCheckMillis
+    ) {
+        this.longRunningProcessRepository = longRunningProcessRepository;
+        this.longRunningProcessId = longRunningProcessId;
+        this.minIntervalMillis = minIntervalMillis;
+        this.progressStep = progressStepPercent / 100.0;
+        this.cancelCheckMillis = cancelCheckMillis;
+    }
+
+    public static LongRunningProcessProgressReporter create(
+            LongRunningProcessRepository longRunningProcessRepository,
+            JSONObject longRunningProcessQueueItem,
+            Configuration configuration
+    ) {
+        return new LongRunningProcessProgressReporter(
+                longRunningProcessRepository,
+                longRunningProcessQueueItem.getString("id"),
+                configuration.getLong(CONFIG_MIN_INTERVAL_MILLIS, DEFAULT_MIN_INTERVAL_MILLIS),
+                configuration.getInt(CONFIG_PROGRESS_STEP_PERCENT, DEFAULT_PROGRESS_STEP_PERCENT),
+                configuration.getLong(CONFIG_CANCEL_CHECK_MILLIS, DEFAULT_CANCEL_CHECK_MILLIS)
+        );
+    }
+
+    /**
+     * @param progressPercent the progress between 0.0 and 1.0
+     * @throws VisalloException if the process was canceled
+     */
+    public synchronized void reportProgress(double progressPercent, String message) {
+        long now = getCurrentTimeMillis();
+        checkCanceled(now);
+
+        pending = true;
+        pendingProgress = progressPercent;
+        pendingMessage = message;
+        if (shouldReport(progressPercent, now)) {
+            report(now);
+        }
+    }
+
+    /**
+     * Writes the latest progress if it has not been written yet.
+     */
+    public synchronized void flush() {
+        if (pending) {
+            report(getCurrentTimeMillis());
+        }
+    }
+
+    private boolean shouldReport(double progressPercent, long now) {
+        if (!reported || progressPercent >= 1.0) {
+            return true;
+        }
+        if (now - lastReportedTime >= minIntervalMillis) {
+            return true;
+        }
+        return progressStep > 0
+                && Math.floor(progressPercent / progressStep) != Math.floor(lastReportedProgress / progressStep);
+    }
+
+    private void report(long now) {
+        longRunningProcessRepository.reportProgress(longRunningProcessId, pendingProgress, pendingMessage);
+        reported = true;
+        pending = false;
+        lastReportedTime = now;
+        lastReportedProgress = pendingProgress;
+
+        // the repository refuses to report the progress of a canceled process, so it was not canceled as of now
+        cancelChecked = true;
+        lastCancelCheckTime = now;
+    }
+
+    private void checkCanceled(long now) {
+        if (!cancelChecked || now - lastCancelCheckTime >= cancelCheckMillis) {
+            canceled = longRunningProcessRepository.isCanceled(longRunningProcessId);
+            cancelChecked = true;
+            lastCancelCheckTime = now;
+        }
+        if (canceled) {
+            throw new VisalloException("Unable to update progress of cancelled process");
+        }
+    }
+
+    protected long getCurrentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
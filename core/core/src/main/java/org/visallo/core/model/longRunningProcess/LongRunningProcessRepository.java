@@ -30,6 +30,8 @@ public abstract class LongRunningProcessRepository {
 
     public abstract void cancel(String longRunningProcessId, User user);
 
+    public abstract boolean isCanceled(String longRunningProcessId);
+
     public void reportProgress(JSONObject longRunningProcessQueueItem, double progressPercent, String message) {
         reportProgress(longRunningProcessQueueItem.getString("id"), progressPercent, message);
     }
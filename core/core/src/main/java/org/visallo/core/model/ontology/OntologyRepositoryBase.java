@@ -3,6 +3,7 @@ package org.visallo.core.model.ontology;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import com.google.inject.Inject;
 import net.lingala.zip4j.core.ZipFile;
@@ -46,6 +47,7 @@ import org.visallo.web.clientapi.model.PropertyType;
 import java.io.*;
 import java.lang.reflect.Constructor;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -60,6 +62,7 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
     private static final String TOP_OBJECT_PROPERTY_IRI = "http://www.w3.org/2002/07/owl#topObjectProperty";
     private final Configuration configuration;
     private final LockRepository lockRepository;
+    private final Map<String, String> importedFileHashes = new ConcurrentHashMap<>();
 
     @Inject
     protected OntologyRepositoryBase(
@@ -79,40 +82,51 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
             clearCache();
             addEntityGlyphIcon(entityConcept);
 
-            importResourceOwl("base.owl", BASE_OWL_IRI, authorizations);
-            importResourceOwl("user.owl", UserRepository.OWL_IRI, authorizations);
-            importResourceOwl("termMention.owl", TermMentionRepository.OWL_IRI, authorizations);
-            importResourceOwl("workspace.owl", WorkspaceRepository.OWL_IRI, authorizations);
-            importResourceOwl("comment.owl", COMMENT_OWL_IRI, authorizations);
-            importResourceOwl("search.owl", SearchProperties.IRI, authorizations);
-            importResourceOwl("longRunningProcess.owl", LongRunningProcessProperties.OWL_IRI, authorizations);
-            importResourceOwl("ping.owl", PingOntology.BASE_IRI, authorizations);
-
-            for (Map.Entry<String, Map<String, String>> owlGroup : config.getMultiValue(Configuration.ONTOLOGY_REPOSITORY_OWL).entrySet()) {
-                String iri = owlGroup.getValue().get("iri");
-                String dir = owlGroup.getValue().get("dir");
-                String file = owlGroup.getValue().get("file");
-
-                if (iri == null) {
-                    throw new VisalloException("iri is required for group " + Configuration.ONTOLOGY_REPOSITORY_OWL + "." + owlGroup.getKey());
-                }
-                if (dir == null && file == null) {
-                    throw new VisalloException("dir or file is required for " + Configuration.ONTOLOGY_REPOSITORY_OWL + "." + owlGroup.getKey());
-                }
-                if (dir != null && file != null) {
-                    throw new VisalloException("you cannot specify both dir and file for " + Configuration.ONTOLOGY_REPOSITORY_OWL + "." + owlGroup.getKey());
-                }
+            List<OwlFileData> owlFiles = new ArrayList<>();
+            owlFiles.add(readResourceOwl(OntologyRepositoryBase.class, "base.owl", BASE_OWL_IRI));
+            owlFiles.add(readResourceOwl(OntologyRepositoryBase.class, "user.owl", UserRepository.OWL_IRI));
+            owlFiles.add(readResourceOwl(OntologyRepositoryBase.class, "termMention.owl", TermMentionRepository.OWL_IRI));
+            owlFiles.add(readResourceOwl(OntologyRepositoryBase.class, "workspace.owl", WorkspaceRepository.OWL_IRI));
+            owlFiles.add(readResourceOwl(OntologyRepositoryBase.class, "comment.owl", COMMENT_OWL_IRI));
+            owlFiles.add(readResourceOwl(OntologyRepositoryBase.class, "search.owl", SearchProperties.IRI));
+            owlFiles.add(readResourceOwl(OntologyRepositoryBase.class, "longRunningProcess.owl", LongRunningProcessProperties.OWL_IRI));
+            owlFiles.add(readResourceOwl(OntologyRepositoryBase.class, "ping.owl", PingOntology.BASE_IRI));
+
+            List<File> tempDirs = new ArrayList<>();
+            try {
+                for (Map.Entry<String, Map<String, String>> owlGroup : config.getMultiValue(Configuration.ONTOLOGY_REPOSITORY_OWL).entrySet()) {
+                    String iri = owlGroup.getValue().get("iri");
+                    String dir = owlGroup.getValue().get("dir");
+                    String file = owlGroup.getValue().get("file");
 
-                if (dir != null) {
-                    File owlFile = findOwlFile(new File(dir));
-                    if (owlFile == null) {
-                        throw new VisalloResourceNotFoundException(
-                                "could not find owl file in directory " + new File(dir).getAbsolutePath()
-                        );
+                    if (iri == null) {
+                        throw new VisalloException("iri is required for group " + Configuration.ONTOLOGY_REPOSITORY_OWL + "." + owlGroup.getKey());
                     }
-                    importFile(owlFile, IRI.create(iri), authorizations);
-                } else {
-                    writePackage(new File(file), IRI.create(iri), authorizations);
+                    if (dir == null && file == null) {
+                        throw new VisalloException("dir or file is required for " + Configuration.ONTOLOGY_REPOSITORY_OWL + "." + owlGroup.getKey());
+                    }
+                    if (dir != null && file != null) {
+                        throw new VisalloException("you cannot specify both dir and file for " + Configuration.ONTOLOGY_REPOSITORY_OWL + "." + owlGroup.getKey());
+                    }
+
+                    File owlFile;
+                    if (dir != null) {
+                        owlFile = findOwlFile(new File(dir));
+                        if (owlFile == null) {
+                            throw new VisalloResourceNotFoundException(
+                                    "could not find owl file in directory " + new File(dir).getAbsolutePath()
+                            );
+                        }
+                    } else {
+                        owlFile = extractPackage(new File(file), tempDirs);
+                    }
+                    owlFiles.add(readOwlFile(owlFile, IRI.create(iri)));
+                }
+
+                importFilesData(owlFiles, authorizations);
+            } finally {
+                for (File tempDir : tempDirs) {
+                    FileUtils.deleteDirectory(tempDir);
                 }
             }
             return true;
@@ -132,32 +146,40 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
         return topObjectProperty;
     }
 
-    private void importResourceOwl(String fileName, String iri, Authorizations authorizations) {
-        importResourceOwl(OntologyRepositoryBase.class, fileName, iri, authorizations);
-    }
-
     @Override
     public void importResourceOwl(Class baseClass, String fileName, String iri, Authorizations authorizations) {
+        try {
+            importFilesData(Collections.singletonList(readResourceOwl(baseClass, fileName, iri)), authorizations);
+        } catch (Exception ex) {
+            throw new VisalloException("Could not import ontology file: " + fileName + " (iri: " + iri + ")", ex);
+        }
+    }
+
+    private static OwlFileData readResourceOwl(Class baseClass, String fileName, String iri) {
         LOGGER.debug("importResourceOwl %s (iri: %s)", fileName, iri);
         InputStream owlFileIn = baseClass.getResourceAsStream(fileName);
         checkNotNull(owlFileIn, "Could not load resource " + baseClass.getResource(fileName) + " [" + fileName + "]");
 
         try {
-            IRI documentIRI = IRI.create(iri);
-            byte[] inFileData = IOUtils.toByteArray(owlFileIn);
-            try {
-                importFileData(inFileData, documentIRI, null, authorizations);
-            } catch (OWLOntologyAlreadyExistsException ex) {
-                LOGGER.warn("Ontology was already defined but not stored: " + fileName + " (iri: " + iri + ")", ex);
-                storeOntologyFile(new ByteArrayInputStream(inFileData), documentIRI);
-            }
-        } catch (Exception ex) {
-            throw new VisalloException("Could not import ontology file: " + fileName + " (iri: " + iri + ")", ex);
+            return new OwlFileData(IOUtils.toByteArray(owlFileIn), IRI.create(iri), null, true);
+        } catch (IOException ex) {
+            throw new VisalloException("Could not read ontology file: " + fileName + " (iri: " + iri + ")", ex);
         } finally {
             CloseableUtils.closeQuietly(owlFileIn);
         }
     }
 
+    private static OwlFileData readOwlFile(File inFile, IRI documentIRI) throws IOException {
+        checkNotNull(inFile, "inFile cannot be null");
+        if (!inFile.exists()) {
+            throw new VisalloException("File " + inFile + " does not exist");
+        }
+        try (FileInputStream inFileIn = new FileInputStream(inFile)) {
+            LOGGER.debug("importing %s", inFile.getAbsolutePath());
+            return new OwlFileData(IOUtils.toByteArray(inFileIn), documentIRI, inFile.getParentFile(), false);
+        }
+    }
+
     public abstract boolean isOntologyDefined(String iri);
 
     private void addEntityGlyphIcon(Concept entityConcept) {
@@ -220,17 +242,7 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
 
     @Override
     public void importFile(File inFile, IRI documentIRI, Authorizations authorizations) throws Exception {
-        checkNotNull(inFile, "inFile cannot be null");
-        if (!inFile.exists()) {
-            throw new VisalloException("File " + inFile + " does not exist");
-        }
-        File inDir = inFile.getParentFile();
-
-        try (FileInputStream inFileIn = new FileInputStream(inFile)) {
-            LOGGER.debug("importing %s", inFile.getAbsolutePath());
-            byte[] inFileData = IOUtils.toByteArray(inFileIn);
-            importFileData(inFileData, documentIRI, inDir, authorizations);
-        }
+        importFilesData(Collections.singletonList(readOwlFile(inFile, documentIRI)), authorizations);
     }
 
     @Override
@@ -240,64 +252,138 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
             File inDir,
             Authorizations authorizations
     ) throws Exception {
-        if (!hasFileChanged(documentIRI, inFileData)) {
-            LOGGER.info("skipping %s, file has not changed", documentIRI);
+        importFilesData(Collections.singletonList(new OwlFileData(inFileData, documentIRI, inDir, false)), authorizations);
+    }
+
+    /**
+     * Imports the files that changed since they were last imported as one batch. Each step of the import is run on
+     * all of the files before the next step, so the caches are cleared once per step instead of once per step of
+     * every file. Files are stored once all of them are imported.
+     */
+    protected void importFilesData(List<OwlFileData> owlFiles, Authorizations authorizations) throws Exception {
+        List<OwlFileData> changedFiles = new ArrayList<>();
+        for (OwlFileData owlFile : owlFiles) {
+            if (hasFileChanged(owlFile.getDocumentIRI(), owlFile.getData())) {
+                changedFiles.add(owlFile);
+            } else {
+                LOGGER.info("skipping %s, file has not changed", owlFile.getDocumentIRI());
+            }
+        }
+        if (changedFiles.size() == 0) {
             return;
         }
-        Reader inFileReader = new InputStreamReader(new ByteArrayInputStream(inFileData));
-
-        OWLOntologyLoaderConfiguration config = new OWLOntologyLoaderConfiguration();
-        OWLOntologyManager m = createOwlOntologyManager(config, documentIRI);
-
-        OWLOntologyDocumentSource documentSource = new ReaderDocumentSource(inFileReader, documentIRI);
-        OWLOntology o = m.loadOntologyFromOntologyDocument(documentSource, config);
 
         long totalStartTime = System.currentTimeMillis();
 
+        OWLOntologyLoaderConfiguration config = new OWLOntologyLoaderConfiguration();
+        OWLOntologyManager m = createOwlOntologyManager(config, changedFiles.size() == 1 ? changedFiles.get(0).getDocumentIRI() : null);
+        removeOntologyDocuments(m, changedFiles);
+        List<OwlFileData> loadedFiles = new ArrayList<>();
+        List<OWLOntology> ontologies = new ArrayList<>();
+        for (OwlFileData owlFile : changedFiles) {
+            Reader inFileReader = new InputStreamReader(new ByteArrayInputStream(owlFile.getData()));
+            OWLOntologyDocumentSource documentSource = new ReaderDocumentSource(inFileReader, owlFile.getDocumentIRI());
+            try {
+                ontologies.add(m.loadOntologyFromOntologyDocument(documentSource, config));
+                loadedFiles.add(owlFile);
+            } catch (OWLOntologyAlreadyExistsException ex) {
+                if (!owlFile.isStoreIfAlreadyDefined()) {
+                    throw ex;
+                }
+                LOGGER.warn("Ontology was already defined but not stored: %s", owlFile.getDocumentIRI(), ex);
+                storeOntologyFile(owlFile);
+            }
+        }
+
         long startTime = System.currentTimeMillis();
-        importOntologyAnnotationProperties(o, inDir, authorizations);
+        for (int i = 0; i < ontologies.size(); i++) {
+            importOntologyAnnotationProperties(ontologies.get(i), loadedFiles.get(i).getInDir(), authorizations);
+        }
         clearCache(); // this is required to cause a new lookup of classes for data and object properties.
         long endTime = System.currentTimeMillis();
         long importAnnotationPropertiesTime = endTime - startTime;
 
         startTime = System.currentTimeMillis();
-        importOntologyClasses(o, inDir, authorizations);
+        for (int i = 0; i < ontologies.size(); i++) {
+            importOntologyClasses(ontologies.get(i), loadedFiles.get(i).getInDir(), authorizations);
+        }
         clearCache(); // this is required to cause a new lookup of classes for data and object properties.
         endTime = System.currentTimeMillis();
         long importConceptsTime = endTime - startTime;
 
         startTime = System.currentTimeMillis();
-        importObjectProperties(o, authorizations);
+        for (OWLOntology o : ontologies) {
+            importObjectProperties(o, authorizations);
+        }
         clearCache(); // needed to find the relationship for inverse of
         endTime = System.currentTimeMillis();
         long importObjectPropertiesTime = endTime - startTime;
 
         startTime = System.currentTimeMillis();
-        importInverseOfObjectProperties(o);
+        for (OWLOntology o : ontologies) {
+            importInverseOfObjectProperties(o);
+        }
         endTime = System.currentTimeMillis();
         long importInverseOfObjectPropertiesTime = endTime - startTime;
-        long totalEndTime = System.currentTimeMillis();
 
         startTime = System.currentTimeMillis();
-        importDataProperties(o, authorizations);
+        for (OWLOntology o : ontologies) {
+            importDataProperties(o, authorizations);
+        }
+        clearCache(); // needed to find the properties added to extended data tables
+        for (OWLOntology o : ontologies) {
+            importDataPropertiesExtendedDataTableDomains(o);
+        }
         endTime = System.currentTimeMillis();
         long importDataPropertiesTime = endTime - startTime;
 
+        // do this last after everything was successful so that isOntologyDefined can be used
+        for (OwlFileData owlFile : loadedFiles) {
+            storeOntologyFile(owlFile);
+        }
+
+        clearCache();
+        long totalEndTime = System.currentTimeMillis();
+
         LOGGER.debug("import annotation properties time: %dms", importAnnotationPropertiesTime);
         LOGGER.debug("import concepts time: %dms", importConceptsTime);
         LOGGER.debug("import data properties time: %dms", importDataPropertiesTime);
         LOGGER.debug("import object properties time: %dms", importObjectPropertiesTime);
         LOGGER.debug("import inverse of object properties time: %dms", importInverseOfObjectPropertiesTime);
-        LOGGER.debug("import total time: %dms", totalEndTime - totalStartTime);
+        LOGGER.info("imported %d of %d ontology files in %dms", loadedFiles.size(), owlFiles.size(), totalEndTime - totalStartTime);
+    }
 
-        // do this last after everything was successful so that isOntologyDefined can be used
-        storeOntologyFile(new ByteArrayInputStream(inFileData), documentIRI);
+    /**
+     * Removes the stored versions of the files about to be imported, loaded by {@link #createOwlOntologyManager}, so
+     * the new versions can take their place.
+     */
+    private void removeOntologyDocuments(OWLOntologyManager m, List<OwlFileData> owlFiles) {
+        Set<IRI> documentIRIs = new HashSet<>();
+        for (OwlFileData owlFile : owlFiles) {
+            documentIRIs.add(owlFile.getDocumentIRI());
+        }
+        for (OWLOntology o : new ArrayList<>(m.getOntologies())) {
+            if (documentIRIs.contains(m.getOntologyDocumentIRI(o))) {
+                m.removeOntology(o);
+            }
+        }
+    }
 
-        clearCache();
+    private void storeOntologyFile(OwlFileData owlFile) {
+        storeOntologyFile(new ByteArrayInputStream(owlFile.getData()), owlFile.getDocumentIRI());
+        importedFileHashes.put(owlFile.getDocumentIRI().toString(), getFileHash(owlFile.getData()));
     }
 
+    /**
+     * By default files are compared with the files imported since this repository was created. Repositories which
+     * keep their files across restarts should compare with the stored files.
+     */
     protected boolean hasFileChanged(IRI documentIRI, byte[] inFileData) {
-        return true;
+        return !getFileHash(inFileData).equals(importedFileHashes.get(documentIRI.toString()));
+    }
+
+    private static String getFileHash(byte[] inFileData) {
+        return Hashing.sha256().hashBytes(inFileData).toString();
     }
 
     private void importInverseOfObjectProperties(OWLOntology o) {
@@ -319,7 +405,9 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
         for (OWLDataProperty dataTypeProperty : o.getDataPropertiesInSignature()) {
             importDataProperty(o, dataTypeProperty, authorizations);
         }
-        clearCache();
+    }
+
+    private void importDataPropertiesExtendedDataTableDomains(OWLOntology o) {
         for (OWLDataProperty dataTypeProperty : o.getDataPropertiesInSignature()) {
             importDataPropertyExtendedDataTableDomains(o, dataTypeProperty);
         }
@@ -881,6 +969,21 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
 
     @Override
     public void writePackage(File file, IRI documentIRI, Authorizations authorizations) throws Exception {
+        List<File> tempDirs = new ArrayList<>();
+        try {
+            importFile(extractPackage(file, tempDirs), documentIRI, authorizations);
+        } finally {
+            for (File tempDir : tempDirs) {
+                FileUtils.deleteDirectory(tempDir);
+            }
+        }
+    }
+
+    /**
+     * @param tempDirs the directory the package is extracted to is added to these, to be deleted by the caller
+     * @return the owl file of the package, or the file itself if it isn't a zip file
+     */
+    private File extractPackage(File file, List<File> tempDirs) throws ZipException {
         if (!file.exists()) {
             throw new VisalloException("OWL file does not exist: " + file.getAbsolutePath());
         }
@@ -888,20 +991,14 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
             throw new VisalloException("OWL file is not a file: " + file.getAbsolutePath());
         }
         ZipFile zipped = new ZipFile(file);
-        if (zipped.isValidZipFile()) {
-            File tempDir = Files.createTempDir();
-            try {
-                LOGGER.info("Extracting: %s to %s", file.getAbsoluteFile(), tempDir.getAbsolutePath());
-                zipped.extractAll(tempDir.getAbsolutePath());
-
-                File owlFile = findOwlFile(tempDir);
-                importFile(owlFile, documentIRI, authorizations);
-            } finally {
-                FileUtils.deleteDirectory(tempDir);
-            }
-        } else {
-            importFile(file, documentIRI, authorizations);
+        if (!zipped.isValidZipFile()) {
+            return file;
         }
+        File tempDir = Files.createTempDir();
+        tempDirs.add(tempDir);
+        LOGGER.info("Extracting: %s to %s", file.getAbsoluteFile(), tempDir.getAbsolutePath());
+        zipped.extractAll(tempDir.getAbsolutePath());
+        return findOwlFile(tempDir);
     }
 
     protected File findOwlFile(File fileOrDir) {
@@ -1395,4 +1492,38 @@ public abstract class OntologyRepositoryBase implements OntologyRepository {
 
     protected abstract void deleteChangeableProperties(OntologyElement element, Authorizations authorizations);
     protected abstract void deleteChangeableProperties(OntologyProperty property, Authorizations authorizations);
+
+    protected static class OwlFileData {
+        private final byte[] data;
+        private final IRI documentIRI;
+        private final File inDir;
+        private final boolean storeIfAlreadyDefined;
+
+        /**
+         * @param storeIfAlreadyDefined store the file without importing it if its ontology is already defined by
+         *                              another file
+         */
+        public OwlFileData(byte[] data, IRI documentIRI, File inDir, boolean storeIfAlreadyDefined) {
+            this.data = data;
+            this.documentIRI = documentIRI;
+            this.inDir = inDir;
+            this.storeIfAlreadyDefined = storeIfAlreadyDefined;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public IRI getDocumentIRI() {
+            return documentIRI;
+        }
+
+        public File getInDir() {
+            return inDir;
+        }
+
+        public boolean isStoreIfAlreadyDefined() {
+            return storeIfAlreadyDefined;
+        }
+    }
 }
@@ -69,6 +69,7 @@ public class VisalloProperties {
     public static final TermMentionForProperty TERM_MENTION_FOR_TYPE = new TermMentionForProperty("http://visallo.org/termMention#forType");
     public static final StringSingleValueVisalloProperty TERM_MENTION_SNIPPET = new StringSingleValueVisalloProperty("http://visallo.org/termMention#snippet");
     public static final String TERM_MENTION_LABEL_HAS_TERM_MENTION = "http://visallo.org/termMention#hasTermMention";
+    public static final String TERM_MENTION_LABEL_HAS_PROPERTY_TERM_MENTION = "http://visallo.org/termMention#hasPropertyTermMention";
     public static final String TERM_MENTION_LABEL_RESOLVED_TO = "http://visallo.org/termMention#resolvedTo";
 
     private VisalloProperties() {
@@ -0,0 +1,103 @@
+package org.visallo.core.model.search;
+
+import org.vertexium.VertexiumObject;
+import org.vertexium.query.*;
+
+import java.util.*;
+
+/**
+ * The results, total hits, scores and aggregation results of a search, read once so they can be returned again
+ * from {@link SearchResultCache}.
+ */
+class CachedQueryResultsIterable implements QueryResultsIterable<VertexiumObject>, IterableWithScores<VertexiumObject>, IterableWithSearchTime<VertexiumObject> {
+    private final List<VertexiumObject> results;
+    private final long totalHits;
+    private final Map<Object, Double> scores;
+    private final long searchTimeNanoSeconds;
+    private final Map<String, AggregationResult> aggregationResults;
+
+    private CachedQueryResultsIterable(
+            List<VertexiumObject> results,
+            long totalHits,
+            Map<Object, Double> scores,
+            long searchTimeNanoSeconds,
+            Map<String, AggregationResult> aggregationResults
+    ) {
+        this.results = results;
+        this.totalHits = totalHits;
+        this.scores = scores;
+        this.searchTimeNanoSeconds = searchTimeNanoSeconds;
+        this.aggregationResults = aggregationResults;
+    }
+
+    static CachedQueryResultsIterable read(
+            QueryResultsIterable<? extends VertexiumObject> searchResults,
+            Collection<Aggregation> aggregations
+    ) {
+        List<VertexiumObject> results = new ArrayList<>();
+        for (VertexiumObject result : searchResults) {
+            results.add(result);
+        }
+        Map<Object, Double> scores = null;
+        if (searchResults instanceof IterableWithScores) {
+            Map<Object, Double> searchScores = ((IterableWithScores<?>) searchResults).getScores();
+            scores = searchScores == null ? null : new HashMap<>(searchScores);
+        }
+        long searchTimeNanoSeconds = searchResults instanceof IterableWithSearchTime
+                ? ((IterableWithSearchTime) searchResults).getSearchTimeNanoSeconds()
+                : 0;
+        Map<String, AggregationResult> aggregationResults = new HashMap<>();
+        for (Aggregation aggregation : aggregations) {
+            String name = aggregation.getAggregationName();
+            aggregationResults.put(name, searchResults.getAggregationResult(name, getAggregationResultType(aggregation)));
+        }
+        return new CachedQueryResultsIterable(results, searchResults.getTotalHits(), scores, searchTimeNanoSeconds, aggregationResults);
+    }
+
+    private static Class<? extends AggregationResult> getAggregationResultType(Aggregation aggregation) {
+        if (aggregation instanceof TermsAggregation) {
+            return TermsResult.class;
+        } else if (aggregation instanceof GeohashAggregation) {
+            return GeohashResult.class;
+        } else if (aggregation instanceof HistogramAggregation || aggregation instanceof CalendarFieldAggregation) {
+            return HistogramResult.class;
+        } else if (aggregation instanceof StatisticsAggregation) {
+            return StatisticsResult.class;
+        }
+        return AggregationResult.class;
+    }
+
+    List<VertexiumObject> getResults() {
+        return results;
+    }
+
+    @Override
+    public <TResult extends AggregationResult> TResult getAggregationResult(String name, Class<? extends TResult> resultType) {
+        //noinspection unchecked
+        return (TResult) aggregationResults.get(name);
+    }
+
+    @Override
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    @Override
+    public Map<Object, Double> getScores() {
+        return scores;
+    }
+
+    @Override
+    public long getSearchTimeNanoSeconds() {
+        return searchTimeNanoSeconds;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public Iterator<VertexiumObject> iterator() {
+        return results.iterator();
+    }
+}
@@ -5,22 +5,49 @@ import org.vertexium.query.QueryResultsIterable;
 
 public class QueryResultsIterableSearchResults extends VertexiumObjectsSearchResults implements AutoCloseable {
     private final QueryResultsIterable<? extends VertexiumObject> searchResults;
+    private final Iterable<? extends VertexiumObject> page;
     private final VertexiumObjectSearchRunnerBase.QueryAndData queryAndData;
     private final Long offset;
     private final Long size;
+    private final String nextCursor;
+    private final boolean closeSearchResults;
 
     public QueryResultsIterableSearchResults(
             QueryResultsIterable<? extends VertexiumObject> searchResults,
             VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
             Long offset,
             Long size
+    ) {
+        this(searchResults, searchResults, queryAndData, offset, size, null, true);
+    }
+
+    /**
+     * @param page               the results returned, when they are a page read from a search cursor
+     * @param nextCursor         the cursor to read the next page with, or null if there are no more results
+     * @param closeSearchResults false if the search results are still read by a search cursor
+     */
+    public QueryResultsIterableSearchResults(
+            QueryResultsIterable<? extends VertexiumObject> searchResults,
+            Iterable<? extends VertexiumObject> page,
+            VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
+            Long offset,
+            Long size,
+            String nextCursor,
+            boolean closeSearchResults
     ) {
         this.searchResults = searchResults;
+        this.page = page;
         this.queryAndData = queryAndData;
         this.offset = offset;
         this.size = size;
+        this.nextCursor = nextCursor;
+        this.closeSearchResults = closeSearchResults;
     }
 
+    /**
+     * The search results, for their scores, total hits and aggregations. Iterate {@link #getVertexiumObjects()} for
+     * the results returned.
+     */
     public QueryResultsIterable<? extends VertexiumObject> getQueryResultsIterable() {
         return searchResults;
     }
@@ -37,13 +64,19 @@ public class QueryResultsIterableSearchResults extends VertexiumObjectsSearchRes
         return size;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
     @Override
     public void close() throws Exception {
-        this.searchResults.close();
+        if (closeSearchResults) {
+            this.searchResults.close();
+        }
     }
 
     @Override
     public Iterable<? extends VertexiumObject> getVertexiumObjects() {
-        return searchResults;
+        return page;
     }
 }
@@ -0,0 +1,78 @@
+package org.visallo.core.model.search;
+
+import org.vertexium.VertexiumObject;
+import org.vertexium.query.QueryResultsIterable;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A search whose results are read one page at a time from a single iteration of an unlimited query, so reading a
+ * page does not skip over the results of the pages before it.
+ */
+class SearchCursor {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(SearchCursor.class);
+    private final String id;
+    private final String userId;
+    private final VertexiumObjectSearchRunnerBase.QueryAndData queryAndData;
+    private final QueryResultsIterable<? extends VertexiumObject> searchResults;
+    private final Iterator<? extends VertexiumObject> iterator;
+    private long position;
+
+    SearchCursor(
+            String id,
+            String userId,
+            VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
+            QueryResultsIterable<? extends VertexiumObject> searchResults
+    ) {
+        this.id = id;
+        this.userId = userId;
+        this.queryAndData = queryAndData;
+        this.searchResults = searchResults;
+        this.iterator = searchResults.iterator();
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getUserId() {
+        return userId;
+    }
+
+    VertexiumObjectSearchRunnerBase.QueryAndData getQueryAndData() {
+        return queryAndData;
+    }
+
+    QueryResultsIterable<? extends VertexiumObject> getSearchResults() {
+        return searchResults;
+    }
+
+    synchronized long getPosition() {
+        return position;
+    }
+
+    synchronized List<VertexiumObject> nextPage(long size) {
+        List<VertexiumObject> page = new ArrayList<>();
+        while (page.size() < size && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        position += page.size();
+        return page;
+    }
+
+    synchronized boolean hasNext() {
+        return iterator.hasNext();
+    }
+
+    void close() {
+        try {
+            searchResults.close();
+        } catch (Exception ex) {
+            LOGGER.warn("Could not close search cursor %s", id, ex);
+        }
+    }
+}
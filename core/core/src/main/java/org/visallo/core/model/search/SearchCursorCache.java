@@ -0,0 +1,78 @@
+package org.visallo.core.model.search;
+
+import com.google.common.cache.*;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.vertexium.VertexiumObject;
+import org.vertexium.query.QueryResultsIterable;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloAccessDeniedException;
+import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.core.user.User;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the open search cursors of this server. A cursor is closed when it has not been read for the configured
+ * number of seconds. Once its last page has been read the cursor is removed and closed with that page.
+ */
+@Singleton
+public class SearchCursorCache {
+    public static final String CONFIG_TTL_SECONDS = SearchCursorCache.class.getName() + ".ttlSeconds";
+    public static final int DEFAULT_TTL_SECONDS = 5 * 60;
+    public static final String CONFIG_MAX_SIZE = SearchCursorCache.class.getName() + ".maxSize";
+    public static final int DEFAULT_MAX_SIZE = 100;
+    private final Cache<String, SearchCursor> cursors;
+
+    @Inject
+    public SearchCursorCache(Configuration configuration) {
+        this.cursors = CacheBuilder.newBuilder()
+                .maximumSize(configuration.getInt(CONFIG_MAX_SIZE, DEFAULT_MAX_SIZE))
+                .expireAfterAccess(configuration.getInt(CONFIG_TTL_SECONDS, DEFAULT_TTL_SECONDS), TimeUnit.SECONDS)
+                .removalListener(new RemovalListener<String, SearchCursor>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<String, SearchCursor> notification) {
+                        // cursors removed explicitly are closed by whoever removed them
+                        SearchCursor cursor = notification.getValue();
+                        if (cursor != null && notification.wasEvicted()) {
+                            cursor.close();
+                        }
+                    }
+                })
+                .build();
+    }
+
+    SearchCursor create(
+            User user,
+            VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
+            QueryResultsIterable<? extends VertexiumObject> searchResults
+    ) {
+        SearchCursor cursor = new SearchCursor(UUID.randomUUID().toString(), user.getUserId(), queryAndData, searchResults);
+        cursors.put(cursor.getId(), cursor);
+        return cursor;
+    }
+
+    SearchCursor get(String cursorId, User user) {
+        SearchCursor cursor = cursors.getIfPresent(cursorId);
+        if (cursor == null) {
+            throw new VisalloResourceNotFoundException("Search cursor not found or expired: " + cursorId, cursorId);
+        }
+        if (!Objects.equals(cursor.getUserId(), user.getUserId())) {
+            throw new VisalloAccessDeniedException("Search cursor belongs to another user", user, cursorId);
+        }
+        return cursor;
+    }
+
+    /**
+     * Removes the cursor without closing its search results, the caller is responsible for closing them.
+     */
+    void remove(SearchCursor cursor) {
+        cursors.invalidate(cursor.getId());
+    }
+
+    long size() {
+        return cursors.size();
+    }
+}
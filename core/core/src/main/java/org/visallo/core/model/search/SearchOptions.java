@@ -6,6 +6,7 @@ import org.visallo.core.exception.VisalloException;
 
 import java.lang.reflect.Array;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -23,6 +24,10 @@ public class SearchOptions {
         return workspaceId;
     }
 
+    public Map<String, Object> getParameters() {
+        return Collections.unmodifiableMap(parameters);
+    }
+
     public <T> T getOptionalParameter(String parameterName, Class<T> resultType) {
         Object obj = parameters.get(parameterName);
         if (obj == null) {
@@ -0,0 +1,366 @@
+package org.visallo.core.model.search;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.vertexium.Authorizations;
+import org.vertexium.VertexiumObject;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.status.MetricsManager;
+import org.visallo.core.user.User;
+import org.visallo.core.util.JSONUtil;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the results of recent searches so the same search, run with the same parameters, authorizations and
+ * workspace, is answered without running it again. A result is kept for the configured number of seconds, and is
+ * dropped early when an element it contains changes, or when any element changes a property the search filters,
+ * sorts or aggregates on. Searches which can match an element through any of its properties, such as text searches
+ * and searches without a property filter, are dropped when any element changes.
+ * <p>
+ * Results are only cached once this cache has subscribed to the element change broadcasts.
+ */
+@Singleton
+public class SearchResultCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(SearchResultCache.class);
+    public static final String CONFIG_TTL_SECONDS = SearchResultCache.class.getName() + ".ttlSeconds";
+    public static final int DEFAULT_TTL_SECONDS = 30;
+    public static final String CONFIG_MAX_SIZE = SearchResultCache.class.getName() + ".maxSize";
+    public static final int DEFAULT_MAX_SIZE = 500;
+    public static final String CONFIG_MAX_RESULTS = SearchResultCache.class.getName() + ".maxResults";
+    public static final int DEFAULT_MAX_RESULTS = 1000;
+    private static final Set<String> IGNORED_PARAMETERS = new HashSet<>(Arrays.asList("cursor", "useCursor"));
+    private final Cache<String, Entry> entries;
+    private final boolean enabled;
+    private final long maxResults;
+    private volatile boolean subscribed;
+
+    @Inject
+    public SearchResultCache(Configuration configuration, MetricsManager metricsManager) {
+        int ttlSeconds = configuration.getInt(CONFIG_TTL_SECONDS, DEFAULT_TTL_SECONDS);
+        this.enabled = ttlSeconds > 0;
+        this.maxResults = configuration.getInt(CONFIG_MAX_RESULTS, DEFAULT_MAX_RESULTS);
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(configuration.getInt(CONFIG_MAX_SIZE, DEFAULT_MAX_SIZE))
+                .expireAfterWrite(Math.max(ttlSeconds, 1), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+
+        String metricsPrefix = metricsManager.getNamePrefix(this);
+        metricsManager.gauge(metricsPrefix + "hit-ratio", (Gauge<Double>) () -> entries.stats().hitRate());
+        metricsManager.gauge(metricsPrefix + "hits", (Gauge<Long>) () -> entries.stats().hitCount());
+        metricsManager.gauge(metricsPrefix + "misses", (Gauge<Long>) () -> entries.stats().missCount());
+        metricsManager.gauge(metricsPrefix + "evictions", (Gauge<Long>) () -> entries.stats().evictionCount());
+        metricsManager.gauge(metricsPrefix + "size", (Gauge<Long>) entries::size);
+    }
+
+    public void subscribeToBroadcastMessages(WorkQueueRepository workQueueRepository) {
+        if (!enabled || subscribed) {
+            return;
+        }
+        workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                try {
+                    SearchResultCache.this.broadcastReceived(json);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not invalidate search results from broadcast: %s", json, ex);
+                    entries.invalidateAll();
+                }
+            }
+        });
+        subscribed = true;
+    }
+
+    /**
+     * @return the key of the search, or null if its results can't be cached
+     */
+    String getKey(SearchRunner searchRunner, SearchOptions searchOptions, User user, Authorizations authorizations) {
+        if (!enabled || !subscribed) {
+            return null;
+        }
+        for (String ignoredParameter : IGNORED_PARAMETERS) {
+            if (searchOptions.getOptionalParameter(ignoredParameter, Object.class) != null) {
+                return null;
+            }
+        }
+
+        String[] auths = authorizations.getAuthorizations().clone();
+        Arrays.sort(auths);
+        String parameters = getCanonicalParameters(searchOptions);
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String value : new String[]{
+                searchRunner.getUri(),
+                searchOptions.getWorkspaceId(),
+                String.join(",", auths),
+                // filters on the current user's directory entity give different results for each user
+                parameters.contains("currentUser") ? user.getUserId() : null,
+                parameters
+        }) {
+            hasher.putString(value == null ? "" : value, StandardCharsets.UTF_8);
+            hasher.putByte((byte) 0);
+        }
+        return hasher.hash().toString();
+    }
+
+    QueryResultsIterableSearchResults get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        return entry == null ? null : entry.toSearchResults();
+    }
+
+    /**
+     * Reads the search results and keeps them if they are small enough.
+     *
+     * @return search results that can be read in place of the given results
+     */
+    QueryResultsIterableSearchResults put(String key, SearchOptions searchOptions, QueryResultsIterableSearchResults searchResults) {
+        if (searchResults.getSize() == null || searchResults.getSize() > maxResults) {
+            return searchResults;
+        }
+        CachedQueryResultsIterable cachedResults = CachedQueryResultsIterable.read(
+                searchResults.getQueryResultsIterable(),
+                searchResults.getQueryAndData().getQuery().getAggregations()
+        );
+        try {
+            searchResults.close();
+        } catch (Exception ex) {
+            LOGGER.warn("Could not close search results", ex);
+        }
+        Entry entry = new Entry(
+                cachedResults,
+                searchResults.getQueryAndData(),
+                searchResults.getOffset(),
+                searchResults.getSize(),
+                getPropertyNames(searchOptions)
+        );
+        entries.put(key, entry);
+        return entry.toSearchResults();
+    }
+
+    void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    void broadcastReceived(JSONObject json) {
+        JSONObject data = json.optJSONObject("data");
+        if (data == null) {
+            return;
+        }
+        Set<String> elementIds = new HashSet<>();
+        for (String key : new String[]{"graphVertexId", "graphEdgeId", "edgeId"}) {
+            String elementId = data.optString(key, null);
+            if (elementId != null) {
+                elementIds.add(elementId);
+            }
+        }
+        JSONArray vertexIds = data.optJSONArray("vertexIds");
+        if (vertexIds != null) {
+            for (int i = 0; i < vertexIds.length(); i++) {
+                elementIds.add(vertexIds.getString(i));
+            }
+        }
+        if (elementIds.size() > 0) {
+            elementsChanged(elementIds, data.optString("propertyName", null));
+        }
+    }
+
+    /**
+     * @param propertyName the name of the property which changed, or null if the elements were added, deleted or
+     *                     changed in some other way
+     */
+    private void elementsChanged(Set<String> elementIds, String propertyName) {
+        for (Map.Entry<String, Entry> entry : entries.asMap().entrySet()) {
+            if (propertyName == null || entry.getValue().isAffectedBy(elementIds, propertyName)) {
+                entries.invalidate(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * An element can only start or stop matching a search with a property filter, or change its place in the sort
+     * order or aggregations, when one of the properties the search uses changes.
+     *
+     * @return the names of the properties the search uses, or null if a change to any property can change its results
+     */
+    static Set<String> getPropertyNames(SearchOptions searchOptions) {
+        String q = searchOptions.getOptionalParameter("q", String.class);
+        if ((q != null && !q.trim().isEmpty() && !q.trim().equals("*"))
+                || searchOptions.getOptionalParameter("relatedToVertexIds[]", Object.class) != null
+                || searchOptions.getOptionalParameter("elementExtendedData", Object.class) != null
+                || searchOptions.getOptionalParameter("extendedDataFilters[]", Object.class) != null) {
+            return null;
+        }
+
+        Set<String> propertyNames = new HashSet<>();
+        boolean hasPropertyFilter = false;
+        JSONArray filterJson = searchOptions.getOptionalParameter("filter", JSONArray.class);
+        for (int i = 0; filterJson != null && i < filterJson.length(); i++) {
+            JSONObject filter = filterJson.getJSONObject(i);
+            String propertyName = filter.optString("propertyName", filter.optString("propertyId", null));
+            if (propertyName != null) {
+                propertyNames.add(propertyName);
+                // elements without the property match a hasNot filter
+                hasPropertyFilter |= !"hasNot".equals(filter.optString("predicate"));
+            }
+        }
+        if (!hasPropertyFilter) {
+            return null;
+        }
+
+        if (searchOptions.getOptionalParameter("conceptTypes", Object.class) != null
+                || searchOptions.getOptionalParameter("conceptType", Object.class) != null) {
+            propertyNames.add(VisalloProperties.CONCEPT_TYPE.getPropertyName());
+        }
+        String[] sorts = searchOptions.getOptionalParameter("sort[]", String[].class);
+        if (sorts == null) {
+            JSONArray sortsJson = searchOptions.getOptionalParameter("sort", JSONArray.class);
+            sorts = sortsJson == null ? new String[0] : JSONUtil.toStringList(sortsJson).toArray(new String[sortsJson.length()]);
+        }
+        for (String sort : sorts) {
+            propertyNames.add(sort.replaceFirst("(?i):(ASCENDING|DESCENDING)$", ""));
+        }
+        String[] aggregations = searchOptions.getOptionalParameter("aggregations[]", String[].class);
+        for (int i = 0; aggregations != null && i < aggregations.length; i++) {
+            String field = new JSONObject(aggregations[i]).optString("field", null);
+            if (field != null) {
+                propertyNames.add(field);
+            }
+        }
+        return propertyNames;
+    }
+
+    private static String getCanonicalParameters(SearchOptions searchOptions) {
+        JSONObject parameters = new JSONObject();
+        for (Map.Entry<String, Object> parameter : new TreeMap<>(searchOptions.getParameters()).entrySet()) {
+            Object value = getCanonicalValue(parameter.getValue());
+            if (value != null) {
+                parameters.put(parameter.getKey(), value);
+            }
+        }
+        return toCanonicalString(parameters);
+    }
+
+    /**
+     * Parameters are parsed so JSON with the same content gives the same key. Values which aren't parameters, such as
+     * the user or trace a web request carries as attributes, are skipped.
+     */
+    private static Object getCanonicalValue(Object value) {
+        if (value instanceof String) {
+            String trimmed = ((String) value).trim();
+            try {
+                if (trimmed.startsWith("{")) {
+                    return new JSONObject(trimmed);
+                } else if (trimmed.startsWith("[")) {
+                    return new JSONArray(trimmed);
+                }
+            } catch (Exception ex) {
+                // not JSON, use the string
+            }
+            return value;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof JSONObject || value instanceof JSONArray) {
+            return value;
+        }
+        if (value instanceof Object[]) {
+            JSONArray array = new JSONArray();
+            for (Object item : (Object[]) value) {
+                array.put(getCanonicalValue(item));
+            }
+            return array;
+        }
+        if (value instanceof Collection) {
+            return getCanonicalValue(((Collection<?>) value).toArray());
+        }
+        return null;
+    }
+
+    private static String toCanonicalString(Object value) {
+        if (value instanceof JSONObject) {
+            JSONObject json = (JSONObject) value;
+            StringBuilder result = new StringBuilder("{");
+            Set<String> keys = new TreeSet<>();
+            for (Object key : json.keySet()) {
+                keys.add((String) key);
+            }
+            for (String key : keys) {
+                if (result.length() > 1) {
+                    result.append(',');
+                }
+                result.append(JSONObject.quote(key)).append(':').append(toCanonicalString(json.get(key)));
+            }
+            return result.append('}').toString();
+        }
+        if (value instanceof JSONArray) {
+            JSONArray json = (JSONArray) value;
+            StringBuilder result = new StringBuilder("[");
+            for (int i = 0; i < json.length(); i++) {
+                if (i > 0) {
+                    result.append(',');
+                }
+                result.append(toCanonicalString(json.get(i)));
+            }
+            return result.append(']').toString();
+        }
+        if (value instanceof String) {
+            return JSONObject.quote((String) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static class Entry {
+        private final CachedQueryResultsIterable results;
+        private final VertexiumObjectSearchRunnerBase.QueryAndData queryAndData;
+        private final Long offset;
+        private final Long size;
+        private final Set<String> propertyNames;
+        private final Set<String> elementIds = new HashSet<>();
+
+        Entry(
+                CachedQueryResultsIterable results,
+                VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
+                Long offset,
+                Long size,
+                Set<String> propertyNames
+        ) {
+            this.results = results;
+            this.queryAndData = queryAndData;
+            this.offset = offset;
+            this.size = size;
+            this.propertyNames = propertyNames;
+            for (VertexiumObject result : results.getResults()) {
+                if (result.getId() instanceof String) {
+                    elementIds.add((String) result.getId());
+                }
+            }
+        }
+
+        boolean isAffectedBy(Set<String> changedElementIds, String changedPropertyName) {
+            if (propertyNames == null || propertyNames.contains(changedPropertyName)) {
+                return true;
+            }
+            for (String changedElementId : changedElementIds) {
+                if (elementIds.contains(changedElementId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        QueryResultsIterableSearchResults toSearchResults() {
+            return new QueryResultsIterableSearchResults(results, queryAndData, offset, size);
+        }
+    }
+}
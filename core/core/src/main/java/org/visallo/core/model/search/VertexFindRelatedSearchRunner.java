@@ -3,29 +3,56 @@ package org.visallo.core.model.search;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 import org.vertexium.*;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.ontology.Concept;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.user.User;
 import org.visallo.core.util.ClientApiConverter;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
 
+/**
+ * Finds the vertices related to a set of seed vertices in two phases. The ids of the related vertices are first
+ * collected from the edge references of the seeds, which are expanded in parallel, and then only the vertices of the
+ * returned page are fetched with {@link ClientApiConverter#SEARCH_FETCH_HINTS}. The collected ids are checked against
+ * the user's authorizations in batches before they are counted. When the results are limited by concept, only the
+ * properties of the related vertices are read to find their concept type.
+ */
 public class VertexFindRelatedSearchRunner extends SearchRunner {
     public static final String URI = "/vertex/find-related";
+    public static final String CONFIG_THREAD_COUNT = VertexFindRelatedSearchRunner.class.getName() + ".threadCount";
+    public static final int DEFAULT_THREAD_COUNT = 4;
+    public static final String CONFIG_BATCH_SIZE = VertexFindRelatedSearchRunner.class.getName() + ".batchSize";
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final EnumSet<FetchHint> CONCEPT_TYPE_FETCH_HINTS = EnumSet.of(FetchHint.PROPERTIES);
     private final OntologyRepository ontologyRepository;
     private final Graph graph;
+    private final ExecutorService executorService;
+    private final int batchSize;
 
     @Inject
     public VertexFindRelatedSearchRunner(
             Graph graph,
-            OntologyRepository ontologyRepository
+            OntologyRepository ontologyRepository,
+            Configuration configuration
     ) {
         this.graph = graph;
         this.ontologyRepository = ontologyRepository;
+        this.batchSize = Math.max(1, configuration.getInt(CONFIG_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        this.executorService = Executors.newFixedThreadPool(
+                Math.max(1, configuration.getInt(CONFIG_THREAD_COUNT, DEFAULT_THREAD_COUNT)),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "find-related");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }
+        );
     }
 
     @Override
@@ -71,25 +98,94 @@ public class VertexFindRelatedSearchRunner extends SearchRunner {
             long maxVerticesToReturn,
             Authorizations authorizations
     ) {
-        Set<String> visitedIds = new HashSet<>();
-        long count = visitedIds.size();
-        Iterable<Vertex> vertices = graph.getVertices(Lists.newArrayList(graphVertexIds), FetchHint.EDGE_REFS, authorizations);
-        List<Vertex> elements = new ArrayList<>();
-        for (Vertex v : vertices) {
-            Iterable<Vertex> relatedVertices = v.getVertices(Direction.BOTH, limitEdgeLabel, ClientApiConverter.SEARCH_FETCH_HINTS, authorizations);
-            for (Vertex vertex : relatedVertices) {
-                if (!visitedIds.add(vertex.getId())) {
-                    continue;
+        Collection<String> relatedVertexIds = getRelatedVertexIds(graphVertexIds, limitEdgeLabel, authorizations);
+
+        long count;
+        List<String> pageIds;
+        if (limitConceptIds.size() == 0) {
+            // the edge references can point to vertices the user cannot read, they are neither counted nor returned
+            count = 0;
+            pageIds = new ArrayList<>();
+            for (List<String> batch : Lists.partition(new ArrayList<>(relatedVertexIds), batchSize)) {
+                Map<String, Boolean> verticesExist = graph.doVerticesExist(batch, authorizations);
+                for (String relatedVertexId : batch) {
+                    if (!verticesExist.getOrDefault(relatedVertexId, false)) {
+                        continue;
+                    }
+                    if (pageIds.size() < maxVerticesToReturn) {
+                        pageIds.add(relatedVertexId);
+                    }
+                    count++;
                 }
-                if (limitConceptIds.size() == 0 || !isLimited(vertex, limitConceptIds)) {
-                    if (count < maxVerticesToReturn) {
-                        elements.add(vertex);
+            }
+        } else {
+            count = 0;
+            pageIds = new ArrayList<>();
+            for (List<String> batch : Lists.partition(new ArrayList<>(relatedVertexIds), batchSize)) {
+                for (Vertex vertex : graph.getVertices(batch, CONCEPT_TYPE_FETCH_HINTS, authorizations)) {
+                    if (isLimited(vertex, limitConceptIds)) {
+                        continue;
+                    }
+                    if (pageIds.size() < maxVerticesToReturn) {
+                        pageIds.add(vertex.getId());
                     }
                     count++;
                 }
             }
         }
-        return new VertexFindRelatedSearchResults(elements, count);
+
+        return new VertexFindRelatedSearchResults(getVerticesInOrder(pageIds, authorizations), count);
+    }
+
+    /**
+     * Collects the ids of the vertices on the other side of the edges of each seed vertex, in the order of the seeds.
+     * Only the edge references of the seeds are read, the related vertices are not loaded.
+     */
+    private Collection<String> getRelatedVertexIds(String[] graphVertexIds, String limitEdgeLabel, Authorizations authorizations) {
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (String graphVertexId : graphVertexIds) {
+            futures.add(executorService.submit(() -> {
+                List<String> vertexIds = new ArrayList<>();
+                Vertex vertex = graph.getVertex(graphVertexId, FetchHint.EDGE_REFS, authorizations);
+                if (vertex != null) {
+                    Iterable<EdgeInfo> edgeInfos = limitEdgeLabel == null
+                            ? vertex.getEdgeInfos(Direction.BOTH, authorizations)
+                            : vertex.getEdgeInfos(Direction.BOTH, limitEdgeLabel, authorizations);
+                    for (EdgeInfo edgeInfo : edgeInfos) {
+                        vertexIds.add(edgeInfo.getVertexId());
+                    }
+                }
+                return vertexIds;
+            }));
+        }
+
+        Set<String> relatedVertexIds = new LinkedHashSet<>();
+        for (Future<List<String>> future : futures) {
+            try {
+                relatedVertexIds.addAll(future.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new VisalloException("Interrupted finding related vertices", ex);
+            } catch (ExecutionException ex) {
+                throw new VisalloException("Could not find related vertices", ex.getCause());
+            }
+        }
+        return relatedVertexIds;
+    }
+
+    private List<Vertex> getVerticesInOrder(List<String> vertexIds, Authorizations authorizations) {
+        Map<String, Vertex> verticesById = new HashMap<>();
+        for (Vertex vertex : graph.getVertices(vertexIds, ClientApiConverter.SEARCH_FETCH_HINTS, authorizations)) {
+            verticesById.put(vertex.getId(), vertex);
+        }
+        List<Vertex> vertices = new ArrayList<>();
+        for (String vertexId : vertexIds) {
+            Vertex vertex = verticesById.get(vertexId);
+            if (vertex != null) {
+                vertices.add(vertex);
+            }
+        }
+        return vertices;
     }
 
     private boolean isLimited(Vertex vertex, Set<String> limitConceptIds) {
@@ -97,4 +193,3 @@ public class VertexFindRelatedSearchRunner extends SearchRunner {
         return !limitConceptIds.contains(conceptId);
     }
 }
-
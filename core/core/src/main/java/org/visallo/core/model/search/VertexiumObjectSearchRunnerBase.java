@@ -1,5 +1,6 @@
 package org.visallo.core.model.search;
 
+import com.google.inject.Inject;
 import org.apache.commons.math3.util.Precision;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -27,6 +28,8 @@ public abstract class VertexiumObjectSearchRunnerBase extends SearchRunner {
     private final DirectoryRepository directoryRepository;
     private final OntologyRepository ontologyRepository;
     private long defaultSearchResultCount;
+    private SearchCursorCache searchCursorCache;
+    private SearchResultCache searchResultCache;
 
     protected VertexiumObjectSearchRunnerBase(
             OntologyRepository ontologyRepository,
@@ -40,12 +43,41 @@ public abstract class VertexiumObjectSearchRunnerBase extends SearchRunner {
         defaultSearchResultCount = configuration.getInt(Configuration.DEFAULT_SEARCH_RESULT_COUNT, 100);
     }
 
+    @Inject
+    public void setSearchCursorCache(SearchCursorCache searchCursorCache) {
+        this.searchCursorCache = searchCursorCache;
+    }
+
+    @Inject
+    public void setSearchResultCache(SearchResultCache searchResultCache) {
+        this.searchResultCache = searchResultCache;
+    }
+
+    /**
+     * Runs the search. Results are paged with the offset and size parameters, or with a search cursor when the
+     * useCursor parameter is true. The first page of a cursor search returns the cursor the next page is read with,
+     * by passing it in the cursor parameter, so deep pages don't skip over the results before them.
+     */
     @Override
     public QueryResultsIterableSearchResults run(
             SearchOptions searchOptions,
             User user,
             Authorizations authorizations
     ) {
+        Long size = searchOptions.getOptionalParameter("size", defaultSearchResultCount);
+        String cursorId = searchOptions.getOptionalParameter("cursor", String.class);
+        if (cursorId != null) {
+            return getCursorPage(getSearchCursorCache().get(cursorId, user), size);
+        }
+
+        String cacheKey = searchResultCache == null ? null : searchResultCache.getKey(this, searchOptions, user, authorizations);
+        if (cacheKey != null) {
+            QueryResultsIterableSearchResults cachedResults = searchResultCache.get(cacheKey);
+            if (cachedResults != null) {
+                return cachedResults;
+            }
+        }
+
         JSONArray filterJson = getFilterJson(searchOptions);
 
         QueryAndData queryAndData = getQuery(searchOptions, authorizations);
@@ -58,7 +90,13 @@ public abstract class VertexiumObjectSearchRunnerBase extends SearchRunner {
 
         EnumSet<FetchHint> fetchHints = getFetchHints(searchOptions);
 
-        Long size = searchOptions.getOptionalParameter("size", defaultSearchResultCount);
+        Boolean useCursor = searchOptions.getOptionalParameter("useCursor", Boolean.class);
+        if (useCursor != null && useCursor) {
+            SearchCursorCache searchCursorCache = getSearchCursorCache();
+            QueryResultsIterable<? extends VertexiumObject> searchResults = getSearchResults(queryAndData, fetchHints);
+            return getCursorPage(searchCursorCache.create(user, queryAndData, searchResults), size);
+        }
+
         if (size != null) {
             queryAndData.getQuery().limit(size);
         }
@@ -70,7 +108,40 @@ public abstract class VertexiumObjectSearchRunnerBase extends SearchRunner {
 
         QueryResultsIterable<? extends VertexiumObject> searchResults = getSearchResults(queryAndData, fetchHints);
 
-        return new QueryResultsIterableSearchResults(searchResults, queryAndData, offset, size);
+        QueryResultsIterableSearchResults results = new QueryResultsIterableSearchResults(searchResults, queryAndData, offset, size);
+        if (cacheKey != null) {
+            return searchResultCache.put(cacheKey, searchOptions, results);
+        }
+        return results;
+    }
+
+    private QueryResultsIterableSearchResults getCursorPage(SearchCursor cursor, Long size) {
+        long pageSize = size == null ? defaultSearchResultCount : size;
+        long offset = cursor.getPosition();
+        List<VertexiumObject> page = cursor.nextPage(pageSize);
+        String nextCursor = cursor.getId();
+        boolean lastPage = !cursor.hasNext();
+        if (lastPage) {
+            // the search results are still read for the total hits and aggregations, they are closed with the page
+            getSearchCursorCache().remove(cursor);
+            nextCursor = null;
+        }
+        return new QueryResultsIterableSearchResults(
+                cursor.getSearchResults(),
+                page,
+                cursor.getQueryAndData(),
+                offset,
+                pageSize,
+                nextCursor,
+                lastPage
+        );
+    }
+
+    private SearchCursorCache getSearchCursorCache() {
+        if (searchCursorCache == null) {
+            throw new VisalloException("Search cursors are not available, no " + SearchCursorCache.class.getSimpleName() + " was injected");
+        }
+        return searchCursorCache;
     }
 
     private EnumSet<FetchHint> getFetchHints(SearchOptions searchOptions) {
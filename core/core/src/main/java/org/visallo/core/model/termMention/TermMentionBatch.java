@@ -0,0 +1,79 @@
+package org.visallo.core.model.termMention;
+
+import org.vertexium.*;
+import org.vertexium.mutation.ElementMutation;
+import org.visallo.core.security.VisibilityTranslator;
+import org.visallo.core.user.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects term mentions and saves them, along with their edges, with a single call to
+ * {@link Graph#saveElementMutations(Iterable, Authorizations)}. Term mentions with the same vertex id are only
+ * saved once.
+ * <p/>
+ * Use this instead of {@link TermMentionBuilder#save(Graph, VisibilityTranslator, User, Authorizations)} when
+ * creating many term mentions for the same document.
+ */
+public class TermMentionBatch {
+    private final Graph graph;
+    private final VisibilityTranslator visibilityTranslator;
+    private final User user;
+    private final Authorizations authorizations;
+    private final Map<String, TermMentionBuilder> termMentions = new LinkedHashMap<>();
+
+    public TermMentionBatch(Graph graph, VisibilityTranslator visibilityTranslator, User user, Authorizations authorizations) {
+        this.graph = graph;
+        this.visibilityTranslator = visibilityTranslator;
+        this.user = user;
+        this.authorizations = authorizations;
+    }
+
+    public TermMentionBatch add(TermMentionBuilder termMention) {
+        termMention.validate();
+        String vertexId = termMention.getVertexId();
+        if (!termMentions.containsKey(vertexId)) {
+            termMentions.put(vertexId, termMention);
+        }
+        return this;
+    }
+
+    public int size() {
+        return termMentions.size();
+    }
+
+    /**
+     * Saves the collected term mentions and clears the batch.
+     *
+     * @return the saved term mention vertices in the order they were added
+     */
+    public List<Vertex> save() {
+        List<Vertex> results = new ArrayList<>();
+        if (termMentions.isEmpty()) {
+            return results;
+        }
+
+        List<ElementMutation> mutations = new ArrayList<>();
+        for (TermMentionBuilder termMention : termMentions.values()) {
+            mutations.addAll(termMention.prepareMutations(graph, visibilityTranslator, user));
+        }
+        Authorizations termMentionAuthorizations = graph.createAuthorizations(authorizations, TermMentionRepository.VISIBILITY_STRING);
+        Map<String, Vertex> savedVertices = new LinkedHashMap<>();
+        for (Element element : graph.saveElementMutations(mutations, termMentionAuthorizations)) {
+            if (element instanceof Vertex) {
+                savedVertices.put(element.getId(), (Vertex) element);
+            }
+        }
+        for (String vertexId : termMentions.keySet()) {
+            Vertex vertex = savedVertices.get(vertexId);
+            if (vertex != null) {
+                results.add(vertex);
+            }
+        }
+        termMentions.clear();
+        return results;
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.base.Charsets;
 import com.google.common.hash.Hashing;
 import org.vertexium.*;
 import org.vertexium.mutation.EdgeMutation;
+import org.vertexium.mutation.ElementMutation;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.security.VisalloVisibility;
 import org.visallo.core.security.VisibilityTranslator;
@@ -13,7 +14,9 @@ import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -184,8 +187,28 @@ public class TermMentionBuilder {
      * <p/>
      * Source  -- Has --> Term    -- Resolved To --> Resolved
      * Vertex             Mention                    Vertex
+     * <p/>
+     * The source vertex is also connected to the term mention by a
+     * {@link VisalloProperties#TERM_MENTION_LABEL_HAS_PROPERTY_TERM_MENTION} edge, see
+     * {@link TermMentionRepository#prepareHasPropertyTermMentionEdge}, so the term mentions of one property can be
+     * queried without loading the term mentions of the vertex's other properties.
      */
     public Vertex save(Graph graph, VisibilityTranslator visibilityTranslator, User user, Authorizations authorizations) {
+        validate();
+
+        Authorizations termMentionAuthorizations = graph.createAuthorizations(authorizations, TermMentionRepository.VISIBILITY_STRING);
+        List<ElementMutation> mutations = prepareMutations(graph, visibilityTranslator, user);
+        Vertex termMentionVertex = null;
+        for (ElementMutation mutation : mutations) {
+            Element element = mutation.save(termMentionAuthorizations);
+            if (termMentionVertex == null) {
+                termMentionVertex = (Vertex) element;
+            }
+        }
+        return termMentionVertex;
+    }
+
+    void validate() {
         checkNotNull(outVertex, "outVertex cannot be null");
         checkNotNull(propertyKey, "propertyKey cannot be null");
         checkNotNull(title, "title cannot be null");
@@ -201,11 +224,19 @@ public class TermMentionBuilder {
         if (propertyName == null) {
             LOGGER.warn("Not setting a propertyName when building a term mention is deprecated");
         }
+    }
 
+    /**
+     * Prepares the term mention vertex followed by its edges without saving them.
+     */
+    List<ElementMutation> prepareMutations(Graph graph, VisibilityTranslator visibilityTranslator, User user) {
         Date now = new Date();
-        String vertexId = createVertexId();
+        String vertexId = getVertexId();
+        String outVertexId = this.outVertex.getId();
         Visibility defaultVisibility = visibilityTranslator.getDefaultVisibility();
         Visibility visibility = VisalloVisibility.and(visibilityTranslator.toVisibility(this.visibilityJson).getVisibility(), TermMentionRepository.VISIBILITY_STRING);
+        List<ElementMutation> mutations = new ArrayList<>();
+
         VertexBuilder vertexBuilder = graph.prepareVertex(vertexId, visibility);
         VisalloProperties.TERM_MENTION_VISIBILITY_JSON.setProperty(vertexBuilder, this.visibilityJson, visibility);
         VisalloProperties.TERM_MENTION_CONCEPT_TYPE.setProperty(vertexBuilder, this.conceptIri, visibility);
@@ -227,26 +258,47 @@ public class TermMentionBuilder {
             VisalloProperties.TERM_MENTION_FOR_ELEMENT_ID.setProperty(vertexBuilder, resolvedToVertexId, visibility);
             VisalloProperties.TERM_MENTION_FOR_TYPE.setProperty(vertexBuilder, TermMentionFor.VERTEX, visibility);
         }
-
-        Authorizations termMentionAuthorizations = graph.createAuthorizations(authorizations, TermMentionRepository.VISIBILITY_STRING);
-        Vertex termMentionVertex = vertexBuilder.save(termMentionAuthorizations);
+        mutations.add(vertexBuilder);
 
         String hasTermMentionId = vertexId + "_hasTermMention";
-        EdgeBuilder termMentionEdgeBuilder = graph.prepareEdge(hasTermMentionId, this.outVertex, termMentionVertex, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, visibility);
+        EdgeMutation termMentionEdgeBuilder = graph.prepareEdge(hasTermMentionId, outVertexId, vertexId, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, visibility);
         VisalloProperties.TERM_MENTION_VISIBILITY_JSON.setProperty(termMentionEdgeBuilder, this.visibilityJson, visibility);
         VisalloProperties.MODIFIED_BY.setProperty(termMentionEdgeBuilder, user.getUserId(), defaultVisibility);
         VisalloProperties.MODIFIED_DATE.setProperty(termMentionEdgeBuilder, now, defaultVisibility);
-        termMentionEdgeBuilder.save(authorizations);
+        mutations.add(termMentionEdgeBuilder);
+
+        EdgeMutation propertyTermMentionEdgeBuilder = TermMentionRepository.prepareHasPropertyTermMentionEdge(
+                graph,
+                vertexId + "_hasPropertyTermMention",
+                outVertexId,
+                vertexId,
+                this.propertyKey,
+                this.propertyName,
+                this.start,
+                this.end,
+                visibility
+        );
+        VisalloProperties.TERM_MENTION_VISIBILITY_JSON.setProperty(propertyTermMentionEdgeBuilder, this.visibilityJson, visibility);
+        mutations.add(propertyTermMentionEdgeBuilder);
+
         if (this.resolvedToVertexId != null) {
             String resolvedToId = vertexId + "_resolvedTo";
-            EdgeMutation resolvedToEdgeBuilder = graph.prepareEdge(resolvedToId, termMentionVertex.getId(), resolvedToVertexId, VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO, visibility);
+            EdgeMutation resolvedToEdgeBuilder = graph.prepareEdge(resolvedToId, vertexId, resolvedToVertexId, VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO, visibility);
             VisalloProperties.TERM_MENTION_VISIBILITY_JSON.setProperty(resolvedToEdgeBuilder, this.visibilityJson, visibility);
             VisalloProperties.MODIFIED_BY.setProperty(resolvedToEdgeBuilder, user.getUserId(), defaultVisibility);
             VisalloProperties.MODIFIED_DATE.setProperty(resolvedToEdgeBuilder, now, defaultVisibility);
-            resolvedToEdgeBuilder.save(authorizations);
+            mutations.add(resolvedToEdgeBuilder);
         }
 
-        return termMentionVertex;
+        return mutations;
+    }
+
+    /**
+     * The id of the term mention vertex. Term mentions of the same text, range and process on the same property
+     * get the same id.
+     */
+    public String getVertexId() {
+        return createVertexId();
     }
 
     private String createVertexId() {
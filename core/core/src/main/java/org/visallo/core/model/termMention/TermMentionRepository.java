@@ -2,7 +2,10 @@ package org.visallo.core.model.termMention;
 
 import com.google.inject.Inject;
 import org.vertexium.*;
+import org.vertexium.mutation.EdgeMutation;
 import org.vertexium.mutation.ExistingElementMutation;
+import org.vertexium.query.Compare;
+import org.vertexium.query.VertexQuery;
 import org.vertexium.util.FilterIterable;
 import org.vertexium.util.JoinIterable;
 import org.visallo.core.model.PropertyJustificationMetadata;
@@ -15,6 +18,8 @@ import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.ClientApiSourceInfo;
 import org.visallo.web.clientapi.model.ClientApiTermMentionsResponse;
 
+import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -40,24 +45,133 @@ public class TermMentionRepository {
             String propertyName,
             Authorizations authorizations
     ) {
-        authorizations = getAuthorizations(authorizations);
-        return new FilterIterable<Vertex>(findByOutVertex(outVertexId, authorizations)) {
-            @Override
-            protected boolean isIncluded(Vertex v) {
-                String vertexPropertyKey = VisalloProperties.TERM_MENTION_PROPERTY_KEY.getPropertyValue(v);
-                if (!propertyKey.equals(vertexPropertyKey)) {
-                    return false;
-                }
+        return findByOutVertexAndProperty(outVertexId, propertyKey, propertyName, null, null, authorizations);
+    }
 
-                // handle legacy data which did not have property name
-                String vertexPropertyName = VisalloProperties.TERM_MENTION_PROPERTY_NAME.getPropertyValue(v, null);
-                if (VisalloProperties.TEXT.getPropertyName().equals(propertyName) && vertexPropertyName == null) {
-                    return true;
-                }
+    /**
+     * Finds the term mentions of a single property sorted by start offset. If startOffset or endOffset is given
+     * only the term mentions overlapping that range are returned.
+     *
+     * Term mentions are looked up by querying the {@link VisalloProperties#TERM_MENTION_LABEL_HAS_PROPERTY_TERM_MENTION}
+     * edges written by {@link TermMentionBuilder} and {@link #addSourceInfoToVertex}, which carry the property and
+     * offsets of their term mention. Term mentions written before that edge existed have only the
+     * {@link VisalloProperties#TERM_MENTION_LABEL_HAS_TERM_MENTION} edge, those are loaded and filtered by
+     * property and range and added to the results.
+     */
+    public List<Vertex> findByOutVertexAndProperty(
+            String outVertexId,
+            String propertyKey,
+            String propertyName,
+            Long startOffset,
+            Long endOffset,
+            Authorizations authorizations
+    ) {
+        checkNotNull(propertyKey, "propertyKey cannot be null");
+        checkNotNull(propertyName, "propertyName cannot be null");
+        Authorizations authorizationsWithTermMention = getAuthorizations(authorizations);
+        Vertex outVertex = graph.getVertex(outVertexId, authorizationsWithTermMention);
+        if (outVertex == null) {
+            return new ArrayList<>();
+        }
 
-                return propertyName.equals(vertexPropertyName);
-            }
-        };
+        VertexQuery query = outVertex.query(authorizationsWithTermMention);
+        query.hasEdgeLabel(VisalloProperties.TERM_MENTION_LABEL_HAS_PROPERTY_TERM_MENTION);
+        query.has(VisalloProperties.TERM_MENTION_PROPERTY_KEY.getPropertyName(), propertyKey);
+        query.has(VisalloProperties.TERM_MENTION_PROPERTY_NAME.getPropertyName(), propertyName);
+        if (startOffset != null) {
+            query.has(VisalloProperties.TERM_MENTION_END_OFFSET.getPropertyName(), Compare.GREATER_THAN, startOffset);
+        }
+        if (endOffset != null) {
+            query.has(VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyName(), Compare.LESS_THAN, endOffset);
+        }
+        Set<String> termMentionIds = new HashSet<>();
+        for (Edge edge : query.edges()) {
+            termMentionIds.add(edge.getVertexId(Direction.IN));
+        }
+        Stream<Vertex> termMentions = stream(graph.getVertices(termMentionIds, authorizationsWithTermMention));
+
+        Set<String> unindexedTermMentionIds = new HashSet<>();
+        for (EdgeInfo edgeInfo : outVertex.getEdgeInfos(Direction.OUT, VisalloProperties.TERM_MENTION_LABEL_HAS_TERM_MENTION, authorizationsWithTermMention)) {
+            unindexedTermMentionIds.add(edgeInfo.getVertexId());
+        }
+        for (EdgeInfo edgeInfo : outVertex.getEdgeInfos(Direction.OUT, VisalloProperties.TERM_MENTION_LABEL_HAS_PROPERTY_TERM_MENTION, authorizationsWithTermMention)) {
+            unindexedTermMentionIds.remove(edgeInfo.getVertexId());
+        }
+        if (unindexedTermMentionIds.size() > 0) {
+            Iterable<Vertex> legacyTermMentions = graph.getVertices(unindexedTermMentionIds, authorizationsWithTermMention);
+            termMentions = Stream.concat(
+                    termMentions,
+                    stream(legacyTermMentions)
+                            .filter(termMention -> isForProperty(termMention, propertyKey, propertyName))
+                            .filter(termMention -> isInRange(termMention, startOffset, endOffset))
+            );
+        }
+
+        return termMentions
+                .sorted(Comparator.comparingLong(termMention -> VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(termMention)))
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isForProperty(Vertex termMention, String propertyKey, String propertyName) {
+        String termMentionPropertyKey = VisalloProperties.TERM_MENTION_PROPERTY_KEY.getPropertyValue(termMention);
+        if (!propertyKey.equals(termMentionPropertyKey)) {
+            return false;
+        }
+
+        // handle legacy data which did not have property name
+        String termMentionPropertyName = VisalloProperties.TERM_MENTION_PROPERTY_NAME.getPropertyValue(termMention, null);
+        if (VisalloProperties.TEXT.getPropertyName().equals(propertyName) && termMentionPropertyName == null) {
+            return true;
+        }
+
+        return propertyName.equals(termMentionPropertyName);
+    }
+
+    private static boolean isInRange(Vertex termMention, Long startOffset, Long endOffset) {
+        long termMentionStart = VisalloProperties.TERM_MENTION_START_OFFSET.getPropertyValue(termMention);
+        long termMentionEnd = VisalloProperties.TERM_MENTION_END_OFFSET.getPropertyValue(termMention);
+        if (startOffset != null && termMentionEnd <= startOffset) {
+            return false;
+        }
+        if (endOffset != null && termMentionStart >= endOffset) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Prepares the edge from a vertex to a term mention found in one of its properties. The edge is written in
+     * addition to {@link VisalloProperties#TERM_MENTION_LABEL_HAS_TERM_MENTION} and carries the property key, name
+     * and offsets of the term mention so they can be queried.
+     *
+     * @param propertyName the name of the property, legacy term mentions without one belong to the text property
+     */
+    public static EdgeMutation prepareHasPropertyTermMentionEdge(
+            Graph graph,
+            String edgeId,
+            String outVertexId,
+            String termMentionVertexId,
+            String propertyKey,
+            String propertyName,
+            long startOffset,
+            long endOffset,
+            Visibility visibility
+    ) {
+        if (propertyName == null) {
+            propertyName = VisalloProperties.TEXT.getPropertyName();
+        }
+        EdgeMutation edgeBuilder = graph.prepareEdge(
+                edgeId,
+                outVertexId,
+                termMentionVertexId,
+                VisalloProperties.TERM_MENTION_LABEL_HAS_PROPERTY_TERM_MENTION,
+                visibility
+        );
+        VisalloProperties.TERM_MENTION_PROPERTY_KEY.setProperty(edgeBuilder, propertyKey, visibility);
+        VisalloProperties.TERM_MENTION_PROPERTY_NAME.setProperty(edgeBuilder, propertyName, visibility);
+        VisalloProperties.TERM_MENTION_START_OFFSET.setProperty(edgeBuilder, startOffset, visibility);
+        VisalloProperties.TERM_MENTION_END_OFFSET.setProperty(edgeBuilder, endOffset, visibility);
+        return edgeBuilder;
     }
 
     public Iterable<Vertex> findByOutVertex(String outVertexId, Authorizations authorizations) {
@@ -506,6 +620,19 @@ public class TermMentionRepository {
                 visibility,
                 authorizations
         );
+        if (textPropertyKey != null) {
+            prepareHasPropertyTermMentionEdge(
+                    graph,
+                    VisalloProperties.TERM_MENTION_LABEL_HAS_PROPERTY_TERM_MENTION + termMentionVertexId,
+                    outVertex.getId(),
+                    termMention.getId(),
+                    textPropertyKey,
+                    textPropertyName,
+                    startOffset,
+                    endOffset,
+                    visibility
+            ).save(authorizations);
+        }
         graph.addEdge(
                 VisalloProperties.TERM_MENTION_LABEL_RESOLVED_TO + termMentionVertexId,
                 termMention,
@@ -1016,6 +1016,8 @@ public abstract class WorkQueueRepository {
 
         JSONObject dataJson = new JSONObject();
         dataJson.put("graphVertexId", graphVertex.getId());
+        dataJson.putOpt("propertyKey", propertyKey);
+        dataJson.putOpt("propertyName", propertyName);
         dataJson.putOpt("workspaceId", workspaceId);
 
         json.put("data", dataJson);
@@ -1037,6 +1039,8 @@ public abstract class WorkQueueRepository {
         dataJson.put("graphEdgeId", edge.getId());
         dataJson.put("outVertexId", edge.getVertexId(Direction.OUT));
         dataJson.put("inVertexId", edge.getVertexId(Direction.IN));
+        dataJson.putOpt("propertyKey", propertyKey);
+        dataJson.putOpt("propertyName", propertyName);
         dataJson.putOpt("workspaceId", workspaceId);
 
         json.put("data", dataJson);
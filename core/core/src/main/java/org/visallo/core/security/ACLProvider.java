@@ -1,5 +1,7 @@
 package org.visallo.core.security;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import org.vertexium.*;
 import org.visallo.core.exception.VisalloAccessDeniedException;
@@ -13,11 +15,15 @@ import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.*;
 
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.visallo.core.model.properties.VisalloProperties.CONCEPT_TYPE_THING;
@@ -29,6 +35,9 @@ public abstract class ACLProvider {
     protected final UserRepository userRepository;
     protected final OntologyRepository ontologyRepository;
     private final PrivilegeRepository privilegeRepository;
+    private final Cache<String, List<List<String>>> propertyAclTemplateCache = CacheBuilder.newBuilder()
+            .expireAfterWrite(15, TimeUnit.MINUTES)
+            .build();
 
     @Inject
     protected ACLProvider(
@@ -210,48 +219,25 @@ public abstract class ACLProvider {
     }
 
     public final ClientApiElementAcl elementACL(ClientApiElement clientApiElement, User user) {
-        Set<String> privileges = privilegeRepository.getPrivileges(user);
+        AclContext ctx = new AclContext(privilegeRepository.getPrivileges(user), user);
         OntologyElement ontologyElement = getOntologyElement(clientApiElement);
-        return elementACL(clientApiElement, ontologyElement, privileges, user);
+        return elementACL(clientApiElement, ontologyElement, ctx);
     }
 
     private ClientApiElementAcl elementACL(
             ClientApiElement clientApiElement,
             OntologyElement ontologyElement,
-            Set<String> privileges,
-            User user
+            AclContext ctx
     ) {
         checkNotNull(clientApiElement, "clientApiElement is required");
         ClientApiElementAcl elementAcl = new ClientApiElementAcl();
         elementAcl.setAddable(true);
-        elementAcl.setUpdateable(internalCanUpdateElement(clientApiElement, ontologyElement, privileges, user));
-        elementAcl.setDeleteable(internalCanDeleteElement(clientApiElement, ontologyElement, privileges, user));
+        elementAcl.setUpdateable(internalCanUpdateElement(clientApiElement, ontologyElement, ctx.privileges, ctx.user));
+        elementAcl.setDeleteable(internalCanDeleteElement(clientApiElement, ontologyElement, ctx.privileges, ctx.user));
 
         List<ClientApiPropertyAcl> propertyAcls = elementAcl.getPropertyAcls();
-        if (clientApiElement instanceof ClientApiVertex) {
-            String iri = VisalloProperties.CONCEPT_TYPE.getPropertyValue(clientApiElement);
-            while (iri != null) {
-                Concept concept = ontologyRepository.getConceptByIRI(iri);
-                if (concept == null) {
-                    LOGGER.warn("Could not find concept: %s", iri);
-                    break;
-                }
-                populatePropertyAcls(concept, clientApiElement, ontologyElement, privileges, user, propertyAcls);
-                iri = concept.getParentConceptIRI();
-            }
-        } else if (clientApiElement instanceof ClientApiEdge) {
-            String iri = ((ClientApiEdge) clientApiElement).getLabel();
-            while (iri != null) {
-                Relationship relationship = ontologyRepository.getRelationshipByIRI(iri);
-                if (relationship == null) {
-                    LOGGER.warn("Could not find relationship: %s", iri);
-                    break;
-                }
-                populatePropertyAcls(relationship, clientApiElement, ontologyElement, privileges, user, propertyAcls);
-                iri = relationship.getParentIRI();
-            }
-        } else {
-            throw new VisalloException("unsupported ClientApiElement class " + clientApiElement.getClass().getName());
+        for (List<String> propertyNames : getPropertyAclTemplate(clientApiElement, ontologyElement, ctx)) {
+            populatePropertyAcls(propertyNames, clientApiElement, ontologyElement, ctx, propertyAcls);
         }
         return elementAcl;
     }
@@ -260,28 +246,47 @@ public abstract class ACLProvider {
         if (user == null) {
             return clientApiObject;
         }
-        Set<String> privileges = privilegeRepository.getPrivileges(user);
-        return appendACL(clientApiObject, privileges, user);
+        AclContext ctx = new AclContext(privilegeRepository.getPrivileges(user), user);
+        return appendACL(clientApiObject, ctx);
+    }
+
+    /**
+     * Appends the ACLs to all of the objects of a response. The privileges of the user are looked up once and the
+     * default property ACLs are computed once per ontology element and property instead of once per element.
+     */
+    public final void appendACL(Iterable<? extends ClientApiObject> clientApiObjects, User user) {
+        if (user == null) {
+            return;
+        }
+        AclContext ctx = new AclContext(privilegeRepository.getPrivileges(user), user);
+        appendACL(clientApiObjects, ctx);
+    }
+
+    /**
+     * Forgets the cached property ACL templates, must be called after the ontology changes.
+     */
+    public void clearCache() {
+        propertyAclTemplateCache.invalidateAll();
     }
 
-    private ClientApiObject appendACL(ClientApiObject clientApiObject, Set<String> privileges, User user) {
+    private ClientApiObject appendACL(ClientApiObject clientApiObject, AclContext ctx) {
         if (clientApiObject instanceof ClientApiElement) {
-            appendACL((ClientApiElement) clientApiObject, privileges, user);
+            appendACL((ClientApiElement) clientApiObject, ctx);
         } else if (clientApiObject instanceof ClientApiWorkspaceVertices) {
-            appendACL(((ClientApiWorkspaceVertices) clientApiObject).getVertices(), user);
+            appendACL(((ClientApiWorkspaceVertices) clientApiObject).getVertices(), ctx);
         } else if (clientApiObject instanceof ClientApiVertexMultipleResponse) {
-            appendACL(((ClientApiVertexMultipleResponse) clientApiObject).getVertices(), user);
+            appendACL(((ClientApiVertexMultipleResponse) clientApiObject).getVertices(), ctx);
         } else if (clientApiObject instanceof ClientApiEdgeMultipleResponse) {
-            appendACL(((ClientApiEdgeMultipleResponse) clientApiObject).getEdges(), user);
+            appendACL(((ClientApiEdgeMultipleResponse) clientApiObject).getEdges(), ctx);
         } else if (clientApiObject instanceof ClientApiElementSearchResponse) {
-            appendACL(((ClientApiElementSearchResponse) clientApiObject).getElements(), user);
+            appendACL(((ClientApiElementSearchResponse) clientApiObject).getElements(), ctx);
         } else if (clientApiObject instanceof ClientApiEdgeSearchResponse) {
-            appendACL(((ClientApiEdgeSearchResponse) clientApiObject).getResults(), user);
+            appendACL(((ClientApiEdgeSearchResponse) clientApiObject).getResults(), ctx);
         } else if (clientApiObject instanceof ClientApiVertexEdges) {
             ClientApiVertexEdges vertexEdges = (ClientApiVertexEdges) clientApiObject;
-            appendACL(vertexEdges, privileges, user);
+            appendACL(vertexEdges, ctx);
         } else if (clientApiObject instanceof ClientApiElementFindRelatedResponse) {
-            appendACL(((ClientApiElementFindRelatedResponse) clientApiObject).getElements(), user);
+            appendACL(((ClientApiElementFindRelatedResponse) clientApiObject).getElements(), ctx);
         }
 
         return clientApiObject;
@@ -317,24 +322,33 @@ public abstract class ACLProvider {
         }
     }
 
-    private void appendACL(Collection<? extends ClientApiObject> clientApiObject, User user) {
-        Set<String> privileges = privilegeRepository.getPrivileges(user);
-        for (ClientApiObject apiObject : clientApiObject) {
-            appendACL(apiObject, privileges, user);
+    /**
+     * Returns true if the ACL of the property can differ between elements of the same concept or relationship, or
+     * between users with the same privileges. Only these properties are checked for each element, all other
+     * properties are assumed to have the default ACL and are left out of the element ACL.
+     */
+    protected boolean isPropertyAclElementSpecific(OntologyElement ontologyElement, String propertyName) {
+        return true;
+    }
+
+    private void appendACL(Iterable<? extends ClientApiObject> clientApiObjects, AclContext ctx) {
+        for (ClientApiObject apiObject : clientApiObjects) {
+            appendACL(apiObject, ctx);
         }
     }
 
-    private void appendACL(ClientApiElement clientApiElement, Set<String> privileges, User user) {
+    private void appendACL(ClientApiElement clientApiElement, AclContext ctx) {
         OntologyElement ontologyElement = getOntologyElement(clientApiElement);
-        appendACL(clientApiElement, ontologyElement, privileges, user);
+        appendACL(clientApiElement, ontologyElement, ctx);
     }
 
     private void appendACL(
             ClientApiElement clientApiElement,
             OntologyElement ontologyElement,
-            Set<String> privileges,
-            User user
+            AclContext ctx
     ) {
+        Set<String> privileges = ctx.privileges;
+        User user = ctx.user;
         for (ClientApiProperty apiProperty : clientApiElement.getProperties()) {
             String key = apiProperty.getKey();
             String name = apiProperty.getName();
@@ -345,84 +359,115 @@ public abstract class ACLProvider {
         clientApiElement.setUpdateable(internalCanUpdateElement(clientApiElement, ontologyElement, privileges, user));
         clientApiElement.setDeleteable(internalCanDeleteElement(clientApiElement, ontologyElement, privileges, user));
 
-        clientApiElement.setAcl(elementACL(clientApiElement, ontologyElement, privileges, user));
+        clientApiElement.setAcl(elementACL(clientApiElement, ontologyElement, ctx));
 
         if (clientApiElement instanceof ClientApiEdgeWithVertexData) {
-            appendACL(((ClientApiEdgeWithVertexData) clientApiElement).getSource(), privileges, user);
-            appendACL(((ClientApiEdgeWithVertexData) clientApiElement).getTarget(), privileges, user);
+            appendACL(((ClientApiEdgeWithVertexData) clientApiElement).getSource(), ctx);
+            appendACL(((ClientApiEdgeWithVertexData) clientApiElement).getTarget(), ctx);
         }
     }
 
-    private void appendACL(ClientApiVertexEdges edges, Set<String> privileges, User user) {
+    private void appendACL(ClientApiVertexEdges edges, AclContext ctx) {
         for (ClientApiVertexEdges.Edge vertexEdge : edges.getRelationships()) {
-            appendACL(vertexEdge.getRelationship(), privileges, user);
-            appendACL(vertexEdge.getVertex(), privileges, user);
+            appendACL(vertexEdge.getRelationship(), ctx);
+            appendACL(vertexEdge.getVertex(), ctx);
         }
     }
 
+    /**
+     * Gets the names of the properties whose ACL can differ from the default ACL, for each level of the concept or
+     * relationship hierarchy of the element. The template only depends on the ontology and the privileges of the
+     * user so it is cached across elements and requests.
+     */
+    private List<List<String>> getPropertyAclTemplate(ClientApiElement clientApiElement, OntologyElement ontologyElement, AclContext ctx) {
+        String iri;
+        if (clientApiElement instanceof ClientApiVertex) {
+            iri = VisalloProperties.CONCEPT_TYPE.getPropertyValue(clientApiElement);
+        } else if (clientApiElement instanceof ClientApiEdge) {
+            iri = ((ClientApiEdge) clientApiElement).getLabel();
+        } else {
+            throw new VisalloException("unsupported ClientApiElement class " + clientApiElement.getClass().getName());
+        }
+        if (iri == null) {
+            return Collections.emptyList();
+        }
+
+        String cacheKey = (clientApiElement instanceof ClientApiVertex ? "concept" : "relationship") + "|" + iri + "|" + ctx.getPrivilegesKey();
+        List<List<String>> template = propertyAclTemplateCache.getIfPresent(cacheKey);
+        if (template == null) {
+            template = createPropertyAclTemplate(clientApiElement instanceof ClientApiVertex, iri, ontologyElement, ctx.privileges);
+            propertyAclTemplateCache.put(cacheKey, template);
+        }
+        return template;
+    }
+
+    private List<List<String>> createPropertyAclTemplate(boolean isConcept, String iri, OntologyElement ontologyElement, Set<String> privileges) {
+        List<List<String>> template = new ArrayList<>();
+        while (iri != null) {
+            HasOntologyProperties hasOntologyProperties;
+            if (isConcept) {
+                Concept concept = ontologyRepository.getConceptByIRI(iri);
+                if (concept == null) {
+                    LOGGER.warn("Could not find concept: %s", iri);
+                    break;
+                }
+                hasOntologyProperties = concept;
+                iri = concept.getParentConceptIRI();
+            } else {
+                Relationship relationship = ontologyRepository.getRelationshipByIRI(iri);
+                if (relationship == null) {
+                    LOGGER.warn("Could not find relationship: %s", iri);
+                    break;
+                }
+                hasOntologyProperties = relationship;
+                iri = relationship.getParentIRI();
+            }
+
+            List<String> propertyNames = new ArrayList<>();
+            for (OntologyProperty ontologyProperty : hasOntologyProperties.getProperties()) {
+                String propertyName = ontologyProperty.getTitle();
+                // without edit or comment privileges every ACL is false, the same as the default ACL
+                if (!hasEditOrCommentPrivilege(privileges, propertyName)) {
+                    continue;
+                }
+                if (isComment(propertyName) || isPropertyAclElementSpecific(ontologyElement, propertyName)) {
+                    propertyNames.add(propertyName);
+                }
+            }
+            template.add(Collections.unmodifiableList(propertyNames));
+        }
+        return Collections.unmodifiableList(template);
+    }
+
     private void populatePropertyAcls(
-            HasOntologyProperties hasOntologyProperties,
+            List<String> propertyNames,
             ClientApiElement clientApiElement,
             OntologyElement ontologyElement,
-            Set<String> privileges,
-            User user,
+            AclContext ctx,
             List<ClientApiPropertyAcl> propertyAcls
     ) {
-        Collection<OntologyProperty> ontologyProperties = hasOntologyProperties.getProperties();
-        Set<String> addedPropertyNames = new HashSet<>();
-        for (OntologyProperty ontologyProperty : ontologyProperties) {
-            String propertyName = ontologyProperty.getTitle();
+        List<String> missingPropertyNames = new ArrayList<>();
+        for (String propertyName : propertyNames) {
+            boolean found = false;
             for (ClientApiProperty property : clientApiElement.getProperties(propertyName)) {
-                ClientApiPropertyAcl acl = newClientApiPropertyAcl(
-                        clientApiElement,
-                        ontologyElement,
-                        property.getKey(),
-                        propertyName,
-                        privileges,
-                        user
-                );
-                ClientApiPropertyAcl defaultAcl = newClientApiPropertyAcl(
-                        null,
-                        ontologyElement,
-                        property.getKey(),
-                        propertyName,
-                        privileges,
-                        user
-                );
-                if (!acl.equals(defaultAcl)) {
+                ClientApiPropertyAcl acl = newClientApiPropertyAcl(clientApiElement, ontologyElement, property.getKey(), propertyName, ctx.privileges, ctx.user);
+                if (!acl.equals(ctx.getDefaultPropertyAcl(ontologyElement, property.getKey(), propertyName))) {
                     propertyAcls.add(acl);
                 }
-                addedPropertyNames.add(propertyName);
+                found = true;
+            }
+            if (!found) {
+                missingPropertyNames.add(propertyName);
             }
         }
 
         // for properties that don't exist on the clientApiElement, use the ontology property definition and omit the key.
-        propertyAcls.addAll(
-                ontologyProperties.stream()
-                        .filter(ontologyProperty -> !addedPropertyNames.contains(ontologyProperty.getTitle()))
-                        .map(ontologyProperty -> {
-                            String propertyName = ontologyProperty.getTitle();
-                            ClientApiPropertyAcl acl = newClientApiPropertyAcl(
-                                    clientApiElement,
-                                    ontologyElement,
-                                    null,
-                                    propertyName,
-                                    privileges,
-                                    user
-                            );
-                            ClientApiPropertyAcl defaultAcl = newClientApiPropertyAcl(
-                                    null,
-                                    ontologyElement,
-                                    null,
-                                    propertyName,
-                                    privileges,
-                                    user
-                            );
-                            return acl.equals(defaultAcl) ? null : acl;
-                        })
-                        .filter(acl -> acl != null)
-                        .collect(Collectors.toList())
-        );
+        for (String propertyName : missingPropertyNames) {
+            ClientApiPropertyAcl acl = newClientApiPropertyAcl(clientApiElement, ontologyElement, null, propertyName, ctx.privileges, ctx.user);
+            if (!acl.equals(ctx.getDefaultPropertyAcl(ontologyElement, null, propertyName))) {
+                propertyAcls.add(acl);
+            }
+        }
     }
 
     private ClientApiPropertyAcl newClientApiPropertyAcl(
@@ -442,6 +487,38 @@ public abstract class ACLProvider {
         return propertyAcl;
     }
 
+    /**
+     * The user, privileges and default property ACLs shared by all elements of one response.
+     */
+    private class AclContext {
+        private final Set<String> privileges;
+        private final User user;
+        private final Map<List<Object>, ClientApiPropertyAcl> defaultPropertyAcls = new HashMap<>();
+        private String privilegesKey;
+
+        public AclContext(Set<String> privileges, User user) {
+            this.privileges = privileges;
+            this.user = user;
+        }
+
+        public String getPrivilegesKey() {
+            if (privilegesKey == null) {
+                privilegesKey = privileges == null ? "" : String.join(",", new TreeSet<>(privileges));
+            }
+            return privilegesKey;
+        }
+
+        public ClientApiPropertyAcl getDefaultPropertyAcl(OntologyElement ontologyElement, String key, String name) {
+            List<Object> cacheKey = Arrays.asList(ontologyElement, key, name);
+            ClientApiPropertyAcl defaultAcl = defaultPropertyAcls.get(cacheKey);
+            if (defaultAcl == null) {
+                defaultAcl = newClientApiPropertyAcl(null, ontologyElement, key, name, privileges, user);
+                defaultPropertyAcls.put(cacheKey, defaultAcl);
+            }
+            return defaultAcl;
+        }
+    }
+
     private boolean internalCanDeleteElement(ClientApiElement clientApiElement, OntologyElement ontologyElement, Set<String> privileges, User user) {
         return hasPrivilege(privileges, Privilege.EDIT) && canDeleteElement(clientApiElement, ontologyElement, user);
     }
@@ -70,4 +70,9 @@ public class AllowAllAclProvider extends ACLProvider {
     public boolean canAddProperty(ClientApiElement clientApiElement, OntologyElement ontologyElement, String propertyKey, String propertyName, User user) {
         return true;
     }
+
+    @Override
+    protected boolean isPropertyAclElementSpecific(OntologyElement ontologyElement, String propertyName) {
+        return false;
+    }
 }
@@ -39,6 +39,12 @@ public class JmxMetricsManager implements MetricsManager {
         return REGISTRY.meter(name);
     }
 
+    @Override
+    public <T> Gauge<T> gauge(String name, Gauge<T> gauge) {
+        REGISTRY.remove(name);
+        return REGISTRY.register(name, gauge);
+    }
+
     @Override
     public void removeMetric(String metricName) {
         REGISTRY.remove(metricName);
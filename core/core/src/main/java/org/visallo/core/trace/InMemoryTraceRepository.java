@@ -0,0 +1,348 @@
+package org.visallo.core.trace;
+
+import com.google.inject.Inject;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.visallo.core.config.Configuration;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the nested spans of traces in memory. A trace is started on a thread by {@link #on(String, Map)}, spans
+ * started on that thread are added to it until {@link #off()}, which keeps the trace in a ring buffer of the most
+ * recent maxTraces traces.
+ * <p>
+ * Only samplePercent percent of the calls to {@link #on(String, Map)} start a trace. Spans started on a thread without
+ * a trace cost one thread local lookup. Traces with more than maxSpansPerTrace spans drop the extra spans.
+ * <p>
+ * Traces can be exported as JSON and as collapsed stacks, the text format read by flame graph tools.
+ */
+public class InMemoryTraceRepository extends TraceRepository {
+    public static final String CONFIG_MAX_TRACES = InMemoryTraceRepository.class.getName() + ".maxTraces";
+    public static final int DEFAULT_MAX_TRACES = 1000;
+    public static final String CONFIG_MAX_SPANS_PER_TRACE = InMemoryTraceRepository.class.getName() + ".maxSpansPerTrace";
+    public static final int DEFAULT_MAX_SPANS_PER_TRACE = 10000;
+    public static final String CONFIG_SAMPLE_PERCENT = InMemoryTraceRepository.class.getName() + ".samplePercent";
+    public static final int DEFAULT_SAMPLE_PERCENT = 100;
+    private final int maxSpansPerTrace;
+    private final int samplePercent;
+    private final ThreadLocal<ActiveTrace> activeTraces = new ThreadLocal<>();
+    private final AtomicReferenceArray<RecordedTrace> traces;
+    private final AtomicLong nextTraceIndex = new AtomicLong();
+
+    @Inject
+    public InMemoryTraceRepository(Configuration configuration) {
+        this.traces = new AtomicReferenceArray<>(Math.max(1, configuration.getInt(CONFIG_MAX_TRACES, DEFAULT_MAX_TRACES)));
+        this.maxSpansPerTrace = Math.max(1, configuration.getInt(CONFIG_MAX_SPANS_PER_TRACE, DEFAULT_MAX_SPANS_PER_TRACE));
+        this.samplePercent = configuration.getInt(CONFIG_SAMPLE_PERCENT, DEFAULT_SAMPLE_PERCENT);
+    }
+
+    @Override
+    public TraceSpan on(String description, Map<String, String> data) {
+        // a trace which was never turned off, for example by a worker thread that failed, ends where the next starts
+        off();
+        if (samplePercent < 100 && ThreadLocalRandom.current().nextInt(100) >= samplePercent) {
+            return NullTraceSpan.INSTANCE;
+        }
+        ActiveTrace trace = new ActiveTrace(UUID.randomUUID().toString(), maxSpansPerTrace);
+        activeTraces.set(trace);
+        TraceSpan span = trace.startSpan(description);
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                span.data(entry.getKey(), entry.getValue());
+            }
+        }
+        return span;
+    }
+
+    @Override
+    public void off() {
+        ActiveTrace trace = activeTraces.get();
+        if (trace == null) {
+            return;
+        }
+        activeTraces.remove();
+        long index = nextTraceIndex.getAndIncrement();
+        traces.set((int) (index % traces.length()), trace.finish());
+    }
+
+    @Override
+    public TraceSpan start(String description) {
+        ActiveTrace trace = activeTraces.get();
+        if (trace == null) {
+            return NullTraceSpan.INSTANCE;
+        }
+        return trace.startSpan(description);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return activeTraces.get() != null;
+    }
+
+    /**
+     * @return the recorded traces, most recent first
+     */
+    public List<RecordedTrace> getTraces() {
+        List<RecordedTrace> results = new ArrayList<>();
+        long lastIndex = nextTraceIndex.get() - 1;
+        for (long index = lastIndex; index >= 0 && index > lastIndex - traces.length(); index--) {
+            RecordedTrace trace = traces.get((int) (index % traces.length()));
+            if (trace != null) {
+                results.add(trace);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the trace, or null if it was never recorded or was replaced by more recent traces
+     */
+    public RecordedTrace getTrace(String traceId) {
+        for (RecordedTrace trace : getTraces()) {
+            if (trace.getTraceId().equals(traceId)) {
+                return trace;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds up the self time of the same stacks in all of the traces.
+     *
+     * @return one line per stack of span descriptions, separated by semicolons, followed by its self time in
+     * microseconds
+     */
+    public static String toCollapsedStacks(Iterable<RecordedTrace> traces) {
+        Map<String, Long> selfTimes = new TreeMap<>();
+        for (RecordedTrace trace : traces) {
+            trace.addCollapsedStacks(selfTimes);
+        }
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, Long> selfTime : selfTimes.entrySet()) {
+            result.append(selfTime.getKey()).append(' ').append(selfTime.getValue()).append('\n');
+        }
+        return result.toString();
+    }
+
+    private static class ActiveTrace {
+        private final String traceId;
+        private final int maxSpans;
+        private final long startTime = System.currentTimeMillis();
+        private final long startNanos = System.nanoTime();
+        private final List<RecordedSpan> spans = new ArrayList<>();
+        private RecordedSpan currentSpan;
+        private int droppedSpanCount;
+        private boolean finished;
+
+        ActiveTrace(String traceId, int maxSpans) {
+            this.traceId = traceId;
+            this.maxSpans = maxSpans;
+        }
+
+        synchronized TraceSpan startSpan(String description) {
+            if (finished || spans.size() >= maxSpans) {
+                droppedSpanCount++;
+                return NullTraceSpan.INSTANCE;
+            }
+            RecordedSpan span = new RecordedSpan(this, spans.size(), currentSpan == null ? -1 : currentSpan.id, description);
+            spans.add(span);
+            currentSpan = span;
+            return span;
+        }
+
+        synchronized void spanClosed() {
+            // spans closed out of order leave their children as the parent of the next span until they are closed
+            while (currentSpan != null && currentSpan.isClosed()) {
+                currentSpan = currentSpan.parentId < 0 ? null : spans.get(currentSpan.parentId);
+            }
+        }
+
+        synchronized RecordedTrace finish() {
+            finished = true;
+            long endNanos = System.nanoTime();
+            for (RecordedSpan span : spans) {
+                span.end(endNanos);
+            }
+            return new RecordedTrace(traceId, startTime, startNanos, endNanos, new ArrayList<>(spans), droppedSpanCount);
+        }
+    }
+
+    public static class RecordedSpan extends TraceSpan {
+        private final ActiveTrace trace;
+        private final int id;
+        private final int parentId;
+        private final String description;
+        private final long startNanos = System.nanoTime();
+        private final Map<String, String> data = new LinkedHashMap<>();
+        private volatile long endNanos = -1;
+
+        private RecordedSpan(ActiveTrace trace, int id, int parentId, String description) {
+            this.trace = trace;
+            this.id = id;
+            this.parentId = parentId;
+            this.description = description;
+        }
+
+        @Override
+        public TraceSpan data(String key, String value) {
+            synchronized (data) {
+                data.put(key, value);
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (end(System.nanoTime())) {
+                trace.spanClosed();
+            }
+        }
+
+        private synchronized boolean end(long endNanos) {
+            if (this.endNanos >= 0) {
+                return false;
+            }
+            this.endNanos = endNanos;
+            return true;
+        }
+
+        boolean isClosed() {
+            return endNanos >= 0;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return the id of the parent span, or -1 for the root span
+         */
+        public int getParentId() {
+            return parentId;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public long getDurationNanos() {
+            return endNanos - startNanos;
+        }
+
+        public Map<String, String> getData() {
+            synchronized (data) {
+                return new LinkedHashMap<>(data);
+            }
+        }
+    }
+
+    public static class RecordedTrace {
+        private final String traceId;
+        private final long startTime;
+        private final long startNanos;
+        private final long endNanos;
+        private final List<RecordedSpan> spans;
+        private final int droppedSpanCount;
+
+        private RecordedTrace(String traceId, long startTime, long startNanos, long endNanos, List<RecordedSpan> spans, int droppedSpanCount) {
+            this.traceId = traceId;
+            this.startTime = startTime;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.spans = Collections.unmodifiableList(spans);
+            this.droppedSpanCount = droppedSpanCount;
+        }
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        /**
+         * @return the description of the root span
+         */
+        public String getDescription() {
+            return spans.size() == 0 ? null : spans.get(0).getDescription();
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getDurationNanos() {
+            return endNanos - startNanos;
+        }
+
+        /**
+         * @return the spans in the order they were started, the id of a span is its index
+         */
+        public List<RecordedSpan> getSpans() {
+            return spans;
+        }
+
+        public int getDroppedSpanCount() {
+            return droppedSpanCount;
+        }
+
+        /**
+         * @return the trace without its spans
+         */
+        public JSONObject toSummaryJson() {
+            JSONObject json = new JSONObject();
+            json.put("traceId", traceId);
+            json.put("description", getDescription());
+            json.put("startTime", startTime);
+            json.put("durationMs", toMillis(getDurationNanos()));
+            json.put("spanCount", spans.size());
+            json.put("droppedSpanCount", droppedSpanCount);
+            return json;
+        }
+
+        public JSONObject toJson() {
+            JSONObject json = toSummaryJson();
+            JSONArray spansJson = new JSONArray();
+            for (RecordedSpan span : spans) {
+                JSONObject spanJson = new JSONObject();
+                spanJson.put("id", span.getId());
+                if (span.getParentId() >= 0) {
+                    spanJson.put("parentId", span.getParentId());
+                }
+                spanJson.put("description", span.getDescription());
+                spanJson.put("startMs", toMillis(span.startNanos - startNanos));
+                spanJson.put("durationMs", toMillis(span.getDurationNanos()));
+                spanJson.put("data", new JSONObject(span.getData()));
+                spansJson.put(spanJson);
+            }
+            json.put("spans", spansJson);
+            return json;
+        }
+
+        public String toCollapsedStacks() {
+            return InMemoryTraceRepository.toCollapsedStacks(Collections.singletonList(this));
+        }
+
+        private void addCollapsedStacks(Map<String, Long> selfTimes) {
+            String[] stacks = new String[spans.size()];
+            long[] selfTimeNanos = new long[spans.size()];
+            for (RecordedSpan span : spans) {
+                String frame = span.getDescription() == null ? "" : span.getDescription().replaceAll("[;\\s]+", " ").trim();
+                stacks[span.getId()] = span.getParentId() < 0 ? frame : stacks[span.getParentId()] + ";" + frame;
+                selfTimeNanos[span.getId()] += span.getDurationNanos();
+                if (span.getParentId() >= 0) {
+                    selfTimeNanos[span.getParentId()] -= span.getDurationNanos();
+                }
+            }
+            for (int i = 0; i < stacks.length; i++) {
+                long selfTimeMicros = Math.max(0, selfTimeNanos[i]) / 1000;
+                selfTimes.merge(stacks[i], selfTimeMicros, Long::sum);
+            }
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1000000.0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.visallo.core.util;
+
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.web.clientapi.model.SandboxStatus;
+import org.visallo.web.clientapi.model.VisibilityJson;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values looked up while converting the elements of one response to client api objects. The properties of a
+ * response usually carry the same few visibility json strings, so their sandbox statuses in the workspace and their
+ * parsed metadata values are worked out once and shared by every property.
+ * <p>
+ * The context also carries the {@link ClientApiProjection} of the response. A context can be used by several threads
+ * at once but only belongs to one workspace.
+ */
+public class ClientApiConversionContext {
+    private static final int MAX_CACHED_VALUES = 10000;
+    private final String workspaceId;
+    private final ClientApiProjection projection;
+    private final Map<String, SandboxStatus> sandboxStatusesByVisibilityJson = new ConcurrentHashMap<>();
+    private final Map<String, Object> clientApiValuesByJson = new ConcurrentHashMap<>();
+
+    public ClientApiConversionContext(String workspaceId) {
+        this(workspaceId, ClientApiProjection.ALL);
+    }
+
+    public ClientApiConversionContext(String workspaceId, ClientApiProjection projection) {
+        this.workspaceId = workspaceId;
+        this.projection = projection == null ? ClientApiProjection.ALL : projection;
+    }
+
+    public String getWorkspaceId() {
+        return workspaceId;
+    }
+
+    public ClientApiProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * @param visibilityJsonValue the value of a {@link VisalloProperties#VISIBILITY_JSON_METADATA} metadata entry
+     */
+    public SandboxStatus getSandboxStatus(Object visibilityJsonValue) {
+        if (!(visibilityJsonValue instanceof String)) {
+            VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON_METADATA.unwrap(visibilityJsonValue);
+            return SandboxStatus.getFromVisibilityJsonString(visibilityJson, workspaceId);
+        }
+        String visibilityJsonString = (String) visibilityJsonValue;
+        SandboxStatus sandboxStatus = sandboxStatusesByVisibilityJson.get(visibilityJsonString);
+        if (sandboxStatus == null) {
+            VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON_METADATA.unwrap(visibilityJsonString);
+            sandboxStatus = SandboxStatus.getFromVisibilityJsonString(visibilityJson, workspaceId);
+            if (sandboxStatusesByVisibilityJson.size() < MAX_CACHED_VALUES) {
+                sandboxStatusesByVisibilityJson.put(visibilityJsonString, sandboxStatus);
+            }
+        }
+        return sandboxStatus;
+    }
+
+    /**
+     * Same as {@link ClientApiConverter#toClientApiValue(Object)} but JSON object strings are only parsed once, the
+     * parsed value is shared by every property it is found on.
+     */
+    public Object toClientApiValue(Object value) {
+        if (!(value instanceof String) || ((String) value).isEmpty() || ((String) value).charAt(0) != '{') {
+            return ClientApiConverter.toClientApiValue(value);
+        }
+        String json = (String) value;
+        Object clientApiValue = clientApiValuesByJson.get(json);
+        if (clientApiValue == null) {
+            clientApiValue = ClientApiConverter.toClientApiValue(json);
+            if (clientApiValue != null && clientApiValuesByJson.size() < MAX_CACHED_VALUES) {
+                clientApiValuesByJson.put(json, clientApiValue);
+            }
+        }
+        return clientApiValue;
+    }
+}
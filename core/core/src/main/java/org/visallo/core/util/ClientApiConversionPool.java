@@ -0,0 +1,188 @@
+package org.visallo.core.util;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.vertexium.Authorizations;
+import org.vertexium.Vertex;
+import org.vertexium.VertexiumObject;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+import org.visallo.web.clientapi.model.ClientApiVertexiumObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Converts the elements of large responses to client api objects on a pool of threads shared by all requests.
+ * <p>
+ * Lists with fewer elements than the parallel threshold are converted on the calling thread. Larger lists are split
+ * into batches which the calling thread and the free pool threads take in turn, so a busy pool never holds up a
+ * request, it only converts it on fewer threads. Results are returned in the order of the elements. All conversions
+ * of a call share one {@link ClientApiConversionContext}.
+ */
+@Singleton
+public class ClientApiConversionPool {
+    public static final String CONFIG_THREAD_COUNT = ClientApiConversionPool.class.getName() + ".threadCount";
+    public static final int DEFAULT_THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    public static final String CONFIG_PARALLEL_THRESHOLD = ClientApiConversionPool.class.getName() + ".parallelThreshold";
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 100;
+    public static final String CONFIG_BATCH_SIZE = ClientApiConversionPool.class.getName() + ".batchSize";
+    public static final int DEFAULT_BATCH_SIZE = 25;
+    private final int threadCount;
+    private final int parallelThreshold;
+    private final int batchSize;
+    private final ThreadPoolExecutor executor;
+
+    @Inject
+    public ClientApiConversionPool(Configuration configuration) {
+        this.threadCount = configuration.getInt(CONFIG_THREAD_COUNT, DEFAULT_THREAD_COUNT);
+        this.parallelThreshold = configuration.getInt(CONFIG_PARALLEL_THRESHOLD, DEFAULT_PARALLEL_THRESHOLD);
+        this.batchSize = Math.max(1, configuration.getInt(CONFIG_BATCH_SIZE, DEFAULT_BATCH_SIZE));
+        if (threadCount > 0) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(
+                    threadCount,
+                    threadCount,
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(threadCount * 4),
+                    r -> {
+                        Thread thread = new Thread(r, "client-api-conversion-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    // the calling thread converts whatever the pool can't take
+                    new ThreadPoolExecutor.DiscardPolicy()
+            );
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public interface Converter<T, R> {
+        R convert(T item, ClientApiConversionContext context);
+    }
+
+    public List<ClientApiVertexiumObject> toClientApi(
+            Iterable<? extends VertexiumObject> vertexiumObjects,
+            String workspaceId,
+            boolean includeEdgeInfos,
+            Authorizations authorizations
+    ) {
+        return convert(
+                vertexiumObjects,
+                workspaceId,
+                (vertexiumObject, context) -> ClientApiConverter.toClientApi(vertexiumObject, includeEdgeInfos, authorizations, context)
+        );
+    }
+
+    public List<ClientApiVertex> toClientApiVertices(
+            Iterable<? extends Vertex> vertices,
+            String workspaceId,
+            Authorizations authorizations
+    ) {
+        return toClientApiVertices(vertices, authorizations, new ClientApiConversionContext(workspaceId));
+    }
+
+    public List<ClientApiVertex> toClientApiVertices(
+            Iterable<? extends Vertex> vertices,
+            Authorizations authorizations,
+            ClientApiConversionContext conversionContext
+    ) {
+        return convert(
+                vertices,
+                conversionContext,
+                (vertex, context) -> ClientApiConverter.toClientApiVertex(vertex, null, false, authorizations, context)
+        );
+    }
+
+    /**
+     * Reads the items on the calling thread and converts them, in parallel if there are enough of them.
+     *
+     * @return the converted items, in the order of the items
+     */
+    public <T, R> List<R> convert(Iterable<? extends T> items, String workspaceId, Converter<T, R> converter) {
+        return convert(items, new ClientApiConversionContext(workspaceId), converter);
+    }
+
+    /**
+     * @param context the context shared by the conversions of all of the items
+     */
+    public <T, R> List<R> convert(Iterable<? extends T> items, ClientApiConversionContext context, Converter<T, R> converter) {
+        List<T> itemsList = new ArrayList<>();
+        for (T item : items) {
+            itemsList.add(item);
+        }
+        if (executor == null || itemsList.size() < parallelThreshold || itemsList.size() <= batchSize) {
+            List<R> results = new ArrayList<>(itemsList.size());
+            for (T item : itemsList) {
+                results.add(converter.convert(item, context));
+            }
+            return results;
+        }
+        return convertInParallel(itemsList, context, converter);
+    }
+
+    private <T, R> List<R> convertInParallel(List<T> items, ClientApiConversionContext context, Converter<T, R> converter) {
+        int batchCount = (items.size() + batchSize - 1) / batchSize;
+        Object[] results = new Object[items.size()];
+        AtomicInteger nextBatch = new AtomicInteger();
+        CountDownLatch remainingBatches = new CountDownLatch(batchCount);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Runnable worker = () -> {
+            int batch;
+            while ((batch = nextBatch.getAndIncrement()) < batchCount) {
+                try {
+                    if (error.get() == null) {
+                        int end = Math.min(items.size(), (batch + 1) * batchSize);
+                        for (int i = batch * batchSize; i < end; i++) {
+                            results[i] = converter.convert(items.get(i), context);
+                        }
+                    }
+                } catch (Throwable ex) {
+                    error.compareAndSet(null, ex);
+                } finally {
+                    remainingBatches.countDown();
+                }
+            }
+        };
+
+        for (int i = 0; i < Math.min(threadCount, batchCount - 1); i++) {
+            executor.execute(worker);
+        }
+        worker.run();
+        try {
+            remainingBatches.await();
+        } catch (InterruptedException ex) {
+            error.compareAndSet(null, ex);
+            Thread.currentThread().interrupt();
+            throw new VisalloException("Interrupted while converting to client api objects", ex);
+        }
+
+        Throwable ex = error.get();
+        if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        } else if (ex instanceof Error) {
+            throw (Error) ex;
+        } else if (ex != null) {
+            throw new VisalloException("Could not convert to client api objects", ex);
+        }
+
+        List<R> resultsList = new ArrayList<>(results.length);
+        for (Object result : results) {
+            //noinspection unchecked
+            resultsList.add((R) result);
+        }
+        return resultsList;
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -49,9 +49,10 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             boolean includeEdgeInfos,
             Authorizations authorizations
     ) {
+        ClientApiConversionContext context = new ClientApiConversionContext(workspaceId);
         List<ClientApiVertexiumObject> results = new ArrayList<>();
         for (VertexiumObject vertexiumObject : vertexiumObjects) {
-            results.add(toClientApi(vertexiumObject, workspaceId, includeEdgeInfos, authorizations));
+            results.add(toClientApi(vertexiumObject, includeEdgeInfos, authorizations, context));
         }
         return results;
     }
@@ -61,9 +62,10 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             String workspaceId,
             Authorizations authorizations
     ) {
+        ClientApiConversionContext context = new ClientApiConversionContext(workspaceId);
         List<ClientApiVertex> clientApiElements = new ArrayList<>();
         for (Vertex v : vertices) {
-            clientApiElements.add(toClientApiVertex(v, workspaceId, authorizations));
+            clientApiElements.add(toClientApiVertex(v, null, false, authorizations, context));
         }
         return clientApiElements;
     }
@@ -81,16 +83,28 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             String workspaceId,
             boolean includeEdgeInfos,
             Authorizations authorizations
+    ) {
+        return toClientApi(vertexiumObject, includeEdgeInfos, authorizations, new ClientApiConversionContext(workspaceId));
+    }
+
+    /**
+     * @param context the lookups shared by the other objects of the same response.
+     */
+    public static ClientApiVertexiumObject toClientApi(
+            VertexiumObject vertexiumObject,
+            boolean includeEdgeInfos,
+            Authorizations authorizations,
+            ClientApiConversionContext context
     ) {
         checkNotNull(vertexiumObject, "vertexiumObject cannot be null");
         if (vertexiumObject instanceof Vertex) {
-            return toClientApiVertex((Vertex) vertexiumObject, workspaceId, null, includeEdgeInfos, authorizations);
+            return toClientApiVertex((Vertex) vertexiumObject, null, includeEdgeInfos, authorizations, context);
         }
         if (vertexiumObject instanceof Edge) {
-            return toClientApiEdge((Edge) vertexiumObject, workspaceId);
+            return toClientApiEdge((Edge) vertexiumObject, context);
         }
         if (vertexiumObject instanceof ExtendedDataRow) {
-            return toClientApiExtendedDataRow((ExtendedDataRow) vertexiumObject, workspaceId);
+            return toClientApiExtendedDataRow((ExtendedDataRow) vertexiumObject, context);
         }
         throw new RuntimeException("Unexpected vertexiumObject type: " + vertexiumObject.getClass().getName());
     }
@@ -121,11 +135,25 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             Integer commonCount,
             boolean includeEdgeInfos,
             Authorizations authorizations
+    ) {
+        return toClientApiVertex(vertex, commonCount, includeEdgeInfos, authorizations, new ClientApiConversionContext(workspaceId));
+    }
+
+    /**
+     * @param commonCount the number of vertices this vertex has in common with other vertices.
+     * @param context     the lookups shared by the other objects of the same response.
+     */
+    public static ClientApiVertex toClientApiVertex(
+            Vertex vertex,
+            Integer commonCount,
+            boolean includeEdgeInfos,
+            Authorizations authorizations,
+            ClientApiConversionContext context
     ) {
         checkNotNull(vertex, "vertex is required");
         ClientApiVertex v = new ClientApiVertex();
 
-        if (authorizations != null) {
+        if (authorizations != null && context.getProjection().includesEdgeLabels()) {
             stream(vertex.getEdgeLabels(Direction.BOTH, authorizations))
                     .forEach(v::addEdgeLabel);
 
@@ -136,7 +164,7 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
             }
         }
 
-        populateClientApiElement(v, vertex, workspaceId);
+        populateClientApiElement(v, vertex, context);
         v.setCommonCount(commonCount);
         return v;
     }
@@ -150,8 +178,12 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
     }
 
     public static ClientApiEdge toClientApiEdge(Edge edge, String workspaceId) {
+        return toClientApiEdge(edge, new ClientApiConversionContext(workspaceId));
+    }
+
+    public static ClientApiEdge toClientApiEdge(Edge edge, ClientApiConversionContext context) {
         ClientApiEdge e = new ClientApiEdge();
-        populateClientApiEdge(e, edge, workspaceId);
+        populateClientApiEdge(e, edge, context);
         return e;
     }
 
@@ -172,22 +204,26 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
     }
 
     public static void populateClientApiEdge(ClientApiEdge e, Edge edge, String workspaceId) {
+        populateClientApiEdge(e, edge, new ClientApiConversionContext(workspaceId));
+    }
+
+    private static void populateClientApiEdge(ClientApiEdge e, Edge edge, ClientApiConversionContext context) {
         e.setLabel(edge.getLabel());
         e.setOutVertexId(edge.getVertexId(Direction.OUT));
         e.setInVertexId(edge.getVertexId(Direction.IN));
 
-        populateClientApiElement(e, edge, workspaceId);
+        populateClientApiElement(e, edge, context);
     }
 
     private static void populateClientApiElement(
             ClientApiElement clientApiElement,
             org.vertexium.Element element,
-            String workspaceId
+            ClientApiConversionContext context
     ) {
         clientApiElement.setId(element.getId());
-        clientApiElement.getProperties().addAll(toClientApiProperties(element.getProperties(), workspaceId));
+        clientApiElement.getProperties().addAll(toClientApiProperties(element.getProperties(), context));
         clientApiElement.getExtendedDataTableNames().addAll(element.getExtendedDataTableNames());
-        clientApiElement.setSandboxStatus(SandboxStatusUtil.getSandboxStatus(element, workspaceId));
+        clientApiElement.setSandboxStatus(SandboxStatusUtil.getSandboxStatus(element, context.getWorkspaceId()));
 
         VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON.getPropertyValue(element);
         if (visibilityJson != null) {
@@ -202,10 +238,14 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
     }
 
     public static List<ClientApiProperty> toClientApiProperties(Iterable<Property> properties, String workspaceId) {
+        return toClientApiProperties(properties, new ClientApiConversionContext(workspaceId));
+    }
+
+    public static List<ClientApiProperty> toClientApiProperties(Iterable<Property> properties, ClientApiConversionContext context) {
         List<ClientApiProperty> clientApiProperties = new ArrayList<>();
-        List<Property> propertiesList = IterableUtils.toList(properties);
+        List<Property> propertiesList = getProjectedProperties(properties, context.getProjection());
         propertiesList.sort(new ConfidencePropertyComparator());
-        SandboxStatus[] sandboxStatuses = SandboxStatusUtil.getPropertySandboxStatuses(propertiesList, workspaceId);
+        SandboxStatus[] sandboxStatuses = SandboxStatusUtil.getPropertySandboxStatuses(propertiesList, context);
         for (int i = 0; i < propertiesList.size(); i++) {
             Property property = propertiesList.get(i);
             SandboxStatus sandboxStatus = sandboxStatuses[i];
@@ -222,7 +262,7 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
                         sandboxStatus
                 );
             } else {
-                ClientApiProperty clientApiProperty = toClientApiProperty(property);
+                ClientApiProperty clientApiProperty = toClientApiProperty(property, context);
                 clientApiProperty.setSandboxStatus(sandboxStatus);
                 clientApiProperties.add(clientApiProperty);
             }
@@ -230,7 +270,24 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         return clientApiProperties;
     }
 
+    private static List<Property> getProjectedProperties(Iterable<Property> properties, ClientApiProjection projection) {
+        if (projection.includesAllProperties()) {
+            return IterableUtils.toList(properties);
+        }
+        List<Property> results = new ArrayList<>();
+        for (Property property : properties) {
+            if (projection.includesProperty(property.getName())) {
+                results.add(property);
+            }
+        }
+        return results;
+    }
+
     public static ClientApiProperty toClientApiProperty(Property property) {
+        return toClientApiProperty(property, null);
+    }
+
+    private static ClientApiProperty toClientApiProperty(Property property, ClientApiConversionContext context) {
         ClientApiProperty clientApiProperty = new ClientApiProperty();
         clientApiProperty.setKey(property.getKey());
         clientApiProperty.setName(property.getName());
@@ -243,7 +300,11 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
         }
 
         for (Metadata.Entry entry : property.getMetadata().entrySet()) {
-            clientApiProperty.getMetadata().put(entry.getKey(), toClientApiValue(entry.getValue()));
+            if (context != null && !context.getProjection().includesMetadata(entry.getKey())) {
+                continue;
+            }
+            Object value = context == null ? toClientApiValue(entry.getValue()) : context.toClientApiValue(entry.getValue());
+            clientApiProperty.getMetadata().put(entry.getKey(), value);
         }
 
         return clientApiProperty;
@@ -569,12 +630,16 @@ public class ClientApiConverter extends org.visallo.web.clientapi.util.ClientApi
     }
 
     public static ClientApiExtendedDataRow toClientApiExtendedDataRow(ExtendedDataRow row) {
-        return toClientApiExtendedDataRow(row, null);
+        return toClientApiExtendedDataRow(row, (String) null);
     }
 
     public static ClientApiExtendedDataRow toClientApiExtendedDataRow(ExtendedDataRow row, String workspaceId) {
+        return toClientApiExtendedDataRow(row, new ClientApiConversionContext(workspaceId));
+    }
+
+    public static ClientApiExtendedDataRow toClientApiExtendedDataRow(ExtendedDataRow row, ClientApiConversionContext context) {
         ClientApiExtendedDataRow results = new ClientApiExtendedDataRow(toClientApiExtendedDataRowId(row.getId()));
-        results.getProperties().addAll(toClientApiProperties(row.getProperties(), workspaceId));
+        results.getProperties().addAll(toClientApiProperties(row.getProperties(), context));
         return results;
     }
 
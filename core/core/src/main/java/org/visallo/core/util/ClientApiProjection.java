@@ -0,0 +1,78 @@
+package org.visallo.core.util;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.visallo.core.exception.VisalloException;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The parts of elements a client asked for when converting them to client api objects. Properties and metadata
+ * entries left out are skipped before they are converted, the id, concept type, visibility source and sandbox status
+ * of elements are always included.
+ * <p>
+ * Parsed from the projection parameter of the search and multiple routes, for example
+ * <code>{"properties":["http://visallo.org#title"],"metadata":["http://visallo.org#confidence"],"edgeLabels":false}</code>.
+ * Missing properties or metadata include all of them, an empty list includes none.
+ */
+public class ClientApiProjection {
+    public static final ClientApiProjection ALL = new ClientApiProjection(null, null, true);
+    private final Set<String> propertyNames;
+    private final Set<String> metadataKeys;
+    private final boolean includeEdgeLabels;
+
+    public ClientApiProjection(Collection<String> propertyNames, Collection<String> metadataKeys, boolean includeEdgeLabels) {
+        this.propertyNames = propertyNames == null ? null : new HashSet<>(propertyNames);
+        this.metadataKeys = metadataKeys == null ? null : new HashSet<>(metadataKeys);
+        this.includeEdgeLabels = includeEdgeLabels;
+    }
+
+    /**
+     * @return the projection described by the JSON, or {@link #ALL} if it is null or empty
+     */
+    public static ClientApiProjection parse(String projectionJson) {
+        if (projectionJson == null || projectionJson.trim().length() == 0) {
+            return ALL;
+        }
+        try {
+            JSONObject json = new JSONObject(projectionJson);
+            return new ClientApiProjection(
+                    toSet(json.optJSONArray("properties")),
+                    toSet(json.optJSONArray("metadata")),
+                    json.optBoolean("edgeLabels", true)
+            );
+        } catch (JSONException ex) {
+            throw new VisalloException("Invalid projection: " + projectionJson, ex);
+        }
+    }
+
+    private static Set<String> toSet(JSONArray json) {
+        if (json == null) {
+            return null;
+        }
+        Set<String> results = new HashSet<>();
+        for (int i = 0; i < json.length(); i++) {
+            results.add(json.getString(i));
+        }
+        return results;
+    }
+
+    public boolean includesProperty(String propertyName) {
+        return propertyNames == null || propertyNames.contains(propertyName);
+    }
+
+    public boolean includesMetadata(String metadataKey) {
+        return metadataKeys == null || metadataKeys.contains(metadataKey);
+    }
+
+    public boolean includesAllProperties() {
+        return propertyNames == null;
+    }
+
+    public boolean includesEdgeLabels() {
+        return includeEdgeLabels;
+    }
+}
@@ -18,14 +18,19 @@ public class SandboxStatusUtil {
     }
 
     public static SandboxStatus[] getPropertySandboxStatuses(List<Property> properties, String workspaceId) {
+        return getPropertySandboxStatuses(properties, new ClientApiConversionContext(workspaceId));
+    }
+
+    public static SandboxStatus[] getPropertySandboxStatuses(List<Property> properties, ClientApiConversionContext context) {
+        String visibilityJsonKey = VisalloProperties.VISIBILITY_JSON_METADATA.getMetadataKey();
         SandboxStatus[] sandboxStatuses = new SandboxStatus[properties.size()];
         for (int i = 0; i < properties.size(); i++) {
             Property property = properties.get(i);
-            Collection<VisibilityJson> visibilityJsons = VisalloProperties.VISIBILITY_JSON_METADATA.getMetadataValues(property.getMetadata());
-            if (visibilityJsons.size() > 1) {
-                LOGGER.error("Multiple %s found on property %s. Choosing the best match.", VisalloProperties.VISIBILITY_JSON_METADATA.getMetadataKey(), property);
+            Collection<Object> visibilityJsonValues = property.getMetadata().getValues(visibilityJsonKey);
+            if (visibilityJsonValues.size() > 1) {
+                LOGGER.error("Multiple %s found on property %s. Choosing the best match.", visibilityJsonKey, property);
             }
-            sandboxStatuses[i] = getMostExclusiveSandboxStatus(visibilityJsons, workspaceId);
+            sandboxStatuses[i] = getMostExclusiveSandboxStatus(visibilityJsonValues, context);
         }
 
         for (int i = 0; i < properties.size(); i++) {
@@ -51,9 +56,9 @@ public class SandboxStatusUtil {
         return sandboxStatuses;
     }
 
-    private static SandboxStatus getMostExclusiveSandboxStatus(Collection<VisibilityJson> visibilityJsons, String workspaceId) {
-        for (VisibilityJson visibilityJson : visibilityJsons) {
-            SandboxStatus status = SandboxStatus.getFromVisibilityJsonString(visibilityJson, workspaceId);
+    private static SandboxStatus getMostExclusiveSandboxStatus(Collection<Object> visibilityJsonValues, ClientApiConversionContext context) {
+        for (Object visibilityJsonValue : visibilityJsonValues) {
+            SandboxStatus status = context.getSandboxStatus(visibilityJsonValue);
             switch (status) {
                 case PUBLIC:
                     break;
@@ -106,8 +106,16 @@ public class InMemoryOntologyRepository extends OntologyRepositoryBase {
     protected void storeOntologyFile(InputStream inputStream, IRI documentIRI) {
         try {
             byte[] inFileData = IOUtils.toByteArray(inputStream);
+            OwlData owlData = new OwlData(documentIRI.toString(), inFileData);
             synchronized (fileCache) {
-                fileCache.add(new OwlData(documentIRI.toString(), inFileData));
+                // a changed file replaces its earlier version in place so the files still load in the same order
+                for (int i = 0; i < fileCache.size(); i++) {
+                    if (fileCache.get(i).iri.equals(owlData.iri)) {
+                        fileCache.set(i, owlData);
+                        return;
+                    }
+                }
+                fileCache.add(owlData);
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
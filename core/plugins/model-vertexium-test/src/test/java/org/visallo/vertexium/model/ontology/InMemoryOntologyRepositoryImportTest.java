@@ -0,0 +1,220 @@
+package org.visallo.vertexium.model.ontology;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.vertexium.Authorizations;
+import org.vertexium.Graph;
+import org.vertexium.inmemory.InMemoryAuthorizations;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.lock.LockRepository;
+import org.visallo.core.model.ontology.*;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class InMemoryOntologyRepositoryImportTest extends VisalloInMemoryTestBase {
+    private static final String TEST_IRI = "http://visallo.org/test";
+    private static final String TEST01_IRI = "http://visallo.org/test01";
+    private static final String GLYPH_ICON_FILE = "glyphicons_003_user@2x.png";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File inDir;
+    private byte[] testOwl;
+    private byte[] testChangedOwl;
+    private byte[] test01Owl;
+    private byte[] test01ChangedOwl;
+
+    @Before
+    public void before() {
+        super.before();
+        try {
+            inDir = temporaryFolder.newFolder();
+            try (InputStream in = OntologyRepositoryTestBase.class.getResourceAsStream(GLYPH_ICON_FILE);
+                 OutputStream out = new FileOutputStream(new File(inDir, GLYPH_ICON_FILE))) {
+                IOUtils.copy(in, out);
+            }
+            testOwl = readTestOwl("test.owl");
+            testChangedOwl = readTestOwl("test_changed.owl");
+            test01Owl = readTestOwl("test01.owl");
+            test01ChangedOwl = new String(test01Owl, StandardCharsets.UTF_8)
+                    .replace(">Alias<", ">Also Known As<")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not read test ontology files", ex);
+        }
+    }
+
+    @Test
+    public void testUnchangedFileIsSkipped() throws Exception {
+        TestOntologyRepository ontologyRepository = createOntologyRepository(getGraph());
+        ontologyRepository.importFiles(owlFiles(TEST_IRI, testOwl));
+        assertEquals(1, ontologyRepository.storeCount);
+
+        ontologyRepository.importFiles(owlFiles(TEST_IRI, testOwl));
+        assertEquals(1, ontologyRepository.storeCount);
+
+        ontologyRepository.importFiles(owlFiles(TEST_IRI, testOwl, TEST01_IRI, test01Owl));
+        assertEquals(2, ontologyRepository.storeCount);
+        assertEquals(Arrays.asList(TEST_IRI, TEST01_IRI), ontologyRepository.getStoredDocumentIRIs());
+    }
+
+    @Test
+    public void testChangedFileReplacesStoredFileInPlace() throws Exception {
+        TestOntologyRepository ontologyRepository = createOntologyRepository(getGraph());
+        ontologyRepository.importFiles(owlFiles(TEST_IRI, testOwl));
+        ontologyRepository.importFiles(owlFiles(TEST01_IRI, test01Owl));
+
+        ontologyRepository.importFiles(owlFiles(TEST_IRI, testChangedOwl));
+        assertEquals(3, ontologyRepository.storeCount);
+        assertEquals(Arrays.asList(TEST_IRI, TEST01_IRI), ontologyRepository.getStoredDocumentIRIs());
+        Concept person = ontologyRepository.getConceptByIRI(TEST_IRI + "#person");
+        assertEquals(Collections.singletonList("test"), Arrays.asList(person.getIntents()));
+
+        ontologyRepository.importFiles(owlFiles(TEST_IRI, testChangedOwl));
+        assertEquals(3, ontologyRepository.storeCount);
+    }
+
+    @Test
+    public void testBatchOfChangedFilesReplacesStoredFiles() throws Exception {
+        TestOntologyRepository ontologyRepository = createOntologyRepository(getGraph());
+        ontologyRepository.importFiles(owlFiles(TEST_IRI, testOwl, TEST01_IRI, test01Owl));
+        assertEquals("Alias", ontologyRepository.getPropertyByIRI(TEST01_IRI + "#alias").getDisplayName());
+
+        // both stored files are loaded by the manager of the batch and have to be removed before the new versions load
+        ontologyRepository.importFiles(owlFiles(TEST_IRI, testChangedOwl, TEST01_IRI, test01ChangedOwl));
+        assertEquals(4, ontologyRepository.storeCount);
+        assertEquals(Arrays.asList(TEST_IRI, TEST01_IRI), ontologyRepository.getStoredDocumentIRIs());
+        assertEquals("Also Known As", ontologyRepository.getPropertyByIRI(TEST01_IRI + "#alias").getDisplayName());
+        assertEquals(
+                "Person Knows Person",
+                ontologyRepository.getRelationshipByIRI(TEST_IRI + "#personKnowsPerson").getDisplayName()
+        );
+    }
+
+    @Test
+    public void testBatchImportMatchesImportingFilesOneAtATime() throws Exception {
+        TestOntologyRepository batchRepository = createOntologyRepository(getGraph());
+        batchRepository.importFiles(owlFiles(TEST_IRI, testOwl, TEST01_IRI, test01Owl));
+
+        TestOntologyRepository sequentialRepository = createOntologyRepository(InMemoryGraph.create());
+        sequentialRepository.importFiles(owlFiles(TEST_IRI, testOwl));
+        sequentialRepository.importFiles(owlFiles(TEST01_IRI, test01Owl));
+
+        assertEquals(describe(sequentialRepository), describe(batchRepository));
+        assertEquals(sequentialRepository.getStoredDocumentIRIs(), batchRepository.getStoredDocumentIRIs());
+    }
+
+    private static List<String> describe(OntologyRepository ontologyRepository) {
+        List<String> lines = new ArrayList<>();
+        for (Concept concept : ontologyRepository.getConceptsWithProperties()) {
+            lines.add("concept " + concept.getIRI()
+                    + " display=" + concept.getDisplayName()
+                    + " parent=" + concept.getParentConceptIRI()
+                    + " properties=" + describeProperties(concept.getProperties()));
+        }
+        for (Relationship relationship : ontologyRepository.getRelationships()) {
+            lines.add("relationship " + relationship.getIRI()
+                    + " display=" + relationship.getDisplayName()
+                    + " parent=" + relationship.getParentIRI()
+                    + " domain=" + new TreeSet<>(relationship.getDomainConceptIRIs())
+                    + " range=" + new TreeSet<>(relationship.getRangeConceptIRIs())
+                    + " properties=" + describeProperties(relationship.getProperties()));
+        }
+        for (OntologyProperty property : ontologyRepository.getProperties()) {
+            lines.add("property " + property.getIri()
+                    + " display=" + property.getDisplayName()
+                    + " type=" + property.getDataType()
+                    + " dependents=" + property.getDependentPropertyIris());
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static Set<String> describeProperties(Collection<OntologyProperty> properties) {
+        Set<String> iris = new TreeSet<>();
+        for (OntologyProperty property : properties) {
+            iris.add(property.getIri());
+        }
+        return iris;
+    }
+
+    private static Map<String, byte[]> owlFiles(Object... iriAndData) {
+        Map<String, byte[]> owlFiles = new LinkedHashMap<>();
+        for (int i = 0; i < iriAndData.length; i += 2) {
+            owlFiles.put((String) iriAndData[i], (byte[]) iriAndData[i + 1]);
+        }
+        return owlFiles;
+    }
+
+    private static byte[] readTestOwl(String fileName) throws IOException {
+        try (InputStream in = OntologyRepositoryTestBase.class.getResourceAsStream(fileName)) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+
+    private TestOntologyRepository createOntologyRepository(Graph graph) throws Exception {
+        return new TestOntologyRepository(graph, getConfiguration(), getLockRepository(), inDir);
+    }
+
+    private static class TestOntologyRepository extends InMemoryOntologyRepository {
+        private final File inDir;
+        private int storeCount;
+
+        public TestOntologyRepository(
+                Graph graph,
+                Configuration configuration,
+                LockRepository lockRepository,
+                File inDir
+        ) throws Exception {
+            super(graph, configuration, lockRepository);
+            this.inDir = inDir;
+        }
+
+        @Override
+        public void loadOntologies(Configuration config, Authorizations authorizations) throws Exception {
+            Concept rootConcept = getOrCreateConcept(null, ROOT_CONCEPT_IRI, "root", null);
+            getOrCreateConcept(rootConcept, ENTITY_CONCEPT_IRI, "thing", null);
+        }
+
+        @Override
+        protected void storeOntologyFile(InputStream inputStream, IRI documentIRI) {
+            storeCount++;
+            super.storeOntologyFile(inputStream, documentIRI);
+        }
+
+        public void importFiles(Map<String, byte[]> owlFiles) throws Exception {
+            List<OwlFileData> owlFileDatas = new ArrayList<>();
+            for (Map.Entry<String, byte[]> owlFile : owlFiles.entrySet()) {
+                owlFileDatas.add(new OwlFileData(owlFile.getValue(), IRI.create(owlFile.getKey()), inDir, false));
+            }
+            importFilesData(owlFileDatas, new InMemoryAuthorizations(VISIBILITY_STRING));
+        }
+
+        public List<String> getStoredDocumentIRIs() throws Exception {
+            OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+            OWLOntologyLoaderConfiguration config = new OWLOntologyLoaderConfiguration()
+                    .setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
+            List<String> documentIRIs = new ArrayList<>();
+            for (OWLOntology o : loadOntologyFiles(m, config, null)) {
+                documentIRIs.add(m.getOntologyDocumentIRI(o).toString());
+            }
+            return documentIRIs;
+        }
+    }
+}
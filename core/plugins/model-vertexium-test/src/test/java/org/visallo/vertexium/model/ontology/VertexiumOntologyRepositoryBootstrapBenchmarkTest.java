@@ -0,0 +1,47 @@
+package org.visallo.vertexium.model.ontology;
+
+import org.junit.Test;
+import org.visallo.core.util.VisalloInMemoryTestBase;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the startup time of an ontology repository on an empty in-memory graph, where every ontology file is
+ * imported, with a restart on the same graph, where every file is unchanged and skipped.
+ * Excluded from the normal build, run with -Dtest=VertexiumOntologyRepositoryBootstrapBenchmarkTest.
+ */
+public class VertexiumOntologyRepositoryBootstrapBenchmarkTest extends VisalloInMemoryTestBase {
+    private static final int RESTARTS = 10;
+
+    @Test
+    public void benchmark() throws Exception {
+        long startTime = System.nanoTime();
+        createOntologyRepository();
+        long coldTime = System.nanoTime() - startTime;
+
+        long restartTime = 0;
+        for (int i = 0; i < RESTARTS; i++) {
+            startTime = System.nanoTime();
+            createOntologyRepository();
+            restartTime += System.nanoTime() - startTime;
+        }
+        restartTime /= RESTARTS;
+
+        System.out.println(String.format(
+                "cold start: %.2fms, restart with unchanged files avg: %.2fms",
+                coldTime / 1000000.0,
+                restartTime / 1000000.0
+        ));
+        assertTrue("restart should skip the unchanged files", restartTime < coldTime);
+    }
+
+    private VertexiumOntologyRepository createOntologyRepository() throws Exception {
+        return new VertexiumOntologyRepository(
+                getGraph(),
+                getGraphRepository(),
+                getConfiguration(),
+                getGraphAuthorizationRepository(),
+                getLockRepository()
+        );
+    }
+}
@@ -180,18 +180,26 @@ public class VertexiumLongRunningProcessRepository extends LongRunningProcessRep
         workQueueRepository.broadcastLongRunningProcessChange(json);
     }
 
+    @Override
+    public boolean isCanceled(String longRunningProcessId) {
+        Authorizations authorizations = getAuthorizations(userRepository.getSystemUser());
+        Vertex vertex = this.graph.getVertex(longRunningProcessId, authorizations);
+        checkNotNull(vertex, "Could not find long running process vertex: " + longRunningProcessId);
+        JSONObject json = LongRunningProcessProperties.QUEUE_ITEM_JSON_PROPERTY.getPropertyValue(vertex);
+        return json.optBoolean("canceled", false);
+    }
+
     @Override
     public void reportProgress(String longRunningProcessGraphVertexId, double progressPercent, String message) {
         Authorizations authorizations = getAuthorizations(userRepository.getSystemUser());
         Vertex vertex = this.graph.getVertex(longRunningProcessGraphVertexId, authorizations);
         checkNotNull(vertex, "Could not find long running process vertex: " + longRunningProcessGraphVertexId);
 
-        JSONObject object = LongRunningProcessProperties.QUEUE_ITEM_JSON_PROPERTY.getPropertyValue(vertex);
-        if (object.optBoolean("canceled", false)) {
+        JSONObject json = LongRunningProcessProperties.QUEUE_ITEM_JSON_PROPERTY.getPropertyValue(vertex);
+        if (json.optBoolean("canceled", false)) {
             throw new VisalloException("Unable to update progress of cancelled process");
         }
 
-        JSONObject json = LongRunningProcessProperties.QUEUE_ITEM_JSON_PROPERTY.getPropertyValue(vertex);
         json.put("progress", progressPercent);
         json.put("progressMessage", message);
         json.put("id", longRunningProcessGraphVertexId);
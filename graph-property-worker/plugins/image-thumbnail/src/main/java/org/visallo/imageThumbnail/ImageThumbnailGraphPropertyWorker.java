@@ -0,0 +1,56 @@
+package org.visallo.imageThumbnail;
+
+import com.google.inject.Inject;
+import org.vertexium.Element;
+import org.vertexium.Property;
+import org.vertexium.Vertex;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
+import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
+import org.visallo.core.model.Description;
+import org.visallo.core.model.Name;
+import org.visallo.core.model.artifactThumbnails.ArtifactThumbnailRepository;
+import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.InputStream;
+
+@Name("Image Thumbnail")
+@Description("Generates the standard thumbnail sizes of an image when it is ingested")
+public class ImageThumbnailGraphPropertyWorker extends GraphPropertyWorker {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(ImageThumbnailGraphPropertyWorker.class);
+    private final ArtifactThumbnailRepository artifactThumbnailRepository;
+
+    @Inject
+    public ImageThumbnailGraphPropertyWorker(ArtifactThumbnailRepository artifactThumbnailRepository) {
+        this.artifactThumbnailRepository = artifactThumbnailRepository;
+    }
+
+    @Override
+    public void execute(InputStream in, GraphPropertyWorkData data) throws Exception {
+        Vertex vertex = (Vertex) data.getElement();
+        LOGGER.debug("generating thumbnails %s for vertex %s", artifactThumbnailRepository.getBucketSizes(), vertex.getId());
+        artifactThumbnailRepository.createThumbnails(
+                vertex,
+                data.getProperty().getKey(),
+                "raw",
+                in,
+                artifactThumbnailRepository.getBucketSizes(),
+                getUser()
+        );
+    }
+
+    @Override
+    public boolean isHandled(Element element, Property property) {
+        if (property == null || !isVertex(element)) {
+            return false;
+        }
+
+        if (!VisalloProperties.RAW.getPropertyName().equals(property.getName())) {
+            return false;
+        }
+
+        String mimeType = VisalloProperties.MIME_TYPE_METADATA.getMetadataValue(property.getMetadata(), null);
+        return mimeType != null && mimeType.startsWith("image");
+    }
+}
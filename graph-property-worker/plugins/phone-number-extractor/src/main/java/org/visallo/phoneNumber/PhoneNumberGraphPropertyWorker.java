@@ -10,6 +10,7 @@ import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerPrepareData;
 import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.termMention.TermMentionBatch;
 import org.visallo.core.model.termMention.TermMentionBuilder;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
@@ -20,7 +21,6 @@ import org.vertexium.Vertex;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.List;
 
 import static org.vertexium.util.IterableUtils.count;
@@ -57,13 +57,13 @@ public class PhoneNumberGraphPropertyWorker extends GraphPropertyWorker {
         Vertex outVertex = (Vertex) data.getElement();
         VisibilityJson visibilityJson = VisalloProperties.VISIBILITY_JSON.getPropertyValue(outVertex);
         final Iterable<PhoneNumberMatch> phoneNumbers = phoneNumberUtil.findNumbers(text, defaultRegionCode);
-        List<Vertex> termMentions = new ArrayList<>();
+        TermMentionBatch termMentionBatch = new TermMentionBatch(getGraph(), getVisibilityTranslator(), getUser(), getAuthorizations());
         for (final PhoneNumberMatch phoneNumber : phoneNumbers) {
             final String formattedNumber = phoneNumberUtil.format(phoneNumber.number(), PhoneNumberUtil.PhoneNumberFormat.E164);
             int start = phoneNumber.start();
             int end = phoneNumber.end();
 
-            Vertex termMention = new TermMentionBuilder()
+            termMentionBatch.add(new TermMentionBuilder()
                     .outVertex(outVertex)
                     .propertyKey(data.getProperty().getKey())
                     .propertyName(data.getProperty().getName())
@@ -72,10 +72,9 @@ public class PhoneNumberGraphPropertyWorker extends GraphPropertyWorker {
                     .title(formattedNumber)
                     .conceptIri(entityType)
                     .visibilityJson(visibilityJson)
-                    .process(getClass().getName())
-                    .save(getGraph(), getVisibilityTranslator(), getUser(), getAuthorizations());
-            termMentions.add(termMention);
+                    .process(getClass().getName()));
         }
+        List<Vertex> termMentions = termMentionBatch.save();
         getGraph().flush();
         applyTermMentionFilters(outVertex, termMentions);
         pushTextUpdated(data);
@@ -0,0 +1,93 @@
+package org.visallo.tikaTextExtractor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.Normalizer;
+
+/**
+ * Cleans up extracted text as it is written and normalizes it to NFC. Carriage returns become newlines, tabs and
+ * non-breaking spaces become spaces, a run of whitespace containing two adjacent newlines becomes a paragraph
+ * break ("\n\n") and any other run of whitespace becomes a single space.
+ */
+class CleanTextWriter extends Writer {
+    private static final int MAX_WORD_LENGTH = 8192;
+    private final Writer out;
+    private final StringBuilder word = new StringBuilder();
+    private boolean inWhitespace;
+    private boolean whitespaceHasParagraph;
+    private boolean lastWasNewline;
+
+    public CleanTextWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            char c = cbuf[i];
+            if (c == '\r') {
+                c = '\n';
+            } else if (c == '\t' || c == '\u00A0') {
+                c = ' ';
+            }
+
+            if (c == '\n' || c == ' ') {
+                writeWord();
+                inWhitespace = true;
+                if (c == '\n') {
+                    if (lastWasNewline) {
+                        whitespaceHasParagraph = true;
+                    }
+                    lastWasNewline = true;
+                } else {
+                    lastWasNewline = false;
+                }
+            } else {
+                writeWhitespace();
+                // very long words are normalized in pieces, split before a character that cannot combine with the previous one
+                if (word.length() >= MAX_WORD_LENGTH && !isCombining(c) && !Character.isLowSurrogate(c)) {
+                    writeWord();
+                }
+                word.append(c);
+            }
+        }
+    }
+
+    private void writeWord() throws IOException {
+        if (word.length() > 0) {
+            out.write(Normalizer.normalize(word, Normalizer.Form.NFC));
+            word.setLength(0);
+        }
+    }
+
+    private void writeWhitespace() throws IOException {
+        if (inWhitespace) {
+            out.write(whitespaceHasParagraph ? "\n\n" : " ");
+            inWhitespace = false;
+            whitespaceHasParagraph = false;
+            lastWasNewline = false;
+        }
+    }
+
+    private static boolean isCombining(char c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK
+                || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeWord();
+            writeWhitespace();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.visallo.tikaTextExtractor;
+
+import org.apache.commons.io.IOUtils;
+import org.vertexium.property.StreamingPropertyValue;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Collects extracted text in memory until it grows past a threshold and then spills it to a temporary file, so
+ * the text of large documents is never held in memory in full. Writing more than the maximum number of
+ * characters, or writing after the deadline, truncates the text and throws {@link TextLimitReachedException} to
+ * stop the parser. The deadline is only seen when text is written, a parser that stalls without writing has to be
+ * stopped by the caller with {@link #expire()}. The writer can be expired from another thread.
+ */
+class SpillableTextWriter extends Writer {
+    private final int inMemoryCharacters;
+    private final long maxCharacters;
+    private final long deadline;
+    private StringBuilder buffer = new StringBuilder();
+    private File tempFile;
+    private Writer fileWriter;
+    private InputStream fileInputStream;
+    private long length;
+    private TruncationReason truncationReason;
+
+    enum TruncationReason {
+        CHARACTERS,
+        TIME
+    }
+
+    /**
+     * @param deadline the time in milliseconds after which no more text is accepted, or 0 for no deadline
+     */
+    public SpillableTextWriter(int inMemoryCharacters, long maxCharacters, long deadline) {
+        this.inMemoryCharacters = inMemoryCharacters;
+        this.maxCharacters = maxCharacters;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public synchronized void write(char[] cbuf, int off, int len) throws IOException {
+        if (truncationReason != null) {
+            throw new TextLimitReachedException(truncationReason);
+        }
+        if (deadline > 0 && System.currentTimeMillis() > deadline) {
+            truncationReason = TruncationReason.TIME;
+            throw new TextLimitReachedException(truncationReason);
+        }
+
+        int writeLength = (int) Math.min(len, maxCharacters - length);
+        if (writeLength < len && writeLength > 0 && Character.isHighSurrogate(cbuf[off + writeLength - 1])) {
+            writeLength--;
+        }
+        append(cbuf, off, writeLength);
+        if (writeLength < len) {
+            truncationReason = TruncationReason.CHARACTERS;
+            throw new TextLimitReachedException(truncationReason);
+        }
+    }
+
+    private void append(char[] cbuf, int off, int len) throws IOException {
+        if (len <= 0) {
+            return;
+        }
+        if (fileWriter == null && buffer.length() + len > inMemoryCharacters) {
+            tempFile = File.createTempFile("visallo-tika-text-", ".txt");
+            fileWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8));
+            fileWriter.append(buffer);
+            buffer = null;
+        }
+        if (fileWriter != null) {
+            fileWriter.write(cbuf, off, len);
+        } else {
+            buffer.append(cbuf, off, len);
+        }
+        length += len;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (fileWriter != null) {
+            fileWriter.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (fileWriter != null) {
+            fileWriter.close();
+        }
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Truncates the text because the deadline has passed, any further writes throw {@link TextLimitReachedException}.
+     */
+    public synchronized void expire() {
+        if (truncationReason == null) {
+            truncationReason = TruncationReason.TIME;
+        }
+    }
+
+    public synchronized long getLength() {
+        return length;
+    }
+
+    public synchronized boolean isSpilled() {
+        return tempFile != null;
+    }
+
+    /**
+     * @return why the text was truncated, or null if it was not
+     */
+    public synchronized TruncationReason getTruncationReason() {
+        return truncationReason;
+    }
+
+    public synchronized StreamingPropertyValue toStreamingPropertyValue() throws IOException {
+        close();
+        InputStream in;
+        if (tempFile == null) {
+            in = new ByteArrayInputStream(buffer.toString().getBytes(StandardCharsets.UTF_8));
+        } else {
+            fileInputStream = new FileInputStream(tempFile);
+            in = fileInputStream;
+        }
+        return new StreamingPropertyValue(in, String.class);
+    }
+
+    /**
+     * Removes the temporary file, call once the text has been saved.
+     */
+    public synchronized void dispose() {
+        IOUtils.closeQuietly(fileWriter);
+        IOUtils.closeQuietly(fileInputStream);
+        if (tempFile != null && !tempFile.delete()) {
+            tempFile.deleteOnExit();
+        }
+    }
+
+    static class TextLimitReachedException extends IOException {
+        public TextLimitReachedException(TruncationReason truncationReason) {
+            super("Extracted text limit reached: " + truncationReason);
+        }
+    }
+}
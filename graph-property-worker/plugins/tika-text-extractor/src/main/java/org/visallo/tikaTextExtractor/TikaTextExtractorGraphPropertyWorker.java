@@ -1,6 +1,8 @@
 package org.visallo.tikaTextExtractor;
 
+import com.codahale.metrics.Counter;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.inject.Inject;
 import de.l3s.boilerpipe.BoilerpipeProcessingException;
 import de.l3s.boilerpipe.extractors.ArticleExtractor;
@@ -25,6 +27,7 @@ import org.vertexium.Vertex;
 import org.vertexium.Visibility;
 import org.vertexium.mutation.ExistingElementMutation;
 import org.vertexium.property.StreamingPropertyValue;
+import org.visallo.core.exception.VisalloException;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorker;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerPrepareData;
@@ -32,6 +35,7 @@ import org.visallo.core.model.Description;
 import org.visallo.core.model.Name;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.properties.types.LongVisalloProperty;
+import org.visallo.core.status.MetricsManager;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.xml.sax.ContentHandler;
@@ -46,6 +50,8 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -85,8 +91,21 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
     private static final String NUMBER_OF_PAGES_PROPERTY = "tika.extraction.numberofpageskeys";
 
     private static final double SYSTEM_ASSIGNED_CONFIDENCE = 0.4;
+    private static final ExecutorService PARSER_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "tika-text-extractor-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
 
     private final TikaTextExtractorGraphPropertyWorkerConfiguration configuration;
+    private final Counter characterLimitTruncatedCounter;
+    private final Counter timeLimitTruncatedCounter;
+    private final Counter spilledCounter;
 
     private List<String> dateKeys;
     private List<String> subjectKeys;
@@ -103,8 +122,16 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
     private String titlePropertyIri;
 
     @Inject
-    public TikaTextExtractorGraphPropertyWorker(TikaTextExtractorGraphPropertyWorkerConfiguration configuration) {
+    public TikaTextExtractorGraphPropertyWorker(
+            TikaTextExtractorGraphPropertyWorkerConfiguration configuration,
+            MetricsManager metricsManager
+    ) {
         this.configuration = configuration;
+
+        String metricsPrefix = metricsManager.getNamePrefix(this);
+        this.characterLimitTruncatedCounter = metricsManager.counter(metricsPrefix + "truncated-character-limit");
+        this.timeLimitTruncatedCounter = metricsManager.counter(metricsPrefix + "truncated-time-limit");
+        this.spilledCounter = metricsManager.counter(metricsPrefix + "spilled-to-disk");
     }
 
     @Override
@@ -154,7 +181,15 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
         Charset charset = Charset.forName("UTF-8");
         Metadata metadata = new Metadata();
         metadata.set(Metadata.CONTENT_TYPE, mimeType);
-        String text = extractText(in, mimeType, metadata);
+        SpillableTextWriter textWriter = extractText(in, mimeType, metadata);
+        try {
+            execute(data, metadata, textWriter, charset);
+        } finally {
+            textWriter.dispose();
+        }
+    }
+
+    private void execute(GraphPropertyWorkData data, Metadata metadata, SpillableTextWriter textWriter, Charset charset) throws Exception {
         String propertyKey = getPropertyKey(data);
         TikaTextExtractorGraphPropertyWorkerConfiguration.TextExtractMapping textExtractMapping
                 = configuration.getTextExtractMapping(data.getElement(), data.getProperty());
@@ -187,7 +222,7 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
             try {
                 JSONObject customImageMetadataJson = new JSONObject(customImageMetadata);
 
-                text = new JSONObject(customImageMetadataJson.get("description").toString()).get("_content") +
+                String text = new JSONObject(customImageMetadataJson.get("description").toString()).get("_content") +
                         "\n" + customImageMetadataJson.get("tags").toString();
                 StreamingPropertyValue textValue = new StreamingPropertyValue(new ByteArrayInputStream(text.getBytes(charset)), String.class);
                 addTextProperty(textExtractMapping, m, propertyKey, textValue, textMetadata, data.getVisibility());
@@ -207,7 +242,7 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
                 LOGGER.warn("Image returned invalid custom metadata");
             }
         } else {
-            StreamingPropertyValue textValue = new StreamingPropertyValue(new ByteArrayInputStream(text.getBytes(charset)), String.class);
+            StreamingPropertyValue textValue = textWriter.toStreamingPropertyValue();
             addTextProperty(textExtractMapping, m, propertyKey, textValue, textMetadata, data.getVisibility());
 
             VisalloProperties.MODIFIED_DATE.setProperty(m, extractDate(metadata), defaultVisibility);
@@ -265,33 +300,131 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
         return data.getProperty().getKey();
     }
 
-    private String extractText(InputStream in, String mimeType, Metadata metadata) throws IOException, SAXException, TikaException, BoilerpipeProcessingException {
+    private SpillableTextWriter extractText(InputStream in, String mimeType, Metadata metadata) throws IOException, SAXException, TikaException, BoilerpipeProcessingException {
         metadata.set(Metadata.CONTENT_TYPE, mimeType);
 
-        String text;
+        long startTime = System.currentTimeMillis();
+        SpillableTextWriter textWriter = createTextWriter(startTime);
+        try {
+            if (isHtml(mimeType)) {
+                // boilerpipe needs the whole page, html is kept in memory
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                IOUtils.copy(in, out);
+                byte[] textBytes = out.toByteArray();
+                extractTextWithTika(new ByteArrayInputStream(textBytes), metadata, textWriter);
+
+                String text = extractTextFromHtml(IOUtils.toString(textBytes, "UTF-8"));
+                if (text != null && text.length() > 0) {
+                    textWriter.dispose();
+                    textWriter = createTextWriter(startTime);
+                    writeText(textWriter, Normalizer.normalize(text, Normalizer.Form.NFC));
+                }
+            } else {
+                extractTextWithTika(in, metadata, textWriter);
+            }
+        } catch (IOException | SAXException | TikaException | BoilerpipeProcessingException | RuntimeException ex) {
+            textWriter.dispose();
+            throw ex;
+        }
 
-        if (isHtml(mimeType)) {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            IOUtils.copy(in, out);
-            byte[] textBytes = out.toByteArray();
-            String bodyContent = extractTextWithTika(new ByteArrayInputStream(textBytes), metadata);
+        if (textWriter.isSpilled()) {
+            spilledCounter.inc();
+        }
+        SpillableTextWriter.TruncationReason truncationReason = textWriter.getTruncationReason();
+        if (truncationReason == SpillableTextWriter.TruncationReason.CHARACTERS) {
+            characterLimitTruncatedCounter.inc();
+            LOGGER.warn("extracted text truncated after %d characters", textWriter.getLength());
+        } else if (truncationReason == SpillableTextWriter.TruncationReason.TIME) {
+            timeLimitTruncatedCounter.inc();
+            LOGGER.warn("extracted text truncated after %dms (%d characters)", System.currentTimeMillis() - startTime, textWriter.getLength());
+        }
+        return textWriter;
+    }
 
-            text = extractTextFromHtml(IOUtils.toString(textBytes, "UTF-8"));
-            if (text == null || text.length() == 0) {
-                text = cleanExtractedText(bodyContent);
-            }
+    private SpillableTextWriter createTextWriter(long startTime) {
+        long maxExtractionTime = configuration.getMaxExtractionTimeMillis();
+        return new SpillableTextWriter(
+                configuration.getInMemoryTextCharacters(),
+                configuration.getMaxTextCharacters(),
+                maxExtractionTime > 0 ? startTime + maxExtractionTime : 0
+        );
+    }
+
+    private static void writeText(SpillableTextWriter textWriter, String text) throws IOException {
+        try {
+            textWriter.write(text);
+        } catch (SpillableTextWriter.TextLimitReachedException ex) {
+            // the text was truncated
+        }
+    }
+
+    /**
+     * Writes the cleaned up text to the text writer. If the text writer stops the parser because the text is
+     * too long or is taking too long, the text extracted so far is kept.
+     */
+    private static void extractTextWithTika(InputStream stream, Metadata metadata, SpillableTextWriter textWriter) throws TikaException, SAXException, IOException {
+        if (textWriter.getDeadline() > 0) {
+            parseWithTikaUntilDeadline(stream, metadata, textWriter);
         } else {
-            text = cleanExtractedText(extractTextWithTika(in, metadata));
+            parseWithTika(stream, metadata, textWriter);
         }
 
-        return Normalizer.normalize(text, Normalizer.Form.NFC);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("extracted %d characters", textWriter.getLength());
+            LOGGER.debug("metadata");
+            for (String metadataName : metadata.names()) {
+                LOGGER.debug("  %s: %s", metadataName, metadata.get(metadataName));
+            }
+        }
+    }
+
+    /**
+     * The text writer only checks the deadline when text is written, so the parser runs on its own thread and is
+     * abandoned once the deadline passes, even if it is stuck without writing anything. The parser fills its own
+     * metadata which is only copied back when it finishes in time.
+     */
+    private static void parseWithTikaUntilDeadline(InputStream stream, Metadata metadata, SpillableTextWriter textWriter) throws TikaException, SAXException, IOException {
+        Metadata parserMetadata = new Metadata();
+        for (String metadataName : metadata.names()) {
+            for (String value : metadata.getValues(metadataName)) {
+                parserMetadata.add(metadataName, value);
+            }
+        }
+
+        Future<Void> future = PARSER_EXECUTOR.submit(() -> {
+            parseWithTika(stream, parserMetadata, textWriter);
+            return null;
+        });
+        try {
+            future.get(Math.max(0, textWriter.getDeadline() - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            textWriter.expire();
+            future.cancel(true);
+            return;
+        } catch (InterruptedException ex) {
+            textWriter.expire();
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting text");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            Throwables.propagateIfPossible(cause, TikaException.class, SAXException.class);
+            Throwables.propagateIfInstanceOf(cause, IOException.class);
+            throw new VisalloException("Could not extract text", cause);
+        }
+
+        for (String metadataName : parserMetadata.names()) {
+            metadata.remove(metadataName);
+            for (String value : parserMetadata.getValues(metadataName)) {
+                metadata.add(metadataName, value);
+            }
+        }
     }
 
-    private static String extractTextWithTika(InputStream stream, Metadata metadata) throws TikaException, SAXException, IOException {
+    private static void parseWithTika(InputStream stream, Metadata metadata, SpillableTextWriter textWriter) throws TikaException, SAXException, IOException {
         TikaConfig tikaConfig = TikaConfig.getDefaultConfig();
         CompositeParser compositeParser = new CompositeParser(tikaConfig.getMediaTypeRegistry(), tikaConfig.getParser());
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        OutputStreamWriter writer = new OutputStreamWriter(output, "UTF-8");
+        CleanTextWriter writer = new CleanTextWriter(textWriter);
         ContentHandler handler = new BodyContentHandler(writer);
         ParseContext context = new ParseContext();
         context.set(PDFParserConfig.class, new VisalloParserConfig());
@@ -309,18 +442,15 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
                 sch.throwIfCauseOf(e);
                 throw e;
             }
+            writer.close();
+        } catch (TikaException | SAXException | IOException ex) {
+            if (textWriter.getTruncationReason() == null) {
+                throw ex;
+            }
+            IOUtils.closeQuietly(writer);
         } finally {
             tmp.dispose();
         }
-
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("extracted %d bytes", output.size());
-            LOGGER.debug("metadata");
-            for (String metadataName : metadata.names()) {
-                LOGGER.debug("  %s: %s", metadataName, metadata.get(metadataName));
-            }
-        }
-        return IOUtils.toString(output.toByteArray(), "UTF-8");
     }
 
     private String extractTextFromHtml(String text) throws BoilerpipeProcessingException {
@@ -415,22 +545,6 @@ public class TikaTextExtractorGraphPropertyWorker extends GraphPropertyWorker {
         return mimeType.contains("html");
     }
 
-    private String cleanExtractedText(String extractedText) {
-        return extractedText
-                // Normalize line breaks
-                .replaceAll("\r", "\n")
-                // Remove tabs
-                .replaceAll("\t", " ")
-                // Remove non-breaking spaces
-                .replaceAll("\u00A0", " ")
-                // Remove newlines that are just paragraph wrapping
-                .replaceAll("(?<![\\n])[\\n](?![\\n])", " ")
-                // Remove remaining newlines with exactly 2
-                .replaceAll("([ ]*\\n[ ]*)+", "\n\n")
-                // Remove duplicate spaces
-                .replaceAll("[ ]+", " ");
-    }
-
     @Override
     public boolean isHandled(Element element, Property property) {
         if (property == null) {
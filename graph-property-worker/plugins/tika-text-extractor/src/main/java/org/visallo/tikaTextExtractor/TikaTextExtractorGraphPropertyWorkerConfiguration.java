@@ -13,8 +13,17 @@ public class TikaTextExtractorGraphPropertyWorkerConfiguration {
     public static final String CONFIGURATION_PREFIX = TikaTextExtractorGraphPropertyWorker.class.getName();
     public static final String TEXT_EXTRACT_MAPPING_CONFIGURATION_PREFIX = CONFIGURATION_PREFIX + ".textExtractMapping";
     public static final String DEFAULT_TEXT_EXTRACT_MAPPING = "raw";
+    public static final String MAX_TEXT_CHARACTERS = CONFIGURATION_PREFIX + ".maxTextCharacters";
+    public static final long DEFAULT_MAX_TEXT_CHARACTERS = 100L * 1024 * 1024;
+    public static final String MAX_EXTRACTION_TIME_MILLIS = CONFIGURATION_PREFIX + ".maxExtractionTimeMillis";
+    public static final long DEFAULT_MAX_EXTRACTION_TIME_MILLIS = 10 * 60 * 1000;
+    public static final String IN_MEMORY_TEXT_CHARACTERS = CONFIGURATION_PREFIX + ".inMemoryTextCharacters";
+    public static final int DEFAULT_IN_MEMORY_TEXT_CHARACTERS = 1024 * 1024;
 
     private final Map<String, TextExtractMapping> textExtractMappings;
+    private final long maxTextCharacters;
+    private final long maxExtractionTimeMillis;
+    private final int inMemoryTextCharacters;
 
     @Inject
     public TikaTextExtractorGraphPropertyWorkerConfiguration(Configuration configuration) {
@@ -27,6 +36,31 @@ public class TikaTextExtractorGraphPropertyWorkerConfiguration {
             textExtractMapping.textDescription = "Extracted Text";
             textExtractMappings.put(DEFAULT_TEXT_EXTRACT_MAPPING, textExtractMapping);
         }
+
+        maxTextCharacters = configuration.getLong(MAX_TEXT_CHARACTERS, DEFAULT_MAX_TEXT_CHARACTERS);
+        maxExtractionTimeMillis = configuration.getLong(MAX_EXTRACTION_TIME_MILLIS, DEFAULT_MAX_EXTRACTION_TIME_MILLIS);
+        inMemoryTextCharacters = configuration.getInt(IN_MEMORY_TEXT_CHARACTERS, DEFAULT_IN_MEMORY_TEXT_CHARACTERS);
+    }
+
+    /**
+     * The maximum number of characters of text to extract, longer text is truncated.
+     */
+    public long getMaxTextCharacters() {
+        return maxTextCharacters;
+    }
+
+    /**
+     * The maximum time to spend extracting text, or 0 for no limit. Text extracted so far is kept when the time is up.
+     */
+    public long getMaxExtractionTimeMillis() {
+        return maxExtractionTimeMillis;
+    }
+
+    /**
+     * The number of characters of text to keep in memory before spilling to a temporary file.
+     */
+    public int getInMemoryTextCharacters() {
+        return inMemoryTextCharacters;
     }
 
     boolean isHandled(Element element, Property property) {
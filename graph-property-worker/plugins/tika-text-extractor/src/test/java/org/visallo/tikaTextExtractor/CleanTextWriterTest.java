@@ -0,0 +1,74 @@
+package org.visallo.tikaTextExtractor;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.Normalizer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class CleanTextWriterTest {
+    private static final char[] ALPHABET = {'a', 'b', ' ', ' ', '\n', '\n', '\r', '\t', '\u00A0', '\u0301', '.'};
+
+    @Test
+    public void testSameAsRegexCleanup() throws IOException {
+        String[] texts = {
+                "",
+                "one",
+                "one two",
+                "  leading and trailing  ",
+                "line\nwrapped",
+                "paragraph\n\nbreak",
+                "paragraph \n \n break",
+                "spaced\n \nnewlines",
+                "windows\r\nline\r\n\r\nendings",
+                "tabs\tand\u00A0non\u00A0breaking spaces",
+                "\n\n\nleading paragraph",
+                "trailing paragraph\n\n\n",
+                "many\n\n\n\n\nnewlines",
+                "cafe\u0301 composed"
+        };
+        for (String text : texts) {
+            assertEquals(text, regexCleanup(text), clean(text, text.length()));
+        }
+    }
+
+    @Test
+    public void testSameAsRegexCleanupForRandomText() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            char[] chars = new char[random.nextInt(50)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            String text = new String(chars);
+            assertEquals(text, regexCleanup(text), clean(text, 1 + random.nextInt(5)));
+        }
+    }
+
+    private static String clean(String text, int chunkLength) throws IOException {
+        StringWriter out = new StringWriter();
+        CleanTextWriter writer = new CleanTextWriter(out);
+        for (int i = 0; i < text.length(); i += chunkLength) {
+            writer.write(text, i, Math.min(chunkLength, text.length() - i));
+        }
+        writer.close();
+        return out.toString();
+    }
+
+    /**
+     * The clean up the extractor used to run on the whole extracted text, before it was done while writing.
+     */
+    private static String regexCleanup(String text) {
+        String cleaned = text
+                .replaceAll("\r", "\n")
+                .replaceAll("\t", " ")
+                .replaceAll("\u00A0", " ")
+                .replaceAll("(?<![\\n])[\\n](?![\\n])", " ")
+                .replaceAll("([ ]*\\n[ ]*)+", "\n\n")
+                .replaceAll("[ ]+", " ");
+        return Normalizer.normalize(cleaned, Normalizer.Form.NFC);
+    }
+}
@@ -13,6 +13,7 @@ import org.visallo.core.ingest.graphProperty.GraphPropertyWorkData;
 import org.visallo.core.ingest.graphProperty.GraphPropertyWorkerTestBase;
 import org.visallo.core.model.properties.VisalloProperties;
 import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.status.JmxMetricsManager;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
@@ -36,7 +37,7 @@ public class TikaTextExtractorGraphPropertyWorkerTest extends GraphPropertyWorke
 
         Configuration config = new HashMapConfigurationLoader(getConfigurationMap()).createConfiguration();
         TikaTextExtractorGraphPropertyWorkerConfiguration tikaConfig = new TikaTextExtractorGraphPropertyWorkerConfiguration(config);
-        gpw = new TikaTextExtractorGraphPropertyWorker(tikaConfig);
+        gpw = new TikaTextExtractorGraphPropertyWorker(tikaConfig, new JmxMetricsManager());
         prepare(gpw);
 
         visibility = new Visibility("");
@@ -165,6 +166,30 @@ public class TikaTextExtractorGraphPropertyWorkerTest extends GraphPropertyWorke
         assertEquals(expected.length(), actual.length());
     }
 
+    @Test
+    public void testExtractTextTruncatedAndSpilled() throws Exception {
+        Map configurationMap = getConfigurationMap();
+        configurationMap.put(TikaTextExtractorGraphPropertyWorkerConfiguration.MAX_TEXT_CHARACTERS, "9");
+        configurationMap.put(TikaTextExtractorGraphPropertyWorkerConfiguration.IN_MEMORY_TEXT_CHARACTERS, "5");
+        Configuration config = new HashMapConfigurationLoader(configurationMap).createConfiguration();
+        TikaTextExtractorGraphPropertyWorker truncatingGpw = new TikaTextExtractorGraphPropertyWorker(
+                new TikaTextExtractorGraphPropertyWorkerConfiguration(config),
+                new JmxMetricsManager()
+        );
+        prepare(truncatingGpw);
+
+        String data = "the quick brown fox jumps over the lazy dog";
+        createVertex(data, "text/plain; charset=utf-8");
+
+        InputStream in = new ByteArrayInputStream(data.getBytes("UTF-8"));
+        Vertex vertex = getGraph().getVertex("v1", getGraphAuthorizations());
+        Property property = vertex.getProperty(VisalloProperties.RAW.getPropertyName());
+        run(truncatingGpw, getWorkerPrepareData(), vertex, property, in);
+
+        vertex = getGraph().getVertex("v1", getGraphAuthorizations());
+        assertEquals("the quick", IOUtils.toString(VisalloProperties.TEXT.getOnlyPropertyValue(vertex).getInputStream(), "UTF-8"));
+    }
+
     @Test
     public void testDifferentKey() throws UnsupportedEncodingException {
         VertexBuilder v = getGraph().prepareVertex("v1", visibility);
@@ -36,6 +36,12 @@ public class Import extends CommandLineTool {
     @Parameter(names = {"--conceptTypeIRI"}, arity = 1, description = "IRI of the concept type to force for all imported files")
     private String conceptTypeIRI;
 
+    @Parameter(names = {"--threads"}, arity = 1, description = "Number of threads used to hash and import files. Defaults to the configured import thread count")
+    private Integer threadCount;
+
+    @Parameter(names = {"--batchsize"}, arity = 1, description = "Number of files checked for duplicates with a single query. Defaults to the configured import batch size")
+    private Integer batchSize;
+
     public static void main(String[] args) throws Exception {
         CommandLineTool.main(new Import(), args);
     }
@@ -48,7 +54,25 @@ public class Import extends CommandLineTool {
         } else {
             workspace = workspaceRepository.findById(workspaceId, getUser());
         }
-        fileImport.importDirectory(dataDir, queueDuplicates, conceptTypeIRI, visibilitySource, workspace, priority, getUser(), getAuthorizations());
+        if (threadCount == null) {
+            threadCount = getConfiguration().getInt(FileImport.CONFIG_IMPORT_DIRECTORY_THREAD_COUNT, FileImport.DEFAULT_IMPORT_DIRECTORY_THREAD_COUNT);
+        }
+        if (batchSize == null) {
+            batchSize = getConfiguration().getInt(FileImport.CONFIG_IMPORT_DIRECTORY_BATCH_SIZE, FileImport.DEFAULT_IMPORT_DIRECTORY_BATCH_SIZE);
+        }
+        FileImport.ImportDirectoryStatistics statistics = fileImport.importDirectory(
+                dataDir,
+                queueDuplicates,
+                conceptTypeIRI,
+                visibilitySource,
+                workspace,
+                priority,
+                threadCount,
+                batchSize,
+                getUser(),
+                getAuthorizations()
+        );
+        System.out.println("Imported " + statistics);
         return 0;
     }
 
@@ -47,6 +47,12 @@ public class RdfImport extends CommandLineTool {
     @Parameter(names = {"--disableWorkQueues"}, description = "Disable pushing elements on the broadcast and/or GPW queues")
     private boolean disableWorkQueues = false;
 
+    @Parameter(names = {"--threads"}, arity = 1, description = "Number of threads importing N-Triples files, partitioned by subject")
+    private int threads = 1;
+
+    @Parameter(names = {"--resume"}, description = "Resume N-Triples imports from the checkpoint left by a failed import")
+    private boolean resume = false;
+
     public static void main(String[] args) throws Exception {
         CommandLineTool.main(new RdfImport(), args);
     }
@@ -55,6 +61,8 @@ public class RdfImport extends CommandLineTool {
     protected int run() throws Exception {
         rdfImportHelper.setFailOnFirstError(failOnFirstError);
         rdfImportHelper.setDisableWorkQueues(disableWorkQueues);
+        rdfImportHelper.setThreadCount(threads);
+        rdfImportHelper.setResume(resume);
         TimeZone timeZone = TimeZone.getTimeZone(timeZoneId);
         importInFiles(inFiles, timeZone);
         importInDirs(inDirs, pattern, timeZone);
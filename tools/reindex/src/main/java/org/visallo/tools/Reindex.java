@@ -2,11 +2,15 @@ package org.visallo.tools;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import com.beust.jcommander.converters.FileConverter;
 import com.google.inject.Inject;
+import org.vertexium.ElementType;
 import org.vertexium.GraphWithSearchIndex;
 import org.visallo.core.cmdline.CommandLineTool;
 import org.visallo.core.model.graph.GraphReindexService;
 
+import java.io.File;
+
 @Parameters(commandDescription = "Reindex elements")
 public class Reindex extends CommandLineTool {
     private GraphReindexService graphReindexService;
@@ -23,6 +27,21 @@ public class Reindex extends CommandLineTool {
     @Parameter(names = {"--batchSize"}, description = "Batch size of elements to send for reindexing")
     private int batchSize = 100;
 
+    @Parameter(names = {"--threads"}, description = "Number of id ranges to index concurrently")
+    private int threads = 1;
+
+    @Parameter(names = {"--checkpointFile"}, converter = FileConverter.class, description = "File to record the progress of each id range in")
+    private File checkpointFile = new File("reindex.checkpoint");
+
+    @Parameter(names = {"--resume"}, description = "Skip the id ranges and elements already indexed according to the checkpoint file")
+    private boolean resume = false;
+
+    @Parameter(names = {"--startId"}, description = "Only reindex elements with an id greater than or equal to this id")
+    private String startId;
+
+    @Parameter(names = {"--endId"}, description = "Only reindex elements with an id less than this id")
+    private String endId;
+
     public static void main(String[] args) throws Exception {
         CommandLineTool.main(new Reindex(), args);
     }
@@ -39,12 +58,24 @@ public class Reindex extends CommandLineTool {
             return -1;
         }
 
+        GraphReindexService.ReindexOptions options = new GraphReindexService.ReindexOptions()
+                .setBatchSize(batchSize)
+                .setThreadCount(threads)
+                .setCheckpointFile(checkpointFile)
+                .setResume(resume)
+                .setStartId(startId)
+                .setEndId(endId);
+
         if (vertices || all) {
-            graphReindexService.reindexVertices(batchSize, getAuthorizations());
+            graphReindexService.reindex(ElementType.VERTEX, options, getAuthorizations());
         }
 
         if (edges || all) {
-            graphReindexService.reindexEdges(batchSize, getAuthorizations());
+            graphReindexService.reindex(ElementType.EDGE, options, getAuthorizations());
+        }
+
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            System.err.println("Could not delete checkpoint file: " + checkpointFile.getAbsolutePath());
         }
 
         return 0;
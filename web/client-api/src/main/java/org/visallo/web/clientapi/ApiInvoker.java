@@ -4,11 +4,19 @@ import com.fasterxml.jackson.databind.JavaType;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource.Builder;
-import com.sun.jersey.api.client.config.ClientConfig;
-import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.api.client.filter.LoggingFilter;
+import com.sun.jersey.client.apache4.ApacheHttpClient4;
+import com.sun.jersey.client.apache4.config.ApacheHttpClient4Config;
+import com.sun.jersey.client.apache4.config.DefaultApacheHttpClient4Config;
 import com.sun.jersey.multipart.FormDataMultiPart;
 import com.sun.jersey.multipart.impl.MultiPartWriter;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.conn.ssl.TrustStrategy;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.visallo.web.clientapi.codegen.ApiException;
 
 import javax.ws.rs.core.Response.Status.Family;
@@ -16,15 +24,27 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.security.cert.X509Certificate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Sends the requests of all the api classes. Requests to every host share one pool of keep-alive connections, the
+ * pool is created with the first request so its limits must be set before that.
+ */
 public class ApiInvoker {
+    public static final int DEFAULT_MAX_CONNECTIONS = 100;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    public static final long DEFAULT_CONNECTION_WAIT_TIMEOUT_MILLIS = 60 * 1000;
     private static ApiInvoker INSTANCE = new ApiInvoker();
-    private Map<String, Client> hostMap = new HashMap<String, Client>();
+    private Client client;
     private Map<String, String> defaultHeaderMap = new HashMap<String, String>();
     private boolean isDebug = false;
+    private boolean ignoreSslErrors = false;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    private long connectionWaitTimeoutMillis = DEFAULT_CONNECTION_WAIT_TIMEOUT_MILLIS;
     private String csrfToken;
     private String workspaceId;
     private String jSessionId;
@@ -79,8 +99,14 @@ public class ApiInvoker {
         }
     }
 
+    /**
+     * The stream holds one of the pooled connections until it is closed, so callers must close it, even when they
+     * don't read all of it.
+     *
+     * @return the body of the response, or null if it had no content
+     */
     public InputStream getBinary(String host, String path, Map<String, String> queryParams, Map<String, String> headerParams) throws ApiException {
-        Client client = getClient(host);
+        Client client = getClient();
 
         StringBuilder b = new StringBuilder();
 
@@ -118,6 +144,7 @@ public class ApiInvoker {
         response = (ClientResponse) builder.get(ClientResponse.class);
 
         if (response.getStatusInfo() == ClientResponse.Status.NO_CONTENT) {
+            response.close();
             return null;
         } else if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
             return response.getEntityInputStream();
@@ -129,7 +156,46 @@ public class ApiInvoker {
     }
 
     public String invokeAPI(String host, String path, String method, Map<String, String> queryParams, Object body, Map<String, String> headerParams, Map<String, String> formParams, String contentType) throws ApiException {
-        Client client = getClient(host);
+        ClientResponse response = execute(host, path, method, queryParams, body, headerParams, formParams, contentType);
+        if (response.getStatusInfo() == ClientResponse.Status.NO_CONTENT) {
+            response.close();
+            return null;
+        } else if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
+            return (String) response.getEntity(String.class);
+        } else {
+            throw new ApiException(
+                    response.getStatusInfo().getStatusCode(),
+                    response.getEntity(String.class));
+        }
+    }
+
+    /**
+     * Same as {@link #invokeAPI(String, String, String, Map, Object, Map, Map, String)} but the response is
+     * deserialized as it is read from the connection, without holding the whole body in memory first.
+     */
+    public <T> T invokeAPI(String host, String path, String method, Map<String, String> queryParams, Object body, Map<String, String> headerParams, Map<String, String> formParams, String contentType, Class<T> responseType) throws ApiException {
+        ClientResponse response = execute(host, path, method, queryParams, body, headerParams, formParams, contentType);
+        if (response.getStatusInfo() == ClientResponse.Status.NO_CONTENT) {
+            response.close();
+            return null;
+        } else if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
+            InputStream in = response.getEntityInputStream();
+            try {
+                return JsonUtil.getJsonMapper().readValue(in, responseType);
+            } catch (IOException e) {
+                throw new ApiException(500, e.getMessage());
+            } finally {
+                response.close();
+            }
+        } else {
+            throw new ApiException(
+                    response.getStatusInfo().getStatusCode(),
+                    response.getEntity(String.class));
+        }
+    }
+
+    private ClientResponse execute(String host, String path, String method, Map<String, String> queryParams, Object body, Map<String, String> headerParams, Map<String, String> formParams, String contentType) throws ApiException {
+        Client client = getClient();
 
         StringBuilder b = new StringBuilder();
 
@@ -211,28 +277,77 @@ public class ApiInvoker {
         } else {
             throw new ApiException(500, "unknown method type " + method);
         }
-        if (response.getStatusInfo() == ClientResponse.Status.NO_CONTENT) {
-            return null;
-        } else if (response.getStatusInfo().getFamily() == Family.SUCCESSFUL) {
-            return (String) response.getEntity(String.class);
-        } else {
-            throw new ApiException(
-                    response.getStatusInfo().getStatusCode(),
-                    response.getEntity(String.class));
-        }
+        return response;
     }
 
-    private Client getClient(String host) {
-        if (!hostMap.containsKey(host)) {
-            ClientConfig clientConfig = new DefaultClientConfig();
+    private synchronized Client getClient() {
+        if (client == null) {
+            ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager(createSchemeRegistry());
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+
+            DefaultApacheHttpClient4Config clientConfig = new DefaultApacheHttpClient4Config();
             clientConfig.getClasses().add(MultiPartWriter.class);
-            Client client = Client.create(clientConfig);
+            clientConfig.getProperties().put(ApacheHttpClient4Config.PROPERTY_CONNECTION_MANAGER, connectionManager);
+            // the session cookie is sent by this class, see setJSessionId
+            clientConfig.getProperties().put(ApacheHttpClient4Config.PROPERTY_DISABLE_COOKIES, true);
+            ApacheHttpClient4 apacheClient = ApacheHttpClient4.create(clientConfig);
+            // a request waiting for a connection, for example because unclosed streams hold them all, fails instead
+            // of waiting forever
+            apacheClient.getClientHandler().getHttpClient().getParams()
+                    .setLongParameter(ClientPNames.CONN_MANAGER_TIMEOUT, connectionWaitTimeoutMillis);
+            client = apacheClient;
             if (isDebug) {
                 client.addFilter(new LoggingFilter());
             }
-            hostMap.put(host, client);
         }
-        return hostMap.get(host);
+        return client;
+    }
+
+    private SchemeRegistry createSchemeRegistry() {
+        SchemeRegistry schemeRegistry = SchemeRegistryFactory.createDefault();
+        if (ignoreSslErrors) {
+            try {
+                SSLSocketFactory sslSocketFactory = new SSLSocketFactory(new TrustStrategy() {
+                    public boolean isTrusted(X509Certificate[] chain, String authType) {
+                        return true;
+                    }
+                }, SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
+                schemeRegistry.register(new Scheme("https", 443, sslSocketFactory));
+            } catch (Exception ex) {
+                throw new VisalloClientApiException("Could not ignore SSL errors", ex);
+            }
+        }
+        return schemeRegistry;
+    }
+
+    /**
+     * Closes the pooled connections. The next request opens a new pool.
+     */
+    public synchronized void shutdown() {
+        if (client != null) {
+            client.destroy();
+            client = null;
+        }
+    }
+
+    public void setIgnoreSslErrors(boolean ignoreSslErrors) {
+        this.ignoreSslErrors = ignoreSslErrors;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Sets how long a request waits for a connection from the pool before failing.
+     */
+    public void setConnectionWaitTimeoutMillis(long connectionWaitTimeoutMillis) {
+        this.connectionWaitTimeoutMillis = connectionWaitTimeoutMillis;
     }
 
     public void setCsrfToken(String csrfToken) {
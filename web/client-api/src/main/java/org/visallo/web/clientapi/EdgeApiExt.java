@@ -1,10 +1,21 @@
 package org.visallo.web.clientapi;
 
+import com.sun.jersey.multipart.FormDataMultiPart;
 import org.visallo.web.clientapi.codegen.ApiException;
 import org.visallo.web.clientapi.codegen.EdgeApi;
+import org.visallo.web.clientapi.model.ClientApiEdge;
+import org.visallo.web.clientapi.model.ClientApiEdgeMultipleResponse;
 import org.visallo.web.clientapi.model.ClientApiEdgeWithVertexData;
 
+import javax.ws.rs.core.MediaType;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
 public class EdgeApiExt extends EdgeApi {
+    public static final int DEFAULT_MULTIPLE_BATCH_SIZE = 500;
+
     public ClientApiEdgeWithVertexData create(String outVertexId, String inVertexId, String label, String visibilitySource, String edgeId) throws ApiException {
         return create(outVertexId, inVertexId, label, visibilitySource, null, null, edgeId);
     }
@@ -12,4 +23,38 @@ public class EdgeApiExt extends EdgeApi {
     public void setProperty(String edgeId, String propertyKey, String propertyName, String value, String visibilitySource, String justificationText) throws ApiException {
         setProperty(edgeId, propertyKey, propertyName, value, visibilitySource, justificationText, null, null);
     }
+
+    /**
+     * Iterates the edges with the given ids, requesting them from the server a batch of ids at a time as they are
+     * read. Edges which are not found are left out.
+     */
+    public Iterable<ClientApiEdge> findMultipleBatched(final Iterable<String> edgeIds, final int batchSize) {
+        return new Iterable<ClientApiEdge>() {
+            @Override
+            public Iterator<ClientApiEdge> iterator() {
+                return new MultipleRequestIterator<ClientApiEdge>(edgeIds.iterator(), batchSize) {
+                    @Override
+                    protected List<ClientApiEdge> requestBatch(List<String> batchIds) throws ApiException {
+                        ClientApiEdgeMultipleResponse response = findMultipleStreaming(batchIds);
+                        return response == null ? null : response.getEdges();
+                    }
+                };
+            }
+        };
+    }
+
+    public Iterable<ClientApiEdge> findMultipleBatched(Iterable<String> edgeIds) {
+        return findMultipleBatched(edgeIds, DEFAULT_MULTIPLE_BATCH_SIZE);
+    }
+
+    private ClientApiEdgeMultipleResponse findMultipleStreaming(List<String> edgeIds) throws ApiException {
+        Map<String, String> queryParams = new HashMap<String, String>();
+        Map<String, String> headerParams = new HashMap<String, String>();
+        Map<String, String> formParams = new HashMap<String, String>();
+        FormDataMultiPart mp = new FormDataMultiPart();
+        for (String edgeId : edgeIds) {
+            mp.field("edgeIds[]", edgeId, MediaType.MULTIPART_FORM_DATA_TYPE);
+        }
+        return apiInvoker.invokeAPI(basePath, "/edge/multiple", "POST", queryParams, mp, headerParams, formParams, "multipart/form-data", ClientApiEdgeMultipleResponse.class);
+    }
 }
@@ -49,6 +49,7 @@ public abstract class FormLoginVisalloApi extends VisalloApi {
                 SSLContext sc = SSLContext.getInstance("TLS");
                 sc.init(null, trustAllCerts, new SecureRandom());
                 HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
+                ApiInvoker.getInstance().setIgnoreSslErrors(true);
             } catch (Exception ex) {
                 throw new VisalloClientApiException("Could not ignore SSL errors", ex);
             }
@@ -0,0 +1,61 @@
+package org.visallo.web.clientapi;
+
+import org.visallo.web.clientapi.codegen.ApiException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the elements of a list of ids, requesting them from the server a batch of ids at a time as they are read
+ * so only one batch is held in memory.
+ */
+abstract class MultipleRequestIterator<T> implements Iterator<T> {
+    private final Iterator<String> ids;
+    private final int batchSize;
+    private Iterator<T> batch;
+
+    MultipleRequestIterator(Iterator<String> ids, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be greater than 0");
+        }
+        this.ids = ids;
+        this.batchSize = batchSize;
+    }
+
+    protected abstract List<T> requestBatch(List<String> batchIds) throws ApiException;
+
+    @Override
+    public boolean hasNext() {
+        while (batch == null || !batch.hasNext()) {
+            if (!ids.hasNext()) {
+                return false;
+            }
+            List<String> batchIds = new ArrayList<String>(batchSize);
+            while (batchIds.size() < batchSize && ids.hasNext()) {
+                batchIds.add(ids.next());
+            }
+            try {
+                List<T> results = requestBatch(batchIds);
+                batch = results == null ? null : results.iterator();
+            } catch (ApiException e) {
+                throw new VisalloClientApiException("Could not read batch of " + batchIds.size() + " elements", e);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
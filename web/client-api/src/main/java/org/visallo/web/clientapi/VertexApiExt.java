@@ -16,13 +16,16 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 public class VertexApiExt extends VertexApi {
     public static final int VIDEO_TRANSCRIPT_INDEX_BITS = 12; // duplicated in org.visallo.core.model.textHighlighting.OffsetItem
     public static final int VIDEO_TRANSCRIPT_OFFSET_BITS = 20; // duplicated in org.visallo.core.model.textHighlighting.OffsetItem
     public static final String VERTEX_BASE_URL = "/vertex/";
+    public static final int DEFAULT_MULTIPLE_BATCH_SIZE = 500;
 
     public ClientApiElement create(String conceptType, String visibilitySource, String justificationText) throws ApiException {
         return create(conceptType, visibilitySource, justificationText, null, null);
@@ -114,10 +117,16 @@ public class VertexApiExt extends VertexApi {
         }
     }
 
+    /**
+     * The caller must close the returned stream, it holds a pooled connection until it is closed.
+     */
     public InputStream getRaw(String graphVertexId) throws IOException, ApiException {
         return getRaw(graphVertexId, true, false, null);
     }
 
+    /**
+     * The caller must close the returned stream, it holds a pooled connection until it is closed.
+     */
     public InputStream getRawForPlayback(String graphVertexId, String type) throws IOException, ApiException {
         return getRaw(graphVertexId, false, true, type);
     }
@@ -138,6 +147,9 @@ public class VertexApiExt extends VertexApi {
         return apiInvoker.getBinary(basePath, VERTEX_BASE_URL + "raw", queryParams, headerParams);
     }
 
+    /**
+     * The caller must close the returned stream, it holds a pooled connection until it is closed.
+     */
     public InputStream getThumbnail(String graphVertexId, Integer width) throws ApiException, IOException {
         Map<String, String> queryParams = new HashMap<String, String>();
         Map<String, String> headerParams = new HashMap<String, String>();
@@ -148,6 +160,9 @@ public class VertexApiExt extends VertexApi {
         return apiInvoker.getBinary(basePath, VERTEX_BASE_URL + "thumbnail", queryParams, headerParams);
     }
 
+    /**
+     * The caller must close the returned stream, it holds a pooled connection until it is closed.
+     */
     public InputStream getPosterFrame(String graphVertexId, Integer width) throws ApiException, IOException {
         Map<String, String> queryParams = new HashMap<String, String>();
         Map<String, String> headerParams = new HashMap<String, String>();
@@ -158,6 +173,9 @@ public class VertexApiExt extends VertexApi {
         return apiInvoker.getBinary(basePath, VERTEX_BASE_URL + "poster-frame", queryParams, headerParams);
     }
 
+    /**
+     * The caller must close the returned stream, it holds a pooled connection until it is closed.
+     */
     public InputStream getVideoPreview(String graphVertexId, Integer width) throws ApiException, IOException {
         Map<String, String> queryParams = new HashMap<String, String>();
         Map<String, String> headerParams = new HashMap<String, String>();
@@ -172,6 +190,137 @@ public class VertexApiExt extends VertexApi {
         return findRelated(vertexIds, null, null, null);
     }
 
+    /**
+     * Starts a cursor search, read the next pages with {@link #vertexSearchNextPage(String, Integer)} and the
+     * cursor returned in {@link ClientApiElementSearchResponse#getNextCursor()}.
+     */
+    public ClientApiElementSearchResponse vertexSearchWithCursor(String q, String filter, Integer size) throws ApiException {
+        Map<String, String> queryParams = new HashMap<String, String>();
+        queryParams.put("q", q);
+        queryParams.put("filter", filter);
+        queryParams.put("useCursor", "true");
+        if (size != null) {
+            queryParams.put("size", size.toString());
+        }
+        return vertexSearch(queryParams);
+    }
+
+    public ClientApiElementSearchResponse vertexSearchNextPage(String cursor, Integer size) throws ApiException {
+        Map<String, String> queryParams = new HashMap<String, String>();
+        queryParams.put("cursor", cursor);
+        if (size != null) {
+            queryParams.put("size", size.toString());
+        }
+        return vertexSearch(queryParams);
+    }
+
+    /**
+     * Iterates all the results of a search, reading them from the server one page at a time with a search cursor.
+     * The search cursor expires if the next page is not read in time.
+     */
+    public Iterable<ClientApiVertexiumObject> vertexSearchAll(final String q, final String filter, final int pageSize) {
+        return new Iterable<ClientApiVertexiumObject>() {
+            @Override
+            public Iterator<ClientApiVertexiumObject> iterator() {
+                return new SearchCursorIterator(pageSize) {
+                    @Override
+                    protected ClientApiElementSearchResponse firstPage() throws ApiException {
+                        return vertexSearchWithCursor(q, filter, pageSize);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Iterates the vertices with the given ids, requesting them from the server a batch of ids at a time as they are
+     * read. Vertices which are not found are left out.
+     */
+    public Iterable<ClientApiVertex> findMultipleBatched(final Iterable<String> vertexIds, final boolean fallbackToPublic, final int batchSize) {
+        return new Iterable<ClientApiVertex>() {
+            @Override
+            public Iterator<ClientApiVertex> iterator() {
+                return new MultipleRequestIterator<ClientApiVertex>(vertexIds.iterator(), batchSize) {
+                    @Override
+                    protected List<ClientApiVertex> requestBatch(List<String> batchIds) throws ApiException {
+                        ClientApiVertexMultipleResponse response = findMultipleStreaming(batchIds, fallbackToPublic);
+                        return response == null ? null : response.getVertices();
+                    }
+                };
+            }
+        };
+    }
+
+    public Iterable<ClientApiVertex> findMultipleBatched(Iterable<String> vertexIds, boolean fallbackToPublic) {
+        return findMultipleBatched(vertexIds, fallbackToPublic, DEFAULT_MULTIPLE_BATCH_SIZE);
+    }
+
+    private ClientApiVertexMultipleResponse findMultipleStreaming(List<String> vertexIds, boolean fallbackToPublic) throws ApiException {
+        Map<String, String> queryParams = new HashMap<String, String>();
+        Map<String, String> headerParams = new HashMap<String, String>();
+        Map<String, String> formParams = new HashMap<String, String>();
+        queryParams.put("fallbackToPublic", String.valueOf(fallbackToPublic));
+        FormDataMultiPart mp = new FormDataMultiPart();
+        for (String vertexId : vertexIds) {
+            mp.field("vertexIds[]", vertexId, MediaType.MULTIPART_FORM_DATA_TYPE);
+        }
+        return apiInvoker.invokeAPI(basePath, VERTEX_BASE_URL + "multiple", "POST", queryParams, mp, headerParams, formParams, "multipart/form-data", ClientApiVertexMultipleResponse.class);
+    }
+
+    private ClientApiElementSearchResponse vertexSearch(Map<String, String> queryParams) throws ApiException {
+        Map<String, String> headerParams = new HashMap<String, String>();
+        Map<String, String> formParams = new HashMap<String, String>();
+        return apiInvoker.invokeAPI(basePath, VERTEX_BASE_URL + "search", "POST", queryParams, null, headerParams, formParams, "application/json", ClientApiElementSearchResponse.class);
+    }
+
+    private abstract class SearchCursorIterator implements Iterator<ClientApiVertexiumObject> {
+        private final int pageSize;
+        private Iterator<ClientApiVertexiumObject> page;
+        private String nextCursor;
+        private boolean started;
+
+        SearchCursorIterator(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        protected abstract ClientApiElementSearchResponse firstPage() throws ApiException;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (page == null || !page.hasNext()) {
+                    ClientApiElementSearchResponse response;
+                    if (!started) {
+                        started = true;
+                        response = firstPage();
+                    } else if (nextCursor != null) {
+                        response = vertexSearchNextPage(nextCursor, pageSize);
+                    } else {
+                        return false;
+                    }
+                    page = response.getElements().iterator();
+                    nextCursor = response.getNextCursor();
+                }
+                return true;
+            } catch (ApiException e) {
+                throw new VisalloClientApiException("Could not read search page", e);
+            }
+        }
+
+        @Override
+        public ClientApiVertexiumObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     public static class FileForImport {
         private final String visibilitySource;
         private final String fileName;
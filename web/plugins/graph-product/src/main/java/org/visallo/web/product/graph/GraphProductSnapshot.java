@@ -0,0 +1,255 @@
+package org.visallo.web.product.graph;
+
+import org.json.JSONObject;
+import org.visallo.core.util.JSONUtil;
+
+import java.util.*;
+
+/**
+ * The nodes and edges of a graph product as seen by the system user. Every change made to the snapshot is recorded
+ * against a new version so clients holding an older version can fetch only what changed. Authorization is not part
+ * of the snapshot and is applied per request. Callers synchronize on the snapshot.
+ */
+class GraphProductSnapshot {
+    private final String productId;
+    private final String snapshotId = UUID.randomUUID().toString();
+    private final int maxChanges;
+    private final Map<String, JSONObject> nodes = new HashMap<>();
+    private final Map<String, JSONObject> edges = new HashMap<>();
+    private final Map<String, Set<String>> edgeIdsByVertexId = new HashMap<>();
+    private final LinkedList<Change> changes = new LinkedList<>();
+    private final Set<String> changedNodeIds = new HashSet<>();
+    private final Set<String> changedEdgeIds = new HashSet<>();
+    private final Set<String> pendingNodeIds = new HashSet<>();
+    private final Set<String> pendingEdgeIds = new HashSet<>();
+    private long version;
+    private boolean stale;
+    private boolean trimNeeded;
+
+    GraphProductSnapshot(String productId, int maxChanges) {
+        this.productId = productId;
+        this.maxChanges = maxChanges;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public String getSnapshotId() {
+        return snapshotId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, JSONObject> getNodes() {
+        return Collections.unmodifiableMap(nodes);
+    }
+
+    public Map<String, JSONObject> getEdges() {
+        return Collections.unmodifiableMap(edges);
+    }
+
+    public JSONObject getNode(String id) {
+        return nodes.get(id);
+    }
+
+    public boolean isVertexNode(String id) {
+        JSONObject node = nodes.get(id);
+        return node != null && "vertex".equals(node.optString("type"));
+    }
+
+    public void putNode(String id, JSONObject node) {
+        JSONObject existingNode = nodes.get(id);
+        if (existingNode != null && JSONUtil.areEqual(existingNode, node)) {
+            return;
+        }
+        if (existingNode != null && "vertex".equals(existingNode.optString("type")) && !"vertex".equals(node.optString("type"))) {
+            removeEdgesOfVertex(id);
+        }
+        nodes.put(id, node);
+        nodeChanged(id, existingNode);
+        nodeChanged(id, node);
+    }
+
+    public void removeNode(String id) {
+        JSONObject existingNode = nodes.remove(id);
+        if (existingNode != null) {
+            removeEdgesOfVertex(id);
+            nodeChanged(id, existingNode);
+        }
+    }
+
+    public void putEdge(String edgeId, String label, String outVertexId, String inVertexId) {
+        JSONObject edge = new JSONObject();
+        edge.put("edgeId", edgeId);
+        edge.put("label", label);
+        edge.put("outVertexId", outVertexId);
+        edge.put("inVertexId", inVertexId);
+
+        JSONObject existingEdge = edges.get(edgeId);
+        if (existingEdge != null && JSONUtil.areEqual(existingEdge, edge)) {
+            return;
+        }
+        if (existingEdge != null) {
+            removeEdge(edgeId);
+        }
+        edges.put(edgeId, edge);
+        edgeIdsByVertexId.computeIfAbsent(outVertexId, id -> new HashSet<>()).add(edgeId);
+        edgeIdsByVertexId.computeIfAbsent(inVertexId, id -> new HashSet<>()).add(edgeId);
+        changedEdgeIds.add(edgeId);
+    }
+
+    public void removeEdge(String edgeId) {
+        JSONObject existingEdge = edges.remove(edgeId);
+        if (existingEdge != null) {
+            removeEdgeIdOfVertex(existingEdge.getString("outVertexId"), edgeId);
+            removeEdgeIdOfVertex(existingEdge.getString("inVertexId"), edgeId);
+            changedEdgeIds.add(edgeId);
+        }
+    }
+
+    private void removeEdgesOfVertex(String vertexId) {
+        Set<String> edgeIds = edgeIdsByVertexId.get(vertexId);
+        if (edgeIds != null) {
+            new ArrayList<>(edgeIds).forEach(this::removeEdge);
+        }
+    }
+
+    private void removeEdgeIdOfVertex(String vertexId, String edgeId) {
+        Set<String> edgeIds = edgeIdsByVertexId.get(vertexId);
+        if (edgeIds != null) {
+            edgeIds.remove(edgeId);
+            if (edgeIds.isEmpty()) {
+                edgeIdsByVertexId.remove(vertexId);
+            }
+        }
+    }
+
+    /**
+     * A compound node's visibility depends on its descendants so the ancestors of a changed node change too.
+     */
+    private void nodeChanged(String id, JSONObject node) {
+        changedNodeIds.add(id);
+        String parentId = node.optString("parent", null);
+        Set<String> seen = new HashSet<>();
+        while (parentId != null && seen.add(parentId)) {
+            JSONObject parent = nodes.get(parentId);
+            if (parent == null) {
+                break;
+            }
+            changedNodeIds.add(parentId);
+            parentId = parent.optString("parent", null);
+        }
+    }
+
+    /**
+     * Records the changes made since the last commit as a new version.
+     */
+    public void commit() {
+        if (changedNodeIds.isEmpty() && changedEdgeIds.isEmpty()) {
+            return;
+        }
+        version++;
+        changes.add(new Change(version, new HashSet<>(changedNodeIds), new HashSet<>(changedEdgeIds)));
+        changedNodeIds.clear();
+        changedEdgeIds.clear();
+        while (changes.size() > maxChanges) {
+            changes.removeFirst();
+        }
+    }
+
+    /**
+     * @return false if the changes since the version are no longer kept and a full snapshot is needed
+     */
+    public boolean hasChangesSince(long sinceVersion) {
+        if (sinceVersion > version) {
+            return false;
+        }
+        if (sinceVersion == version) {
+            return true;
+        }
+        return !changes.isEmpty() && changes.getFirst().version <= sinceVersion + 1;
+    }
+
+    public Set<String> getChangedNodeIdsSince(long sinceVersion) {
+        Set<String> ids = new HashSet<>();
+        for (Change change : changes) {
+            if (change.version > sinceVersion) {
+                ids.addAll(change.nodeIds);
+            }
+        }
+        return ids;
+    }
+
+    public Set<String> getChangedEdgeIdsSince(long sinceVersion) {
+        Set<String> ids = new HashSet<>();
+        for (Change change : changes) {
+            if (change.version > sinceVersion) {
+                ids.addAll(change.edgeIds);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Product nodes whose product edges have changed and need to be read again.
+     */
+    public void addPendingNodeIds(Collection<String> ids) {
+        pendingNodeIds.addAll(ids);
+    }
+
+    public Set<String> takePendingNodeIds() {
+        Set<String> ids = new HashSet<>(pendingNodeIds);
+        pendingNodeIds.clear();
+        return ids;
+    }
+
+    /**
+     * Graph edges that have been added or changed and may connect product vertices.
+     */
+    public void addPendingEdgeId(String edgeId) {
+        pendingEdgeIds.add(edgeId);
+    }
+
+    public Set<String> takePendingEdgeIds() {
+        Set<String> ids = new HashSet<>(pendingEdgeIds);
+        pendingEdgeIds.clear();
+        return ids;
+    }
+
+    /**
+     * The product was changed elsewhere and all of its nodes need to be read again.
+     */
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * A vertex on the product was deleted and compound nodes need to be trimmed.
+     */
+    public void setTrimNeeded(boolean trimNeeded) {
+        this.trimNeeded = trimNeeded;
+    }
+
+    public boolean isTrimNeeded() {
+        return trimNeeded;
+    }
+
+    private static class Change {
+        private final long version;
+        private final Set<String> nodeIds;
+        private final Set<String> edgeIds;
+
+        private Change(long version, Set<String> nodeIds, Set<String> edgeIds) {
+            this.version = version;
+            this.nodeIds = nodeIds;
+            this.edgeIds = edgeIds;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.visallo.web.product.graph;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.util.JSONUtil;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link GraphProductSnapshot} of recently opened graph products. Snapshots are kept up to date by the
+ * changes made through {@link GraphWorkProduct} and by the element and product change broadcasts, so snapshots
+ * are only cached once this cache has subscribed to the broadcasts.
+ * <p>
+ * Every change is numbered. A snapshot read from the graph is only cached if neither its product nor the edges and
+ * vertices of any product changed after the number returned by {@link #getChangeCount()} before the read started,
+ * since a change made during the read can't be applied to a snapshot that isn't cached yet.
+ */
+@Singleton
+public class GraphProductSnapshotCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(GraphProductSnapshotCache.class);
+    public static final String CONFIG_MAX_SIZE = GraphProductSnapshotCache.class.getName() + ".maxSize";
+    public static final int DEFAULT_MAX_SIZE = 100;
+    public static final String CONFIG_MAX_AGE_SECONDS = GraphProductSnapshotCache.class.getName() + ".maxAgeSeconds";
+    public static final int DEFAULT_MAX_AGE_SECONDS = 10 * 60;
+    public static final String CONFIG_MAX_CHANGES = GraphProductSnapshotCache.class.getName() + ".maxChanges";
+    public static final int DEFAULT_MAX_CHANGES = 500;
+    private final Cache<String, GraphProductSnapshot> snapshots;
+    private final Cache<String, Long> lastChangeByProductId;
+    private final int maxChanges;
+    private final Object changeLock = new Object();
+    private long changeCount;
+    private long lastElementChange;
+    private volatile boolean subscribed;
+
+    @Inject
+    public GraphProductSnapshotCache(Configuration configuration) {
+        int maxAgeSeconds = configuration.getInt(CONFIG_MAX_AGE_SECONDS, DEFAULT_MAX_AGE_SECONDS);
+        this.snapshots = CacheBuilder.newBuilder()
+                .maximumSize(configuration.getInt(CONFIG_MAX_SIZE, DEFAULT_MAX_SIZE))
+                .expireAfterWrite(maxAgeSeconds, TimeUnit.SECONDS)
+                .build();
+        this.lastChangeByProductId = CacheBuilder.newBuilder()
+                .expireAfterWrite(maxAgeSeconds, TimeUnit.SECONDS)
+                .build();
+        this.maxChanges = configuration.getInt(CONFIG_MAX_CHANGES, DEFAULT_MAX_CHANGES);
+    }
+
+    public void subscribeToBroadcastMessages(WorkQueueRepository workQueueRepository) {
+        if (subscribed) {
+            return;
+        }
+        workQueueRepository.subscribeToBroadcastMessages(new WorkQueueRepository.BroadcastConsumer() {
+            @Override
+            public void broadcastReceived(JSONObject json) {
+                try {
+                    GraphProductSnapshotCache.this.broadcastReceived(json);
+                } catch (Exception ex) {
+                    LOGGER.error("Could not update graph product snapshots from broadcast: %s", json, ex);
+                    synchronized (changeLock) {
+                        lastElementChange = ++changeCount;
+                        snapshots.invalidateAll();
+                    }
+                }
+            }
+        });
+        subscribed = true;
+    }
+
+    GraphProductSnapshot newSnapshot(String productId) {
+        return new GraphProductSnapshot(productId, maxChanges);
+    }
+
+    GraphProductSnapshot get(String productId) {
+        return subscribed ? snapshots.getIfPresent(productId) : null;
+    }
+
+    /**
+     * @return the number of the last change, pass it to {@link #put(GraphProductSnapshot, long)}
+     */
+    long getChangeCount() {
+        synchronized (changeLock) {
+            return changeCount;
+        }
+    }
+
+    /**
+     * Caches the snapshot unless something it may depend on changed after readStartChangeCount.
+     *
+     * @return true if the snapshot was cached
+     */
+    boolean put(GraphProductSnapshot snapshot, long readStartChangeCount) {
+        if (!subscribed) {
+            return false;
+        }
+        synchronized (changeLock) {
+            Long lastProductChange = lastChangeByProductId.getIfPresent(snapshot.getProductId());
+            if (lastElementChange > readStartChangeCount
+                    || (lastProductChange != null && lastProductChange > readStartChangeCount)) {
+                LOGGER.debug("not caching snapshot of product %s, it changed while it was read", snapshot.getProductId());
+                return false;
+            }
+            snapshots.put(snapshot.getProductId(), snapshot);
+            return true;
+        }
+    }
+
+    void invalidate(String productId) {
+        synchronized (changeLock) {
+            lastChangeByProductId.put(productId, ++changeCount);
+            snapshots.invalidate(productId);
+        }
+    }
+
+    /**
+     * Marks the product edges of the given nodes as changed, they are read again the next time the product is fetched.
+     * Call this after the changes are flushed so the next fetch reads the changed product edges.
+     */
+    void nodesChanged(String productId, Collection<String> nodeIds) {
+        GraphProductSnapshot snapshot = getForChange(productId);
+        if (snapshot != null) {
+            synchronized (snapshot) {
+                snapshot.addPendingNodeIds(nodeIds);
+            }
+        }
+    }
+
+    void broadcastReceived(JSONObject json) {
+        String type = json.optString("type");
+        JSONObject data = json.optJSONObject("data");
+        if (data == null) {
+            return;
+        }
+        switch (type) {
+            case "workProductChange":
+                GraphProductSnapshot snapshot = getForChange(data.optString("id"));
+                if (snapshot != null) {
+                    synchronized (snapshot) {
+                        snapshot.setStale(true);
+                    }
+                }
+                break;
+            case "workProductDelete":
+                invalidate(data.optString("id"));
+                break;
+            case "edgeDeletion":
+                edgeDeleted(data.optString("edgeId", null));
+                break;
+            case "propertyChange":
+                edgeChanged(data.optString("graphEdgeId", null), data.optString("outVertexId", null), data.optString("inVertexId", null));
+                break;
+            case "verticesDeleted":
+                JSONArray vertexIds = data.optJSONArray("vertexIds");
+                if (vertexIds != null) {
+                    verticesDeleted(JSONUtil.toStringList(vertexIds));
+                }
+                break;
+        }
+    }
+
+    /**
+     * Records a change of the product and returns its cached snapshot. A snapshot cached after this call was read
+     * before the change and is not cached.
+     */
+    private GraphProductSnapshot getForChange(String productId) {
+        synchronized (changeLock) {
+            lastChangeByProductId.put(productId, ++changeCount);
+            return snapshots.getIfPresent(productId);
+        }
+    }
+
+    /**
+     * Records a change of elements which may be on any product and returns the cached snapshots.
+     */
+    private Collection<GraphProductSnapshot> getAllForElementChange() {
+        synchronized (changeLock) {
+            lastElementChange = ++changeCount;
+            return new ArrayList<>(snapshots.asMap().values());
+        }
+    }
+
+    private void edgeDeleted(String edgeId) {
+        if (edgeId == null) {
+            return;
+        }
+        for (GraphProductSnapshot snapshot : getAllForElementChange()) {
+            synchronized (snapshot) {
+                if (snapshot.getEdges().containsKey(edgeId)) {
+                    snapshot.removeEdge(edgeId);
+                    snapshot.commit();
+                }
+            }
+        }
+    }
+
+    private void edgeChanged(String edgeId, String outVertexId, String inVertexId) {
+        if (edgeId == null) {
+            return;
+        }
+        for (GraphProductSnapshot snapshot : getAllForElementChange()) {
+            synchronized (snapshot) {
+                if (snapshot.getEdges().containsKey(edgeId)
+                        || (snapshot.isVertexNode(outVertexId) && snapshot.isVertexNode(inVertexId))) {
+                    snapshot.addPendingEdgeId(edgeId);
+                }
+            }
+        }
+    }
+
+    private void verticesDeleted(List<String> vertexIds) {
+        for (GraphProductSnapshot snapshot : getAllForElementChange()) {
+            synchronized (snapshot) {
+                for (String vertexId : vertexIds) {
+                    if (snapshot.getNode(vertexId) != null) {
+                        snapshot.setTrimNeeded(true);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
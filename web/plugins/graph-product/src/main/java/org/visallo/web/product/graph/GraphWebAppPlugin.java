@@ -11,6 +11,7 @@ import org.visallo.core.model.Name;
 import org.visallo.core.model.ontology.OntologyRepository;
 import org.visallo.core.model.user.AuthorizationRepository;
 import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.web.VisalloCsrfHandler;
 import org.visallo.web.WebApp;
 import org.visallo.web.WebAppPlugin;
@@ -28,16 +29,22 @@ public class GraphWebAppPlugin implements WebAppPlugin {
     private final OntologyRepository ontologyRepository;
     private final UserRepository userRepository;
     private final AuthorizationRepository authorizationRepository;
+    private final WorkQueueRepository workQueueRepository;
+    private final GraphProductSnapshotCache snapshotCache;
 
     @Inject
     public GraphWebAppPlugin(
             OntologyRepository ontologyRepository,
             UserRepository userRepository,
-            AuthorizationRepository authorizationRepository
+            AuthorizationRepository authorizationRepository,
+            WorkQueueRepository workQueueRepository,
+            GraphProductSnapshotCache snapshotCache
     ) {
         this.ontologyRepository = ontologyRepository;
         this.userRepository = userRepository;
         this.authorizationRepository = authorizationRepository;
+        this.workQueueRepository = workQueueRepository;
+        this.snapshotCache = snapshotCache;
     }
 
     @Override
@@ -65,6 +72,7 @@ public class GraphWebAppPlugin implements WebAppPlugin {
         app.registerFile("/org/visallo/web/product/graph/select-arrow.png", "image/png");
 
         ensureOntologyDefined();
+        snapshotCache.subscribeToBroadcastMessages(workQueueRepository);
     }
 
     private void ensureOntologyDefined() {
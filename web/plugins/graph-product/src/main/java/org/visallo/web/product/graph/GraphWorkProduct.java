@@ -27,6 +27,7 @@ import org.visallo.web.clientapi.model.GraphPosition;
 import org.visallo.web.clientapi.model.VisibilityJson;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.visallo.web.product.graph.GraphProductOntology.ENTITY_POSITION;
@@ -36,6 +37,7 @@ public class GraphWorkProduct extends WorkProductElements {
     private final AuthorizationRepository authorizationRepository;
     private final GraphRepository graphRepository;
     private final UserRepository userRepository;
+    private final GraphProductSnapshotCache snapshotCache;
     private static final VisalloVisibility VISIBILITY = new VisalloVisibility(WorkspaceRepository.VISIBILITY_STRING);
     private static final String ROOT_NODE_ID = "root";
 
@@ -44,12 +46,14 @@ public class GraphWorkProduct extends WorkProductElements {
             OntologyRepository ontologyRepository,
             AuthorizationRepository authorizationRepository,
             GraphRepository graphRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            GraphProductSnapshotCache snapshotCache
     ) {
         super(ontologyRepository, authorizationRepository);
         this.authorizationRepository = authorizationRepository;
         this.graphRepository = graphRepository;
         this.userRepository = userRepository;
+        this.snapshotCache = snapshotCache;
     }
 
     @Override
@@ -62,16 +66,76 @@ public class GraphWorkProduct extends WorkProductElements {
             Authorizations authorizations
     ) {
         JSONObject extendedData = new JSONObject();
+        boolean includeVertices = params.optBoolean("includeVertices");
+        boolean includeEdges = params.optBoolean("includeEdges");
+        if (!includeVertices && !includeEdges) {
+            return extendedData;
+        }
 
-        if (params.optBoolean("includeVertices")) {
-            JSONObject nodes = getNodes(graph, productVertex, authorizations);
-
-            extendedData.put("vertices", nodes.get("vertices"));
-            extendedData.put("compoundNodes", nodes.get("compoundNodes"));
+        Long sinceVersion = JSONUtil.getOptionalLong(params, "sinceVersion");
+        String sinceSnapshotId = params.optString("snapshotId", null);
+        Map<String, JSONObject> nodes = new HashMap<>();
+        Map<String, JSONObject> nodesWithDescendants = new HashMap<>();
+        Map<String, JSONObject> edges = new HashMap<>();
+        Set<String> removedNodeIds = new HashSet<>();
+        Set<String> removedEdgeIds = new HashSet<>();
+        boolean delta;
+
+        // copy what is needed out of the snapshot so authorizations are checked without holding the lock
+        GraphProductSnapshot snapshot = getSnapshot(graph, productVertex);
+        synchronized (snapshot) {
+            extendedData.put("snapshotId", snapshot.getSnapshotId());
+            extendedData.put("version", snapshot.getVersion());
+            // a delta only checks the user's authorizations for the changed ids, so a client that needs the
+            // authorizations of everything in the product, e.g. after its copy was invalidated, fetches it in full
+            delta = sinceVersion != null
+                    && snapshot.getSnapshotId().equals(sinceSnapshotId)
+                    && snapshot.hasChangesSince(sinceVersion);
+
+            Collection<String> nodeIds = delta ? snapshot.getChangedNodeIdsSince(sinceVersion) : snapshot.getNodes().keySet();
+            Collection<String> edgeIds = delta ? snapshot.getChangedEdgeIdsSince(sinceVersion) : snapshot.getEdges().keySet();
+            if (includeVertices) {
+                for (String nodeId : nodeIds) {
+                    JSONObject node = snapshot.getNode(nodeId);
+                    if (node == null) {
+                        removedNodeIds.add(nodeId);
+                    } else {
+                        nodes.put(nodeId, copyJson(node));
+                    }
+                }
+                nodesWithDescendants.putAll(nodes);
+                if (delta) {
+                    nodes.values().forEach(node -> addDescendants(snapshot, node, nodesWithDescendants));
+                }
+            }
+            if (includeEdges) {
+                for (String edgeId : edgeIds) {
+                    JSONObject edge = snapshot.getEdges().get(edgeId);
+                    if (edge == null) {
+                        removedEdgeIds.add(edgeId);
+                    } else {
+                        edges.put(edgeId, copyJson(edge));
+                    }
+                }
+            }
         }
 
-        if (params.optBoolean("includeEdges")) {
-            extendedData.put("edges", getEdges(graph, productVertex, user, authorizations));
+        if (delta) {
+            extendedData.put("delta", true);
+        }
+        if (includeVertices) {
+            JSONObject nodesJson = getNodes(graph, nodes, nodesWithDescendants, authorizations);
+            extendedData.put("vertices", nodesJson.get("vertices"));
+            extendedData.put("compoundNodes", nodesJson.get("compoundNodes"));
+            if (delta) {
+                extendedData.put("removedVertices", new JSONArray(removedNodeIds));
+            }
+        }
+        if (includeEdges) {
+            extendedData.put("edges", getEdges(graph, edges, removedEdgeIds, authorizations));
+            if (delta) {
+                extendedData.put("removedEdges", new JSONArray(removedEdgeIds));
+            }
         }
 
         return extendedData;
@@ -79,38 +143,26 @@ public class GraphWorkProduct extends WorkProductElements {
 
     private JSONObject getNodes(
             Graph graph,
-            Vertex productVertex,
+            Map<String, JSONObject> nodes,
+            Map<String, JSONObject> nodesWithDescendants,
             Authorizations authorizations
     ) {
-        JSONObject nodes = new JSONObject();
+        JSONObject result = new JSONObject();
         JSONObject vertices = new JSONObject();
         JSONObject compoundNodes = new JSONObject();
 
-        trimCompoundNodes(graph, productVertex);
-
-        List<Edge> productVertexEdges = Lists.newArrayList(productVertex.getEdges(
-                Direction.OUT,
-                WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
-                authorizations
-        ));
-
-        List<String> ids = productVertexEdges.stream()
-                .map(edge -> edge.getOtherVertexId(productVertex.getId()))
-                .collect(Collectors.toList());
-        Map<String, Boolean> othersById = graph.doVerticesExist(ids, authorizations);
-
-        for (Edge propertyVertexEdge : productVertexEdges) {
-            String otherId = propertyVertexEdge.getOtherVertexId(productVertex.getId());
-            JSONObject vertexOrNode = new JSONObject();
-            vertexOrNode.put("id", otherId);
-            if (!othersById.getOrDefault(otherId, false)) {
+        Map<String, Boolean> othersById = graph.doVerticesExist(new ArrayList<>(nodesWithDescendants.keySet()), authorizations);
+        for (JSONObject vertexOrNode : nodesWithDescendants.values()) {
+            if (!othersById.getOrDefault(vertexOrNode.getString("id"), false)) {
                 vertexOrNode.put("unauthorized", true);
             }
-            setEdgeJson(propertyVertexEdge, vertexOrNode);
-            if (vertexOrNode.getString("type").equals("vertex")) {
-                vertices.put(otherId, vertexOrNode);
+        }
+
+        for (Map.Entry<String, JSONObject> entry : nodes.entrySet()) {
+            if (entry.getValue().getString("type").equals("vertex")) {
+                vertices.put(entry.getKey(), entry.getValue());
             } else {
-                compoundNodes.put(otherId, vertexOrNode);
+                compoundNodes.put(entry.getKey(), entry.getValue());
             }
         }
 
@@ -128,10 +180,7 @@ public class GraphWorkProduct extends WorkProductElements {
 
                             if (children != null) {
                                 JSONUtil.stream(children).forEach(nextChildId -> {
-                                    JSONObject nextChild = vertices.optJSONObject((String) nextChildId);
-                                    if (nextChild == null) {
-                                        nextChild = compoundNodes.optJSONObject((String) nextChildId);
-                                    }
+                                    JSONObject nextChild = nodesWithDescendants.get(nextChildId);
                                     if (nextChild != null) {
                                         childrenDFS.push(nextChild);
                                     }
@@ -145,50 +194,238 @@ public class GraphWorkProduct extends WorkProductElements {
                     });
         }
 
-        nodes.put("vertices", vertices);
-        nodes.put("compoundNodes", compoundNodes);
+        result.put("vertices", vertices);
+        result.put("compoundNodes", compoundNodes);
 
-        return nodes;
+        return result;
     }
 
     private JSONObject getEdges(
             Graph graph,
-            Vertex productVertex,
-            User user,
+            Map<String, JSONObject> edges,
+            Set<String> removedEdgeIds,
             Authorizations authorizations
     ) {
-        JSONObject edges = new JSONObject();
-        Authorizations systemAuthorizations = authorizationRepository.getGraphAuthorizations(
-                user,
-                VisalloVisibility.SUPER_USER_VISIBILITY_STRING
-        );
+        JSONObject result = new JSONObject();
+        Map<String, Boolean> edgesExist = graph.doEdgesExist(new ArrayList<>(edges.keySet()), authorizations);
+        for (Map.Entry<String, JSONObject> entry : edges.entrySet()) {
+            if (edgesExist.getOrDefault(entry.getKey(), false)) {
+                result.put(entry.getKey(), entry.getValue());
+            } else {
+                removedEdgeIds.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private GraphProductSnapshot getSnapshot(Graph graph, Vertex productVertex) {
+        GraphProductSnapshot snapshot = snapshotCache.get(productVertex.getId());
+        if (snapshot == null) {
+            long readStartChangeCount = snapshotCache.getChangeCount();
+            snapshot = createSnapshot(graph, productVertex);
+            snapshotCache.put(snapshot, readStartChangeCount);
+        } else {
+            synchronized (snapshot) {
+                refreshSnapshot(graph, productVertex, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    private GraphProductSnapshot createSnapshot(Graph graph, Vertex productVertex) {
+        trimCompoundNodes(graph, productVertex);
+
+        Authorizations systemAuthorizations = getSystemAuthorizations();
+        GraphProductSnapshot snapshot = snapshotCache.newSnapshot(productVertex.getId());
+        // the product vertex passed in may have been read before the trim or before the change count was taken
+        productVertex = graph.getVertex(productVertex.getId(), systemAuthorizations);
+        if (productVertex == null) {
+            snapshot.commit();
+            return snapshot;
+        }
+        readNodes(productVertex, systemAuthorizations).forEach(snapshot::putNode);
+
         Iterable<Vertex> productVertices = Lists.newArrayList(productVertex.getVertices(
                 Direction.OUT,
                 WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
                 systemAuthorizations
         ));
-        Iterable<RelatedEdge> productRelatedEdges = graph.findRelatedEdgeSummaryForVertices(productVertices, authorizations);
-        List<String> ids = StreamUtil.stream(productRelatedEdges)
-                .map(RelatedEdge::getEdgeId)
-                .collect(Collectors.toList());
-        Map<String, Boolean> relatedEdgesById = graph.doEdgesExist(ids, authorizations);
+        for (RelatedEdge relatedEdge : graph.findRelatedEdgeSummaryForVertices(productVertices, systemAuthorizations)) {
+            snapshot.putEdge(
+                    relatedEdge.getEdgeId(),
+                    relatedEdge.getLabel(),
+                    relatedEdge.getOutVertexId(),
+                    relatedEdge.getInVertexId()
+            );
+        }
+        snapshot.commit();
+        return snapshot;
+    }
+
+    /**
+     * Applies the product and element changes recorded since the snapshot was last used.
+     */
+    private void refreshSnapshot(Graph graph, Vertex productVertex, GraphProductSnapshot snapshot) {
+        Authorizations systemAuthorizations = getSystemAuthorizations();
+        if (snapshot.isTrimNeeded()) {
+            trimCompoundNodes(graph, productVertex);
+            snapshot.setTrimNeeded(false);
+            snapshot.setStale(true);
+        }
+
+        Set<String> addedVertexIds = new HashSet<>();
+        if (snapshot.isStale()) {
+            snapshot.setStale(false);
+            snapshot.takePendingNodeIds();
+            Vertex currentProductVertex = graph.getVertex(productVertex.getId(), systemAuthorizations);
+            Map<String, JSONObject> nodes = currentProductVertex == null
+                    ? new HashMap<>()
+                    : readNodes(currentProductVertex, systemAuthorizations);
+            for (String nodeId : new ArrayList<>(snapshot.getNodes().keySet())) {
+                if (!nodes.containsKey(nodeId)) {
+                    snapshot.removeNode(nodeId);
+                }
+            }
+            nodes.forEach((nodeId, node) -> putNode(snapshot, nodeId, node, addedVertexIds));
+        } else {
+            Set<String> pendingNodeIds = snapshot.takePendingNodeIds();
+            if (pendingNodeIds.size() > 0) {
+                List<String> edgeIds = pendingNodeIds.stream()
+                        .map(nodeId -> getEdgeId(productVertex.getId(), nodeId))
+                        .collect(Collectors.toList());
+                Map<String, Edge> productEdgesByNodeId = StreamUtil.stream(graph.getEdges(edgeIds, systemAuthorizations))
+                        .collect(Collectors.toMap(edge -> edge.getOtherVertexId(productVertex.getId()), Function.identity()));
+                for (String nodeId : pendingNodeIds) {
+                    Edge productEdge = productEdgesByNodeId.get(nodeId);
+                    if (productEdge == null) {
+                        snapshot.removeNode(nodeId);
+                    } else {
+                        putNode(snapshot, nodeId, toNodeJson(nodeId, productEdge), addedVertexIds);
+                    }
+                }
+            }
+        }
+
+        addEdgesOfVertices(graph, snapshot, addedVertexIds, systemAuthorizations);
+        refreshEdges(graph, snapshot, snapshot.takePendingEdgeIds(), systemAuthorizations);
+        snapshot.commit();
+    }
 
-        for (RelatedEdge relatedEdge : productRelatedEdges) {
-            String edgeId = relatedEdge.getEdgeId();
-            JSONObject edge = new JSONObject();
-            edge.put("edgeId", relatedEdge.getEdgeId());
+    private static void putNode(GraphProductSnapshot snapshot, String nodeId, JSONObject node, Set<String> addedVertexIds) {
+        if (!snapshot.isVertexNode(nodeId) && "vertex".equals(node.getString("type"))) {
+            addedVertexIds.add(nodeId);
+        }
+        snapshot.putNode(nodeId, node);
+    }
+
+    private void addEdgesOfVertices(
+            Graph graph,
+            GraphProductSnapshot snapshot,
+            Set<String> vertexIds,
+            Authorizations authorizations
+    ) {
+        if (vertexIds.size() == 0) {
+            return;
+        }
+        for (Vertex vertex : graph.getVertices(vertexIds, authorizations)) {
+            for (EdgeInfo edgeInfo : vertex.getEdgeInfos(Direction.OUT, authorizations)) {
+                if (snapshot.isVertexNode(edgeInfo.getVertexId())) {
+                    snapshot.putEdge(edgeInfo.getEdgeId(), edgeInfo.getLabel(), vertex.getId(), edgeInfo.getVertexId());
+                }
+            }
+            for (EdgeInfo edgeInfo : vertex.getEdgeInfos(Direction.IN, authorizations)) {
+                if (snapshot.isVertexNode(edgeInfo.getVertexId())) {
+                    snapshot.putEdge(edgeInfo.getEdgeId(), edgeInfo.getLabel(), edgeInfo.getVertexId(), vertex.getId());
+                }
+            }
+        }
+    }
 
-            if (relatedEdgesById.get(edgeId)) {
-                edge.put("label", relatedEdge.getLabel());
-                edge.put("outVertexId", relatedEdge.getOutVertexId());
-                edge.put("inVertexId", relatedEdge.getInVertexId());
+    private void refreshEdges(
+            Graph graph,
+            GraphProductSnapshot snapshot,
+            Set<String> edgeIds,
+            Authorizations authorizations
+    ) {
+        if (edgeIds.size() == 0) {
+            return;
+        }
+        Map<String, Edge> edgesById = StreamUtil.stream(graph.getEdges(edgeIds, FetchHint.NONE, authorizations))
+                .collect(Collectors.toMap(Edge::getId, Function.identity()));
+        for (String edgeId : edgeIds) {
+            Edge edge = edgesById.get(edgeId);
+            if (edge != null
+                    && snapshot.isVertexNode(edge.getVertexId(Direction.OUT))
+                    && snapshot.isVertexNode(edge.getVertexId(Direction.IN))) {
+                snapshot.putEdge(edgeId, edge.getLabel(), edge.getVertexId(Direction.OUT), edge.getVertexId(Direction.IN));
             } else {
-                edge.put("unauthorized", true);
+                snapshot.removeEdge(edgeId);
+            }
+        }
+    }
+
+    private Map<String, JSONObject> readNodes(Vertex productVertex, Authorizations authorizations) {
+        Map<String, JSONObject> nodes = new HashMap<>();
+        Iterable<Edge> productVertexEdges = productVertex.getEdges(
+                Direction.OUT,
+                WorkspaceProperties.PRODUCT_TO_ENTITY_RELATIONSHIP_IRI,
+                authorizations
+        );
+        for (Edge productVertexEdge : productVertexEdges) {
+            String otherId = productVertexEdge.getOtherVertexId(productVertex.getId());
+            nodes.put(otherId, toNodeJson(otherId, productVertexEdge));
+        }
+        return nodes;
+    }
+
+    private JSONObject toNodeJson(String nodeId, Edge productVertexEdge) {
+        JSONObject node = new JSONObject();
+        node.put("id", nodeId);
+        setEdgeJson(productVertexEdge, node);
+        return node;
+    }
+
+    private static void addDescendants(GraphProductSnapshot snapshot, JSONObject node, Map<String, JSONObject> nodes) {
+        ArrayDeque<JSONObject> queue = Queues.newArrayDeque();
+        queue.push(node);
+        while (!queue.isEmpty()) {
+            JSONArray children = queue.poll().optJSONArray("children");
+            if (children == null) {
+                continue;
+            }
+            for (String childId : JSONUtil.toStringList(children)) {
+                JSONObject child = snapshot.getNode(childId);
+                if (child != null && !nodes.containsKey(childId)) {
+                    JSONObject childCopy = copyJson(child);
+                    nodes.put(childId, childCopy);
+                    queue.push(childCopy);
+                }
             }
-            edges.put(edgeId, edge);
         }
+    }
+
+    private static JSONObject copyJson(JSONObject json) {
+        return new JSONObject(json, JSONObject.getNames(json));
+    }
+
+    private Authorizations getSystemAuthorizations() {
+        return authorizationRepository.getGraphAuthorizations(userRepository.getSystemUser());
+    }
+
+    /**
+     * Signals the changed nodes to the snapshot cache once the changes are flushed, so a fetch which takes the
+     * changed nodes reads the changed product edges.
+     */
+    private void flushAndSignalNodesChanged(GraphUpdateContext ctx, Vertex productVertex, Set<String> changedNodeIds) {
+        ctx.flush();
+        List<String> ids = changedNodeIds.stream()
+                .filter(nodeId -> nodeId != null && !ROOT_NODE_ID.equals(nodeId))
+                .collect(Collectors.toList());
+        snapshotCache.nodesChanged(productVertex.getId(), ids);
+    }
 
-        return edges;
+    private static void addChangedNodeIds(Set<String> changedNodeIds, String... nodeIds) {
+        Collections.addAll(changedNodeIds, nodeIds);
     }
 
     private void trimCompoundNodes(Graph graph, Vertex productVertex) {
@@ -208,11 +445,14 @@ public class GraphWorkProduct extends WorkProductElements {
                 .collect(Collectors.toList());
         Map<String, Boolean> othersById = graph.doVerticesExist(ids, authorizations);
 
+        // the trim is part of reading the snapshot, which reads the nodes again afterwards, so the changed nodes
+        // are not signalled to the snapshot cache
+        Set<String> changedNodeIds = new HashSet<>();
         try (GraphUpdateContext ctx = graphRepository.beginGraphUpdate(Priority.HIGH, systemUser, authorizations)) {
             for (Edge propertyVertexEdge : productVertexEdges) {
                 String otherId = propertyVertexEdge.getOtherVertexId(id);
                 if (!othersById.getOrDefault(otherId, false)) {
-                    removeChild(ctx, productVertex, otherId, id, visibility, authorizations);
+                    removeChild(ctx, productVertex, otherId, id, visibility, authorizations, changedNodeIds);
                 }
             }
         } catch (Exception ex) {
@@ -243,6 +483,7 @@ public class GraphWorkProduct extends WorkProductElements {
         }
 
         graph.flush();
+        snapshotCache.invalidate(productVertex.getId());
     }
 
     public JSONObject addCompoundNode(
@@ -272,12 +513,15 @@ public class GraphWorkProduct extends WorkProductElements {
             );
 
             ctx.flush();
+            Set<String> changedNodeIds = new HashSet<>();
+            changedNodeIds.add(vertexId);
 
             JSONArray children = params.getJSONArray("children");
             List<String> childIds = JSONUtil.toStringList(children);
             for (String childId : childIds) {
-                updateParent(ctx, productVertex, childId, vertexId, visibility, authorizations);
+                updateParent(ctx, productVertex, childId, vertexId, visibility, authorizations, changedNodeIds);
             }
+            flushAndSignalNodesChanged(ctx, productVertex, changedNodeIds);
 
             JSONObject json = new JSONObject();
             json.put("id", vertexId);
@@ -300,6 +544,7 @@ public class GraphWorkProduct extends WorkProductElements {
     ) {
         @SuppressWarnings("unchecked")
         List<String> vertexIds = Lists.newArrayList(updateVertices.keys());
+        Set<String> changedNodeIds = new HashSet<>();
         for (String id : vertexIds) {
             JSONObject updateData = updateVertices.getJSONObject(id);
             String edgeId = getEdgeId(productVertex.getId(), id);
@@ -317,7 +562,9 @@ public class GraphWorkProduct extends WorkProductElements {
                     visibility
             );
             ctx.update(edgeBuilder, elemCtx -> updateProductEdge(elemCtx, updateData, visibility));
+            changedNodeIds.add(id);
         }
+        flushAndSignalNodesChanged(ctx, productVertex, changedNodeIds);
     }
 
     public void removeVertices(
@@ -329,9 +576,11 @@ public class GraphWorkProduct extends WorkProductElements {
             Visibility visibility,
             Authorizations authorizations
     ) {
+        Set<String> changedNodeIds = new HashSet<>();
         JSONUtil.toList(removeVertices)
                 .forEach(id -> {
                     String edgeId = getEdgeId(productVertex.getId(), (String) id);
+                    changedNodeIds.add((String) id);
                     Edge productVertexEdge = ctx.getGraph().getEdge(edgeId, authorizations);
                     String parentId = GraphProductOntology.PARENT_NODE.getPropertyValue(productVertexEdge);
                     JSONArray children = GraphProductOntology.NODE_CHILDREN.getPropertyValue(productVertexEdge);
@@ -343,6 +592,7 @@ public class GraphWorkProduct extends WorkProductElements {
 
                             while (!childIdQueue.isEmpty()) {
                                 String childId = childIdQueue.poll();
+                                changedNodeIds.add(childId);
                                 String childEdgeId = getEdgeId(productVertex.getId(), childId);
 
                                 Edge childEdge = ctx.getGraph().getEdge(childEdgeId, authorizations);
@@ -357,7 +607,7 @@ public class GraphWorkProduct extends WorkProductElements {
                             }
                         } else {
                             JSONUtil.toStringList(children).forEach(childId -> {
-                                updateParent(ctx, productVertex, childId, parentId, visibility, authorizations);
+                                updateParent(ctx, productVertex, childId, parentId, visibility, authorizations, changedNodeIds);
                             });
                             ctx.getGraph().softDeleteVertex((String) id, authorizations);
                         }
@@ -366,10 +616,11 @@ public class GraphWorkProduct extends WorkProductElements {
                     }
 
                     if (!ROOT_NODE_ID.equals(parentId)) {
-                        removeChild(ctx, productVertex, (String) id, parentId, visibility, authorizations);
+                        removeChild(ctx, productVertex, (String) id, parentId, visibility, authorizations, changedNodeIds);
                     }
 
                 });
+        flushAndSignalNodesChanged(ctx, productVertex, changedNodeIds);
     }
 
     private void addChild(
@@ -378,7 +629,8 @@ public class GraphWorkProduct extends WorkProductElements {
             String childId,
             String parentId,
             Visibility visibility,
-            Authorizations authorizations
+            Authorizations authorizations,
+            Set<String> changedNodeIds
     ) {
         if (parentId.equals(ROOT_NODE_ID)) {
             return;
@@ -390,6 +642,7 @@ public class GraphWorkProduct extends WorkProductElements {
         JSONArray children = GraphProductOntology.NODE_CHILDREN.getPropertyValue(parentProductVertexEdge);
         if (!JSONUtil.arrayContains(children, childId)) {
             children.put(childId);
+            addChangedNodeIds(changedNodeIds, childId, parentId);
 
             EdgeBuilderByVertexId parentEdgeBuilder = ctx.getGraph().prepareEdge(
                     parentEdgeId,
@@ -422,7 +675,8 @@ public class GraphWorkProduct extends WorkProductElements {
             String childId,
             String parentId,
             Visibility visibility,
-            Authorizations authorizations
+            Authorizations authorizations,
+            Set<String> changedNodeIds
     ) {
         if (parentId.equals(ROOT_NODE_ID)) {
             return;
@@ -433,6 +687,7 @@ public class GraphWorkProduct extends WorkProductElements {
         JSONArray children = GraphProductOntology.NODE_CHILDREN.getPropertyValue(productVertexEdge);
 
         if (children != null) {
+            addChangedNodeIds(changedNodeIds, childId, parentId);
             for (int i = 0; i < children.length(); i++) {
                 if (children.get(i).equals(childId)) {
                     children.remove(i);
@@ -445,7 +700,7 @@ public class GraphWorkProduct extends WorkProductElements {
 
                 String ancestorId = GraphProductOntology.PARENT_NODE.getPropertyValue(productVertexEdge);
                 if (ancestorId.equals(productVertex.getId())) {
-                    removeChild(ctx, productVertex, parentId, ancestorId, visibility, authorizations);
+                    removeChild(ctx, productVertex, parentId, ancestorId, visibility, authorizations, changedNodeIds);
                 }
             } else {
                 EdgeBuilderByVertexId edgeBuilder = ctx.getGraph().prepareEdge(
@@ -466,7 +721,8 @@ public class GraphWorkProduct extends WorkProductElements {
             String childId,
             String parentId,
             Visibility visibility,
-            Authorizations authorizations
+            Authorizations authorizations,
+            Set<String> changedNodeIds
     ) {
         String edgeId = getEdgeId(productVertex.getId(), childId);
         Edge productVertexEdge = ctx.getGraph().getEdge(edgeId, authorizations);
@@ -486,9 +742,10 @@ public class GraphWorkProduct extends WorkProductElements {
                 visibility
         );
         ctx.update(edgeBuilder, elemCtx -> updateProductEdge(elemCtx, updateData, visibility));
+        addChangedNodeIds(changedNodeIds, childId, parentId, oldParentId);
 
-        removeChild(ctx, productVertex, childId, oldParentId, visibility, authorizations);
-        addChild(ctx, productVertex, childId, parentId, visibility, authorizations);
+        removeChild(ctx, productVertex, childId, oldParentId, visibility, authorizations, changedNodeIds);
+        addChild(ctx, productVertex, childId, parentId, visibility, authorizations, changedNodeIds);
     }
 
     private GraphPosition calculatePositionFromParents(
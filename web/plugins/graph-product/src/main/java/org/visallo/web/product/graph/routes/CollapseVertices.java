@@ -26,6 +26,7 @@ import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.ClientApiWorkspace;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 import org.visallo.web.parameterProviders.SourceGuid;
+import org.visallo.web.product.graph.GraphProductSnapshotCache;
 import org.visallo.web.product.graph.GraphWorkProduct;
 
 public class CollapseVertices implements ParameterizedHandler {
@@ -38,6 +39,7 @@ public class CollapseVertices implements ParameterizedHandler {
     private final AuthorizationRepository authorizationRepository;
     private final GraphRepository graphRepository;
     private final UserRepository userRepository;
+    private final GraphProductSnapshotCache snapshotCache;
 
     @Inject
     public CollapseVertices(
@@ -47,7 +49,8 @@ public class CollapseVertices implements ParameterizedHandler {
             OntologyRepository ontologyRepository,
             AuthorizationRepository authorizationRepository,
             GraphRepository graphRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            GraphProductSnapshotCache snapshotCache
     ) {
         this.graph = graph;
         this.workspaceRepository = workspaceRepository;
@@ -56,6 +59,7 @@ public class CollapseVertices implements ParameterizedHandler {
         this.authorizationRepository = authorizationRepository;
         this.graphRepository = graphRepository;
         this.userRepository = userRepository;
+        this.snapshotCache = snapshotCache;
     }
 
     @Handle
@@ -85,7 +89,7 @@ public class CollapseVertices implements ParameterizedHandler {
         );
 
         try (GraphUpdateContext ctx = graphRepository.beginGraphUpdate(Priority.HIGH, user, authorizations)) {
-            GraphWorkProduct graphWorkProduct = new GraphWorkProduct(ontologyRepository, authorizationRepository, graphRepository, userRepository);
+            GraphWorkProduct graphWorkProduct = new GraphWorkProduct(ontologyRepository, authorizationRepository, graphRepository, userRepository, snapshotCache);
             Vertex productVertex = graph.getVertex(productId, authorizations);
 
             params.putOpt("id", vertexId);
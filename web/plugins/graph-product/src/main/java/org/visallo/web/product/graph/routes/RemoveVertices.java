@@ -29,6 +29,7 @@ import org.visallo.web.clientapi.model.ClientApiSuccess;
 import org.visallo.web.clientapi.model.ClientApiWorkspace;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 import org.visallo.web.parameterProviders.SourceGuid;
+import org.visallo.web.product.graph.GraphProductSnapshotCache;
 import org.visallo.web.product.graph.GraphWorkProduct;
 
 public class RemoveVertices implements ParameterizedHandler {
@@ -41,6 +42,7 @@ public class RemoveVertices implements ParameterizedHandler {
     private final AuthorizationRepository authorizationRepository;
     private final GraphRepository graphRepository;
     private final UserRepository userRepository;
+    private final GraphProductSnapshotCache snapshotCache;
 
     @Inject
     public RemoveVertices(
@@ -50,7 +52,8 @@ public class RemoveVertices implements ParameterizedHandler {
             OntologyRepository ontologyRepository,
             AuthorizationRepository authorizationRepository,
             GraphRepository graphRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            GraphProductSnapshotCache snapshotCache
     ) {
         this.graph = graph;
         this.workspaceRepository = workspaceRepository;
@@ -59,6 +62,7 @@ public class RemoveVertices implements ParameterizedHandler {
         this.authorizationRepository = authorizationRepository;
         this.graphRepository = graphRepository;
         this.userRepository = userRepository;
+        this.snapshotCache = snapshotCache;
     }
 
     @Handle
@@ -87,7 +91,7 @@ public class RemoveVertices implements ParameterizedHandler {
                 workspaceId
         );
         try (GraphUpdateContext ctx = graphRepository.beginGraphUpdate(Priority.HIGH, user, authorizations)) {
-            GraphWorkProduct graphWorkProduct = new GraphWorkProduct(ontologyRepository, authorizationRepository, graphRepository, userRepository);
+            GraphWorkProduct graphWorkProduct = new GraphWorkProduct(ontologyRepository, authorizationRepository, graphRepository, userRepository, snapshotCache);
             Vertex productVertex = graph.getVertex(productId, authorizations);
             JSONArray removeVertices = new JSONArray(vertexIds);
 
@@ -29,6 +29,7 @@ import org.visallo.web.clientapi.model.ClientApiSuccess;
 import org.visallo.web.clientapi.model.ClientApiWorkspace;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 import org.visallo.web.parameterProviders.SourceGuid;
+import org.visallo.web.product.graph.GraphProductSnapshotCache;
 import org.visallo.web.product.graph.GraphWorkProduct;
 
 import java.util.List;
@@ -45,6 +46,7 @@ public class UpdateVertices implements ParameterizedHandler {
     private final AuthorizationRepository authorizationRepository;
     private final GraphRepository graphRepository;
     private final UserRepository userRepository;
+    private final GraphProductSnapshotCache snapshotCache;
 
     @Inject
     public UpdateVertices(
@@ -55,7 +57,8 @@ public class UpdateVertices implements ParameterizedHandler {
             OntologyRepository ontologyRepository,
             AuthorizationRepository authorizationRepository,
             GraphRepository graphRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            GraphProductSnapshotCache snapshotCache
     ) {
         this.graph = graph;
         this.workspaceRepository = workspaceRepository;
@@ -65,6 +68,7 @@ public class UpdateVertices implements ParameterizedHandler {
         this.authorizationRepository = authorizationRepository;
         this.graphRepository = graphRepository;
         this.userRepository = userRepository;
+        this.snapshotCache = snapshotCache;
     }
 
     @Handle
@@ -102,7 +106,7 @@ public class UpdateVertices implements ParameterizedHandler {
         );
 
         try (GraphUpdateContext ctx = graphRepository.beginGraphUpdate(Priority.HIGH, user, authorizations)) {
-            GraphWorkProduct graphWorkProduct = new GraphWorkProduct(ontologyRepository, authorizationRepository, graphRepository, userRepository);
+            GraphWorkProduct graphWorkProduct = new GraphWorkProduct(ontologyRepository, authorizationRepository, graphRepository, userRepository, snapshotCache);
             Vertex productVertex = graph.getVertex(productId, authorizations);
 
             graphWorkProduct.updateVertices(ctx, productVertex, updateVertices, user, WorkspaceRepository.VISIBILITY.getVisibility(), authorizations);
@@ -1,18 +1,22 @@
 import configureMockStore from 'redux-mock-store';
 import thunk from 'redux-thunk';
 import actions from '../../worker/actions-impl';
+import ajax from 'data/web-worker/util/ajax';
+import productActions from 'data/web-worker/store/product/actions-impl';
+import elementActions from 'data/web-worker/store/element/actions-impl';
 
 jest.mock('data/web-worker/store/actions', () => ({
     protectFromMain: jest.fn()
 }));
-jest.mock('data/web-worker/util/ajax', () => () =>
+jest.mock('data/web-worker/util/ajax', () => jest.fn(() =>
     Promise.resolve({
         extendedData: {
             edges: []
         }
-    }));
+    })));
 jest.mock('data/web-worker/store/product/actions-impl', () => ({
-    update: jest.fn(() => ({ type: 'MOCK_PRODUCT_UPDATE' }))
+    update: jest.fn(() => ({ type: 'MOCK_PRODUCT_UPDATE' })),
+    applyExtendedDataDelta: jest.fn((product, updatedProduct) => updatedProduct)
 }));
 jest.mock('data/web-worker/store/element/actions-impl', () => ({
     get: jest.fn(() => ({ type: 'MOCK_ELEMENT_GET' }))
@@ -391,5 +395,82 @@ describe('graph plugin actions', () => {
                 expect(store.getActions()).toEqual(expectedActions);
             });
         });
+
+        it('should only fetch the changes since the product version when adding a new vertex', () => {
+            const productId = 'PRODUCT1';
+            const product = {
+                extendedData: {
+                    snapshotId: 'SNAPSHOT1',
+                    version: 3,
+                    vertices: {}
+                }
+            };
+            const updatedProduct = {
+                extendedData: {
+                    delta: true,
+                    snapshotId: 'SNAPSHOT1',
+                    version: 4,
+                    vertices: {
+                        VERTEX1: { id: 'VERTEX1', pos: { x: 5, y: 10 }}
+                    },
+                    compoundNodes: {},
+                    removedVertices: [],
+                    edges: {
+                        EDGE1: { edgeId: 'EDGE1' }
+                    },
+                    removedEdges: []
+                }
+            };
+            ajax.mockImplementationOnce(() => Promise.resolve({}))
+                .mockImplementationOnce(() => Promise.resolve(updatedProduct));
+            const store = mockStore({
+                workspace: {
+                    currentId: 'WORKSPACE1',
+                    byId: {
+                        WORKSPACE1: {
+                            editable: true
+                        }
+                    }
+                },
+                product: {
+                    workspaces: {
+                        WORKSPACE1: {
+                            products: {
+                                [productId]: product
+                            }
+                        }
+                    }
+                }
+            });
+
+            return store.dispatch(
+                actions.setPositions({
+                    productId,
+                    updateVertices: {
+                        VERTEX1: {
+                            id: 'VERTEX1',
+                            pos: {
+                                x: 5,
+                                y: 10
+                            }
+                        }
+                    }
+                })
+            ).then(() => {
+                expect(ajax).toHaveBeenLastCalledWith('GET', '/product', {
+                    productId,
+                    includeExtended: true,
+                    params: {
+                        includeVertices: true,
+                        includeEdges: true,
+                        snapshotId: 'SNAPSHOT1',
+                        sinceVersion: 3
+                    }
+                });
+                expect(productActions.applyExtendedDataDelta).toHaveBeenCalledWith(product, updatedProduct);
+                expect(productActions.update).toHaveBeenLastCalledWith(updatedProduct);
+                expect(elementActions.get).toHaveBeenLastCalledWith(expect.objectContaining({ edgeIds: ['EDGE1'] }));
+            });
+        });
     });
 });
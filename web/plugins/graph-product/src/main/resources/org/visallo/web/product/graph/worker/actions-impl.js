@@ -131,16 +131,28 @@ define([
 
             return ajax('POST', '/product/graph/vertices/update', { productId, updates: updateVertices }).then(() => {
                 if (addingNewVertices) {
+                    const params = {
+                        includeVertices: true,
+                        includeEdges: true
+                    };
+                    const { snapshotId, version } = product.extendedData;
+                    if (snapshotId && version !== undefined) {
+                        // only fetch what changed since the version we have
+                        params.snapshotId = snapshotId;
+                        params.sinceVersion = version;
+                    }
                     return ajax('GET', '/product', { productId,
                         includeExtended: true,
-                        params: {
-                            includeVertices: true,
-                            includeEdges: true
+                        params
+                    }).then(updatedProduct => {
+                        const { edges, delta } = updatedProduct.extendedData;
+                        if (delta) {
+                            const currentProduct = getState().product.workspaces[workspaceId].products[productId];
+                            dispatch(productActions.update(productActions.applyExtendedDataDelta(currentProduct, updatedProduct)));
+                        } else {
+                            dispatch(productActions.update(updatedProduct));
                         }
-                    }).then(product => {
-                        dispatch(productActions.update(product));
 
-                        const { edges } = product.extendedData;
                         const vertexIds = Object.keys(byType.vertex);
                         const edgeIds = _.pluck(edges, 'edgeId');
                         return dispatch(elementActions.get({ workspaceId, vertexIds, edgeIds }));
@@ -0,0 +1,200 @@
+package org.visallo.web.product.graph;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.vertexium.inmemory.InMemoryGraph;
+import org.visallo.core.config.Configuration;
+import org.visallo.core.config.HashMapConfigurationLoader;
+import org.visallo.core.model.graph.GraphRepository;
+import org.visallo.core.model.graph.GraphUpdateContext;
+import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.model.termMention.TermMentionRepository;
+import org.visallo.core.model.user.AuthorizationRepository;
+import org.visallo.core.model.user.UserRepository;
+import org.visallo.core.model.workQueue.Priority;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
+import org.visallo.core.model.workspace.WorkspaceRepository;
+import org.visallo.core.security.DirectVisibilityTranslator;
+import org.visallo.core.user.User;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GraphWorkProductTest {
+    private static final String PRODUCT_ID = "product1";
+    private InMemoryGraph graph;
+    private Authorizations authorizations;
+    private Visibility visibility;
+    private GraphRepository graphRepository;
+    private GraphProductSnapshotCache snapshotCache;
+    private GraphWorkProduct graphWorkProduct;
+
+    @Mock
+    private OntologyRepository ontologyRepository;
+
+    @Mock
+    private AuthorizationRepository authorizationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TermMentionRepository termMentionRepository;
+
+    @Mock
+    private WorkQueueRepository workQueueRepository;
+
+    @Mock
+    private User user;
+
+    @Before
+    public void before() {
+        graph = InMemoryGraph.create();
+        authorizations = graph.createAuthorizations(WorkspaceRepository.VISIBILITY_STRING);
+        visibility = new Visibility(WorkspaceRepository.VISIBILITY_STRING);
+        when(authorizationRepository.getGraphAuthorizations(any(User.class))).thenReturn(authorizations);
+
+        Configuration configuration = new Configuration(new HashMapConfigurationLoader(new HashMap()), new HashMap<>());
+        snapshotCache = new GraphProductSnapshotCache(configuration);
+        snapshotCache.subscribeToBroadcastMessages(workQueueRepository);
+        graphRepository = new GraphRepository(graph, new DirectVisibilityTranslator(), termMentionRepository, workQueueRepository);
+        graphWorkProduct = new GraphWorkProduct(ontologyRepository, authorizationRepository, graphRepository, userRepository, snapshotCache);
+
+        graph.addVertex(PRODUCT_ID, visibility, authorizations);
+        graph.addVertex("v1", new Visibility(""), authorizations);
+        graph.addVertex("v2", new Visibility(""), authorizations);
+        graph.addVertex("v3", new Visibility(""), authorizations);
+        graph.addEdge("e12", "v1", "v2", "link", new Visibility(""), authorizations);
+        graph.addEdge("e23", "v2", "v3", "link", new Visibility(""), authorizations);
+        graph.flush();
+    }
+
+    @Test
+    public void testSnapshot() {
+        addVertices("v1", "v2");
+
+        JSONObject extendedData = getExtendedData(null, null);
+        assertEquals(keys("v1", "v2"), keys(extendedData.getJSONObject("vertices")));
+        assertEquals(keys("e12"), keys(extendedData.getJSONObject("edges")));
+        assertFalse(extendedData.has("delta"));
+
+        JSONObject cachedExtendedData = getExtendedData(null, null);
+        assertEquals(extendedData.getString("snapshotId"), cachedExtendedData.getString("snapshotId"));
+        assertEquals(extendedData.getLong("version"), cachedExtendedData.getLong("version"));
+    }
+
+    @Test
+    public void testDelta() {
+        addVertices("v1", "v2");
+        JSONObject extendedData = getExtendedData(null, null);
+        String snapshotId = extendedData.getString("snapshotId");
+        long version = extendedData.getLong("version");
+
+        addVertices("v3");
+        JSONObject delta = getExtendedData(snapshotId, version);
+        assertTrue(delta.getBoolean("delta"));
+        assertEquals(snapshotId, delta.getString("snapshotId"));
+        assertTrue(delta.getLong("version") > version);
+        assertEquals(keys("v3"), keys(delta.getJSONObject("vertices")));
+        assertEquals(keys("e23"), keys(delta.getJSONObject("edges")));
+        assertEquals(0, delta.getJSONArray("removedVertices").length());
+
+        version = delta.getLong("version");
+        try (GraphUpdateContext ctx = graphRepository.beginGraphUpdate(Priority.HIGH, user, authorizations)) {
+            Vertex productVertex = graph.getVertex(PRODUCT_ID, authorizations);
+            graphWorkProduct.removeVertices(ctx, productVertex, new JSONArray("[\"v1\"]"), false, user, visibility, authorizations);
+        }
+        delta = getExtendedData(snapshotId, version);
+        assertTrue(delta.getBoolean("delta"));
+        assertEquals(0, delta.getJSONObject("vertices").length());
+        assertEquals("v1", delta.getJSONArray("removedVertices").getString(0));
+        assertEquals("e12", delta.getJSONArray("removedEdges").getString(0));
+
+        JSONObject full = getExtendedData("otherSnapshotId", version);
+        assertFalse(full.has("delta"));
+        assertEquals(keys("v2", "v3"), keys(full.getJSONObject("vertices")));
+    }
+
+    @Test
+    public void testInvalidation() {
+        addVertices("v1", "v2", "v3");
+        JSONObject extendedData = getExtendedData(null, null);
+        String snapshotId = extendedData.getString("snapshotId");
+        long version = extendedData.getLong("version");
+
+        graph.softDeleteEdge("e12", authorizations);
+        graph.flush();
+        snapshotCache.broadcastReceived(new JSONObject("{\"type\":\"edgeDeletion\",\"data\":{\"edgeId\":\"e12\"}}"));
+        JSONObject delta = getExtendedData(snapshotId, version);
+        assertTrue(delta.getBoolean("delta"));
+        assertEquals("e12", delta.getJSONArray("removedEdges").getString(0));
+        assertEquals(keys("e23"), keys(getExtendedData(null, null).getJSONObject("edges")));
+
+        snapshotCache.broadcastReceived(new JSONObject("{\"type\":\"workProductDelete\",\"data\":{\"id\":\"" + PRODUCT_ID + "\"}}"));
+        assertNotEquals(snapshotId, getExtendedData(null, null).getString("snapshotId"));
+    }
+
+    @Test
+    public void testSnapshotChangedWhileReadIsNotCached() {
+        long readStartChangeCount = snapshotCache.getChangeCount();
+        GraphProductSnapshot snapshot = snapshotCache.newSnapshot(PRODUCT_ID);
+        snapshotCache.nodesChanged(PRODUCT_ID, Collections.singletonList("v1"));
+        assertFalse(snapshotCache.put(snapshot, readStartChangeCount));
+        assertNull(snapshotCache.get(PRODUCT_ID));
+
+        readStartChangeCount = snapshotCache.getChangeCount();
+        snapshotCache.broadcastReceived(new JSONObject("{\"type\":\"edgeDeletion\",\"data\":{\"edgeId\":\"e12\"}}"));
+        assertFalse(snapshotCache.put(snapshot, readStartChangeCount));
+
+        readStartChangeCount = snapshotCache.getChangeCount();
+        snapshotCache.nodesChanged("otherProduct", Collections.singletonList("v1"));
+        assertTrue(snapshotCache.put(snapshot, readStartChangeCount));
+        assertSame(snapshot, snapshotCache.get(PRODUCT_ID));
+    }
+
+    private void addVertices(String... vertexIds) {
+        JSONObject updateVertices = new JSONObject();
+        for (String vertexId : vertexIds) {
+            updateVertices.put(vertexId, new JSONObject("{\"pos\":{\"x\":0,\"y\":0},\"parent\":\"root\"}"));
+        }
+        try (GraphUpdateContext ctx = graphRepository.beginGraphUpdate(Priority.HIGH, user, authorizations)) {
+            Vertex productVertex = graph.getVertex(PRODUCT_ID, authorizations);
+            graphWorkProduct.updateVertices(ctx, productVertex, updateVertices, user, visibility, authorizations);
+        }
+    }
+
+    private JSONObject getExtendedData(String snapshotId, Long sinceVersion) {
+        JSONObject params = new JSONObject();
+        params.put("includeVertices", true);
+        params.put("includeEdges", true);
+        params.putOpt("snapshotId", snapshotId);
+        params.putOpt("sinceVersion", sinceVersion);
+        Vertex productVertex = graph.getVertex(PRODUCT_ID, authorizations);
+        return graphWorkProduct.getExtendedData(graph, null, productVertex, params, user, authorizations);
+    }
+
+    private static Set<String> keys(JSONObject json) {
+        Set<String> keys = new HashSet<>();
+        Iterator<?> it = json.keys();
+        while (it.hasNext()) {
+            keys.add((String) it.next());
+        }
+        return keys;
+    }
+
+    private static Set<String> keys(String... keys) {
+        return new HashSet<>(Arrays.asList(keys));
+    }
+}
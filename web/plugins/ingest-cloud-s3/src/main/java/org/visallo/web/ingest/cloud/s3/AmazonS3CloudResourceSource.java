@@ -2,7 +2,7 @@ package org.visallo.web.ingest.cloud.s3;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.GetObjectRequest;
-import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.google.inject.Inject;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -44,7 +44,7 @@ public class AmazonS3CloudResourceSource implements CloudResourceSource {
     }
 
     static class AmazonS3CloudResourceSourceItem implements CloudResourceSourceItem {
-        private S3Object object;
+        private ObjectMetadata objectMetadata;
         private AmazonS3 s3;
         private String bucket;
         private String key;
@@ -57,7 +57,17 @@ public class AmazonS3CloudResourceSource implements CloudResourceSource {
 
         @Override
         public InputStream getInputStream() {
-            return getObject().getObjectContent();
+            return s3.getObject(new GetObjectRequest(bucket, key)).getObjectContent();
+        }
+
+        @Override
+        public boolean isRangeSupported() {
+            return true;
+        }
+
+        @Override
+        public InputStream getInputStream(long start, long end) {
+            return s3.getObject(new GetObjectRequest(bucket, key).withRange(start, end)).getObjectContent();
         }
 
         @Override
@@ -74,14 +84,14 @@ public class AmazonS3CloudResourceSource implements CloudResourceSource {
 
         @Override
         public Long getSize() {
-            return getObject().getObjectMetadata().getContentLength();
+            return getObjectMetadata().getContentLength();
         }
 
-        private synchronized S3Object getObject() {
-            if (object == null) {
-                object = s3.getObject(new GetObjectRequest(bucket, key));
+        private synchronized ObjectMetadata getObjectMetadata() {
+            if (objectMetadata == null) {
+                objectMetadata = s3.getObjectMetadata(bucket, key);
             }
-            return object;
+            return objectMetadata;
         }
     }
 }
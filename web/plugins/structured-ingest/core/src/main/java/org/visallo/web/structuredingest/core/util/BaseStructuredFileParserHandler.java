@@ -4,6 +4,7 @@ import org.visallo.web.structuredingest.core.util.mapping.ColumnMappingType;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 public class BaseStructuredFileParserHandler {
@@ -35,6 +36,14 @@ public class BaseStructuredFileParserHandler {
         return true;
     }
 
+    /**
+     * The columns this handler will read from the rows it is given, or null if it needs every column.
+     * Parsers may use this to avoid decoding columns that are never used.
+     */
+    public Set<String> getColumnsToRead() {
+        return null;
+    }
+
     public void setTotalRows(long rows) {
         this.totalRows = rows;
     }
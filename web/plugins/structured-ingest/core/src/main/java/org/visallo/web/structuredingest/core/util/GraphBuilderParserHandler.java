@@ -38,6 +38,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.visallo.core.model.properties.VisalloProperties.VISIBILITY_JSON_METADATA;
@@ -247,6 +248,11 @@ public class GraphBuilderParserHandler extends BaseStructuredFileParserHandler {
         return !dryRun || maxParseErrors <= 0 || parseErrors.errors.size() < maxParseErrors;
     }
 
+    @Override
+    public Set<String> getColumnsToRead() {
+        return parseMapping.getColumnKeys();
+    }
+
     private void incrementConcept(VertexMapping vertexMapping, boolean isNew) {
         for (PropertyMapping mapping : vertexMapping.propertyMappings) {
             if (VisalloProperties.CONCEPT_TYPE.getPropertyName().equals(mapping.name)) {
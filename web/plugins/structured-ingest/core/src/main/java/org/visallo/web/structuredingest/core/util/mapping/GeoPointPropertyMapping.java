@@ -8,6 +8,7 @@ import org.visallo.core.security.VisibilityTranslator;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -96,6 +97,16 @@ public class GeoPointPropertyMapping extends PropertyMapping {
         return latRawValue.trim() + ", " + lonRawValue.trim();
     }
 
+    @Override
+    public Set<String> getColumnKeys() {
+        Set<String> columnKeys = super.getColumnKeys();
+        if (StringUtils.isBlank(key) && StringUtils.isBlank(value)) {
+            columnKeys.add(latColumn);
+            columnKeys.add(lonColumn);
+        }
+        return columnKeys;
+    }
+
     @Override
     public Object decodeValue(Object rawPropertyValue) {
         if(rawPropertyValue instanceof String && !StringUtils.isBlank((String) rawPropertyValue)) {
@@ -12,7 +12,9 @@ import org.visallo.web.clientapi.model.PropertyType;
 import org.visallo.web.clientapi.model.VisibilityJson;
 import org.visallo.web.structuredingest.core.model.ClientApiMappingErrors;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class PropertyMapping {
     public static final String PROPERTY_MAPPING_NAME_KEY = "name";
@@ -64,6 +66,18 @@ public class PropertyMapping {
         }
     }
 
+    /**
+     * The names of the columns this mapping reads from a row. Parsers that can skip reading
+     * unused columns (e.g. columnar formats) use this to limit what they decode.
+     */
+    public Set<String> getColumnKeys() {
+        Set<String> columnKeys = new HashSet<>();
+        if (StringUtils.isBlank(value) && !StringUtils.isBlank(key)) {
+            columnKeys.add(key);
+        }
+        return columnKeys;
+    }
+
     public Object decodeValue(Map<String, Object> row) throws Exception {
         return decodeValue(extractRawValue(row));
     }
@@ -0,0 +1,156 @@
+package org.visallo.web.structuredingest.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.tools.read.SimpleRecord;
+import org.apache.parquet.tools.read.SimpleRecordMaterializer;
+import org.visallo.core.exception.VisalloException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decodes the row groups of a parquet file in parallel while handing the records to a single
+ * consumer in file order. Each row group is decoded into its own bounded queue, so at most
+ * threads * queueSize records are held in memory, and row numbers are the same as a serial read.
+ */
+public class ParquetRowGroupReader {
+    private static final SimpleRecord END_OF_ROW_GROUP = new SimpleRecord();
+    private static final AtomicInteger READER_COUNTER = new AtomicInteger();
+
+    private final Configuration conf;
+    private final Path path;
+    private final ParquetMetadata metaData;
+    private final MessageType requestedSchema;
+    private final int threads;
+    private final int queueSize;
+
+    public interface RecordHandler {
+        /**
+         * @return false to stop reading
+         */
+        boolean handle(SimpleRecord record, long rowNum) throws Exception;
+    }
+
+    public ParquetRowGroupReader(
+            Configuration conf,
+            Path path,
+            ParquetMetadata metaData,
+            MessageType requestedSchema,
+            int threads,
+            int queueSize
+    ) {
+        this.conf = conf;
+        this.path = path;
+        this.metaData = metaData;
+        this.requestedSchema = requestedSchema;
+        this.threads = Math.max(1, threads);
+        this.queueSize = Math.max(1, queueSize);
+    }
+
+    public void read(RecordHandler handler) throws Exception {
+        List<BlockMetaData> blocks = metaData.getBlocks();
+        if (blocks.isEmpty()) {
+            return;
+        }
+
+        final String threadNamePrefix = "parquet-row-group-" + READER_COUNTER.incrementAndGet() + "-";
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, blocks.size()), new ThreadFactory() {
+            private final AtomicInteger threadCounter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, threadNamePrefix + threadCounter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        try {
+            // Tasks are submitted in file order and the executor runs them in that order, so the row group
+            // the consumer is waiting on is always running or finished and the bounded queues cannot deadlock.
+            List<RowGroupTask> tasks = new ArrayList<>();
+            long startRowNum = 0;
+            for (BlockMetaData block : blocks) {
+                RowGroupTask task = new RowGroupTask(block, startRowNum);
+                tasks.add(task);
+                executor.execute(task);
+                startRowNum += block.getRowCount();
+            }
+
+            for (RowGroupTask task : tasks) {
+                long rowNum = task.startRowNum;
+                for (SimpleRecord record = task.queue.take(); record != END_OF_ROW_GROUP; record = task.queue.take()) {
+                    if (!handler.handle(record, rowNum++)) {
+                        return;
+                    }
+                }
+                if (task.error != null) {
+                    throw new VisalloException("Could not read parquet row group starting at row " + task.startRowNum, task.error);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private class RowGroupTask implements Runnable {
+        private final BlockMetaData block;
+        private final long startRowNum;
+        private final BlockingQueue<SimpleRecord> queue = new ArrayBlockingQueue<>(queueSize);
+        private volatile Throwable error;
+
+        public RowGroupTask(BlockMetaData block, long startRowNum) {
+            this.block = block;
+            this.startRowNum = startRowNum;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (requestedSchema.getFieldCount() == 0) {
+                    // nothing to decode, the handler only needs to see each row
+                    for (long i = 0; i < block.getRowCount(); i++) {
+                        queue.put(new SimpleRecord());
+                    }
+                } else {
+                    readRowGroup();
+                }
+            } catch (InterruptedException ex) {
+                // the consumer stopped reading
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable ex) {
+                error = ex;
+            }
+
+            try {
+                queue.put(END_OF_ROW_GROUP);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void readRowGroup() throws Exception {
+            MessageType fileSchema = metaData.getFileMetaData().getSchema();
+            try (ParquetFileReader fileReader = new ParquetFileReader(conf, path, Collections.singletonList(block), requestedSchema.getColumns())) {
+                PageReadStore pages = fileReader.readNextRowGroup();
+                MessageColumnIO columnIO = new ColumnIOFactory().getColumnIO(requestedSchema, fileSchema);
+                RecordReader<SimpleRecord> recordReader = columnIO.getRecordReader(pages, new SimpleRecordMaterializer(requestedSchema));
+                for (long i = 0; i < pages.getRowCount(); i++) {
+                    queue.put(recordReader.read());
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.visallo.web.structuredingest.parquet;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.inject.Inject;
 import jodd.datetime.JDateTime;
 import jodd.datetime.JulianDateStamp;
 import org.apache.commons.io.IOUtils;
@@ -33,6 +34,7 @@ import org.visallo.web.structuredingest.core.util.mapping.ColumnMappingType;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -46,6 +48,30 @@ public class ParquetStructuredIngestParser implements StructuredIngestParser {
     private static final String PARQUET_MIME_TYPE = "application/x-parquet";
     private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
     private static final long NANOS_PER_DAY = MILLIS_PER_DAY * 1000000;
+    public static final String CONFIG_ROW_GROUP_THREADS = ParquetStructuredIngestParser.class.getName() + ".rowGroupThreads";
+    public static final String CONFIG_ROW_QUEUE_SIZE = ParquetStructuredIngestParser.class.getName() + ".rowQueueSize";
+    public static final int DEFAULT_ROW_GROUP_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_ROW_QUEUE_SIZE = 1000;
+
+    private final int rowGroupThreads;
+    private final int rowQueueSize;
+
+    public ParquetStructuredIngestParser() {
+        this(DEFAULT_ROW_GROUP_THREADS, DEFAULT_ROW_QUEUE_SIZE);
+    }
+
+    @Inject
+    public ParquetStructuredIngestParser(org.visallo.core.config.Configuration configuration) {
+        this(
+                configuration.getInt(CONFIG_ROW_GROUP_THREADS, DEFAULT_ROW_GROUP_THREADS),
+                configuration.getInt(CONFIG_ROW_QUEUE_SIZE, DEFAULT_ROW_QUEUE_SIZE)
+        );
+    }
+
+    public ParquetStructuredIngestParser(int rowGroupThreads, int rowQueueSize) {
+        this.rowGroupThreads = rowGroupThreads;
+        this.rowQueueSize = rowQueueSize;
+    }
 
     @Override
     public Set<String> getSupportedMimeTypes() {
@@ -53,26 +79,27 @@ public class ParquetStructuredIngestParser implements StructuredIngestParser {
     }
 
     @Override
-    public void ingest(InputStream in, ParseOptions parseOptions, BaseStructuredFileParserHandler parserHandler) throws Exception {
+    public void ingest(InputStream in, ParseOptions parseOptions, final BaseStructuredFileParserHandler parserHandler) throws Exception {
         File tempFile = null;
         try {
-            tempFile = File.createTempFile("parquet", "tmp");
-            IOUtils.copy(in, new FileOutputStream(tempFile));
+            tempFile = copyToTempFile(in);
 
             Configuration conf = new Configuration();
             Path path = new Path(tempFile.getAbsolutePath());
             ParquetMetadata metaData = ParquetFileReader.readFooter(conf, path, ParquetMetadataConverter.NO_FILTER);
-            MessageType schema = metaData.getFileMetaData().getSchema();
+            final MessageType schema = metaData.getFileMetaData().getSchema();
+            MessageType requestedSchema = getRequestedSchema(schema, parserHandler.getColumnsToRead());
             parserHandler.setTotalRows(getRowCount(metaData));
+            parserHandler.newSheet("");
 
-            try (ParquetReader<SimpleRecord> reader = ParquetReader.builder(new SimpleReadSupport(), new Path(tempFile.getAbsolutePath())).build()) {
-                parserHandler.newSheet("");
-                int rowNum = 0;
-
-                for (SimpleRecord value = reader.read(); value != null; value = reader.read()) {
+            ParquetRowGroupReader reader = new ParquetRowGroupReader(conf, path, metaData, requestedSchema, rowGroupThreads, rowQueueSize);
+            // maven shade isn't working with lambdas, so use anon class
+            reader.read(new ParquetRowGroupReader.RecordHandler() {
+                @Override
+                public boolean handle(SimpleRecord record, long rowNum) throws Exception {
                     Map<String, Object> row = Maps.newHashMap();
 
-                    for (SimpleRecord.NameValue nameValue : value.getValues()) {
+                    for (SimpleRecord.NameValue nameValue : record.getValues()) {
                         String name = nameValue.getName();
                         Object val = nameValue.getValue();
                         if (!(val instanceof SimpleRecord)) {
@@ -81,14 +108,39 @@ public class ParquetStructuredIngestParser implements StructuredIngestParser {
                         }
                     }
 
-                    if (!parserHandler.addRow(row, rowNum++)) break;
+                    return parserHandler.addRow(row, rowNum);
                 }
-            }
+            });
         } finally {
             if (tempFile != null) tempFile.delete();
         }
     }
 
+    /**
+     * Limits the schema to the top-level columns the handler reads, so the other column chunks are never decoded.
+     */
+    private MessageType getRequestedSchema(MessageType schema, Set<String> columnsToRead) {
+        if (columnsToRead == null) {
+            return schema;
+        }
+
+        List<Type> fields = new ArrayList<>();
+        for (Type field : schema.getFields()) {
+            if (field.isPrimitive() && columnsToRead.contains(field.getName())) {
+                fields.add(field);
+            }
+        }
+        return new MessageType(schema.getName(), fields);
+    }
+
+    private File copyToTempFile(InputStream in) throws IOException {
+        File tempFile = File.createTempFile("parquet", "tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            IOUtils.copy(in, out);
+        }
+        return tempFile;
+    }
+
     private long getRowCount(ParquetMetadata metaData) {
         // maven shade isn't working with lambdas, so use anon class
         return metaData.getBlocks().stream().mapToLong(new ToLongFunction<BlockMetaData>() {
@@ -103,8 +155,7 @@ public class ParquetStructuredIngestParser implements StructuredIngestParser {
     public ClientApiAnalysis analyze(InputStream inputStream) throws Exception {
         File tempFile = null;
         try {
-            tempFile = File.createTempFile("parquet", "tmp");
-            IOUtils.copy(inputStream, new FileOutputStream(tempFile));
+            tempFile = copyToTempFile(inputStream);
 
             Configuration conf = new Configuration();
             Path path = new Path(tempFile.getAbsolutePath());
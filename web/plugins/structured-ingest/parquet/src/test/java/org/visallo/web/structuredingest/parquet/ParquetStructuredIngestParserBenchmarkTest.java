@@ -0,0 +1,94 @@
+package org.visallo.web.structuredingest.parquet;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.visallo.web.structuredingest.core.model.ParseOptions;
+import org.visallo.web.structuredingest.core.util.BaseStructuredFileParserHandler;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares serial and parallel row group decoding on a synthetic file with many row groups.
+ * Excluded from the normal build, run with -Dtest=ParquetStructuredIngestParserBenchmarkTest.
+ */
+public class ParquetStructuredIngestParserBenchmarkTest {
+    private static final long ROW_COUNT = 2000000;
+    private static final int ROW_GROUP_SIZE_BYTES = 4 * 1024 * 1024;
+    private static final int ITERATIONS = 3;
+    private static File file;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        file = SyntheticParquetFile.create(ROW_COUNT, ROW_GROUP_SIZE_BYTES);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        // warm up
+        ingest(1, null);
+
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            long totalTime = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                totalTime += ingest(threads, null);
+            }
+            System.out.println(String.format("all columns,    threads: %d, avg time: %dms", threads, totalTime / ITERATIONS));
+        }
+
+        for (int threads : new int[]{1, 4}) {
+            long totalTime = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                totalTime += ingest(threads, "row_id");
+            }
+            System.out.println(String.format("one column,     threads: %d, avg time: %dms", threads, totalTime / ITERATIONS));
+        }
+    }
+
+    private long ingest(int threads, String column) throws Exception {
+        CountingHandler handler = new CountingHandler(column);
+        long startTime = System.currentTimeMillis();
+        try (InputStream in = new FileInputStream(file)) {
+            new ParquetStructuredIngestParser(threads, ParquetStructuredIngestParser.DEFAULT_ROW_QUEUE_SIZE)
+                    .ingest(in, new ParseOptions(), handler);
+        }
+        long time = System.currentTimeMillis() - startTime;
+        assertEquals(ROW_COUNT, handler.rowCount);
+        return time;
+    }
+
+    private static class CountingHandler extends BaseStructuredFileParserHandler {
+        private final String column;
+        private long rowCount;
+
+        public CountingHandler(String column) {
+            this.column = column;
+        }
+
+        @Override
+        public Set<String> getColumnsToRead() {
+            return column == null ? null : Collections.singleton(column);
+        }
+
+        @Override
+        public boolean addRow(Map<String, Object> row, long rowNum) {
+            assertEquals(rowCount, rowNum);
+            rowCount++;
+            return true;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.visallo.web.structuredingest.parquet;
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.hamcrest.Description;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -27,6 +28,7 @@ import org.visallo.web.clientapi.model.VisibilityJson;
 import org.visallo.web.structuredingest.core.StructuredIngestOntology;
 import org.visallo.web.structuredingest.core.model.ClientApiAnalysis;
 import org.visallo.web.structuredingest.core.model.ParseOptions;
+import org.visallo.web.structuredingest.core.util.BaseStructuredFileParserHandler;
 import org.visallo.web.structuredingest.core.util.GraphBuilderParserHandler;
 import org.visallo.web.structuredingest.core.util.ProgressReporter;
 import org.visallo.web.structuredingest.core.util.mapping.ColumnMappingType;
@@ -34,6 +36,8 @@ import org.visallo.web.structuredingest.core.util.mapping.EdgeMapping;
 import org.visallo.web.structuredingest.core.util.mapping.ParseMapping;
 import org.visallo.web.structuredingest.core.util.mapping.PropertyMapping;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -254,6 +258,66 @@ public class ParquetStructuredIngestParserTest {
                 getStructuredVerticesCreated(WORKSPACE_AUTHORIZATIONS_A).size(), is(20));
     }
 
+    @Test
+    public void ingestMultipleRowGroupsInFileOrder() throws Exception {
+        long rowCount = 20000;
+        File file = SyntheticParquetFile.create(rowCount, 64 * 1024);
+        try {
+            List<Long> rowNums = new ArrayList<>();
+            List<Map<String, Object>> rows = new ArrayList<>();
+            BaseStructuredFileParserHandler handler = new BaseStructuredFileParserHandler() {
+                @Override
+                public Set<String> getColumnsToRead() {
+                    return Sets.newHashSet("row_id");
+                }
+
+                @Override
+                public boolean addRow(Map<String, Object> row, long rowNum) {
+                    rowNums.add(rowNum);
+                    rows.add(row);
+                    return true;
+                }
+            };
+
+            try (InputStream in = new FileInputStream(file)) {
+                new ParquetStructuredIngestParser(4, 10).ingest(in, new ParseOptions(), handler);
+            }
+
+            assertEquals(rowCount, handler.getTotalRows());
+            assertEquals(rowCount, rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(Long.valueOf(i), rowNums.get(i));
+                assertEquals(Collections.singleton("row_id"), rows.get(i).keySet());
+                assertEquals(String.valueOf(i), rows.get(i).get("row_id"));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void ingestStopsWhenHandlerReturnsFalse() throws Exception {
+        File file = SyntheticParquetFile.create(20000, 64 * 1024);
+        try {
+            List<Long> rowNums = new ArrayList<>();
+            BaseStructuredFileParserHandler handler = new BaseStructuredFileParserHandler() {
+                @Override
+                public boolean addRow(Map<String, Object> row, long rowNum) {
+                    rowNums.add(rowNum);
+                    return rowNum < 99;
+                }
+            };
+
+            try (InputStream in = new FileInputStream(file)) {
+                new ParquetStructuredIngestParser(4, 10).ingest(in, new ParseOptions(), handler);
+            }
+
+            assertEquals(100, rowNums.size());
+        } finally {
+            file.delete();
+        }
+    }
+
     private List<Vertex> getStructuredVerticesCreated() {
         return getStructuredVerticesCreated(WORKSPACE_AUTHORIZATIONS_A);
     }
@@ -0,0 +1,63 @@
+package org.visallo.web.structuredingest.parquet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Writes a parquet file with small row groups so tests can exercise multi-row-group reads.
+ */
+public class SyntheticParquetFile {
+    public static final MessageType SCHEMA = MessageTypeParser.parseMessageType(
+            "message synthetic {\n" +
+                    "  required int64 row_id;\n" +
+                    "  required binary name (UTF8);\n" +
+                    "  required double score;\n" +
+                    "  required boolean flag;\n" +
+                    "  required binary padding (UTF8);\n" +
+                    "}"
+    );
+
+    public static File create(long rowCount, int rowGroupSizeBytes) throws IOException {
+        File file = File.createTempFile("synthetic", ".parquet");
+        if (!file.delete()) {
+            throw new IOException("Could not delete temp file: " + file.getAbsolutePath());
+        }
+
+        Configuration conf = new Configuration();
+        GroupWriteSupport.setSchema(SCHEMA, conf);
+        SimpleGroupFactory groupFactory = new SimpleGroupFactory(SCHEMA);
+        try (ParquetWriter<Group> writer = new ParquetWriter<>(
+                new Path(file.getAbsolutePath()),
+                new GroupWriteSupport(),
+                CompressionCodecName.SNAPPY,
+                rowGroupSizeBytes,
+                ParquetWriter.DEFAULT_PAGE_SIZE,
+                ParquetWriter.DEFAULT_PAGE_SIZE,
+                true,
+                false,
+                ParquetProperties.WriterVersion.PARQUET_1_0,
+                conf
+        )) {
+            for (long i = 0; i < rowCount; i++) {
+                writer.write(groupFactory.newGroup()
+                        .append("row_id", i)
+                        .append("name", "name-" + i)
+                        .append("score", i / 7.0)
+                        .append("flag", i % 2 == 0)
+                        .append("padding", "padding-padding-padding-padding-" + i));
+            }
+        }
+        return file;
+    }
+}
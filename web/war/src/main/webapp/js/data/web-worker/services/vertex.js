@@ -241,13 +241,14 @@ define([
          * @param {string} vertexId
          * @param {string} propertyKey
          * @param {string} propertyName
+         * @param {object} [range] Only highlight the text between `start` (inclusive) and `end` (exclusive)
          */
-        'highlighted-text': function(vertexId, propertyKey, propertyName) {
-            return ajax('GET->HTML', '/vertex/highlighted-text', {
+        'highlighted-text': function(vertexId, propertyKey, propertyName, range) {
+            return ajax('GET->HTML', '/vertex/highlighted-text', _.extend({
                 graphVertexId: vertexId,
                 propertyKey: propertyKey,
                 propertyName: propertyName
-            });
+            }, range ? _.pick(range, 'start', 'end') : {}));
         },
 
         related: function(vertexIds, options) {
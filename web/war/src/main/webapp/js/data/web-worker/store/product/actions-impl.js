@@ -17,6 +17,7 @@ define([
             let request;
 
             if (invalidate || !product || !product.extendedData) {
+                // invalidating fetches the whole product, a delta would keep the authorization of unchanged elements
                 request = ajax('GET', '/product', {
                     productId,
                     includeExtended: true,
@@ -49,6 +50,27 @@ define([
             dispatch(api.get({ productId, invalidate: true }));
         },
 
+        // merges a response fetched with the snapshotId and version of the product into its previous extended data
+        applyExtendedDataDelta: (product, updatedProduct) => {
+            const previous = product.extendedData;
+            const changes = updatedProduct.extendedData;
+            const removedVertices = changes.removedVertices
+                .concat(Object.keys(changes.vertices))
+                .concat(Object.keys(changes.compoundNodes));
+
+            return {
+                ...updatedProduct,
+                extendedData: {
+                    ...previous,
+                    snapshotId: changes.snapshotId,
+                    version: changes.version,
+                    vertices: { ..._.omit(previous.vertices, removedVertices), ...changes.vertices },
+                    compoundNodes: { ..._.omit(previous.compoundNodes, removedVertices), ...changes.compoundNodes },
+                    edges: { ..._.omit(previous.edges, changes.removedEdges), ...changes.edges }
+                }
+            };
+        },
+
         update: (product) => ({
             type: 'PRODUCT_UPDATE',
             payload: {
@@ -0,0 +1,68 @@
+define(['/base/jsc/data/web-worker/store/actions'], function(actions) {
+    actions.protectFromWorker = actions.protectFromMain = () => {};
+    require(['/base/jsc/data/web-worker/store/product/actions-impl.js'], function(actions) {
+
+        describe('productActions', () => {
+
+            it('should apply an extended data delta to the previous extended data', () => {
+                const product = {
+                    id: 'p1',
+                    title: 'before',
+                    extendedData: {
+                        snapshotId: 's1',
+                        version: 1,
+                        vertices: {
+                            v1: { id: 'v1', pos: { x: 0, y: 0 } },
+                            v2: { id: 'v2', pos: { x: 0, y: 0 } }
+                        },
+                        compoundNodes: {
+                            c1: { id: 'c1', children: ['v2'] }
+                        },
+                        edges: {
+                            e1: { edgeId: 'e1' },
+                            e2: { edgeId: 'e2' }
+                        }
+                    }
+                };
+                const updatedProduct = {
+                    id: 'p1',
+                    title: 'after',
+                    extendedData: {
+                        delta: true,
+                        snapshotId: 's1',
+                        version: 3,
+                        vertices: {
+                            v1: { id: 'v1', pos: { x: 5, y: 10 } },
+                            v3: { id: 'v3', pos: { x: 0, y: 0 } }
+                        },
+                        compoundNodes: {},
+                        removedVertices: ['c1'],
+                        edges: {
+                            e3: { edgeId: 'e3' }
+                        },
+                        removedEdges: ['e2']
+                    }
+                };
+
+                actions.applyExtendedDataDelta(product, updatedProduct).should.deep.equal({
+                    id: 'p1',
+                    title: 'after',
+                    extendedData: {
+                        snapshotId: 's1',
+                        version: 3,
+                        vertices: {
+                            v1: { id: 'v1', pos: { x: 5, y: 10 } },
+                            v2: { id: 'v2', pos: { x: 0, y: 0 } },
+                            v3: { id: 'v3', pos: { x: 0, y: 0 } }
+                        },
+                        compoundNodes: {},
+                        edges: {
+                            e1: { edgeId: 'e1' },
+                            e3: { edgeId: 'e3' }
+                        }
+                    }
+                });
+            });
+        });
+    });
+});
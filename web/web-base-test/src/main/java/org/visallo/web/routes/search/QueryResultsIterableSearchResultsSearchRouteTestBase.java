@@ -59,6 +59,7 @@ public abstract class QueryResultsIterableSearchResultsSearchRouteTestBase exten
             }
         };
         when(results.getQueryResultsIterable()).thenReturn(resultsIterable);
+        when(results.getVertexiumObjects()).thenReturn(resultsIterable);
 
         when(query.getAggregations()).thenReturn(aggregations);
 
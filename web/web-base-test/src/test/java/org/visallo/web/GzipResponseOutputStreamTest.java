@@ -0,0 +1,115 @@
+package org.visallo.web;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GzipResponseOutputStreamTest {
+    private final ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Before
+    public void before() throws IOException {
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                responseBytes.write(b);
+            }
+        });
+    }
+
+    @Test
+    public void testIsGzipAccepted() {
+        when(request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate, br");
+        assertTrue(GzipResponseOutputStream.isGzipAccepted(request));
+
+        when(request.getHeader("Accept-Encoding")).thenReturn("deflate, GZIP;q=0.5");
+        assertTrue(GzipResponseOutputStream.isGzipAccepted(request));
+
+        when(request.getHeader("Accept-Encoding")).thenReturn("gzip;q=0, deflate");
+        assertFalse(GzipResponseOutputStream.isGzipAccepted(request));
+
+        when(request.getHeader("Accept-Encoding")).thenReturn("identity");
+        assertFalse(GzipResponseOutputStream.isGzipAccepted(request));
+
+        when(request.getHeader("Accept-Encoding")).thenReturn(null);
+        assertFalse(GzipResponseOutputStream.isGzipAccepted(request));
+    }
+
+    @Test
+    public void testSmallResponseNotCompressed() throws IOException {
+        GzipResponseOutputStream out = new GzipResponseOutputStream(response, true, 100);
+        out.write("{\"small\":true}".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        verify(response, never()).setHeader("Content-Encoding", "gzip");
+        verify(response).setContentLength(14);
+        assertEquals("{\"small\":true}", new String(responseBytes.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(14, out.getCount());
+    }
+
+    @Test
+    public void testLargeResponseCompressed() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append("}");
+        }
+        json.append("]");
+        byte[] jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        GzipResponseOutputStream out = new GzipResponseOutputStream(response, true, 100);
+        for (byte b : jsonBytes) {
+            out.write(b);
+        }
+        out.close();
+
+        verify(response).setHeader("Content-Encoding", "gzip");
+        verify(response).addHeader("Vary", "Accept-Encoding");
+        assertEquals(jsonBytes.length, out.getCount());
+        assertTrue(responseBytes.size() < jsonBytes.length);
+        byte[] uncompressed = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(responseBytes.toByteArray())));
+        assertEquals(json.toString(), new String(uncompressed, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGzipDisabled() throws IOException {
+        GzipResponseOutputStream out = new GzipResponseOutputStream(response, false, 0);
+        out.write("{}".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        verify(response, never()).setHeader("Content-Encoding", "gzip");
+        verify(response, never()).addHeader("Vary", "Accept-Encoding");
+        assertEquals("{}", new String(responseBytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,52 @@
+package org.visallo.web.routes.vertex;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
+import org.vertexium.Edge;
+import org.vertexium.Vertex;
+import org.vertexium.Visibility;
+import org.visallo.web.clientapi.model.ClientApiVertexEdges;
+import org.visallo.web.routes.RouteTestBase;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(MockitoJUnitRunner.class)
+public class VertexEdgesTest extends RouteTestBase {
+    private Authorizations authorizations;
+
+    @Before
+    public void before() throws IOException {
+        super.before();
+
+        authorizations = graph.createAuthorizations();
+        graph.addVertex("v1", new Visibility(""), authorizations);
+        graph.addVertex("v2", new Visibility(""), authorizations);
+        graph.addEdge("e1", "v1", "v2", "label1", new Visibility(""), authorizations);
+        graph.flush();
+    }
+
+    @Test
+    public void testOverrideOfWorkspaceIdConversionIsCalled() throws Exception {
+        ClientApiVertexEdges.Edge pluginEdge = new ClientApiVertexEdges.Edge();
+        VertexEdges route = new VertexEdges(graph) {
+            @Override
+            protected ClientApiVertexEdges.Edge convertEdgeToClientApi(Edge edge, Vertex otherVertex, String workspaceId, Authorizations authorizations) {
+                assertEquals("e1", edge.getId());
+                assertEquals("v2", otherVertex.getId());
+                assertEquals(WORKSPACE_ID, workspaceId);
+                return pluginEdge;
+            }
+        };
+
+        ClientApiVertexEdges result = route.handle("v1", 0, 25, null, null, "BOTH", null, WORKSPACE_ID, authorizations);
+        assertEquals(1, result.getRelationships().size());
+        assertSame(pluginEdge, result.getRelationships().get(0));
+        assertEquals(1, result.getTotalReferences());
+    }
+}
@@ -6,9 +6,12 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.vertexium.Authorizations;
+import org.vertexium.Metadata;
 import org.vertexium.Vertex;
 import org.visallo.core.exception.VisalloAccessDeniedException;
 import org.visallo.core.model.user.AuthorizationRepository;
+import org.visallo.core.util.ClientApiConversionPool;
+import org.visallo.web.clientapi.model.ClientApiProperty;
 import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.clientapi.model.ClientApiVertexMultipleResponse;
 import org.visallo.web.clientapi.model.VisibilityJson;
@@ -51,7 +54,7 @@ public class VertexMultipleTest extends RouteTestBase {
         visibilityJson.addWorkspace(WORKSPACE_ID);
         sandboxedVertex = graph.addVertex("v2", visibilityTranslator.toVisibility(visibilityJson).getVisibility(), workspaceAuthorizations);
 
-        route = new VertexMultiple(graph, userRepository, workspaceRepository, authorizationRepository);
+        route = new VertexMultiple(graph, userRepository, workspaceRepository, authorizationRepository, new ClientApiConversionPool(configuration));
     }
 
     @Test
@@ -59,7 +62,7 @@ public class VertexMultipleTest extends RouteTestBase {
         when(authorizationRepository.getGraphAuthorizations(user)).thenReturn(userAuthorizations);
         when(request.getAttribute(eq(WORKSPACE_ID_ATTRIBUTE_NAME))).thenReturn(null);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId()}, true, user);
+        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId()}, true, null, user);
 
         assertFalse(response.isRequiredFallback());
         assertEquals(1, response.getVertices().size());
@@ -72,7 +75,7 @@ public class VertexMultipleTest extends RouteTestBase {
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(false);
 
-        route.handle(request, new String[]{publicVertex.getId()}, false, user);
+        route.handle(request, new String[]{publicVertex.getId()}, false, null, user);
     }
 
     @Test
@@ -81,7 +84,7 @@ public class VertexMultipleTest extends RouteTestBase {
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(false);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, user);
+        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, null, user);
 
         assertTrue(response.isRequiredFallback());
         assertEquals(1, response.getVertices().size());
@@ -94,7 +97,7 @@ public class VertexMultipleTest extends RouteTestBase {
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(true);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, user);
+        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId(), sandboxedVertex.getId()}, true, null, user);
 
         assertFalse(response.isRequiredFallback());
         assertEquals(2, response.getVertices().size());
@@ -108,18 +111,44 @@ public class VertexMultipleTest extends RouteTestBase {
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(true);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{"no-vertex-id"}, true, user);
+        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{"no-vertex-id"}, true, null, user);
 
         assertFalse(response.isRequiredFallback());
         assertEquals(0, response.getVertices().size());
     }
+
+    @Test
+    public void testGetVerticesWithProjection() throws Exception {
+        when(authorizationRepository.getGraphAuthorizations(user, WORKSPACE_ID)).thenReturn(workspaceAuthorizations);
+        when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
+        when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(true);
+        Metadata metadata = new Metadata();
+        metadata.add("m1", "a", visibilityTranslator.getDefaultVisibility());
+        metadata.add("m2", "b", visibilityTranslator.getDefaultVisibility());
+        publicVertex.prepareMutation()
+                .addPropertyValue("k1", "title", "Joe", metadata, visibilityTranslator.getDefaultVisibility())
+                .addPropertyValue("k1", "comment", "lorem ipsum", metadata, visibilityTranslator.getDefaultVisibility())
+                .save(userAuthorizations);
+        graph.flush();
+
+        String projection = "{\"properties\":[\"title\"],\"metadata\":[\"m1\"]}";
+        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{publicVertex.getId()}, true, projection, user);
+
+        ClientApiVertex vertex = response.getVertices().get(0);
+        assertEquals(1, vertex.getProperties().size());
+        ClientApiProperty property = vertex.getProperty("k1", "title");
+        assertEquals("Joe", property.getValue());
+        assertEquals(1, property.getMetadata().size());
+        assertEquals("a", property.getMetadata().get("m1"));
+    }
+
     @Test
     public void testGetVerticesWithNoneSpecified() throws Exception {
         when(authorizationRepository.getGraphAuthorizations(user, WORKSPACE_ID)).thenReturn(workspaceAuthorizations);
         when(request.getAttribute(USER_REQUEST_ATTRIBUTE_NAME)).thenReturn(user);
         when(workspaceRepository.hasReadPermissions(WORKSPACE_ID, user)).thenReturn(true);
 
-        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{}, true, user);
+        ClientApiVertexMultipleResponse response = route.handle(request, new String[]{}, true, null, user);
 
         assertFalse(response.isRequiredFallback());
         assertEquals(0, response.getVertices().size());
@@ -7,15 +7,25 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.vertexium.Authorizations;
 import org.vertexium.Vertex;
+import org.vertexium.VertexiumObject;
 import org.visallo.core.model.search.SearchOptions;
 import org.visallo.core.model.search.VertexSearchRunner;
+import org.visallo.core.model.search.VertexiumObjectSearchRunnerBase;
 import org.visallo.web.clientapi.model.ClientApiElementSearchResponse;
+import org.visallo.web.clientapi.model.ClientApiVertex;
+import org.visallo.web.clientapi.model.ClientApiVertexiumObject;
 import org.visallo.web.routes.search.QueryResultsIterableSearchResultsSearchRouteTestBase;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.when;
@@ -61,4 +71,33 @@ public class VertexSearchTest extends QueryResultsIterableSearchResultsSearchRou
         assertEquals(1, response.getElements().size());
         assertEquals(1, response.getItemCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testOverrideOfWorkspaceIdConversionIsCalled() throws Exception {
+        Vertex v1 = graph.addVertex("v1", visibility, authorizations);
+        setParameter("q", "*");
+        setParameter("filter", new JSONArray());
+        queryResultsIterableTotalHits = 1;
+        queryResultsIterableElements.add(v1);
+        when(vertexSearchRunner.run(any(SearchOptions.class), eq(user), eq(authorizations))).thenReturn(results);
+
+        ClientApiVertex pluginVertex = new ClientApiVertex();
+        VertexSearch route = new VertexSearch(graph, searchRepository) {
+            @Override
+            protected List<ClientApiVertexiumObject> convertElementsToClientApi(
+                    VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
+                    Iterable<? extends VertexiumObject> searchResults,
+                    Map<Object, Double> scores,
+                    String workspaceId,
+                    Authorizations authorizations
+            ) {
+                assertEquals(WORKSPACE_ID, workspaceId);
+                return Collections.singletonList(pluginVertex);
+            }
+        };
+
+        ClientApiElementSearchResponse response = route.handle(request, WORKSPACE_ID, user, authorizations);
+        assertEquals(1, response.getElements().size());
+        assertSame(pluginVertex, response.getElements().get(0));
+    }
+}
@@ -0,0 +1,86 @@
+package org.visallo.web.util.js;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class JsxCompilationCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        File directory = temporaryFolder.newFolder();
+        CachedCompilation compilation = createCompilation("var a = <div/>;");
+        compilation.setOutput("var a = React.createElement('div');");
+        compilation.setSourceMap("{\"version\":3}");
+        new JsxCompilationCache(directory, "v1").store(compilation, SourceMapType.EXTERNAL);
+
+        CachedCompilation loaded = createCompilation("var a = <div/>;");
+        assertTrue(new JsxCompilationCache(directory, "v1").load(loaded, SourceMapType.EXTERNAL));
+        assertEquals("var a = React.createElement('div');", loaded.getOutput());
+        assertEquals("{\"version\":3}", loaded.getSourceMap());
+    }
+
+    @Test
+    public void testLoadMissesWhenSourceOrCompilerChanges() throws Exception {
+        File directory = temporaryFolder.newFolder();
+        CachedCompilation compilation = createCompilation("var a = <div/>;");
+        compilation.setOutput("var a = React.createElement('div');");
+        new JsxCompilationCache(directory, "v1").store(compilation, SourceMapType.NONE);
+
+        assertFalse(new JsxCompilationCache(directory, "v1").load(createCompilation("var b = <div/>;"), SourceMapType.NONE));
+        assertFalse(new JsxCompilationCache(directory, "v2").load(createCompilation("var a = <div/>;"), SourceMapType.NONE));
+        assertFalse(new JsxCompilationCache(directory, "v1").load(createCompilation("var a = <div/>;"), SourceMapType.EXTERNAL));
+        assertTrue(new JsxCompilationCache(directory, "v1").load(createCompilation("var a = <div/>;"), SourceMapType.NONE));
+    }
+
+    @Test
+    public void testWithoutDirectory() {
+        JsxCompilationCache cache = new JsxCompilationCache(null, "v1");
+        CachedCompilation compilation = createCompilation("var a = <div/>;");
+        compilation.setOutput("var a = React.createElement('div');");
+        cache.store(compilation, SourceMapType.NONE);
+        assertFalse(cache.load(createCompilation("var a = <div/>;"), SourceMapType.NONE));
+    }
+
+    @Test
+    public void testCreatesMissingDirectoryForOwnerOnly() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        File directory = new File(temporaryFolder.getRoot(), "jsx-cache");
+        CachedCompilation compilation = createCompilation("var a = <div/>;");
+        compilation.setOutput("var a = React.createElement('div');");
+        new JsxCompilationCache(directory, "v1").store(compilation, SourceMapType.NONE);
+
+        assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(directory.toPath())));
+        assertTrue(new JsxCompilationCache(directory, "v1").load(createCompilation("var a = <div/>;"), SourceMapType.NONE));
+    }
+
+    @Test
+    public void testIgnoresDirectoryWritableByOthers() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        File directory = temporaryFolder.newFolder();
+        CachedCompilation compilation = createCompilation("var a = <div/>;");
+        compilation.setOutput("var a = React.createElement('div');");
+        new JsxCompilationCache(directory, "v1").store(compilation, SourceMapType.NONE);
+
+        Files.setPosixFilePermissions(directory.toPath(), PosixFilePermissions.fromString("rwxrwxrwx"));
+        assertFalse(new JsxCompilationCache(directory, "v1").load(createCompilation("var a = <div/>;"), SourceMapType.NONE));
+    }
+
+    private CachedCompilation createCompilation(String input) {
+        CachedCompilation compilation = new CachedCompilation();
+        compilation.setInput(input);
+        compilation.setResourcePath("/org/visallo/test/Test.jsx");
+        compilation.setPath("/jsc/org/visallo/test/Test.js");
+        return compilation;
+    }
+}
@@ -0,0 +1,104 @@
+package org.visallo.web;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes to the servlet response, switching to gzip once more than the minimum size has been written. Until
+ * then the bytes are buffered, so small responses are sent uncompressed with a content length.
+ */
+public class GzipResponseOutputStream extends OutputStream {
+    private final HttpServletResponse response;
+    private final int minSize;
+    private ByteArrayOutputStream buffer;
+    private OutputStream out;
+    private long count;
+    private boolean closed;
+
+    public GzipResponseOutputStream(HttpServletResponse response, boolean gzip, int minSize) throws IOException {
+        this.response = response;
+        this.minSize = minSize;
+        if (gzip) {
+            response.addHeader("Vary", "Accept-Encoding");
+            this.buffer = new ByteArrayOutputStream(Math.max(minSize, 32) + 1);
+        } else {
+            this.out = response.getOutputStream();
+        }
+    }
+
+    public static boolean isGzipAccepted(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            String[] parts = encoding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].replace(" ", "").matches("q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of bytes written to this stream, before compression
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        count += len;
+        if (out != null) {
+            out.write(b, off, len);
+            return;
+        }
+        buffer.write(b, off, len);
+        if (buffer.size() > minSize) {
+            response.setHeader("Content-Encoding", "gzip");
+            out = new GZIPOutputStream(response.getOutputStream(), 8192);
+            buffer.writeTo(out);
+            buffer = null;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // while buffering, flushing would commit the response before the encoding is known
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out == null) {
+            response.setContentLength(buffer.size());
+            buffer.writeTo(response.getOutputStream());
+            buffer = null;
+        } else if (out instanceof GZIPOutputStream) {
+            ((GZIPOutputStream) out).finish();
+        }
+        response.flushBuffer();
+    }
+}
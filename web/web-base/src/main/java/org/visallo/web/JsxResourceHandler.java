@@ -9,6 +9,7 @@ import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.util.js.BabelExecutor;
 import org.visallo.web.util.js.CachedCompilation;
+import org.visallo.web.util.js.JsxCompilationCache;
 import org.visallo.web.util.js.SourceMapType;
 
 import javax.script.ScriptException;
@@ -26,8 +27,13 @@ import java.util.concurrent.Future;
 
 public class JsxResourceHandler implements RequestResponseHandler {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(JsxResourceHandler.class);
-    private static final BabelExecutor babelExecutor = new BabelExecutor();
+    public static final String CONFIG_CACHE_DIRECTORY = JsxResourceHandler.class.getName() + ".cacheDirectory";
+    public static final String CONFIG_ENGINE_COUNT = JsxResourceHandler.class.getName() + ".engineCount";
+    public static final int DEFAULT_ENGINE_COUNT = 2;
+    private static final BabelExecutor defaultBabelExecutor = new BabelExecutor();
 
+    private final BabelExecutor babelExecutor;
+    private final JsxCompilationCache compilationCache;
     private String jsResourceName;
     private String jsResourcePath;
     private String toJsResourcePath;
@@ -40,6 +46,19 @@ public class JsxResourceHandler implements RequestResponseHandler {
     }
 
     public JsxResourceHandler(final String jsResourceName, final String jsResourcePath, final String toJsResourcePath, SourceMapType sourceMapType) {
+        this(jsResourceName, jsResourcePath, toJsResourcePath, sourceMapType, defaultBabelExecutor, null);
+    }
+
+    public JsxResourceHandler(
+            final String jsResourceName,
+            final String jsResourcePath,
+            final String toJsResourcePath,
+            SourceMapType sourceMapType,
+            BabelExecutor babelExecutor,
+            JsxCompilationCache compilationCache
+    ) {
+        this.babelExecutor = babelExecutor;
+        this.compilationCache = compilationCache;
         this.jsResourceName = jsResourceName;
         this.jsResourcePath = jsResourcePath;
         this.toJsResourcePath = toJsResourcePath;
@@ -113,7 +132,12 @@ public class JsxResourceHandler implements RequestResponseHandler {
                         newCache.setInput(inputJavascript);
                         newCache.setPath(toJsResourcePath);
                         newCache.setResourcePath(jsResourceName);
-                        babelExecutor.compileWithSharedEngine(newCache, sourceMapType);
+                        if (compilationCache == null || !compilationCache.load(newCache, sourceMapType)) {
+                            babelExecutor.compileWithSharedEngine(newCache, sourceMapType);
+                            if (compilationCache != null) {
+                                compilationCache.store(newCache, sourceMapType);
+                            }
+                        }
                     }
                 }
                 return newCache;
@@ -127,5 +151,16 @@ public class JsxResourceHandler implements RequestResponseHandler {
         return previousCompilation;
     }
 
+    /**
+     * @return the path the compiled jsx resource is served from, source maps are served from the same path
+     * followed by .map
+     */
+    public static String getCompiledResourcePath(String jsxResourceName) {
+        return getSourceResourcePath(jsxResourceName).replaceAll("jsx$", "js");
+    }
+
+    public static String getSourceResourcePath(String jsxResourceName) {
+        return "/" + ("jsc" + jsxResourceName).replaceAll("^/", "");
+    }
 }
 
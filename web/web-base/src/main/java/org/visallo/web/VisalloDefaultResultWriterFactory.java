@@ -1,6 +1,11 @@
 package org.visallo.web;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import com.v5analytics.webster.resultWriters.ResultWriter;
 import com.v5analytics.webster.resultWriters.ResultWriterBase;
@@ -11,6 +16,7 @@ import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.security.ACLProvider;
+import org.visallo.core.status.MetricsManager;
 import org.visallo.core.trace.Trace;
 import org.visallo.core.trace.TraceSpan;
 import org.visallo.core.user.User;
@@ -27,23 +33,37 @@ import java.lang.reflect.Method;
 public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
     public static final String WEB_RESPONSE_HEADER_X_FRAME_OPTIONS = "web.response.header.X-Frame-Options";
     public static final String WEB_RESPONSE_HEADER_X_FRAME_OPTIONS_DEFAULT = "DENY";
+    public static final String WEB_RESPONSE_GZIP_ENABLED = "web.response.gzip.enabled";
+    public static final boolean WEB_RESPONSE_GZIP_ENABLED_DEFAULT = true;
+    public static final String WEB_RESPONSE_GZIP_MIN_SIZE = "web.response.gzip.minSize";
+    public static final int WEB_RESPONSE_GZIP_MIN_SIZE_DEFAULT = 1024;
     private final String responseHeaderXFrameOptions;
+    private final boolean gzipEnabled;
+    private final int gzipMinSize;
     private ACLProvider aclProvider;
     private UserRepository userRepository;
+    private MetricsManager metricsManager;
 
     @Inject
     public VisalloDefaultResultWriterFactory(
             ACLProvider aclProvider,
             UserRepository userRepository,
-            Configuration configuration
+            Configuration configuration,
+            MetricsManager metricsManager
     ) {
         this.aclProvider = aclProvider;
         this.userRepository = userRepository;
+        this.metricsManager = metricsManager;
         this.responseHeaderXFrameOptions = configuration.get(WEB_RESPONSE_HEADER_X_FRAME_OPTIONS, WEB_RESPONSE_HEADER_X_FRAME_OPTIONS_DEFAULT);
+        this.gzipEnabled = configuration.getBoolean(WEB_RESPONSE_GZIP_ENABLED, WEB_RESPONSE_GZIP_ENABLED_DEFAULT);
+        this.gzipMinSize = configuration.getInt(WEB_RESPONSE_GZIP_MIN_SIZE, WEB_RESPONSE_GZIP_MIN_SIZE_DEFAULT);
     }
 
     @Override
     public ResultWriter createResultWriter(Method handleMethod) {
+        String metricsPrefix = handleMethod.getDeclaringClass().getName() + ".";
+        final Meter serializedBytesMeter = metricsManager.meter(metricsPrefix + "serializedBytes");
+        final Timer serializationTimer = metricsManager.timer(metricsPrefix + "serializationTime");
         return new ResultWriterBase(handleMethod) {
             private boolean resultIsClientApiObject;
             private boolean resultIsInputStream;
@@ -66,13 +86,8 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
             @Override
             protected void writeResult(HttpServletRequest request, HttpServletResponse response, Object result)
                     throws IOException {
+                addSecurityHeaders(response, responseHeaderXFrameOptions);
                 if (result != null) {
-                    if (!response.containsHeader("X-Frame-Options")) {
-                        response.addHeader("X-Frame-Options", responseHeaderXFrameOptions);
-                    }
-                    if (!response.containsHeader("X-Content-Type-Options")) {
-                        response.addHeader("X-Content-Type-Options", "nosniff");
-                    }
                     response.setCharacterEncoding("UTF-8");
                     if (resultIsClientApiObject || result instanceof JSONObject) {
                         response.addHeader("Cache-Control", "no-cache, no-store, must-revalidate");
@@ -85,13 +100,7 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
                         try (TraceSpan ignored = Trace.start("aclProvider.appendACL")) {
                             clientApiObject = aclProvider.appendACL(clientApiObject, user);
                         }
-                        String jsonObject;
-                        try {
-                            jsonObject = ObjectMapperFactory.getInstance().writeValueAsString(clientApiObject);
-                        } catch (JsonProcessingException e) {
-                            throw new VisalloException("Could not convert clientApiObject to string", e);
-                        }
-                        response.getWriter().write(jsonObject);
+                        writeClientApiObject(request, response, clientApiObject, serializedBytesMeter, serializationTimer);
                     } else if (resultIsInputStream) {
                         try (InputStream in = (InputStream) result) {
                             IOUtils.copy(in, response.getOutputStream());
@@ -105,4 +114,47 @@ public class VisalloDefaultResultWriterFactory implements ResultWriterFactory {
             }
         };
     }
+
+    /**
+     * Adds the headers which stop the response from being framed or MIME sniffed, unless they are already set.
+     * Handlers which write to the response before returning must call this before writing, the headers of a
+     * committed response can no longer be changed.
+     */
+    public static void addSecurityHeaders(HttpServletResponse response, String xFrameOptions) {
+        if (!response.containsHeader("X-Frame-Options")) {
+            response.addHeader("X-Frame-Options", xFrameOptions);
+        }
+        if (!response.containsHeader("X-Content-Type-Options")) {
+            response.addHeader("X-Content-Type-Options", "nosniff");
+        }
+    }
+
+    /**
+     * Serializes the object straight to the response output stream, gzipped if the client accepts it and the
+     * response is larger than the configured minimum size, so the json is never held in memory as a string.
+     */
+    private void writeClientApiObject(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            ClientApiObject clientApiObject,
+            Meter serializedBytesMeter,
+            Timer serializationTimer
+    ) throws IOException {
+        ObjectMapper objectMapper = ObjectMapperFactory.getInstance();
+        boolean gzip = gzipEnabled && GzipResponseOutputStream.isGzipAccepted(request);
+        Timer.Context timerContext = serializationTimer.time();
+        try (
+                TraceSpan ignored = Trace.start("writeClientApiObject");
+                GzipResponseOutputStream out = new GzipResponseOutputStream(response, gzip, gzipMinSize)
+        ) {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+                objectMapper.writeValue(generator, clientApiObject);
+            } catch (JsonProcessingException e) {
+                throw new VisalloException("Could not convert clientApiObject to json", e);
+            }
+            serializedBytesMeter.mark(out.getCount());
+        } finally {
+            timerContext.stop();
+        }
+    }
 }
@@ -37,9 +37,10 @@ public class VisalloResponse {
             respondWithNotFound();
             return;
         }
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
         try {
-            String jsonObject = ObjectMapperFactory.getInstance().writeValueAsString(obj);
-            configureResponse(ResponseTypes.JSON_OBJECT, response, jsonObject);
+            ObjectMapperFactory.getInstance().writeValue(response.getOutputStream(), obj);
         } catch (JsonProcessingException e) {
             throw new VisalloException("Could not write json", e);
         }
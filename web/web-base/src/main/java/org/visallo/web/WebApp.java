@@ -11,7 +11,10 @@ import org.visallo.core.bootstrap.InjectHelper;
 import org.visallo.core.config.Configuration;
 import org.visallo.core.config.VisalloResourceBundleManager;
 import org.visallo.core.exception.VisalloException;
+import org.visallo.core.model.graph.ConceptTypeCountCache;
 import org.visallo.core.model.notification.SystemNotificationSeverity;
+import org.visallo.core.model.search.SearchResultCache;
+import org.visallo.core.model.workQueue.WorkQueueRepository;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.ClientApiObject;
@@ -19,11 +22,14 @@ import org.visallo.web.parameterProviders.*;
 import org.visallo.web.parameterValueConverters.ElementTypeParameterValueConverter;
 import org.visallo.web.parameterValueConverters.JSONObjectParameterValueConverter;
 import org.visallo.web.routes.notification.SystemNotificationSeverityValueConverter;
+import org.visallo.web.util.js.BabelExecutor;
+import org.visallo.web.util.js.JsxCompilationCache;
 import org.visallo.web.util.js.SourceMapType;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
@@ -40,6 +46,8 @@ public class WebApp extends App {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(WebApp.class);
     private final Injector injector;
     private final boolean devMode;
+    private final BabelExecutor babelExecutor;
+    private final JsxCompilationCache jsxCompilationCache;
 
     private final List<String> pluginsJsResourcesWebWorker = new ArrayList<>();
     private final List<String> pluginsJsResourcesBeforeAuth = new ArrayList<>();
@@ -80,6 +88,16 @@ public class WebApp extends App {
         Configuration config = injector.getInstance(Configuration.class);
         this.devMode = config.getBoolean(Configuration.DEV_MODE, Configuration.DEV_MODE_DEFAULT);
 
+        WorkQueueRepository workQueueRepository = injector.getInstance(WorkQueueRepository.class);
+        injector.getInstance(SearchResultCache.class).subscribeToBroadcastMessages(workQueueRepository);
+        injector.getInstance(ConceptTypeCountCache.class).subscribeToBroadcastMessages(workQueueRepository);
+
+        this.babelExecutor = new BabelExecutor(config.getInt(JsxResourceHandler.CONFIG_ENGINE_COUNT, JsxResourceHandler.DEFAULT_ENGINE_COUNT));
+        String jsxCacheDirectory = config.get(JsxResourceHandler.CONFIG_CACHE_DIRECTORY, null);
+        this.jsxCompilationCache = new JsxCompilationCache(
+                jsxCacheDirectory == null || jsxCacheDirectory.trim().isEmpty() ? null : new File(jsxCacheDirectory.trim())
+        );
+
         if (!isDevModeEnabled()) {
             String pluginsCssRoute = "plugins.css";
             this.get("/" + pluginsCssRoute, pluginsCssResourceHandler);
@@ -235,10 +253,17 @@ public class WebApp extends App {
      */
     public void registerJavaScriptComponent(String scriptResourceName) {
         if (scriptResourceName.endsWith("jsx")) {
-            String resourcePath = "/" + ("jsc" + scriptResourceName).replaceAll("^/", "");
-            String toResourcePath = resourcePath.replaceAll("jsx$", "js");
+            String resourcePath = JsxResourceHandler.getSourceResourcePath(scriptResourceName);
+            String toResourcePath = JsxResourceHandler.getCompiledResourcePath(scriptResourceName);
             SourceMapType map = SourceMapType.EXTERNAL;
-            JsxResourceHandler handler = new JsxResourceHandler(scriptResourceName, resourcePath, toResourcePath, map);
+            JsxResourceHandler handler = new JsxResourceHandler(
+                    scriptResourceName,
+                    resourcePath,
+                    toResourcePath,
+                    map,
+                    babelExecutor,
+                    jsxCompilationCache
+            );
             get(toResourcePath, handler);
             if (map == SourceMapType.EXTERNAL) {
                 get(toResourcePath + ".map", handler);
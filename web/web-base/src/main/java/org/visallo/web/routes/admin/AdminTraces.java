@@ -0,0 +1,69 @@
+package org.visallo.web.routes.admin;
+
+import com.google.inject.Inject;
+import com.v5analytics.webster.ParameterizedHandler;
+import com.v5analytics.webster.annotations.Handle;
+import com.v5analytics.webster.annotations.Optional;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.visallo.core.exception.VisalloException;
+import org.visallo.core.exception.VisalloResourceNotFoundException;
+import org.visallo.core.trace.InMemoryTraceRepository;
+import org.visallo.core.trace.TraceRepository;
+import org.visallo.web.ResponseTypes;
+import org.visallo.web.VisalloResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exports the traces recorded by {@link InMemoryTraceRepository}. Without a traceId all recorded traces are exported,
+ * as a list of summaries in JSON or as the sum of their stacks in the flamegraph format.
+ */
+public class AdminTraces implements ParameterizedHandler {
+    private static final String FORMAT_FLAMEGRAPH = "flamegraph";
+    private final TraceRepository traceRepository;
+
+    @Inject
+    public AdminTraces(TraceRepository traceRepository) {
+        this.traceRepository = traceRepository;
+    }
+
+    @Handle
+    public void handle(
+            @Optional(name = "traceId") String traceId,
+            @Optional(name = "format", defaultValue = "json") String format,
+            HttpServletResponse response
+    ) throws Exception {
+        if (!(traceRepository instanceof InMemoryTraceRepository)) {
+            throw new VisalloException("Traces are only recorded by " + InMemoryTraceRepository.class.getName());
+        }
+        InMemoryTraceRepository inMemoryTraceRepository = (InMemoryTraceRepository) traceRepository;
+
+        List<InMemoryTraceRepository.RecordedTrace> traces;
+        if (traceId == null) {
+            traces = inMemoryTraceRepository.getTraces();
+        } else {
+            InMemoryTraceRepository.RecordedTrace trace = inMemoryTraceRepository.getTrace(traceId);
+            if (trace == null) {
+                throw new VisalloResourceNotFoundException("Could not find trace: " + traceId);
+            }
+            traces = Collections.singletonList(trace);
+        }
+
+        if (FORMAT_FLAMEGRAPH.equals(format)) {
+            VisalloResponse.configureResponse(ResponseTypes.PLAINTEXT, response, InMemoryTraceRepository.toCollapsedStacks(traces));
+        } else if (traceId != null) {
+            VisalloResponse.configureResponse(ResponseTypes.JSON_OBJECT, response, traces.get(0).toJson());
+        } else {
+            JSONArray tracesJson = new JSONArray();
+            for (InMemoryTraceRepository.RecordedTrace trace : traces) {
+                tracesJson.put(trace.toSummaryJson());
+            }
+            JSONObject json = new JSONObject();
+            json.put("traces", tracesJson);
+            VisalloResponse.configureResponse(ResponseTypes.JSON_OBJECT, response, json);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.semanticweb.owlapi.model.IRI;
 import org.vertexium.Authorizations;
 import org.vertexium.util.FilterIterable;
 import org.visallo.core.model.ontology.OntologyRepository;
+import org.visallo.core.security.ACLProvider;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.VisalloResponse;
@@ -28,10 +29,15 @@ import static org.vertexium.util.IterableUtils.toList;
 public class AdminUploadOntology implements ParameterizedHandler {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(AdminUploadOntology.class);
     private final OntologyRepository ontologyRepository;
+    private final ACLProvider aclProvider;
 
     @Inject
-    public AdminUploadOntology(final OntologyRepository ontologyRepository) {
+    public AdminUploadOntology(
+            final OntologyRepository ontologyRepository,
+            final ACLProvider aclProvider
+    ) {
         this.ontologyRepository = ontologyRepository;
+        this.aclProvider = aclProvider;
     }
 
     @Handle
@@ -59,6 +65,7 @@ public class AdminUploadOntology implements ParameterizedHandler {
         LOGGER.info("adding ontology: %s", documentIRI.toString());
         ontologyRepository.writePackage(tempFile, documentIRI, authorizations);
         ontologyRepository.clearCache();
+        aclProvider.clearCache();
 
         tempFile.delete();
 
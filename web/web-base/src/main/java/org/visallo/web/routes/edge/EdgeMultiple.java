@@ -11,7 +11,9 @@ import org.vertexium.FetchHint;
 import org.vertexium.Graph;
 import org.visallo.core.model.user.AuthorizationRepository;
 import org.visallo.core.user.User;
+import org.visallo.core.util.ClientApiConversionContext;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.ClientApiProjection;
 import org.visallo.web.clientapi.model.ClientApiEdge;
 import org.visallo.web.clientapi.model.ClientApiEdgeMultipleResponse;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
@@ -57,9 +59,11 @@ public class EdgeMultiple implements ParameterizedHandler {
     ) {
         ClientApiEdgeMultipleResponse edgeResult = new ClientApiEdgeMultipleResponse();
 
+        ClientApiProjection projection = ClientApiProjection.parse(request.getParameter("projection"));
+        ClientApiConversionContext context = new ClientApiConversionContext(workspaceId, projection);
         Iterable<Edge> edges = graph.getEdges(edgeIds, FetchHint.ALL, authorizations);
         for (Edge e : edges) {
-            ClientApiEdge clientApiEdge = ClientApiConverter.toClientApiEdge(e, workspaceId);
+            ClientApiEdge clientApiEdge = ClientApiConverter.toClientApiEdge(e, context);
             edgeResult.getEdges().add(clientApiEdge);
         }
 
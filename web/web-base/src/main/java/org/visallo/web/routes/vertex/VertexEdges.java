@@ -12,17 +12,21 @@ import org.vertexium.query.VertexQuery;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.trace.Trace;
 import org.visallo.core.trace.TraceSpan;
+import org.visallo.core.util.ClientApiConversionContext;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.ClientApiProjection;
 import org.visallo.web.clientapi.model.ClientApiVertex;
 import org.visallo.web.clientapi.model.ClientApiVertexEdges;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 
 public class VertexEdges implements ParameterizedHandler {
     private final Graph graph;
+    private final boolean workspaceIdConversionOverridden;
 
     @Inject
     public VertexEdges(final Graph graph) {
         this.graph = graph;
+        this.workspaceIdConversionOverridden = isWorkspaceIdConversionOverridden();
     }
 
     @Handle
@@ -33,6 +37,7 @@ public class VertexEdges implements ParameterizedHandler {
             @Optional(name = "edgeLabel") String edgeLabel,
             @Optional(name = "relatedVertexId") String relatedVertexId,
             @Optional(name = "direction", defaultValue = "BOTH") String directionStr,
+            @Optional(name = "projection") String projection,
             @ActiveWorkspaceId String workspaceId,
             Authorizations authorizations
     ) throws Exception {
@@ -71,6 +76,7 @@ public class VertexEdges implements ParameterizedHandler {
                 .edges();
 
         ClientApiVertexEdges result = new ClientApiVertexEdges();
+        ClientApiConversionContext context = new ClientApiConversionContext(workspaceId, ClientApiProjection.parse(projection));
 
         for (Edge edge : edges) {
             String otherVertexId = edge.getOtherVertexId(graphVertexId);
@@ -79,7 +85,11 @@ public class VertexEdges implements ParameterizedHandler {
                 continue;
             }
 
-            result.getRelationships().add(convertEdgeToClientApi(edge, otherVertex, workspaceId, authorizations));
+            if (workspaceIdConversionOverridden) {
+                result.getRelationships().add(convertEdgeToClientApi(edge, otherVertex, workspaceId, authorizations));
+            } else {
+                result.getRelationships().add(convertEdgeToClientApi(edge, otherVertex, authorizations, context));
+            }
         }
 
         result.setTotalReferences(edges.getTotalHits());
@@ -88,14 +98,43 @@ public class VertexEdges implements ParameterizedHandler {
     }
 
     /**
-     * This is overridable so web plugins can modify the resulting set of edges.
+     * Web plugins which override this are still called, without the projection of the request.
+     *
+     * @deprecated override {@link #convertEdgeToClientApi(Edge, Vertex, Authorizations, ClientApiConversionContext)}
      */
+    @Deprecated
     protected ClientApiVertexEdges.Edge convertEdgeToClientApi(Edge edge, Vertex otherVertex, String workspaceId, Authorizations authorizations) {
+        return convertEdgeToClientApi(edge, otherVertex, authorizations, new ClientApiConversionContext(workspaceId));
+    }
+
+    private boolean isWorkspaceIdConversionOverridden() {
+        for (Class<?> c = getClass(); c != VertexEdges.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("convertEdgeToClientApi", Edge.class, Vertex.class, String.class, Authorizations.class);
+                return true;
+            } catch (NoSuchMethodException ex) {
+                // not overridden by this class, check its superclass
+            }
+        }
+        return false;
+    }
+
+    /**
+     * This is overridable so web plugins can modify the resulting set of edges.
+     *
+     * @param context the workspace and projection of the request
+     */
+    protected ClientApiVertexEdges.Edge convertEdgeToClientApi(
+            Edge edge,
+            Vertex otherVertex,
+            Authorizations authorizations,
+            ClientApiConversionContext context
+    ) {
         ClientApiVertexEdges.Edge clientApiEdge = new ClientApiVertexEdges.Edge();
-        clientApiEdge.setRelationship(ClientApiConverter.toClientApiEdge(edge, workspaceId));
+        clientApiEdge.setRelationship(ClientApiConverter.toClientApiEdge(edge, context));
 
         ClientApiVertex clientApiVertex;
-        clientApiVertex = ClientApiConverter.toClientApiVertex(otherVertex, workspaceId, authorizations);
+        clientApiVertex = ClientApiConverter.toClientApiVertex(otherVertex, null, false, authorizations, context);
         clientApiEdge.setVertex(clientApiVertex);
 
         return clientApiEdge;
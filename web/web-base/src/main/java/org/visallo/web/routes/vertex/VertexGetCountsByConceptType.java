@@ -4,25 +4,24 @@ import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
 import org.vertexium.Authorizations;
-import org.vertexium.Graph;
-import org.visallo.core.model.properties.VisalloProperties;
+import org.visallo.core.model.graph.ConceptTypeCountCache;
 import org.visallo.web.clientapi.model.ClientApiVertexCountsByConceptType;
 
 import java.util.Map;
 
 public class VertexGetCountsByConceptType implements ParameterizedHandler {
-    private final Graph graph;
+    private final ConceptTypeCountCache conceptTypeCountCache;
 
     @Inject
-    public VertexGetCountsByConceptType(Graph graph) {
-        this.graph = graph;
+    public VertexGetCountsByConceptType(ConceptTypeCountCache conceptTypeCountCache) {
+        this.conceptTypeCountCache = conceptTypeCountCache;
     }
 
     @Handle
     public ClientApiVertexCountsByConceptType handle(
             Authorizations authorizations
     ) throws Exception {
-        Map<Object, Long> conceptTypeCounts = graph.getVertexPropertyCountByValue(VisalloProperties.CONCEPT_TYPE.getPropertyName(), authorizations);
+        Map<Object, Long> conceptTypeCounts = conceptTypeCountCache.getCounts(authorizations);
         return new ClientApiVertexCountsByConceptType(conceptTypeCounts);
     }
 }
@@ -3,6 +3,7 @@ package org.visallo.web.routes.vertex;
 import com.google.inject.Inject;
 import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
+import com.v5analytics.webster.annotations.Optional;
 import com.v5analytics.webster.annotations.Required;
 import org.vertexium.Authorizations;
 import org.vertexium.Graph;
@@ -31,6 +32,8 @@ public class VertexGetTermMentions implements ParameterizedHandler {
             @Required(name = "graphVertexId") String graphVertexId,
             @Required(name = "propertyKey") String propertyKey,
             @Required(name = "propertyName") String propertyName,
+            @Optional(name = "start") Long start,
+            @Optional(name = "end") Long end,
             @ActiveWorkspaceId String workspaceId,
             Authorizations authorizations
     ) throws Exception {
@@ -53,6 +56,8 @@ public class VertexGetTermMentions implements ParameterizedHandler {
                 graphVertexId,
                 propertyKey,
                 propertyName,
+                start,
+                end,
                 authorizations
         );
         return termMentionRepository.toClientApi(termMentions, workspaceId, authorizations);
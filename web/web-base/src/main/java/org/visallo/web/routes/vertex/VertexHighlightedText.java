@@ -6,12 +6,12 @@ import com.v5analytics.webster.ParameterizedHandler;
 import com.v5analytics.webster.annotations.Handle;
 import com.v5analytics.webster.annotations.Optional;
 import com.v5analytics.webster.annotations.Required;
-import org.apache.commons.io.IOUtils;
 import org.vertexium.Authorizations;
 import org.vertexium.Graph;
 import org.vertexium.Vertex;
 import org.vertexium.property.StreamingPropertyValue;
 import org.visallo.core.EntityHighlighter;
+import org.visallo.core.config.Configuration;
 import org.visallo.core.exception.VisalloResourceNotFoundException;
 import org.visallo.core.ingest.video.VideoTranscript;
 import org.visallo.core.model.properties.MediaVisalloProperties;
@@ -21,24 +21,34 @@ import org.visallo.core.user.User;
 import org.visallo.core.util.JsonSerializer;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.VisalloDefaultResultWriterFactory;
 import org.visallo.web.VisalloResponse;
 import org.visallo.web.parameterProviders.ActiveWorkspaceId;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
 public class VertexHighlightedText implements ParameterizedHandler {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(VertexHighlightedText.class);
     private final Graph graph;
     private final EntityHighlighter entityHighlighter;
     private final TermMentionRepository termMentionRepository;
+    private final String responseHeaderXFrameOptions;
 
     @Inject
     public VertexHighlightedText(
             final Graph graph,
             final EntityHighlighter entityHighlighter,
-            final TermMentionRepository termMentionRepository
+            final TermMentionRepository termMentionRepository,
+            final Configuration configuration
     ) {
         this.graph = graph;
         this.entityHighlighter = entityHighlighter;
         this.termMentionRepository = termMentionRepository;
+        this.responseHeaderXFrameOptions = configuration.get(
+                VisalloDefaultResultWriterFactory.WEB_RESPONSE_HEADER_X_FRAME_OPTIONS,
+                VisalloDefaultResultWriterFactory.WEB_RESPONSE_HEADER_X_FRAME_OPTIONS_DEFAULT
+        );
     }
 
     @Handle
@@ -46,6 +56,8 @@ public class VertexHighlightedText implements ParameterizedHandler {
             @Required(name = "graphVertexId") String graphVertexId,
             @Required(name = "propertyKey") String propertyKey,
             @Optional(name = "propertyName") String propertyName,
+            @Optional(name = "start") Long start,
+            @Optional(name = "end") Long end,
             @ActiveWorkspaceId String workspaceId,
             User user,
             Authorizations authorizations,
@@ -65,17 +77,29 @@ public class VertexHighlightedText implements ParameterizedHandler {
         StreamingPropertyValue textPropertyValue = (StreamingPropertyValue) artifactVertex.getPropertyValue(propertyKey, propertyName);
         if (textPropertyValue != null) {
             LOGGER.debug("returning text for vertexId:%s property:%s", artifactVertex.getId(), propertyKey);
-            String highlightedText;
-            String text = IOUtils.toString(textPropertyValue.getInputStream(), "UTF-8");
-            if (text == null) {
-                highlightedText = "";
-            } else {
-                Iterable<Vertex> termMentions = termMentionRepository.findByOutVertexAndProperty(artifactVertex.getId(), propertyKey, propertyName, authorizationsWithTermMention);
-                highlightedText = entityHighlighter.getHighlightedText(text, termMentions, workspaceId, authorizationsWithTermMention);
-            }
+            // overlaps are resolved in start order so every term mention before the range can hide one inside it,
+            // only the term mentions after the range are left out here and the highlighter clips the rest
+            Iterable<Vertex> termMentions = termMentionRepository.findByOutVertexAndProperty(artifactVertex.getId(), propertyKey, propertyName, null, end, authorizationsWithTermMention);
 
+            // the html is streamed, so the response is committed before the result writer could add these
+            VisalloDefaultResultWriterFactory.addSecurityHeaders(response.getHttpServletResponse(), responseHeaderXFrameOptions);
             response.setContentType("text/html");
-            return highlightedText;
+            response.setCharacterEncoding("UTF-8");
+            try (
+                    Reader text = new BufferedReader(new InputStreamReader(textPropertyValue.getInputStream(), StandardCharsets.UTF_8));
+                    Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))
+            ) {
+                entityHighlighter.writeHighlightedText(
+                        text,
+                        termMentions,
+                        workspaceId,
+                        authorizationsWithTermMention,
+                        start == null ? 0 : start,
+                        end == null ? Long.MAX_VALUE : end,
+                        out
+                );
+            }
+            return null;
         }
 
         VideoTranscript videoTranscript = MediaVisalloProperties.VIDEO_TRANSCRIPT.getPropertyValue(artifactVertex, propertyKey);
@@ -14,6 +14,9 @@ import org.visallo.core.model.user.AuthorizationRepository;
 import org.visallo.core.model.user.UserRepository;
 import org.visallo.core.model.workspace.WorkspaceRepository;
 import org.visallo.core.user.User;
+import org.visallo.core.util.ClientApiConversionContext;
+import org.visallo.core.util.ClientApiConversionPool;
+import org.visallo.core.util.ClientApiProjection;
 import org.visallo.core.util.ClientApiConverter;
 import org.visallo.web.clientapi.model.ClientApiVertexMultipleResponse;
 import org.visallo.web.parameterProviders.VisalloBaseParameterProvider;
@@ -25,18 +28,21 @@ public class VertexMultiple implements ParameterizedHandler {
     private final UserRepository userRepository;
     private final WorkspaceRepository workspaceRepository;
     private final AuthorizationRepository authorizationRepository;
+    private final ClientApiConversionPool clientApiConversionPool;
 
     @Inject
     public VertexMultiple(
             Graph graph,
             UserRepository userRepository,
             WorkspaceRepository workspaceRepository,
-            AuthorizationRepository authorizationRepository
+            AuthorizationRepository authorizationRepository,
+            ClientApiConversionPool clientApiConversionPool
     ) {
         this.graph = graph;
         this.userRepository = userRepository;
         this.workspaceRepository = workspaceRepository;
         this.authorizationRepository = authorizationRepository;
+        this.clientApiConversionPool = clientApiConversionPool;
     }
 
     @Handle
@@ -44,6 +50,7 @@ public class VertexMultiple implements ParameterizedHandler {
             HttpServletRequest request,
             @Required(name = "vertexIds[]") String[] vertexIdsParam,
             @Optional(name = "fallbackToPublic", defaultValue = "false") boolean fallbackToPublic,
+            @Optional(name = "projection") String projection,
             User user
     ) throws Exception {
         ClientApiVertexMultipleResponse result = new ClientApiVertexMultipleResponse();
@@ -70,13 +77,8 @@ public class VertexMultiple implements ParameterizedHandler {
                 authorizations
         );
 
-        for (Vertex v : graphVertices) {
-            result.getVertices().add(ClientApiConverter.toClientApiVertex(
-                    v,
-                    workspaceId,
-                    authorizations
-            ));
-        }
+        ClientApiConversionContext context = new ClientApiConversionContext(workspaceId, ClientApiProjection.parse(projection));
+        result.getVertices().addAll(clientApiConversionPool.toClientApiVertices(graphVertices, authorizations, context));
         return result;
     }
 }
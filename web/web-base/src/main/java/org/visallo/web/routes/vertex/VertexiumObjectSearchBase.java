@@ -1,5 +1,6 @@
 package org.visallo.web.routes.vertex;
 
+import com.google.inject.Inject;
 import com.v5analytics.webster.annotations.Handle;
 import org.vertexium.*;
 import org.vertexium.query.*;
@@ -8,7 +9,10 @@ import org.visallo.core.model.search.QueryResultsIterableSearchResults;
 import org.visallo.core.model.search.SearchOptions;
 import org.visallo.core.model.search.VertexiumObjectSearchRunnerBase;
 import org.visallo.core.user.User;
+import org.visallo.core.util.ClientApiConversionContext;
+import org.visallo.core.util.ClientApiConversionPool;
 import org.visallo.core.util.ClientApiConverter;
+import org.visallo.core.util.ClientApiProjection;
 import org.visallo.core.util.VisalloLogger;
 import org.visallo.core.util.VisalloLoggerFactory;
 import org.visallo.web.clientapi.model.ClientApiElementSearchResponse;
@@ -32,6 +36,8 @@ public abstract class VertexiumObjectSearchBase {
     private static final Pattern DATE_TIME_PATTERN = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}T.*");
     private final VertexiumObjectSearchRunnerBase searchRunner;
     private final Graph graph;
+    private final boolean workspaceIdConversionOverridden;
+    private ClientApiConversionPool clientApiConversionPool;
 
     public VertexiumObjectSearchBase(
             Graph graph,
@@ -40,6 +46,12 @@ public abstract class VertexiumObjectSearchBase {
         checkNotNull(searchRunner, "searchRunner is required");
         this.searchRunner = searchRunner;
         this.graph = graph;
+        this.workspaceIdConversionOverridden = isWorkspaceIdConversionOverridden();
+    }
+
+    @Inject
+    public void setClientApiConversionPool(ClientApiConversionPool clientApiConversionPool) {
+        this.clientApiConversionPool = clientApiConversionPool;
     }
 
     @Handle
@@ -56,17 +68,30 @@ public abstract class VertexiumObjectSearchBase {
                 scores = ((IterableWithScores<?>) searchResults.getQueryResultsIterable()).getScores();
             }
 
-            List<ClientApiVertexiumObject> vertexiumObjects = convertElementsToClientApi(
-                    searchResults.getQueryAndData(),
-                    searchResults.getQueryResultsIterable(),
-                    scores,
-                    searchOptions.getWorkspaceId(),
-                    authorizations
-            );
+            List<ClientApiVertexiumObject> vertexiumObjects;
+            if (workspaceIdConversionOverridden) {
+                vertexiumObjects = convertElementsToClientApi(
+                        searchResults.getQueryAndData(),
+                        searchResults.getVertexiumObjects(),
+                        scores,
+                        searchOptions.getWorkspaceId(),
+                        authorizations
+                );
+            } else {
+                ClientApiProjection projection = ClientApiProjection.parse(searchOptions.getOptionalParameter("projection", String.class));
+                vertexiumObjects = convertElementsToClientApi(
+                        searchResults.getQueryAndData(),
+                        searchResults.getVertexiumObjects(),
+                        scores,
+                        new ClientApiConversionContext(searchOptions.getWorkspaceId(), projection),
+                        authorizations
+                );
+            }
 
             ClientApiElementSearchResponse results = new ClientApiElementSearchResponse();
             results.getElements().addAll(vertexiumObjects);
             results.setNextOffset((int) (searchResults.getOffset() + searchResults.getSize()));
+            results.setNextCursor(searchResults.getNextCursor());
 
             Boolean fetchReferencedElements = searchOptions.getOptionalParameter("fetchReferencedElements", Boolean.class);
             if (fetchReferencedElements != null && fetchReferencedElements) {
@@ -247,6 +272,12 @@ public abstract class VertexiumObjectSearchBase {
         return result;
     }
 
+    /**
+     * Web plugins which override this are still called, without the projection of the request.
+     *
+     * @deprecated override {@link #convertElementsToClientApi(VertexiumObjectSearchRunnerBase.QueryAndData, Iterable, Map, ClientApiConversionContext, Authorizations)}
+     */
+    @Deprecated
     protected List<ClientApiVertexiumObject> convertElementsToClientApi(
             VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
             Iterable<? extends VertexiumObject> searchResults,
@@ -254,27 +285,71 @@ public abstract class VertexiumObjectSearchBase {
             String workspaceId,
             Authorizations authorizations
     ) {
+        return convertElementsToClientApi(queryAndData, searchResults, scores, new ClientApiConversionContext(workspaceId), authorizations);
+    }
+
+    private boolean isWorkspaceIdConversionOverridden() {
+        for (Class<?> c = getClass(); c != VertexiumObjectSearchBase.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod(
+                        "convertElementsToClientApi",
+                        VertexiumObjectSearchRunnerBase.QueryAndData.class,
+                        Iterable.class,
+                        Map.class,
+                        String.class,
+                        Authorizations.class
+                );
+                return true;
+            } catch (NoSuchMethodException ex) {
+                // not overridden by this class, check its superclass
+            }
+        }
+        return false;
+    }
+
+    protected List<ClientApiVertexiumObject> convertElementsToClientApi(
+            VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
+            Iterable<? extends VertexiumObject> searchResults,
+            Map<Object, Double> scores,
+            ClientApiConversionContext conversionContext,
+            Authorizations authorizations
+    ) {
+        ClientApiConversionPool.Converter<VertexiumObject, ClientApiVertexiumObject> converter =
+                (vertexiumObject, context) -> convertElementToClientApi(queryAndData, vertexiumObject, scores, authorizations, context);
+        if (clientApiConversionPool != null) {
+            return clientApiConversionPool.convert(searchResults, conversionContext, converter);
+        }
         List<ClientApiVertexiumObject> results = new ArrayList<>();
         for (VertexiumObject vertexiumObject : searchResults) {
-            Integer commonCount = getCommonCount(queryAndData, vertexiumObject);
-            ClientApiVertexiumObject vo;
-            if (vertexiumObject instanceof Vertex) {
-                vo = ClientApiConverter.toClientApiVertex((Vertex) vertexiumObject, workspaceId, commonCount, authorizations);
-            } else if (vertexiumObject instanceof Edge) {
-                vo = ClientApiConverter.toClientApiEdge((Edge) vertexiumObject, workspaceId);
-            } else if (vertexiumObject instanceof ExtendedDataRow) {
-                vo = ClientApiConverter.toClientApiExtendedDataRow((ExtendedDataRow) vertexiumObject, workspaceId);
-            } else {
-                throw new VisalloException("Unhandled " + VertexiumObject.class.getName() + ": " + vertexiumObject.getClass().getName());
-            }
-            if (scores != null) {
-                vo.setScore(scores.get(vertexiumObject.getId()));
-            }
-            results.add(vo);
+            results.add(converter.convert(vertexiumObject, conversionContext));
         }
         return results;
     }
 
+    private ClientApiVertexiumObject convertElementToClientApi(
+            VertexiumObjectSearchRunnerBase.QueryAndData queryAndData,
+            VertexiumObject vertexiumObject,
+            Map<Object, Double> scores,
+            Authorizations authorizations,
+            ClientApiConversionContext context
+    ) {
+        Integer commonCount = getCommonCount(queryAndData, vertexiumObject);
+        ClientApiVertexiumObject vo;
+        if (vertexiumObject instanceof Vertex) {
+            vo = ClientApiConverter.toClientApiVertex((Vertex) vertexiumObject, commonCount, false, authorizations, context);
+        } else if (vertexiumObject instanceof Edge) {
+            vo = ClientApiConverter.toClientApiEdge((Edge) vertexiumObject, context);
+        } else if (vertexiumObject instanceof ExtendedDataRow) {
+            vo = ClientApiConverter.toClientApiExtendedDataRow((ExtendedDataRow) vertexiumObject, context);
+        } else {
+            throw new VisalloException("Unhandled " + VertexiumObject.class.getName() + ": " + vertexiumObject.getClass().getName());
+        }
+        if (scores != null) {
+            vo.setScore(scores.get(vertexiumObject.getId()));
+        }
+        return vo;
+    }
+
     protected Integer getCommonCount(VertexiumObjectSearchRunnerBase.QueryAndData queryAndData, VertexiumObject vertexiumObject) {
         return null;
     }
@@ -1,5 +1,7 @@
 package org.visallo.web.util.js;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.apache.commons.io.IOUtils;
 import org.visallo.core.exception.VisalloException;
 import org.visallo.core.util.VisalloLogger;
@@ -7,21 +9,33 @@ import org.visallo.core.util.VisalloLoggerFactory;
 
 import javax.script.*;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Compiles jsx with babel on a pool of up to engineCount Nashorn engines. Engines are only created when a
+ * compilation needs one, so nothing is initialized when every compilation is found in the cache.
+ */
 public class BabelExecutor {
     private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(BabelExecutor.class);
+    private static String compilerVersion;
 
-    private ScriptEngine engine;
-    private Bindings bindings;
-    private Future babelFuture;
-    private ExecutorService executorService;
+    private final int engineCount;
+    private final ExecutorService executorService;
+    private final BlockingQueue<BabelEngine> engines = new LinkedBlockingQueue<>();
+    private final AtomicInteger createdEngineCount = new AtomicInteger();
+    private final String transformJavaScript;
 
     public BabelExecutor() {
-        this.executorService = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        this(1);
+    }
+
+    public BabelExecutor(int engineCount) {
+        this.engineCount = Math.max(1, engineCount);
+        this.executorService = Executors.newFixedThreadPool(this.engineCount, new ThreadFactory() {
             @Override
             public Thread newThread(Runnable r) {
                 Thread thread = new Thread(r);
@@ -29,56 +43,90 @@ public class BabelExecutor {
                 return thread;
             }
         });
-        this.babelFuture = this.executorService.submit(() -> initializeBabel());
+        this.transformJavaScript = getResourceAsString("babel-transform.js");
     }
 
     public <T> Future<T> submit(Callable<T> task) {
-        return this.executorService.submit(() -> {
-            this.babelFuture.get();
-            return task.call();
-        });
+        return this.executorService.submit(task);
     }
 
-    public synchronized void compileWithSharedEngine(CachedCompilation cachedCompilation, SourceMapType sourceMapType) throws ScriptException {
-        ScriptEngine engine = this.engine;
-        Bindings bindings = this.bindings;
-
-        LOGGER.debug("Compiling jsx with babel: " + cachedCompilation.getResourcePath());
-
-        bindings.put("input", cachedCompilation.getInput());
-        bindings.put("resourcePath", cachedCompilation.getResourcePath());
-        bindings.put("sourcePath", cachedCompilation.getPath() + ".src");
-        bindings.put("sourceMapType", sourceMapJsType(sourceMapType));
+    public void compileWithSharedEngine(CachedCompilation cachedCompilation, SourceMapType sourceMapType) throws ScriptException {
+        BabelEngine engine = acquireEngine();
+        try {
+            engine.compile(cachedCompilation, sourceMapType);
+        } finally {
+            engines.add(engine);
+        }
+    }
 
-        Object output = engine.eval(getTransformJavaScript(), bindings);
-        Bindings result = (Bindings) output;
+    public void shutdown() {
+        executorService.shutdown();
+    }
 
-        if (result.containsKey("error")) {
-            throw new VisalloException((String) result.get("error"));
+    /**
+     * Identifies the babel version and transform so compilations cached by an older compiler are not reused.
+     */
+    public static synchronized String getCompilerVersion() {
+        if (compilerVersion == null) {
+            Hasher hasher = Hashing.sha256().newHasher();
+            for (String resourceName : new String[]{"babel.js", "babel-transform.js"}) {
+                try (InputStream in = BabelExecutor.class.getResourceAsStream(resourceName)) {
+                    if (in == null) {
+                        throw new VisalloException("Could not find babel resource: " + resourceName);
+                    }
+                    hasher.putBytes(IOUtils.toByteArray(in));
+                } catch (IOException e) {
+                    throw new VisalloException("Could not read babel resource: " + resourceName, e);
+                }
+            }
+            compilerVersion = hasher.hash().toString();
         }
+        return compilerVersion;
+    }
 
-        if (sourceMapType == SourceMapType.EXTERNAL) {
-            String sourceMap = (String) result.get("sourceMap");
-            cachedCompilation.setSourceMap(sourceMap);
+    private BabelEngine acquireEngine() {
+        try {
+            while (true) {
+                BabelEngine engine = engines.poll();
+                if (engine != null) {
+                    return engine;
+                }
+
+                int created = createdEngineCount.get();
+                if (created < engineCount) {
+                    if (createdEngineCount.compareAndSet(created, created + 1)) {
+                        try {
+                            return new BabelEngine();
+                        } catch (RuntimeException ex) {
+                            createdEngineCount.decrementAndGet();
+                            throw ex;
+                        }
+                    }
+                    continue;
+                }
+
+                engine = engines.poll(1, TimeUnit.SECONDS);
+                if (engine != null) {
+                    return engine;
+                }
+            }
+        } catch (InterruptedException e) {
+            throw new VisalloException("Interrupted waiting for babel engine", e);
         }
-        cachedCompilation.setOutput((String) result.get("code"));
     }
 
-    private String getTransformJavaScript() {
-        String transform = null;
-        try (StringWriter writer = new StringWriter()) {
-            IOUtils.copy(getClass().getResourceAsStream("babel-transform.js"), writer, StandardCharsets.UTF_8);
-            transform = writer.toString();
+    private static String getResourceAsString(String resourceName) {
+        try (InputStream in = BabelExecutor.class.getResourceAsStream(resourceName)) {
+            if (in == null) {
+                throw new VisalloException("Babel configuration not found");
+            }
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new VisalloException("Unable to read babel transformer");
         }
-        if (transform == null) {
-            throw new VisalloException("Babel configuration not found");
-        }
-        return transform;
     }
 
-    private Object sourceMapJsType(SourceMapType sourceMapType) {
+    private static Object sourceMapJsType(SourceMapType sourceMapType) {
         switch (sourceMapType) {
             case EXTERNAL: return true;
             case INLINE: return "inline";
@@ -87,26 +135,52 @@ public class BabelExecutor {
         }
     }
 
-    private void initializeBabel() {
-        try {
-            long start = System.nanoTime();
-            LOGGER.info("Initializing Babel Transformer...");
-            InputStreamReader babelReader = new InputStreamReader(getClass().getResourceAsStream("babel.js"));
+    private class BabelEngine {
+        private final ScriptEngine engine;
+        private final Bindings bindings;
+
+        BabelEngine() {
+            try {
+                long start = System.nanoTime();
+                LOGGER.info("Initializing Babel Transformer...");
+                InputStreamReader babelReader = new InputStreamReader(BabelExecutor.class.getResourceAsStream("babel.js"));
+
+                engine = new ScriptEngineManager().getEngineByName("nashorn");
+                if (engine == null) {
+                    throw new VisalloException("JavaScript Engine \"nashorn\" not found. Unable to compile jsx");
+                }
+                bindings = new SimpleBindings();
+
+                engine.eval(babelReader, bindings);
+                LOGGER.info("Babel Transformer initialized in %d seconds...", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+            } catch (VisalloException e) {
+                throw e;
+            } catch (Exception e) {
+                LOGGER.error("Unable to initialize babel transpiler: %s", e.getMessage());
+                throw new VisalloException("Unable to initialize babel transpiler", e);
+            }
+        }
 
-            ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
-            if (engine == null) {
-                throw new VisalloException("JavaScript Engine \"nashorn\" not found. Unable to compile jsx");
+        void compile(CachedCompilation cachedCompilation, SourceMapType sourceMapType) throws ScriptException {
+            LOGGER.debug("Compiling jsx with babel: " + cachedCompilation.getResourcePath());
+
+            bindings.put("input", cachedCompilation.getInput());
+            bindings.put("resourcePath", cachedCompilation.getResourcePath());
+            bindings.put("sourcePath", cachedCompilation.getPath() + ".src");
+            bindings.put("sourceMapType", sourceMapJsType(sourceMapType));
+
+            Object output = engine.eval(transformJavaScript, bindings);
+            Bindings result = (Bindings) output;
+
+            if (result.containsKey("error")) {
+                throw new VisalloException((String) result.get("error"));
             }
-            SimpleBindings bindings = new SimpleBindings();
-
-            engine.eval(babelReader, bindings);
-            LOGGER.info("Babel Transformer initialized in %d seconds...", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
-            this.engine = engine;
-            this.bindings = bindings;
-        } catch (Exception e) {
-            LOGGER.error("Unable to initialize babel transpiler: %s", e.getMessage());
-            throw new VisalloException("Unable to initialize babel transpiler", e);
+
+            if (sourceMapType == SourceMapType.EXTERNAL) {
+                String sourceMap = (String) result.get("sourceMap");
+                cachedCompilation.setSourceMap(sourceMap);
+            }
+            cachedCompilation.setOutput((String) result.get("code"));
         }
     }
-
 }
@@ -0,0 +1,162 @@
+package org.visallo.web.util.js;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Stores compiled jsx and source maps keyed by a hash of the source, the paths it is compiled for and the compiler
+ * version. Compilations are looked up first in the precompiled classpath resources written by
+ * {@link JsxPrecompiler} and then in the cache directory, so they are reused across restarts.
+ */
+public class JsxCompilationCache {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(JsxCompilationCache.class);
+    public static final String PRECOMPILED_RESOURCE_PATH = "/org/visallo/web/jsx-cache/";
+    private static final Set<PosixFilePermission> OWNER_ONLY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+    private final File directory;
+    private final String compilerVersion;
+
+    /**
+     * @param directory where compilations are stored, or null to only use precompiled compilations. Compilations
+     *                  read from the directory are served as javascript, so it is not used if another user owns it
+     *                  or can write to it.
+     */
+    public JsxCompilationCache(File directory) {
+        this(directory, BabelExecutor.getCompilerVersion());
+    }
+
+    JsxCompilationCache(File directory, String compilerVersion) {
+        this.directory = directory == null ? null : checkDirectory(directory);
+        this.compilerVersion = compilerVersion;
+    }
+
+    private static File checkDirectory(File directory) {
+        Path path = directory.toPath();
+        try {
+            if (!Files.exists(path)) {
+                Files.createDirectories(path, PosixFilePermissions.asFileAttribute(OWNER_ONLY_PERMISSIONS));
+            }
+            String owner = Files.getOwner(path).getName();
+            if (!owner.equals(System.getProperty("user.name"))) {
+                LOGGER.warn("Not caching jsx compilations in %s, it is owned by %s", directory, owner);
+                return null;
+            }
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path);
+            if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+                LOGGER.warn("Not caching jsx compilations in %s, it can be written by other users (%s)", directory, PosixFilePermissions.toString(permissions));
+                return null;
+            }
+            return directory;
+        } catch (UnsupportedOperationException ex) {
+            LOGGER.warn("Not caching jsx compilations in %s, its owner and permissions cannot be checked", directory);
+            return null;
+        } catch (IOException ex) {
+            LOGGER.warn("Not caching jsx compilations in %s", directory, ex);
+            return null;
+        }
+    }
+
+    public String getKey(CachedCompilation compilation, SourceMapType sourceMapType) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String value : new String[]{
+                compilerVersion,
+                sourceMapType.name(),
+                compilation.getResourcePath(),
+                compilation.getPath(),
+                compilation.getInput()
+        }) {
+            hasher.putString(value == null ? "" : value, StandardCharsets.UTF_8);
+            hasher.putByte((byte) 0);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Sets the output and source map of the compilation if it has been compiled before.
+     *
+     * @return true if the compilation was found
+     */
+    public boolean load(CachedCompilation compilation, SourceMapType sourceMapType) {
+        String key = getKey(compilation, sourceMapType);
+        String output = readResource(PRECOMPILED_RESOURCE_PATH + key + ".js");
+        String sourceMap;
+        if (output != null) {
+            sourceMap = readResource(PRECOMPILED_RESOURCE_PATH + key + ".map");
+        } else if (directory != null) {
+            output = readFile(new File(directory, key + ".js"));
+            sourceMap = readFile(new File(directory, key + ".map"));
+        } else {
+            return false;
+        }
+        if (output == null) {
+            return false;
+        }
+
+        LOGGER.debug("Using cached jsx compilation %s for %s", key, compilation.getResourcePath());
+        compilation.setOutput(output);
+        compilation.setSourceMap(sourceMap);
+        return true;
+    }
+
+    public void store(CachedCompilation compilation, SourceMapType sourceMapType) {
+        if (directory == null || compilation.getOutput() == null) {
+            return;
+        }
+        String key = getKey(compilation, sourceMapType);
+        try {
+            // the output is written last so a compilation is only found once its source map is in place
+            if (compilation.getSourceMap() != null) {
+                writeFile(new File(directory, key + ".map"), compilation.getSourceMap());
+            }
+            writeFile(new File(directory, key + ".js"), compilation.getOutput());
+        } catch (IOException ex) {
+            LOGGER.warn("Could not store jsx compilation of %s in %s", compilation.getResourcePath(), directory, ex);
+        }
+    }
+
+    private static void writeFile(File file, String contents) throws IOException {
+        FileUtils.forceMkdir(file.getParentFile());
+        File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try {
+            FileUtils.writeStringToFile(tempFile, contents, StandardCharsets.UTF_8);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            FileUtils.deleteQuietly(tempFile);
+        }
+    }
+
+    private static String readFile(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read cached jsx compilation %s", file, ex);
+            return null;
+        }
+    }
+
+    private static String readResource(String resourcePath) {
+        try (InputStream in = JsxCompilationCache.class.getResourceAsStream(resourcePath)) {
+            return in == null ? null : IOUtils.toString(in, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not read precompiled jsx %s", resourcePath, ex);
+            return null;
+        }
+    }
+}
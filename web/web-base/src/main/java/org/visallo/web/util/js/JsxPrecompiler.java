@@ -0,0 +1,116 @@
+package org.visallo.web.util.js;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.visallo.core.util.VisalloLogger;
+import org.visallo.core.util.VisalloLoggerFactory;
+import org.visallo.web.JsxResourceHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Compiles every .jsx resource found on a classpath into the precompiled resources read by
+ * {@link JsxCompilationCache}, so a web server built with them never has to compile jsx.
+ * <p>
+ * Usage: JsxPrecompiler outputDirectory [classpathEntry...]. Without classpath entries the classpath of the
+ * running JVM is scanned.
+ */
+public class JsxPrecompiler {
+    private static final VisalloLogger LOGGER = VisalloLoggerFactory.getLogger(JsxPrecompiler.class);
+    private final File outputDirectory;
+    private final int engineCount;
+
+    public JsxPrecompiler(File outputDirectory, int engineCount) {
+        this.outputDirectory = outputDirectory;
+        this.engineCount = engineCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: " + JsxPrecompiler.class.getName() + " outputDirectory [classpathEntry...]");
+            System.exit(1);
+        }
+        List<String> classpath = args.length > 1
+                ? Arrays.asList(args).subList(1, args.length)
+                : Arrays.asList(System.getProperty("java.class.path").split(File.pathSeparator));
+        int engineCount = Runtime.getRuntime().availableProcessors();
+        int failed = new JsxPrecompiler(new File(args[0]), engineCount).precompile(classpath);
+        if (failed > 0) {
+            LOGGER.warn("%d jsx resources could not be precompiled, they are compiled when first requested", failed);
+        }
+    }
+
+    /**
+     * @return the number of resources that failed to compile
+     */
+    public int precompile(Collection<String> classpath) throws IOException, InterruptedException {
+        Map<String, String> sources = new TreeMap<>();
+        for (String classpathEntry : classpath) {
+            findJsxResources(new File(classpathEntry), sources);
+        }
+        LOGGER.info("Precompiling %d jsx resources into %s", sources.size(), outputDirectory);
+
+        JsxCompilationCache compilationCache = new JsxCompilationCache(new File(outputDirectory, JsxCompilationCache.PRECOMPILED_RESOURCE_PATH));
+        BabelExecutor babelExecutor = new BabelExecutor(engineCount);
+        Map<String, Future<?>> compilations = new LinkedHashMap<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            String resourceName = source.getKey();
+            compilations.put(resourceName, babelExecutor.submit(() -> {
+                CachedCompilation compilation = new CachedCompilation();
+                compilation.setInput(source.getValue());
+                compilation.setResourcePath(resourceName);
+                compilation.setPath(JsxResourceHandler.getCompiledResourcePath(resourceName));
+                babelExecutor.compileWithSharedEngine(compilation, SourceMapType.EXTERNAL);
+                compilationCache.store(compilation, SourceMapType.EXTERNAL);
+                return null;
+            }));
+        }
+
+        int failed = 0;
+        for (Map.Entry<String, Future<?>> compilation : compilations.entrySet()) {
+            try {
+                compilation.getValue().get();
+            } catch (Exception ex) {
+                LOGGER.error("Could not compile %s", compilation.getKey(), ex);
+                failed++;
+            }
+        }
+        babelExecutor.shutdown();
+        return failed;
+    }
+
+    private static void findJsxResources(File classpathEntry, Map<String, String> sources) throws IOException {
+        if (classpathEntry.isDirectory()) {
+            for (File file : FileUtils.listFiles(classpathEntry, new String[]{"jsx"}, true)) {
+                String resourceName = "/" + classpathEntry.toURI().relativize(file.toURI()).getPath();
+                if (isJsxResource(resourceName)) {
+                    sources.put(resourceName, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+                }
+            }
+        } else if (classpathEntry.isFile() && classpathEntry.getName().endsWith(".jar")) {
+            try (JarFile jarFile = new JarFile(classpathEntry)) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    String resourceName = "/" + entry.getName();
+                    if (!entry.isDirectory() && isJsxResource(resourceName)) {
+                        try (InputStream in = jarFile.getInputStream(entry)) {
+                            sources.put(resourceName, IOUtils.toString(in, StandardCharsets.UTF_8));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isJsxResource(String resourceName) {
+        return resourceName.endsWith(".jsx") && !resourceName.contains("/node_modules/");
+    }
+}